@@ -0,0 +1,70 @@
+package benchmarks;
+
+import model.IPAddress;
+import model.LanNetwork;
+import model.SubnetMask;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hands out addresses of a LAN pool. Each invocation gets a fresh pool, so the measurements are single shots.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 50)
+@Fork(1)
+public class AddressPoolBenchmark {
+
+    @State(Scope.Thread)
+    public static class EmptyPool {
+        @Param({"24", "20", "16"})
+        public int subnetMaskSize;
+
+        LanNetwork network;
+
+        @Setup(Level.Invocation)
+        public void setUp() {
+            network = new LanNetwork(new IPAddress(10, 0, 0, 0), new SubnetMask(subnetMaskSize));
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class NearlyFullPool {
+        @Param({"24", "20", "16"})
+        public int subnetMaskSize;
+
+        LanNetwork network;
+
+        @Setup(Level.Invocation)
+        public void setUp() {
+            network = new LanNetwork(new IPAddress(10, 0, 0, 0), new SubnetMask(subnetMaskSize));
+            long usableAddresses = (1L << (32 - subnetMaskSize)) - 2;
+            for (long i = 0; i < usableAddresses - 1; i++) {
+                network.getNextAvailableIpAddress();
+            }
+        }
+    }
+
+    /**
+     * Fills a whole pool, the time per address includes the nearly full end of the pool.
+     */
+    @Benchmark
+    public int fillPool(EmptyPool pool) {
+        int allocated = 0;
+        while (pool.network.getNextAvailableIpAddress() != null) {
+            allocated++;
+        }
+        return allocated;
+    }
+
+    /**
+     * Takes the last free address and then fails to get another one.
+     */
+    @Benchmark
+    public IPAddress allocateLastAddress(NearlyFullPool pool) {
+        pool.network.getNextAvailableIpAddress();
+        return pool.network.getNextAvailableIpAddress();
+    }
+}
@@ -0,0 +1,50 @@
+package benchmarks;
+
+import model.MACAddress;
+import model.SwitchModel;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Looks up learned and unknown MAC addresses in the CAM table of a switch.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CamTableBenchmark {
+
+    @Param({"16", "1024", "16384"})
+    public int entries;
+
+    private SwitchModel switchModel;
+    private MACAddress[] learned;
+    private MACAddress unknown;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        switchModel = new SwitchModel(UUID.randomUUID(), Headless.randomMac(), "switch");
+        learned = new MACAddress[entries];
+        for (int i = 0; i < entries; i++) {
+            learned[i] = Headless.randomMac();
+            switchModel.learnMacAddress(learned[i], i % 48);
+        }
+        unknown = Headless.randomMac();
+    }
+
+    @Benchmark
+    public int lookupLearned() {
+        next = (next + 1) % entries;
+        return switchModel.getPort(learned[next]);
+    }
+
+    @Benchmark
+    public boolean lookupUnknown() {
+        return switchModel.knowsMacAddress(unknown);
+    }
+}
@@ -0,0 +1,27 @@
+package benchmarks;
+
+import common.SimulationEventBus;
+import controller.NetworksController;
+import controller.SimulationController;
+import model.MACAddress;
+import model.NetworkDeviceStorage;
+
+import java.util.UUID;
+
+/**
+ * Builds the simulation without a workspace view, so the benchmarks run without a display.
+ * The forwarding paths measured here never print to the log window.
+ */
+final class Headless {
+
+    private Headless() {
+    }
+
+    static SimulationController simulationController(NetworkDeviceStorage storage, SimulationEventBus eventBus) {
+        return new SimulationController(null, storage, new NetworksController(), eventBus);
+    }
+
+    static MACAddress randomMac() {
+        return new MACAddress(UUID.randomUUID().toString());
+    }
+}
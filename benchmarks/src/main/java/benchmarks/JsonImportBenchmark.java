@@ -0,0 +1,68 @@
+package benchmarks;
+
+import common.NetworkDeviceType;
+import io.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Imports a saved topology of routers, each with a switch and a LAN of PCs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonImportBenchmark {
+    private static final int PCS_PER_LAN = 50;
+
+    @Param({"1000", "10000", "100000"})
+    public int devices;
+
+    private File file;
+
+    @Setup
+    public void setUp() throws IOException {
+        List<NetworkDeviceViewDTO> deviceDtos = new ArrayList<>();
+        List<ConnectionLineDTO> connectionDtos = new ArrayList<>();
+        UUID previousRouter = null;
+        while (deviceDtos.size() < devices) {
+            int lan = deviceDtos.size() / (PCS_PER_LAN + 2);
+            UUID router = UUID.randomUUID();
+            UUID switchUuid = UUID.randomUUID();
+            deviceDtos.add(new NetworkDeviceViewDTO(router, "R" + lan, lan * 200, 100, NetworkDeviceType.ROUTER));
+            deviceDtos.add(new NetworkDeviceViewDTO(switchUuid, "S" + lan, lan * 200, 300, NetworkDeviceType.SWITCH));
+            connectionDtos.add(new ConnectionLineDTO(router, switchUuid));
+            if (previousRouter != null) {
+                connectionDtos.add(new ConnectionLineDTO(previousRouter, router));
+            }
+            for (int pc = 0; pc < PCS_PER_LAN && deviceDtos.size() < devices; pc++) {
+                UUID pcUuid = UUID.randomUUID();
+                deviceDtos.add(new NetworkDeviceViewDTO(pcUuid, "PC" + lan + "-" + pc, lan * 200 + pc * 3, 500, NetworkDeviceType.PC));
+                connectionDtos.add(new ConnectionLineDTO(switchUuid, pcUuid));
+            }
+            previousRouter = router;
+        }
+        NetworkData networkData = new NetworkData(deviceDtos, connectionDtos, new AutoNameGeneratorDTO(0, 0, 0, 0));
+        file = File.createTempFile("topology", ".json");
+        file.deleteOnExit();
+        new JsonExporter().exportNetworkData(networkData.devices(), networkData.connections(), networkData.autoNameGeneratorDTO(), file);
+    }
+
+    @TearDown
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Benchmark
+    public NetworkData importNetworkData() {
+        return new JsonImporter().importNetworkData(file);
+    }
+}
@@ -0,0 +1,74 @@
+package benchmarks;
+
+import common.GlobalEventBus;
+import common.SimulationEventBus;
+import controller.SimulationController;
+import model.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Forwards a string message through a router from its first LAN into its last one, with many interfaces and a
+ * large routing table learned over RIP.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RouterForwardingBenchmark {
+
+    @Param({"4", "64", "250"})
+    public int interfaces;
+
+    @Param({"100", "10000"})
+    public int routes;
+
+    private SimulationController simulationController;
+    private RouterInterface ingress;
+    private NetworkConnection arrival;
+    private Frame frame;
+
+    @Setup
+    public void setUp() {
+        SimulationEventBus eventBus = GlobalEventBus.openSession();
+        NetworkDeviceStorage storage = new NetworkDeviceStorage(eventBus);
+        simulationController = Headless.simulationController(storage, eventBus);
+        RouterModel router = new RouterModel(UUID.randomUUID(), Headless.randomMac(), "router");
+        storage.addRouter(router);
+        LanNetwork firstLan = null;
+        LanNetwork lastLan = null;
+        for (int i = 0; i < interfaces; i++) {
+            lastLan = router.createLanNetwork();
+            if (firstLan == null) {
+                firstLan = lastLan;
+            }
+        }
+        for (int i = 0; i < routes; i++) {
+            IPAddress networkIp = IPAddress.longToIPAddress(new IPAddress(50, 0, 0, 0).toLong() + 4L * i);
+            router.appendRoutingTable(new RouteEntry(new WanNetwork(networkIp, new SubnetMask(30)), new IPAddress(50, 0, 0, 1), 1 + i % 15));
+        }
+
+        ingress = router.getNetworksRouterInterface(firstLan);
+        RouterInterface egress = router.getNetworksRouterInterface(lastLan);
+        PCModel sender = new PCModel(UUID.randomUUID(), Headless.randomMac(), "sender");
+        PCModel recipient = new PCModel(UUID.randomUUID(), Headless.randomMac(), "recipient");
+        IPAddress recipientIp = IPAddress.longToIPAddress(lastLan.getNetworkIpAddress().toLong() + 10);
+        ingress.addConnection(sender);
+        egress.addConnection(recipient);
+        router.updateArp(recipientIp, recipient.getMacAddress());
+
+        arrival = new NetworkConnection(sender, ingress);
+        frame = new Frame(sender.getMacAddress(), ingress.getMacAddress(),
+                new Packet(IPAddress.longToIPAddress(firstLan.getNetworkIpAddress().toLong() + 10), recipientIp, new StringMessage("benchmark")));
+    }
+
+    @Benchmark
+    public NetworkConnection forwardToLastLan() {
+        simulationController.handleFrameOnRouter(ingress, arrival, frame);
+        return simulationController.receiveFrame().getKey();
+    }
+}
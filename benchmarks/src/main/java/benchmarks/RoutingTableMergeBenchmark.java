@@ -0,0 +1,57 @@
+package benchmarks;
+
+import model.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Merges a RIP advertisement into a routing table that already knows every advertised network, the steady state
+ * between topology changes, and one that changes every route, as after a neighbour's link failed.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RoutingTableMergeBenchmark {
+    private static final IPAddress NEIGHBOR = new IPAddress(50, 0, 0, 1);
+
+    @Param({"10", "100", "1000"})
+    public int routes;
+
+    private RouterModel router;
+    private RoutingTable advertisement;
+    private RoutingTable shorterAdvertisement;
+    private RoutingTable longerAdvertisement;
+    private boolean shorter;
+
+    @Setup
+    public void setUp() {
+        router = new RouterModel(UUID.randomUUID(), Headless.randomMac(), "router");
+        advertisement = new RoutingTable();
+        shorterAdvertisement = new RoutingTable();
+        longerAdvertisement = new RoutingTable();
+        for (int i = 0; i < routes; i++) {
+            IPAddress networkIp = IPAddress.longToIPAddress(new IPAddress(60, 0, 0, 0).toLong() + 4L * i);
+            WanNetwork network = new WanNetwork(networkIp, new SubnetMask(30));
+            advertisement.addEntry(new RouteEntry(network, NEIGHBOR, 2));
+            shorterAdvertisement.addEntry(new RouteEntry(network, NEIGHBOR, 1));
+            longerAdvertisement.addEntry(new RouteEntry(network, NEIGHBOR, 5));
+        }
+        router.updateRoutingTable(advertisement, NEIGHBOR);
+    }
+
+    @Benchmark
+    public boolean mergeUnchanged() {
+        return router.updateRoutingTable(advertisement, NEIGHBOR);
+    }
+
+    @Benchmark
+    public boolean mergeChangingEveryRoute() {
+        shorter = !shorter;
+        return router.updateRoutingTable(shorter ? shorterAdvertisement : longerAdvertisement, NEIGHBOR);
+    }
+}
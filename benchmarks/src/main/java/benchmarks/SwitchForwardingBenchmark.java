@@ -0,0 +1,80 @@
+package benchmarks;
+
+import common.GlobalEventBus;
+import common.SimulationEventBus;
+import controller.SimulationController;
+import javafx.util.Pair;
+import model.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Forwards a frame between two PCs through a chain of switches that already learned both MAC addresses.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SwitchForwardingBenchmark {
+
+    @Param({"1", "10", "100"})
+    public int chainLength;
+
+    private SimulationController simulationController;
+    private PCModel source;
+    private PCModel destination;
+    private Frame frame;
+
+    @Setup
+    public void setUp() {
+        SimulationEventBus eventBus = GlobalEventBus.openSession();
+        NetworkDeviceStorage storage = new NetworkDeviceStorage(eventBus);
+        simulationController = Headless.simulationController(storage, eventBus);
+        source = new PCModel(UUID.randomUUID(), Headless.randomMac(), "source");
+        destination = new PCModel(UUID.randomUUID(), Headless.randomMac(), "destination");
+
+        List<SwitchModel> chain = new ArrayList<>();
+        for (int i = 0; i < chainLength; i++) {
+            chain.add(new SwitchModel(UUID.randomUUID(), Headless.randomMac(), "switch" + i));
+        }
+        connect(source, chain.getFirst());
+        for (int i = 0; i + 1 < chainLength; i++) {
+            connect(chain.get(i), chain.get(i + 1));
+        }
+        connect(chain.getLast(), destination);
+
+        for (int i = 0; i < chainLength; i++) {
+            SwitchModel switchModel = chain.get(i);
+            NetworkDeviceModel towardsSource = i == 0 ? source : chain.get(i - 1);
+            NetworkDeviceModel towardsDestination = i == chainLength - 1 ? destination : chain.get(i + 1);
+            switchModel.learnMacAddress(source.getMacAddress(), switchModel.getPortOf(towardsSource));
+            switchModel.learnMacAddress(destination.getMacAddress(), switchModel.getPortOf(towardsDestination));
+        }
+        frame = new Frame(source.getMacAddress(), destination.getMacAddress(),
+                new Packet(new IPAddress(192, 168, 1, 2), new IPAddress(192, 168, 1, 3), new StringMessage("benchmark")));
+    }
+
+    private static void connect(NetworkDeviceModel first, NetworkDeviceModel second) {
+        first.addConnection(second);
+        second.addConnection(first);
+    }
+
+    @Benchmark
+    public int forwardThroughChain() {
+        NetworkConnection networkConnection = new NetworkConnection(source, source.getConnection());
+        int hops = 0;
+        while (networkConnection.getEndDevice() instanceof SwitchModel switchModel) {
+            simulationController.handleFrameOnSwitch(switchModel, networkConnection, frame);
+            Pair<NetworkConnection, Frame> forwarded = simulationController.receiveFrame();
+            networkConnection = forwarded.getKey();
+            hops++;
+        }
+        return hops;
+    }
+}
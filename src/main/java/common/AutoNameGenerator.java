@@ -1,7 +1,5 @@
 package common;
 
-import com.google.common.eventbus.Subscribe;
-
 public class AutoNameGenerator {
     private static final AutoNameGenerator instance = new AutoNameGenerator();
 
@@ -9,6 +7,7 @@ public class AutoNameGenerator {
     private int pcNameCounter = 0;
     private int switchNameCounter = 0;
     private int routerInterfaceNameCounter = 0;
+    private SimulationEventBus.Subscription<DecrementNameCounterRequestEvent> decrementSubscription;
 
     private AutoNameGenerator() {
     }
@@ -17,8 +16,10 @@ public class AutoNameGenerator {
         return instance;
     }
 
-    public static void registerListener(){
-        GlobalEventBus.register(getInstance());
+    public static synchronized void registerListener(){
+        if (instance.decrementSubscription == null) {
+            instance.decrementSubscription = GlobalEventBus.application().subscribe(DecrementNameCounterRequestEvent.class, instance::handleDecrementNameCounterRequestEvent);
+        }
     }
 
     public String generateRouterName() {
@@ -69,7 +70,6 @@ public class AutoNameGenerator {
         return routerInterfaceNameCounter;
     }
 
-    @Subscribe
     public void handleDecrementNameCounterRequestEvent(DecrementNameCounterRequestEvent event) {
         switch (event.type()) {
             case ROUTER -> setRouterNextAvailableNumber(getRouterNameCounter() - 1);
@@ -0,0 +1,6 @@
+package common;
+
+import java.util.UUID;
+
+public record DeviceStateChangedEvent(UUID deviceUuid, boolean up) implements Event {
+}
@@ -1,18 +1,44 @@
 package common;
 
-import com.google.common.eventbus.EventBus;
-
+/**
+ * Access point to the event buses of the application.
+ * <p>
+ * The application bus lives as long as the application. The session bus belongs to the simulation that is currently
+ * open and is replaced, dropping all of its subscribers, whenever a new simulation is opened.
+ */
 public class GlobalEventBus {
-    private static final EventBus eventBus = new EventBus();
+    private static final SimulationEventBus applicationBus = new SimulationEventBus("application");
+    private static volatile SimulationEventBus sessionBus = new SimulationEventBus("session");
 
     private GlobalEventBus() {
     }
 
-    public static void register(Object observer) {
-        eventBus.register(observer);
+    public static SimulationEventBus application() {
+        return applicationBus;
+    }
+
+    public static SimulationEventBus session() {
+        return sessionBus;
+    }
+
+    /**
+     * Closes the bus of the previous simulation and opens an empty one for a new simulation.
+     *
+     * @return the bus of the new simulation
+     */
+    public static synchronized SimulationEventBus openSession() {
+        sessionBus.close();
+        sessionBus = new SimulationEventBus("session");
+        return sessionBus;
     }
 
+    /**
+     * Posts an event to the application bus and the bus of the current simulation.
+     *
+     * @param event the event to post
+     */
     public static void post(Event event) {
-        eventBus.post(event);
+        applicationBus.post(event);
+        sessionBus.post(event);
     }
 }
@@ -0,0 +1,6 @@
+package common;
+
+import java.util.UUID;
+
+public record LinkStateChangedEvent(UUID firstDeviceUuid, UUID secondDeviceUuid, boolean up) implements Event {
+}
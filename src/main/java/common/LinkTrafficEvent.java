@@ -0,0 +1,6 @@
+package common;
+
+import java.util.UUID;
+
+public record LinkTrafficEvent(UUID firstDeviceUuid, UUID secondDeviceUuid, int aggregatedFrames, double framesPerSecond) implements Event {
+}
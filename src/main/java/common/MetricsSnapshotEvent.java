@@ -0,0 +1,6 @@
+package common;
+
+import metrics.MetricsSnapshot;
+
+public record MetricsSnapshotEvent(MetricsSnapshot snapshot) implements Event {
+}
@@ -1,10 +1,8 @@
 package common;
 
-import javafx.animation.PathTransition;
-import javafx.scene.shape.Rectangle;
-import javafx.util.Pair;
+import javafx.scene.paint.Color;
 
 import java.util.UUID;
 
-public record NetworkCommunicationAnimationRequestEvent(UUID communicationId, Pair<PathTransition, Rectangle> frameThroughNetworkConnection) implements Event {
+public record NetworkCommunicationAnimationRequestEvent(UUID communicationId, UUID startDeviceUuid, UUID endDeviceUuid, Color color, long durationMillis) implements Event {
 }
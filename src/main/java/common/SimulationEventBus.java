@@ -0,0 +1,204 @@
+package common;
+
+import javafx.application.Platform;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * Event bus with typed handlers that are resolved when they subscribe, not on every post.
+ * <p>
+ * Handlers are matched on the exact class of the posted event. Every subscription chooses how its events are
+ * delivered: on the posting thread ({@link #SAME_THREAD}), on the JavaFX Application Thread ({@link #FX_THREAD})
+ * or on any executor of its own. Closing the bus drops all subscriptions, so a finished simulation session
+ * does not keep its subscribers reachable.
+ */
+public class SimulationEventBus implements AutoCloseable {
+    /**
+     * Delivers events on the thread that posts them.
+     */
+    public static final Executor SAME_THREAD = Runnable::run;
+    /**
+     * Delivers events on the JavaFX Application Thread.
+     */
+    public static final Executor FX_THREAD = Platform::runLater;
+
+    private static final Logger logger = LogManager.getLogger(SimulationEventBus.class);
+
+    private final String name;
+    private final Map<Class<? extends Event>, List<Subscription<?>>> subscriptions = new ConcurrentHashMap<>();
+    private volatile boolean closed = false;
+
+    /**
+     * Handle of a subscribed handler.
+     *
+     * @param <E> the type of the handled events
+     */
+    public static final class Subscription<E extends Event> {
+        private final SimulationEventBus eventBus;
+        private final Class<E> eventType;
+        private final Consumer<? super E> handler;
+        private final Executor executor;
+        private volatile boolean active = true;
+
+        private Subscription(SimulationEventBus eventBus, Class<E> eventType, Consumer<? super E> handler, Executor executor) {
+            this.eventBus = eventBus;
+            this.eventType = eventType;
+            this.handler = handler;
+            this.executor = executor;
+        }
+
+        /**
+         * Stops delivering events to the handler. Events already handed to the executor are dropped as well.
+         */
+        public void unsubscribe() {
+            active = false;
+            eventBus.remove(this);
+        }
+
+        public boolean isActive() {
+            return active;
+        }
+
+        private void deliver(Event event) {
+            dispatch(() -> handle(event));
+        }
+
+        private void deliver(List<Event> events) {
+            dispatch(() -> {
+                for (Event event : events) {
+                    handle(event);
+                }
+            });
+        }
+
+        private void dispatch(Runnable delivery) {
+            try {
+                executor.execute(delivery);
+            } catch (RuntimeException e) {
+                logger.error("{} event bus could not deliver {} to its handler", eventBus.name, eventType.getSimpleName(), e);
+            }
+        }
+
+        private void handle(Event event) {
+            if (!active) {
+                return;
+            }
+            try {
+                handler.accept(eventType.cast(event));
+            } catch (RuntimeException e) {
+                logger.error("{} event bus handler of {} failed", eventBus.name, eventType.getSimpleName(), e);
+            }
+        }
+    }
+
+    /**
+     * Constructs an event bus.
+     *
+     * @param name The name of the bus used in log messages.
+     */
+    public SimulationEventBus(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Subscribes a handler delivered on the posting thread.
+     *
+     * @param eventType The class of the handled events.
+     * @param handler   The handler.
+     * @param <E>       The type of the handled events.
+     * @return the subscription of the handler.
+     */
+    public <E extends Event> Subscription<E> subscribe(Class<E> eventType, Consumer<? super E> handler) {
+        return subscribe(eventType, handler, SAME_THREAD);
+    }
+
+    /**
+     * Subscribes a handler delivered by an executor. Events are handed to the executor in the order they are posted,
+     * so a single-threaded executor handles them in that order.
+     *
+     * @param eventType The class of the handled events.
+     * @param handler   The handler.
+     * @param executor  The executor running the handler, e.g. {@link #SAME_THREAD} or {@link #FX_THREAD}.
+     * @param <E>       The type of the handled events.
+     * @return the subscription of the handler.
+     * @throws IllegalStateException if the bus has been closed.
+     */
+    public <E extends Event> Subscription<E> subscribe(Class<E> eventType, Consumer<? super E> handler, Executor executor) {
+        if (closed) {
+            throw new IllegalStateException(String.format("%s event bus is closed", name));
+        }
+        Subscription<E> subscription = new Subscription<>(this, eventType, handler, executor);
+        subscriptions.computeIfAbsent(eventType, type -> new CopyOnWriteArrayList<>()).add(subscription);
+        return subscription;
+    }
+
+    /**
+     * Posts an event to the handlers of its class.
+     *
+     * @param event The event to post.
+     */
+    public void post(Event event) {
+        List<Subscription<?>> handlers = subscriptions.get(event.getClass());
+        if (closed || handlers == null) {
+            return;
+        }
+        for (Subscription<?> subscription : handlers) {
+            subscription.deliver(event);
+        }
+    }
+
+    /**
+     * Posts several events at once. Every handler receives all of its events in one delivery,
+     * which for the {@link #FX_THREAD} means a single pulse instead of one per event.
+     *
+     * @param events The events to post, in order.
+     */
+    public void postAll(Collection<? extends Event> events) {
+        if (closed) {
+            return;
+        }
+        Map<Subscription<?>, List<Event>> batches = new LinkedHashMap<>();
+        for (Event event : events) {
+            List<Subscription<?>> handlers = subscriptions.get(event.getClass());
+            if (handlers == null) {
+                continue;
+            }
+            for (Subscription<?> subscription : handlers) {
+                batches.computeIfAbsent(subscription, unused -> new ArrayList<>()).add(event);
+            }
+        }
+        batches.forEach(Subscription::deliver);
+    }
+
+    /**
+     * Unsubscribes every handler. Events posted to a closed bus are ignored.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (List<Subscription<?>> handlers : subscriptions.values()) {
+            for (Subscription<?> subscription : handlers) {
+                subscription.active = false;
+            }
+        }
+        subscriptions.clear();
+        logger.debug("{} event bus closed", name);
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    private void remove(Subscription<?> subscription) {
+        List<Subscription<?>> handlers = subscriptions.get(subscription.eventType);
+        if (handlers != null) {
+            handlers.remove(subscription);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package common;
+
+import java.util.UUID;
+
+/**
+ * Two UUIDs, such as the devices at the ends of a link, equal whichever of them is given first.
+ */
+public record UnorderedUuidPair(UUID lower, UUID higher) {
+    public static UnorderedUuidPair of(UUID first, UUID second) {
+        return first.compareTo(second) <= 0 ? new UnorderedUuidPair(first, second) : new UnorderedUuidPair(second, first);
+    }
+}
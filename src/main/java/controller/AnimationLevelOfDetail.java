@@ -0,0 +1,125 @@
+package controller;
+
+import common.LinkTrafficEvent;
+import common.UnorderedUuidPair;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Decides which frames are animated. Each link animates at most a configured number of frames per second of simulated
+ * time and the whole workspace at most a fixed number of frames at once. Frames over the budget are only counted,
+ * and the counts are reported per link so the view can render them as traffic intensity instead of separate nodes.
+ */
+public class AnimationLevelOfDetail {
+    public static final int UNLIMITED = Integer.MAX_VALUE;
+    public static final int DEFAULT_MAX_ANIMATED_FRAMES_PER_LINK_PER_SECOND = 4;
+    public static final int DEFAULT_MAX_FRAMES_IN_FLIGHT = 200;
+    private static final long WINDOW_MILLIS = 1000;
+
+    private volatile int maxAnimatedFramesPerLinkPerSecond = DEFAULT_MAX_ANIMATED_FRAMES_PER_LINK_PER_SECOND;
+    private volatile int maxFramesInFlight = DEFAULT_MAX_FRAMES_IN_FLIGHT;
+    private final AtomicInteger framesInFlight = new AtomicInteger();
+    private final Map<UnorderedUuidPair, LinkActivity> linkActivities = new ConcurrentHashMap<>();
+
+    /**
+     * Frames seen on a link in the current window.
+     */
+    private static class LinkActivity {
+        private long windowStartMillis = -1;
+        private int animatedInWindow = 0;
+        private int aggregatedSinceReport = 0;
+        private boolean reportedTraffic = false;
+    }
+
+    /**
+     * Decides if a frame travelling between two devices is animated. Every frame that is animated must be
+     * reported back with {@link #animationFinished()}.
+     *
+     * @param startDeviceUuid The device the frame leaves.
+     * @param endDeviceUuid   The device the frame arrives to.
+     * @param nowMillis       The current simulated time.
+     * @return true if the frame should be animated, false if it is only counted.
+     */
+    public boolean tryAnimate(UUID startDeviceUuid, UUID endDeviceUuid, long nowMillis) {
+        LinkActivity linkActivity = linkActivities.computeIfAbsent(UnorderedUuidPair.of(startDeviceUuid, endDeviceUuid), key -> new LinkActivity());
+        synchronized (linkActivity) {
+            if (linkActivity.windowStartMillis < 0 || nowMillis - linkActivity.windowStartMillis >= WINDOW_MILLIS) {
+                linkActivity.windowStartMillis = nowMillis;
+                linkActivity.animatedInWindow = 0;
+            }
+            if (linkActivity.animatedInWindow < maxAnimatedFramesPerLinkPerSecond && reserveFrameInFlight()) {
+                linkActivity.animatedInWindow++;
+                return true;
+            }
+            linkActivity.aggregatedSinceReport++;
+            return false;
+        }
+    }
+
+    private boolean reserveFrameInFlight() {
+        int inFlight;
+        do {
+            inFlight = framesInFlight.get();
+            if (inFlight >= maxFramesInFlight) {
+                return false;
+            }
+        } while (!framesInFlight.compareAndSet(inFlight, inFlight + 1));
+        return true;
+    }
+
+    /**
+     * Releases the place of a finished animation.
+     */
+    public void animationFinished() {
+        framesInFlight.updateAndGet(inFlight -> Math.max(inFlight - 1, 0));
+    }
+
+    /**
+     * Collects the frames counted instead of animated on every link since the previous call.
+     * A link that had aggregated traffic before gets one more report with no frames, so its indicator can be cleared.
+     *
+     * @param elapsedMillis The simulated time since the previous call, used to compute the rate.
+     * @return one event per link with traffic to display or clear.
+     */
+    public List<LinkTrafficEvent> drainAggregatedTraffic(long elapsedMillis) {
+        List<LinkTrafficEvent> events = new ArrayList<>();
+        linkActivities.forEach((link, linkActivity) -> {
+            synchronized (linkActivity) {
+                if (linkActivity.aggregatedSinceReport == 0 && !linkActivity.reportedTraffic) {
+                    return;
+                }
+                double framesPerSecond = elapsedMillis > 0 ? linkActivity.aggregatedSinceReport * 1000.0 / elapsedMillis : 0;
+                events.add(new LinkTrafficEvent(link.lower(), link.higher(), linkActivity.aggregatedSinceReport, framesPerSecond));
+                linkActivity.reportedTraffic = linkActivity.aggregatedSinceReport > 0;
+                linkActivity.aggregatedSinceReport = 0;
+            }
+        });
+        return events;
+    }
+
+    public int getMaxAnimatedFramesPerLinkPerSecond() {
+        return maxAnimatedFramesPerLinkPerSecond;
+    }
+
+    /**
+     * Sets how many frames per second of simulated time each link animates.
+     *
+     * @param maxAnimatedFramesPerLinkPerSecond The limit, 0 to only show counters, {@link #UNLIMITED} to animate every frame.
+     */
+    public void setMaxAnimatedFramesPerLinkPerSecond(int maxAnimatedFramesPerLinkPerSecond) {
+        if (maxAnimatedFramesPerLinkPerSecond < 0) {
+            throw new IllegalArgumentException("limit must not be negative");
+        }
+        this.maxAnimatedFramesPerLinkPerSecond = maxAnimatedFramesPerLinkPerSecond;
+        this.maxFramesInFlight = maxAnimatedFramesPerLinkPerSecond == UNLIMITED ? UNLIMITED : DEFAULT_MAX_FRAMES_IN_FLIGHT;
+    }
+
+    public int getFramesInFlight() {
+        return framesInFlight.get();
+    }
+}
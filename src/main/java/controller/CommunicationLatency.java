@@ -0,0 +1,86 @@
+package controller;
+
+import metrics.Histogram;
+import metrics.HistogramSnapshot;
+import metrics.MetricsRegistry;
+import model.PCModel;
+import model.PacketStamp;
+
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Measures how long string messages take from the moment a PC wants to communicate until the recipient receives them,
+ * in simulated time.
+ * <p>
+ * A communication that first needs DHCP or ARP is not sent right away. Its start is remembered per PC pair and used
+ * when the pair's message is eventually sent, so the bootstrapping shows in the latency. Starts older than
+ * {@value #PENDING_EXPIRY_MILLIS} ms are considered abandoned. Latencies are kept in one histogram per pair of
+ * source and destination subnets, registered as {@code latency.<source subnet>-><destination subnet>} in milliseconds.
+ */
+public class CommunicationLatency {
+    private static final long PENDING_EXPIRY_MILLIS = 60_000;
+
+    private record PcPair(UUID initiatorUuid, UUID recipientUuid) {
+    }
+
+    private final MetricsRegistry registry;
+    private final Map<PcPair, Long> pendingStarts = new ConcurrentHashMap<>();
+    private final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+
+    public CommunicationLatency(MetricsRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Remembers that a PC wants to communicate, unless the pair already waits for an earlier request.
+     *
+     * @param initiator The PC starting the communication.
+     * @param recipient The PC receiving the communication.
+     * @param nowMillis The current simulated time.
+     */
+    public void communicationRequested(PCModel initiator, PCModel recipient, long nowMillis) {
+        pendingStarts.merge(new PcPair(initiator.getUuid(), recipient.getUuid()), nowMillis,
+                (pending, now) -> now - pending > PENDING_EXPIRY_MILLIS ? now : pending);
+    }
+
+    /**
+     * Creates the stamp of a message that is being sent, ending the pair's pending request.
+     *
+     * @param initiator The PC sending the message, must be configured.
+     * @param recipient The PC receiving the message.
+     * @param nowMillis The current simulated time.
+     * @return the stamp carrying the time of the pair's request
+     */
+    public PacketStamp stamp(PCModel initiator, PCModel recipient, long nowMillis) {
+        Long pending = pendingStarts.remove(new PcPair(initiator.getUuid(), recipient.getUuid()));
+        long start = pending == null || nowMillis - pending > PENDING_EXPIRY_MILLIS ? nowMillis : pending;
+        return new PacketStamp(start, initiator.getIpAddress(), initiator.getSubnetMask());
+    }
+
+    /**
+     * Records the latency of a delivered message.
+     *
+     * @param stamp     The stamp of the delivered packet.
+     * @param recipient The PC that received the packet.
+     * @param nowMillis The current simulated time.
+     */
+    public void delivered(PacketStamp stamp, PCModel recipient, long nowMillis) {
+        String subnetPair = stamp.sourceSubnet() + "->" + PacketStamp.subnet(recipient.getIpAddress(), recipient.getSubnetMask());
+        histograms.computeIfAbsent(subnetPair, key -> registry.histogram("latency." + key)).record(nowMillis - stamp.createdAtMillis());
+    }
+
+    /**
+     * Summarizes the measured latencies.
+     *
+     * @return one histogram summary per subnet pair, e.g. {@code 192.168.1.0/24->192.168.2.0/24}, in milliseconds
+     */
+    public SortedMap<String, HistogramSnapshot> getReport() {
+        SortedMap<String, HistogramSnapshot> report = new TreeMap<>();
+        histograms.forEach((subnetPair, histogram) -> report.put(subnetPair, histogram.snapshot()));
+        return report;
+    }
+}
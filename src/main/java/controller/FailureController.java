@@ -0,0 +1,601 @@
+package controller;
+
+import common.DeviceStateChangedEvent;
+import common.LinkStateChangedEvent;
+import common.SimulationEventBus;
+import javafx.scene.paint.Color;
+import model.*;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import view.SimulationWorkspaceView;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Takes links and devices down and back up at runtime, either immediately or at a given simulated time,
+ * and measures how long routing takes to reconverge and how many frames are lost meanwhile.
+ * <p>
+ * Failures flush CAM tables, ARP caches and routing tables, so they are applied on the simulation worker that
+ * delivers frames and runs the timer wheel, never concurrently with a frame changing the same tables.
+ */
+public class FailureController {
+    private static final Logger logger = LogManager.getLogger(FailureController.class);
+
+    private final NetworkDeviceStorage storage;
+    private final NetworksController networksController;
+    private final SimulationWorkspaceView simulationWorkspaceView;
+    private final SimulationClock clock;
+    private final TimerWheel timerWheel;
+    private final Executor simulationWorker;
+    private final SimulationEventBus eventBus;
+
+    private final Set<UUID> failedDevices = ConcurrentHashMap.newKeySet();
+    private final Set<Link> failedLinks = ConcurrentHashMap.newKeySet();
+    private final List<OutageReport> outageReports = new CopyOnWriteArrayList<>();
+
+    private volatile Outage activeOutage;
+    private long lastRoutingChangeMillis = 0;
+    private long previousRipRoundMillis = -1;
+
+    /**
+     * Link between two top-level devices, independent of the direction it is referred to.
+     */
+    private record Link(UUID first, UUID second) {
+        static Link of(NetworkDeviceModel first, NetworkDeviceModel second) {
+            if (first.getUuid().compareTo(second.getUuid()) <= 0) {
+                return new Link(first.getUuid(), second.getUuid());
+            }
+            return new Link(second.getUuid(), first.getUuid());
+        }
+    }
+
+    /**
+     * Disruption that is still being measured.
+     */
+    private static class Outage {
+        private final long startedAtMillis;
+        private final StringBuilder description;
+        private final AtomicLong framesDelivered = new AtomicLong();
+        private final AtomicLong framesLost = new AtomicLong();
+
+        Outage(String description, long startedAtMillis) {
+            this.description = new StringBuilder(description);
+            this.startedAtMillis = startedAtMillis;
+        }
+    }
+
+    /**
+     * Constructs a failure controller.
+     *
+     * @param storage                 Storage for all network devices.
+     * @param networksController      Controller that manages networks shared by routers.
+     * @param simulationWorkspaceView The view receiving failure and reconvergence reports.
+     * @param clock                   The simulation clock outages are measured against.
+     * @param timerWheel              The timer wheel scheduled failures are placed on, driven by the simulation clock
+     *                                and advanced on the simulation worker.
+     * @param simulationWorker        The single thread that delivers frames, failures requested from other threads run on it.
+     * @param eventBus                The bus of the simulation session, link and device state changes are posted to it.
+     */
+    public FailureController(NetworkDeviceStorage storage, NetworksController networksController, SimulationWorkspaceView simulationWorkspaceView, SimulationClock clock, TimerWheel timerWheel,
+                             Executor simulationWorker, SimulationEventBus eventBus) {
+        this.storage = storage;
+        this.networksController = networksController;
+        this.simulationWorkspaceView = simulationWorkspaceView;
+        this.clock = clock;
+        this.timerWheel = timerWheel;
+        this.simulationWorker = simulationWorker;
+        this.eventBus = eventBus;
+    }
+
+    /**
+     * Router interfaces are part of their router, failures always apply to the router itself.
+     */
+    private static NetworkDeviceModel topLevel(NetworkDeviceModel networkDeviceModel) {
+        if (networkDeviceModel instanceof RouterInterface routerInterface) {
+            return routerInterface.getInterfacesRouter();
+        }
+        return networkDeviceModel;
+    }
+
+    /**
+     * Checks if a frame can currently travel over the network connection.
+     *
+     * @param networkConnection The network connection to check.
+     * @return true if both devices and the link between them are up.
+     */
+    public boolean isConnectionUp(NetworkConnection networkConnection) {
+        if (failedDevices.isEmpty() && failedLinks.isEmpty()) {
+            return true;
+        }
+        NetworkDeviceModel start = topLevel(networkConnection.getStartDevice());
+        NetworkDeviceModel end = topLevel(networkConnection.getEndDevice());
+        return !failedDevices.contains(start.getUuid())
+                && !failedDevices.contains(end.getUuid())
+                && !failedLinks.contains(Link.of(start, end));
+    }
+
+    public boolean isDeviceFailed(NetworkDeviceModel networkDeviceModel) {
+        return failedDevices.contains(topLevel(networkDeviceModel).getUuid());
+    }
+
+    public boolean isLinkFailed(NetworkDeviceModel first, NetworkDeviceModel second) {
+        return failedLinks.contains(Link.of(topLevel(first), topLevel(second)));
+    }
+
+    /**
+     * Takes the link between two devices down on the simulation worker, flushing the CAM and ARP entries learned over it
+     * and withdrawing the routes that used it.
+     *
+     * @param first  One end of the link.
+     * @param second The other end of the link.
+     * @return Completes with true if the link was up before.
+     */
+    public CompletableFuture<Boolean> failLink(NetworkDeviceModel first, NetworkDeviceModel second) {
+        return onSimulationWorker(String.format("fail link %s %s", first, second), () -> applyLinkFailure(first, second));
+    }
+
+    /**
+     * Brings a failed link back up on the simulation worker.
+     *
+     * @param first  One end of the link.
+     * @param second The other end of the link.
+     * @return Completes with true if the link was down before.
+     */
+    public CompletableFuture<Boolean> restoreLink(NetworkDeviceModel first, NetworkDeviceModel second) {
+        return onSimulationWorker(String.format("restore link %s %s", first, second), () -> applyLinkRestore(first, second));
+    }
+
+    /**
+     * Takes a device down on the simulation worker. Frames to and from it are lost, the entries other devices learned
+     * about it are flushed and a failed switch forgets its CAM table.
+     *
+     * @param networkDeviceModel The device to take down.
+     * @return Completes with true if the device was up before.
+     */
+    public CompletableFuture<Boolean> failDevice(NetworkDeviceModel networkDeviceModel) {
+        return onSimulationWorker(String.format("fail device %s", networkDeviceModel), () -> applyDeviceFailure(networkDeviceModel));
+    }
+
+    /**
+     * Brings a failed device back up on the simulation worker.
+     *
+     * @param networkDeviceModel The device to bring up.
+     * @return Completes with true if the device was down before.
+     */
+    public CompletableFuture<Boolean> restoreDevice(NetworkDeviceModel networkDeviceModel) {
+        return onSimulationWorker(String.format("restore device %s", networkDeviceModel), () -> applyDeviceRestore(networkDeviceModel));
+    }
+
+    /**
+     * Runs a failure or a restoration on the simulation worker.
+     *
+     * @param description What the action does, for the log if it fails.
+     * @param action      The action, returning whether it changed anything.
+     * @return Completes with the result of the action, or exceptionally if it failed or the simulation is shutting down.
+     */
+    private CompletableFuture<Boolean> onSimulationWorker(String description, BooleanSupplier action) {
+        try {
+            return CompletableFuture.supplyAsync(action::getAsBoolean, simulationWorker).whenComplete((changed, e) -> {
+                if (e != null) {
+                    logger.error("Failed to {}", description, e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            logger.debug("Simulation is shutting down, '{}' dropped", description);
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Takes the link between two devices down, runs on the simulation worker.
+     *
+     * @return true if the link was up before.
+     */
+    private boolean applyLinkFailure(NetworkDeviceModel first, NetworkDeviceModel second) {
+        first = topLevel(first);
+        second = topLevel(second);
+        if (!failedLinks.add(Link.of(first, second))) {
+            return false;
+        }
+        String description = String.format("link %s <-> %s down", first, second);
+        beginOutage(description);
+        isolate(first, second);
+        isolate(second, first);
+
+        logger.info("Failure injected: {}", description);
+        simulationWorkspaceView.printToLogWindow(String.format("Failure: %s\n", description), Color.RED);
+        eventBus.post(new LinkStateChangedEvent(first.getUuid(), second.getUuid(), false));
+        return true;
+    }
+
+    /**
+     * Brings a failed link back up, runs on the simulation worker.
+     *
+     * @return true if the link was down before.
+     */
+    private boolean applyLinkRestore(NetworkDeviceModel first, NetworkDeviceModel second) {
+        first = topLevel(first);
+        second = topLevel(second);
+        if (!failedLinks.remove(Link.of(first, second))) {
+            return false;
+        }
+        String description = String.format("link %s <-> %s up", first, second);
+        beginOutage(description);
+        if (first instanceof RouterModel firstRouter && second instanceof RouterModel secondRouter) {
+            reestablishRoutesOverLink(firstRouter, secondRouter);
+        }
+
+        logger.info("Failure repaired: {}", description);
+        simulationWorkspaceView.printToLogWindow(String.format("Repair: %s\n", description), Color.GREEN);
+        eventBus.post(new LinkStateChangedEvent(first.getUuid(), second.getUuid(), true));
+        return true;
+    }
+
+    /**
+     * Takes a device down, runs on the simulation worker.
+     *
+     * @return true if the device was up before.
+     */
+    private boolean applyDeviceFailure(NetworkDeviceModel networkDeviceModel) {
+        NetworkDeviceModel device = topLevel(networkDeviceModel);
+        if (!failedDevices.add(device.getUuid())) {
+            return false;
+        }
+        String description = String.format("device %s down", device);
+        beginOutage(description);
+        for (NetworkDeviceModel neighbour : getNeighbours(device)) {
+            isolate(neighbour, device);
+        }
+        if (device instanceof SwitchModel switchModel) {
+            switchModel.getCamTable().clear();
+        }
+
+        logger.info("Failure injected: {}", description);
+        simulationWorkspaceView.printToLogWindow(String.format("Failure: %s\n", description), Color.RED);
+        eventBus.post(new DeviceStateChangedEvent(device.getUuid(), false));
+        return true;
+    }
+
+    /**
+     * Brings a failed device back up, runs on the simulation worker.
+     *
+     * @return true if the device was down before.
+     */
+    private boolean applyDeviceRestore(NetworkDeviceModel networkDeviceModel) {
+        NetworkDeviceModel device = topLevel(networkDeviceModel);
+        if (!failedDevices.remove(device.getUuid())) {
+            return false;
+        }
+        String description = String.format("device %s up", device);
+        beginOutage(description);
+        if (device instanceof RouterModel router) {
+            for (RouterModel neighbour : networksController.getRoutersRipConnections(router)) {
+                if (!isDeviceFailed(neighbour) && !isLinkFailed(router, neighbour)) {
+                    reestablishRoutesOverLink(router, neighbour);
+                }
+            }
+        }
+
+        logger.info("Failure repaired: {}", description);
+        simulationWorkspaceView.printToLogWindow(String.format("Repair: %s\n", description), Color.GREEN);
+        eventBus.post(new DeviceStateChangedEvent(device.getUuid(), true));
+        return true;
+    }
+
+    /**
+     * Removes what a device learned over its link to a neighbour that is no longer reachable.
+     *
+     * @param device    The device that stays up.
+     * @param neighbour The neighbour that became unreachable.
+     */
+    private void isolate(NetworkDeviceModel device, NetworkDeviceModel neighbour) {
+        if (device instanceof SwitchModel switchModel) {
+            int port = switchModel.getPortOf(getSwitchPortDevice(switchModel, neighbour));
+            if (port >= 0) {
+                switchModel.getCamTable().removeEntriesForPort(port);
+            }
+        }
+        if (device instanceof RouterModel router && neighbour instanceof RouterModel neighbourRouter) {
+            withdrawRoutesOverLink(router, neighbourRouter);
+        }
+        flushMacs(getEndpointMacs(neighbour, device));
+    }
+
+    /**
+     * Switches are connected to the router interface, not the router itself.
+     */
+    private static NetworkDeviceModel getSwitchPortDevice(SwitchModel switchModel, NetworkDeviceModel neighbour) {
+        if (neighbour instanceof RouterModel router) {
+            return router.getInterfaceTowards(switchModel);
+        }
+        return neighbour;
+    }
+
+    private void withdrawRoutesOverLink(RouterModel router, RouterModel neighbour) {
+        Network sharedNetwork = networksController.getSharedNetwork(router, neighbour);
+        if (sharedNetwork == null) {
+            return;
+        }
+        boolean changed = router.removeRoute(sharedNetwork);
+        changed |= router.removeRoutesVia(neighbour.getIpAddressInNetwork(sharedNetwork));
+        if (changed) {
+            recordRoutingChange();
+        }
+    }
+
+    private void reestablishRoutesOverLink(RouterModel first, RouterModel second) {
+        Network sharedNetwork = networksController.getSharedNetwork(first, second);
+        if (sharedNetwork == null) {
+            return;
+        }
+        first.restoreDirectRoute(sharedNetwork);
+        second.restoreDirectRoute(sharedNetwork);
+        recordRoutingChange();
+    }
+
+    /**
+     * Collects the MAC addresses a device uses on its link towards a neighbour.
+     *
+     * @param device    The device whose addresses are collected.
+     * @param neighbour The device on the other end of the link.
+     * @return The MAC addresses others may have learned for the device over this link.
+     */
+    private List<MACAddress> getEndpointMacs(NetworkDeviceModel device, NetworkDeviceModel neighbour) {
+        List<MACAddress> macAddresses = new ArrayList<>();
+        if (device instanceof PCModel pcModel) {
+            macAddresses.add(pcModel.getMacAddress());
+        } else if (device instanceof RouterModel router) {
+            RouterInterface routerInterface = null;
+            if (neighbour instanceof RouterModel neighbourRouter) {
+                Network sharedNetwork = networksController.getSharedNetwork(router, neighbourRouter);
+                if (sharedNetwork != null) {
+                    routerInterface = router.getNetworksRouterInterface(sharedNetwork);
+                }
+            } else {
+                routerInterface = router.getInterfaceTowards(neighbour);
+            }
+            if (routerInterface != null) {
+                macAddresses.add(routerInterface.getMacAddress());
+            }
+        }
+        return macAddresses;
+    }
+
+    /**
+     * Removes the MAC addresses from every ARP cache and CAM table.
+     */
+    private void flushMacs(List<MACAddress> macAddresses) {
+        if (macAddresses.isEmpty()) {
+            return;
+        }
+        for (NetworkDeviceModel networkDeviceModel : storage.getNetworkDeviceModels()) {
+            for (MACAddress macAddress : macAddresses) {
+                if (networkDeviceModel instanceof PCModel pcModel) {
+                    pcModel.flushArp(macAddress);
+                } else if (networkDeviceModel instanceof RouterModel router) {
+                    router.flushArp(macAddress);
+                } else if (networkDeviceModel instanceof SwitchModel switchModel) {
+                    switchModel.forgetMacAddress(macAddress);
+                }
+            }
+        }
+    }
+
+    /**
+     * Collects the top-level devices directly linked to a device.
+     */
+    private Set<NetworkDeviceModel> getNeighbours(NetworkDeviceModel device) {
+        Set<NetworkDeviceModel> neighbours = new HashSet<>();
+        if (device instanceof PCModel pcModel && pcModel.getConnection() != null) {
+            neighbours.add(topLevel(pcModel.getConnection()));
+        } else if (device instanceof SwitchModel switchModel) {
+            for (SwitchConnection switchConnection : switchModel.getSwitchConnections()) {
+                neighbours.add(topLevel(switchConnection.getNetworkDeviceModel()));
+            }
+        } else if (device instanceof RouterModel router) {
+            neighbours.addAll(networksController.getRoutersRipConnections(router));
+            for (RouterInterface routerInterface : router.getRouterInterfaces().values()) {
+                neighbours.addAll(routerInterface.getDirectConnections());
+            }
+        }
+        return neighbours;
+    }
+
+    /**
+     * Schedules a link failure at a simulated time.
+     *
+     * @param first    One end of the link.
+     * @param second   The other end of the link.
+     * @param atMillis The simulated time in milliseconds.
+     */
+    public void scheduleLinkFailure(NetworkDeviceModel first, NetworkDeviceModel second, long atMillis) {
+        schedule(atMillis, String.format("fail link %s %s", first, second), () -> applyLinkFailure(first, second));
+    }
+
+    /**
+     * Schedules a link restoration at a simulated time.
+     *
+     * @param first    One end of the link.
+     * @param second   The other end of the link.
+     * @param atMillis The simulated time in milliseconds.
+     */
+    public void scheduleLinkRestore(NetworkDeviceModel first, NetworkDeviceModel second, long atMillis) {
+        schedule(atMillis, String.format("restore link %s %s", first, second), () -> applyLinkRestore(first, second));
+    }
+
+    /**
+     * Schedules a device failure at a simulated time.
+     *
+     * @param networkDeviceModel The device to take down.
+     * @param atMillis           The simulated time in milliseconds.
+     */
+    public void scheduleDeviceFailure(NetworkDeviceModel networkDeviceModel, long atMillis) {
+        schedule(atMillis, String.format("fail device %s", networkDeviceModel), () -> applyDeviceFailure(networkDeviceModel));
+    }
+
+    /**
+     * Schedules a device restoration at a simulated time.
+     *
+     * @param networkDeviceModel The device to bring up.
+     * @param atMillis           The simulated time in milliseconds.
+     */
+    public void scheduleDeviceRestore(NetworkDeviceModel networkDeviceModel, long atMillis) {
+        schedule(atMillis, String.format("restore device %s", networkDeviceModel), () -> applyDeviceRestore(networkDeviceModel));
+    }
+
+    /**
+     * Places an action on the timer wheel, which runs it on the simulation worker.
+     */
+    private void schedule(long atMillis, String description, Runnable action) {
+        timerWheel.scheduleAt(() -> {
+            logger.debug("Executing scheduled '{}' at {} ms", description, clock.currentTimeMillis());
+            action.run();
+        }, atMillis);
+        logger.info("Scheduled '{}' at {} ms", description, atMillis);
+    }
+
+    /**
+     * Schedules the failures and restorations of a script. Every non-empty line not starting with '#' has the form
+     * {@code <time> fail|restore link <device> <device>} or {@code <time> fail|restore device <device>},
+     * where time is in simulated milliseconds, optionally with an {@code ms} or {@code s} suffix,
+     * and devices are referred to by name. The whole script is validated before anything is scheduled.
+     *
+     * @param lines The lines of the script.
+     * @throws IllegalArgumentException if a line cannot be parsed or refers to an unknown device.
+     */
+    public void loadScript(List<String> lines) {
+        List<Runnable> schedulings = new ArrayList<>();
+        for (int lineNumber = 1; lineNumber <= lines.size(); lineNumber++) {
+            String line = lines.get(lineNumber - 1).strip();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] tokens = line.split("\\s+");
+            if (tokens.length < 4) {
+                throw new IllegalArgumentException(String.format("line %d: expected '<time> fail|restore link|device <device>...'", lineNumber));
+            }
+            long atMillis = parseTime(tokens[0], lineNumber);
+            boolean fail = switch (tokens[1]) {
+                case "fail" -> true;
+                case "restore" -> false;
+                default -> throw new IllegalArgumentException(String.format("line %d: unknown action '%s'", lineNumber, tokens[1]));
+            };
+            switch (tokens[2]) {
+                case "link" -> {
+                    if (tokens.length != 5) {
+                        throw new IllegalArgumentException(String.format("line %d: a link needs exactly two devices", lineNumber));
+                    }
+                    NetworkDeviceModel first = resolveDevice(tokens[3], lineNumber);
+                    NetworkDeviceModel second = resolveDevice(tokens[4], lineNumber);
+                    schedulings.add(fail ? () -> scheduleLinkFailure(first, second, atMillis) : () -> scheduleLinkRestore(first, second, atMillis));
+                }
+                case "device" -> {
+                    if (tokens.length != 4) {
+                        throw new IllegalArgumentException(String.format("line %d: expected exactly one device", lineNumber));
+                    }
+                    NetworkDeviceModel device = resolveDevice(tokens[3], lineNumber);
+                    schedulings.add(fail ? () -> scheduleDeviceFailure(device, atMillis) : () -> scheduleDeviceRestore(device, atMillis));
+                }
+                default -> throw new IllegalArgumentException(String.format("line %d: unknown target '%s'", lineNumber, tokens[2]));
+            }
+        }
+        schedulings.forEach(Runnable::run);
+    }
+
+    private static long parseTime(String token, int lineNumber) {
+        try {
+            if (token.endsWith("ms")) {
+                return Long.parseLong(token.substring(0, token.length() - 2));
+            }
+            if (token.endsWith("s")) {
+                return Math.round(Double.parseDouble(token.substring(0, token.length() - 1)) * 1000);
+            }
+            return Long.parseLong(token);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(String.format("line %d: invalid time '%s'", lineNumber, token), e);
+        }
+    }
+
+    private NetworkDeviceModel resolveDevice(String name, int lineNumber) {
+        NetworkDeviceModel networkDeviceModel = storage.getByName(name);
+        if (networkDeviceModel == null) {
+            throw new IllegalArgumentException(String.format("line %d: unknown device '%s'", lineNumber, name));
+        }
+        return networkDeviceModel;
+    }
+
+    private synchronized void beginOutage(String description) {
+        if (activeOutage == null) {
+            activeOutage = new Outage(description, clock.currentTimeMillis());
+        } else {
+            activeOutage.description.append(", ").append(description);
+        }
+    }
+
+    /**
+     * Counts a frame that crossed a link, for the loss statistics of an ongoing disruption.
+     */
+    public void recordFrameDelivered() {
+        Outage outage = activeOutage;
+        if (outage != null) {
+            outage.framesDelivered.incrementAndGet();
+        }
+    }
+
+    /**
+     * Counts a frame lost on a failed link or device.
+     */
+    public void recordFrameLost() {
+        Outage outage = activeOutage;
+        if (outage != null) {
+            outage.framesLost.incrementAndGet();
+        }
+    }
+
+    /**
+     * Notes that some router changed its routing table.
+     */
+    public synchronized void recordRoutingChange() {
+        lastRoutingChangeMillis = clock.currentTimeMillis();
+    }
+
+    /**
+     * Called at the start of every RIP round. Once a whole round that began after the disruption passes
+     * without any routing change, the network is considered reconverged and the disruption is reported.
+     */
+    public synchronized void onRipRound() {
+        long now = clock.currentTimeMillis();
+        Outage outage = activeOutage;
+        if (outage != null && previousRipRoundMillis >= outage.startedAtMillis && lastRoutingChangeMillis < previousRipRoundMillis) {
+            OutageReport report = new OutageReport(outage.description.toString(),
+                    outage.startedAtMillis,
+                    Math.max(lastRoutingChangeMillis, outage.startedAtMillis),
+                    outage.framesDelivered.get(),
+                    outage.framesLost.get());
+            outageReports.add(report);
+            activeOutage = null;
+
+            logger.info("Reconverged after {}: {} ms, lost {} of {} frames", report.description(), report.timeToReconvergeMillis(), report.framesLost(), report.framesLost() + report.framesDelivered());
+            simulationWorkspaceView.printToLogWindow(String.format("Reconverged %d ms after %s, lost %d/%d frames (%.1f %%)\n",
+                    report.timeToReconvergeMillis(), report.description(), report.framesLost(),
+                    report.framesLost() + report.framesDelivered(), report.lossRatio() * 100), Color.DARKCYAN);
+        }
+        previousRipRoundMillis = now;
+    }
+
+    /**
+     * Returns the reports of all disruptions that have reconverged so far.
+     *
+     * @return The outage reports in the order the network reconverged.
+     */
+    public List<OutageReport> getOutageReports() {
+        return outageReports;
+    }
+}
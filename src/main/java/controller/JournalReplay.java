@@ -0,0 +1,209 @@
+package controller;
+
+import common.*;
+import io.SimulationJournal;
+import io.SimulationJournalRecord;
+import javafx.scene.paint.Color;
+import model.IPAddress;
+import model.NetworkDeviceModel;
+import model.NetworkDeviceStorage;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import profiling.DeviceNames;
+import view.SimulationWorkspaceView;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shows a recorded {@link SimulationJournal} in the workspace instead of simulating it. Frames are animated on their
+ * links, failed devices and links are marked and DHCP assignments and routing changes are logged, at any multiple of
+ * the recorded speed. The replay posts the same events as the simulation, so the animation level of detail applies
+ * to it as well. The topology the journal was recorded with must be loaded.
+ */
+public class JournalReplay implements AutoCloseable {
+    private static final Logger logger = LogManager.getLogger(JournalReplay.class);
+    private static final long MIN_SLEEP_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final SimulationJournal journal;
+    private final NetworkDeviceStorage storage;
+    private final SimulationWorkspaceView simulationWorkspaceView;
+    private final AnimationLevelOfDetail animationLevelOfDetail;
+    private final SimulationEventBus eventBus;
+    private final SimulationEventBus.Subscription<NetworkCommunicationAnimationFinishedEvent> animationFinishedSubscription;
+    private final Set<UUID> replayedCommunications = ConcurrentHashMap.newKeySet();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "journal-replay");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private Future<?> running;
+    private volatile long positionMillis;
+
+    /**
+     * Prepares a replay, nothing is shown until it is played.
+     *
+     * @param journal                 The recorded journal.
+     * @param storage                 The devices of the loaded topology, used to name devices in the log.
+     * @param simulationWorkspaceView The workspace the replay is shown in.
+     * @param animationLevelOfDetail  Decides which replayed frames are animated.
+     * @param eventBus                The bus of the simulation session the replayed events are posted to.
+     */
+    public JournalReplay(SimulationJournal journal, NetworkDeviceStorage storage, SimulationWorkspaceView simulationWorkspaceView, AnimationLevelOfDetail animationLevelOfDetail, SimulationEventBus eventBus) {
+        this.journal = journal;
+        this.storage = storage;
+        this.simulationWorkspaceView = simulationWorkspaceView;
+        this.animationLevelOfDetail = animationLevelOfDetail;
+        this.eventBus = eventBus;
+        this.positionMillis = journal.getStartMillis();
+        animationFinishedSubscription = eventBus.subscribe(NetworkCommunicationAnimationFinishedEvent.class, event -> {
+            if (replayedCommunications.remove(event.communicationUuid())) {
+                animationLevelOfDetail.animationFinished();
+            }
+        });
+    }
+
+    public SimulationJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Plays the journal from a simulated time, stopping the part played before.
+     *
+     * @param fromMillis The simulated time to start at, found through the journal's time index.
+     * @param speed      How many times faster than recorded to play, e.g. 0.5 for slow motion.
+     * @throws IllegalArgumentException if the speed is not positive.
+     */
+    public synchronized void play(long fromMillis, double speed) {
+        if (!(speed > 0)) {
+            throw new IllegalArgumentException("speed must be positive");
+        }
+        stop();
+        positionMillis = fromMillis;
+        running = executor.submit(() -> {
+            try {
+                replay(fromMillis, speed);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException | RuntimeException e) {
+                logger.error("Journal replay failed", e);
+                simulationWorkspaceView.printToLogWindow(String.format("Replay stopped: %s\n", e.getMessage()), Color.RED);
+            }
+        });
+    }
+
+    /**
+     * Stops playing, the view keeps showing the replayed state.
+     */
+    public synchronized void stop() {
+        if (running != null) {
+            running.cancel(true);
+            running = null;
+        }
+    }
+
+    public synchronized boolean isPlaying() {
+        return running != null && !running.isDone();
+    }
+
+    /**
+     * @return the simulated time of the last replayed event
+     */
+    public long getPositionMillis() {
+        return positionMillis;
+    }
+
+    /**
+     * Posts the events of the journal when they are due. Events due at once are posted together, so the view
+     * handles them in a single pulse.
+     */
+    private void replay(long fromMillis, double speed) throws IOException, InterruptedException {
+        SimulationJournal.Cursor cursor = journal.seek(fromMillis);
+        long startNanos = System.nanoTime();
+        long nextTrafficReportMillis = fromMillis + SimulationController.TRAFFIC_REPORT_INTERVAL_MILLIS;
+        List<Event> dueEvents = new ArrayList<>();
+        SimulationJournalRecord record;
+        while ((record = cursor.next()) != null) {
+            long dueNanos = startNanos + (long) ((record.simulatedTimeMillis() - fromMillis) * 1_000_000 / speed);
+            long waitNanos = dueNanos - System.nanoTime();
+            if (waitNanos > MIN_SLEEP_NANOS) {
+                postAll(dueEvents);
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            }
+            if (record.simulatedTimeMillis() >= nextTrafficReportMillis) {
+                dueEvents.addAll(animationLevelOfDetail.drainAggregatedTraffic(SimulationController.TRAFFIC_REPORT_INTERVAL_MILLIS));
+                nextTrafficReportMillis = record.simulatedTimeMillis() + SimulationController.TRAFFIC_REPORT_INTERVAL_MILLIS;
+            }
+            positionMillis = record.simulatedTimeMillis();
+            show(record, speed, dueEvents);
+        }
+        postAll(dueEvents);
+        // Two reports, the second one clears the traffic shown by the first
+        postAll(animationLevelOfDetail.drainAggregatedTraffic(SimulationController.TRAFFIC_REPORT_INTERVAL_MILLIS));
+        postAll(animationLevelOfDetail.drainAggregatedTraffic(SimulationController.TRAFFIC_REPORT_INTERVAL_MILLIS));
+        simulationWorkspaceView.printToLogWindow(String.format("Replay finished at %.1f s\n", positionMillis / 1000.0), Color.DARKCYAN);
+    }
+
+    private void postAll(List<? extends Event> events) {
+        if (!events.isEmpty()) {
+            eventBus.postAll(events);
+            events.clear();
+        }
+    }
+
+    private void show(SimulationJournalRecord record, double speed, List<Event> dueEvents) {
+        switch (record.kind()) {
+            case FRAME_SENT -> {
+                if (record.peerUuid() == null || !animationLevelOfDetail.tryAnimate(record.deviceUuid(), record.peerUuid(), record.simulatedTimeMillis())) {
+                    return;
+                }
+                UUID communicationUuid = UUID.randomUUID();
+                replayedCommunications.add(communicationUuid);
+                Class<?> messageClass = record.messageType().getMessageClass();
+                dueEvents.add(new NetworkCommunicationAnimationRequestEvent(communicationUuid, record.deviceUuid(), record.peerUuid(),
+                        messageClass == null ? Color.GRAY : SimulationController.getMessageColor(messageClass),
+                        Math.max(1, (long) (SimulationController.FRAME_TRAVERSAL_MILLIS / speed))));
+            }
+            case DEVICE_DOWN, DEVICE_UP -> dueEvents.add(new DeviceStateChangedEvent(record.deviceUuid(), record.kind() == SimulationJournalRecord.Kind.DEVICE_UP));
+            case LINK_DOWN, LINK_UP -> {
+                if (record.peerUuid() != null) {
+                    dueEvents.add(new LinkStateChangedEvent(record.deviceUuid(), record.peerUuid(), record.kind() == SimulationJournalRecord.Kind.LINK_UP));
+                }
+            }
+            case DHCP_ASSIGNED -> simulationWorkspaceView.printToLogWindow(String.format("%s configured with %s\n",
+                    deviceName(record.deviceUuid()), IPAddress.longToIPAddress(record.value())), Color.ORANGE);
+            case RIP_UPDATE -> {
+                if (record.value() != 0) {
+                    simulationWorkspaceView.printToLogWindow(String.format("%s changed its routing table after an update from %s\n",
+                            deviceName(record.deviceUuid()), record.peerUuid() == null ? "?" : deviceName(record.peerUuid())), Color.DARKCYAN);
+                }
+            }
+            default -> {
+                // Deliveries, losses and drops are kept for analysis, the view shows frames when they are sent
+            }
+        }
+    }
+
+    private String deviceName(UUID deviceUuid) {
+        NetworkDeviceModel device = storage.get(deviceUuid);
+        return device == null ? deviceUuid.toString() : DeviceNames.of(device);
+    }
+
+    /**
+     * Stops playing and releases the replay thread.
+     */
+    @Override
+    public synchronized void close() {
+        stop();
+        executor.shutdownNow();
+        animationFinishedSubscription.unsubscribe();
+    }
+}
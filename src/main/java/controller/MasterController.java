@@ -1,16 +1,29 @@
 package controller;
 
-import com.google.common.eventbus.Subscribe;
 import common.*;
+import io.AtomicFiles;
+import io.NetworkData;
+import io.SimulationJournal;
+import io.TopologySnapshotWriter;
 import javafx.scene.paint.Color;
+import metrics.HistogramSnapshot;
 import model.*;
 import view.ConnectionLine;
 import view.SimulationWorkspaceView;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.SortedMap;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Main controller class that orchestrates interactions between the simulation's UI and the underlying network models.
@@ -23,6 +36,16 @@ public class MasterController {
 
     SimulationController simulationController;
 
+    private JournalReplay journalReplay;
+    private final SimulationEventBus eventBus;
+
+    // A single thread shared by all workspaces, so two checkpoints never write at the same time
+    private static final ExecutorService CHECKPOINT_WRITER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "checkpoint-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     /**
      * Constructs a MasterController that integrates various components of the network simulation.
      *
@@ -30,14 +53,16 @@ public class MasterController {
      * @param deviceStorage           Storage for network devices.
      * @param networksController      Controller for network-related operations.
      * @param simulationController    Controller for simulation operations.
+     * @param eventBus                The bus of the simulation session.
      */
-    public MasterController(SimulationWorkspaceView simulationWorkspaceView, NetworkDeviceStorage deviceStorage, NetworksController networksController, SimulationController simulationController) {
+    public MasterController(SimulationWorkspaceView simulationWorkspaceView, NetworkDeviceStorage deviceStorage, NetworksController networksController, SimulationController simulationController, SimulationEventBus eventBus) {
         this.simulationWorkspaceView = simulationWorkspaceView;
         this.simulationWorkspaceView.setController(this);
         this.deviceStorage = deviceStorage;
         this.networksController = networksController;
         this.simulationController = simulationController;
-        GlobalEventBus.register(this);
+        this.eventBus = eventBus;
+        eventBus.subscribe(UpdateLabelsEvent.class, this::handleUpdateLabels, SimulationEventBus.FX_THREAD);
     }
 
     /**
@@ -48,10 +73,10 @@ public class MasterController {
      * 3. Finds the corresponding {@link ConnectionLine} object in the simulation workspace view based on the PC model and network device.
      * 4. Updates the appropriate label (start or end) on the connection line based on the PC model's UUID and retrieved IP address (using the last octet).
      * 5. If no connection line is found, a message is logged indicating the issue.
+     * The event is posted from the simulation worker and delivered on the JavaFX Application Thread.
      *
      * @param event the {@link UpdateLabelsEvent} containing the PC model data
      */
-    @Subscribe
     public void handleUpdateLabels(UpdateLabelsEvent event) {
         PCModel pcModel = event.pcModel();
 
@@ -81,7 +106,7 @@ public class MasterController {
         NetworkDeviceModel networkDeviceModel;
         switch (networkDevice.getNetworkDeviceType()) {
             case ROUTER:
-                RouterModel routerModel = new RouterModel(networkDevice.getUuid(), new MACAddress(networkDevice.getUuid().toString()), networkDevice.getName());
+                RouterModel routerModel = new RouterModel(networkDevice.getUuid(), new MACAddress(networkDevice.getUuid().toString()), networkDevice.getName(), eventBus);
                 LanNetwork network = routerModel.createLanNetwork();
                 IPAddress routerIpAddress = networksController.reserveIpAddressInNetwork(network);
                 RouterInterface routerInterface = new RouterInterface(UUID.randomUUID(), routerIpAddress, new MACAddress(UUID.randomUUID().toString()), routerModel, network);
@@ -247,6 +272,20 @@ public class MasterController {
                         routerModel.getIpAddressInNetwork(routeEntry.getDestinationNetwork())
                 ));
             }
+            configuration.append("Egress queues:\n");
+            configuration.append(String.format("%-18s | %-18s | %-5s | %-5s | %-9s\n", "Interface", "Class", "Depth", "Drops", "Avg delay"));
+            for (RouterInterface routerInterface : routerModel.getRouterInterfaces().values()) {
+                QueueMetrics metrics = routerInterface.getEgressQueue().getMetrics();
+                for (TrafficClass trafficClass : TrafficClass.values()) {
+                    configuration.append(String.format("%-18s | %-18s | %-5d | %-5d | %6.1f ms\n",
+                            routerInterface,
+                            trafficClass,
+                            metrics.getDepth(trafficClass),
+                            metrics.getDropped(trafficClass),
+                            metrics.getAverageDelayMillis(trafficClass)
+                    ));
+                }
+            }
         }
         return configuration.toString();
     }
@@ -255,6 +294,7 @@ public class MasterController {
      * Starts the network simulation.
      */
     public void startSimulation() {
+        stopJournalReplay();
         simulationController.startSimulation();
     }
 
@@ -271,6 +311,7 @@ public class MasterController {
      * Resumes the paused network simulation.
      */
     public void resumeSimulation() {
+        stopJournalReplay();
         simulationController.resumeSimulation();
     }
 
@@ -289,4 +330,372 @@ public class MasterController {
     public boolean simulationPaused() {
         return simulationController.isPaused();
     }
+
+    /**
+     * Takes the link between two network devices down.
+     *
+     * @param first  One end of the link.
+     * @param second The other end of the link.
+     * @return Completes on the simulation worker with true if the link was up and is now down.
+     */
+    public CompletableFuture<Boolean> failLink(NetworkDevice first, NetworkDevice second) {
+        NetworkDeviceModel firstModel = deviceStorage.get(first.getUuid());
+        NetworkDeviceModel secondModel = deviceStorage.get(second.getUuid());
+        if (firstModel == null || secondModel == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+        return simulationController.getFailureController().failLink(firstModel, secondModel);
+    }
+
+    /**
+     * Brings the link between two network devices back up.
+     *
+     * @param first  One end of the link.
+     * @param second The other end of the link.
+     * @return Completes on the simulation worker with true if the link was down and is now up.
+     */
+    public CompletableFuture<Boolean> restoreLink(NetworkDevice first, NetworkDevice second) {
+        NetworkDeviceModel firstModel = deviceStorage.get(first.getUuid());
+        NetworkDeviceModel secondModel = deviceStorage.get(second.getUuid());
+        if (firstModel == null || secondModel == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+        return simulationController.getFailureController().restoreLink(firstModel, secondModel);
+    }
+
+    /**
+     * Checks if the link between two network devices is down.
+     *
+     * @param first  One end of the link.
+     * @param second The other end of the link.
+     * @return true if the link has been failed.
+     */
+    public boolean isLinkFailed(NetworkDevice first, NetworkDevice second) {
+        NetworkDeviceModel firstModel = deviceStorage.get(first.getUuid());
+        NetworkDeviceModel secondModel = deviceStorage.get(second.getUuid());
+        return firstModel != null && secondModel != null && simulationController.getFailureController().isLinkFailed(firstModel, secondModel);
+    }
+
+    /**
+     * Takes a network device down.
+     *
+     * @param networkDevice The device to take down.
+     * @return Completes on the simulation worker with true if the device was up and is now down.
+     */
+    public CompletableFuture<Boolean> failDevice(NetworkDevice networkDevice) {
+        NetworkDeviceModel networkDeviceModel = deviceStorage.get(networkDevice.getUuid());
+        if (networkDeviceModel == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+        return simulationController.getFailureController().failDevice(networkDeviceModel);
+    }
+
+    /**
+     * Brings a network device back up.
+     *
+     * @param networkDevice The device to bring up.
+     * @return Completes on the simulation worker with true if the device was down and is now up.
+     */
+    public CompletableFuture<Boolean> restoreDevice(NetworkDevice networkDevice) {
+        NetworkDeviceModel networkDeviceModel = deviceStorage.get(networkDevice.getUuid());
+        if (networkDeviceModel == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+        return simulationController.getFailureController().restoreDevice(networkDeviceModel);
+    }
+
+    /**
+     * Checks if a network device is down.
+     *
+     * @param networkDevice The device to check.
+     * @return true if the device has been failed.
+     */
+    public boolean isDeviceFailed(NetworkDevice networkDevice) {
+        NetworkDeviceModel networkDeviceModel = deviceStorage.get(networkDevice.getUuid());
+        return networkDeviceModel != null && simulationController.getFailureController().isDeviceFailed(networkDeviceModel);
+    }
+
+    /**
+     * Schedules the failures and restorations described in a failure script file.
+     *
+     * @param file The script file.
+     */
+    public void loadFailureScript(File file) {
+        try {
+            simulationController.getFailureController().loadScript(Files.readAllLines(file.toPath()));
+            simulationWorkspaceView.printToLogWindow(String.format("Loaded failure script %s\n", file.getName()), Color.DARKCYAN);
+        } catch (IOException | IllegalArgumentException e) {
+            simulationWorkspaceView.printToLogWindow(String.format("Failure script not loaded: %s\n", e.getMessage()), Color.RED);
+        }
+    }
+
+    /**
+     * Formats the end-to-end latency of string messages per pair of source and destination subnets.
+     *
+     * @return A table of message counts and latency percentiles in milliseconds of simulated time.
+     */
+    public String getLatencyReport() {
+        SortedMap<String, HistogramSnapshot> report = simulationController.getCommunicationLatency().getReport();
+        if (report.isEmpty()) {
+            return "No string message was delivered yet\n";
+        }
+        StringBuilder latencyReport = new StringBuilder();
+        latencyReport.append(String.format("%-36s | %-6s | %-7s | %-7s | %-7s | %-7s\n", "Subnets", "Count", "p50", "p99", "p999", "Max"));
+        report.forEach((subnetPair, latency) -> latencyReport.append(String.format("%-36s | %-6d | %-7d | %-7d | %-7d | %-7d\n",
+                subnetPair, latency.count(), latency.p50(), latency.p99(), latency.p999(), latency.max())));
+        return latencyReport.toString();
+    }
+
+    /**
+     * Saves the topology together with the runtime state of the simulation as a binary snapshot, so a later load
+     * continues from this point instead of converging again. The simulation has to be paused or not started yet.
+     * <p>
+     * The state is captured before returning, so the simulation may be resumed right away. The snapshot is encoded and
+     * written in the background.
+     *
+     * @param file        The snapshot file.
+     * @param networkData The topology of the workspace.
+     * @return Completes once the snapshot is written, or exceptionally if it could not be.
+     */
+    public CompletableFuture<Void> saveCheckpoint(File file, NetworkData networkData) {
+        if (simulationController.simulationStarted() && !simulationController.isPaused()) {
+            simulationWorkspaceView.printToLogWindow("Pause the simulation to save a checkpoint\n", Color.RED);
+            return CompletableFuture.failedFuture(new IllegalStateException("The simulation is running"));
+        }
+        Map<Integer, ByteBuffer> stateSections;
+        try {
+            stateSections = simulationController.captureCheckpoint();
+        } catch (IOException e) {
+            simulationWorkspaceView.printToLogWindow(String.format("Checkpoint not saved: %s\n", e.getMessage()), Color.RED);
+            return CompletableFuture.failedFuture(e);
+        }
+        return CompletableFuture.runAsync(() -> {
+            try {
+                AtomicFiles.replace(file.toPath(), temporary -> TopologySnapshotWriter.write(temporary, networkData, stateSections));
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, CHECKPOINT_WRITER).whenComplete((written, e) -> {
+            if (e == null) {
+                simulationWorkspaceView.printToLogWindow(String.format("Checkpoint saved to %s\n", file.getName()), Color.DARKCYAN);
+            } else {
+                Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                simulationWorkspaceView.printToLogWindow(String.format("Checkpoint not saved: %s\n", cause.getMessage()), Color.RED);
+            }
+        });
+    }
+
+    /**
+     * Restores the runtime state saved in a checkpoint into the topology loaded from it.
+     *
+     * @param stateSections The state sections of the checkpoint.
+     * @throws IOException if the sections are corrupted or do not match the topology.
+     */
+    public void restoreCheckpoint(Map<Integer, ByteBuffer> stateSections) throws IOException {
+        simulationController.restoreCheckpoint(stateSections);
+    }
+
+    /**
+     * Starts recording every frame into a binary trace file.
+     *
+     * @param file The trace file.
+     */
+    public void startFrameTrace(File file) {
+        try {
+            simulationController.startFrameTrace(file.toPath());
+            simulationWorkspaceView.printToLogWindow(String.format("Recording frame trace to %s\n", file.getName()), Color.DARKCYAN);
+        } catch (IOException e) {
+            simulationWorkspaceView.printToLogWindow(String.format("Frame trace not started: %s\n", e.getMessage()), Color.RED);
+        }
+    }
+
+    /**
+     * Stops recording the frame trace.
+     */
+    public void stopFrameTrace() {
+        try {
+            long recordCount = simulationController.stopFrameTrace();
+            simulationWorkspaceView.printToLogWindow(String.format("Frame trace stopped, %d frame events recorded\n", recordCount), Color.DARKCYAN);
+        } catch (IOException e) {
+            simulationWorkspaceView.printToLogWindow(String.format("Frame trace not completed: %s\n", e.getMessage()), Color.RED);
+        }
+    }
+
+    /**
+     * Starts recording the simulation events into a journal.
+     *
+     * @param file The journal file.
+     */
+    public void startJournal(File file) {
+        try {
+            simulationController.startJournal(file.toPath());
+            simulationWorkspaceView.printToLogWindow(String.format("Recording journal to %s\n", file.getName()), Color.DARKCYAN);
+        } catch (IOException e) {
+            simulationWorkspaceView.printToLogWindow(String.format("Journal not started: %s\n", e.getMessage()), Color.RED);
+        }
+    }
+
+    /**
+     * Stops recording the journal.
+     */
+    public void stopJournal() {
+        try {
+            long eventCount = simulationController.stopJournal();
+            simulationWorkspaceView.printToLogWindow(String.format("Journal stopped, %d events recorded\n", eventCount), Color.DARKCYAN);
+        } catch (IOException e) {
+            simulationWorkspaceView.printToLogWindow(String.format("Journal not completed: %s\n", e.getMessage()), Color.RED);
+        }
+    }
+
+    /**
+     * Starts capturing frames into a pcap file.
+     *
+     * @param file   The capture file.
+     * @param device The device to capture the links of, null to capture every link.
+     * @param peer   The other end of the one link to capture, null to capture every link of the device.
+     */
+    public void startPacketCapture(File file, NetworkDevice device, NetworkDevice peer) {
+        try {
+            simulationController.startPacketCapture(file.toPath(), device == null ? null : device.getUuid(), peer == null ? null : peer.getUuid());
+            simulationWorkspaceView.printToLogWindow(String.format("Capturing packets to %s\n", file.getName()), Color.DARKCYAN);
+        } catch (IOException e) {
+            simulationWorkspaceView.printToLogWindow(String.format("Packet capture not started: %s\n", e.getMessage()), Color.RED);
+        }
+    }
+
+    /**
+     * Stops the packet capture.
+     */
+    public void stopPacketCapture() {
+        try {
+            long frameCount = simulationController.stopPacketCapture();
+            simulationWorkspaceView.printToLogWindow(String.format("Packet capture stopped, %d frames captured\n", frameCount), Color.DARKCYAN);
+        } catch (IOException e) {
+            simulationWorkspaceView.printToLogWindow(String.format("Packet capture not completed: %s\n", e.getMessage()), Color.RED);
+        }
+    }
+
+    public boolean isPacketCaptureRunning() {
+        return simulationController.isPacketCaptureRunning();
+    }
+
+    /**
+     * Starts replaying a traffic trace between the PCs, replacing a running replay.
+     *
+     * @param file The pcap capture or CSV flow trace.
+     */
+    public void startTrafficTrace(File file) {
+        try {
+            // An empty trace has finished and reported so already
+            if (!simulationController.startTrafficTrace(file.toPath()).isFinished()) {
+                simulationWorkspaceView.printToLogWindow(String.format("Replaying traffic trace %s\n", file.getName()), Color.DARKCYAN);
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            simulationWorkspaceView.printToLogWindow(String.format("Traffic trace not started: %s\n", e.getMessage()), Color.RED);
+        }
+    }
+
+    /**
+     * Stops replaying the traffic trace.
+     */
+    public void stopTrafficTrace() {
+        try {
+            long packetCount = simulationController.stopTrafficTrace();
+            simulationWorkspaceView.printToLogWindow(String.format("Traffic trace stopped, %d packets injected\n", packetCount), Color.DARKCYAN);
+        } catch (IOException e) {
+            simulationWorkspaceView.printToLogWindow(String.format("Traffic trace not closed: %s\n", e.getMessage()), Color.RED);
+        }
+    }
+
+    public boolean isTrafficTraceRunning() {
+        return simulationController.isTrafficTraceRunning();
+    }
+
+    /**
+     * Turns the random traffic between PCs on or off.
+     *
+     * @param randomCommunication Whether to pick random communications.
+     */
+    public void setRandomCommunication(boolean randomCommunication) {
+        simulationController.setRandomCommunication(randomCommunication);
+        simulationWorkspaceView.printToLogWindow(randomCommunication ? "Random PC traffic on\n" : "Random PC traffic off\n", Color.DARKCYAN);
+    }
+
+    /**
+     * Switches between animating the simulation and running it headless at a higher speed.
+     *
+     * @param headless Whether to run headless.
+     */
+    public void setHeadless(boolean headless) {
+        simulationController.setHeadless(headless);
+        simulationWorkspaceView.printToLogWindow(headless
+                ? String.format("Running headless at %.0fx speed\n", SimulationController.HEADLESS_CLOCK_RATE)
+                : "Animating the simulation\n", Color.DARKCYAN);
+    }
+
+    /**
+     * Opens a journal for replay, replacing the journal opened before.
+     *
+     * @param file The journal file.
+     * @return the opened journal, null if it could not be read.
+     */
+    public SimulationJournal openJournalReplay(File file) {
+        try {
+            SimulationJournal journal = SimulationJournal.open(file.toPath());
+            if (journalReplay != null) {
+                journalReplay.close();
+            }
+            journalReplay = new JournalReplay(journal, deviceStorage, simulationWorkspaceView, simulationController.getAnimationLevelOfDetail(), eventBus);
+            simulationWorkspaceView.printToLogWindow(String.format("Journal %s covers %.1f s - %.1f s%s\n", file.getName(),
+                    journal.getStartMillis() / 1000.0, journal.getEndMillis() / 1000.0, journal.isComplete() ? "" : ", its recording was cut short"), Color.DARKCYAN);
+            return journal;
+        } catch (IOException e) {
+            simulationWorkspaceView.printToLogWindow(String.format("Journal not opened: %s\n", e.getMessage()), Color.RED);
+            return null;
+        }
+    }
+
+    /**
+     * Plays the opened journal in the workspace. The simulation must not be running meanwhile.
+     *
+     * @param fromMillis The simulated time to start at.
+     * @param speed      How many times faster than recorded to play.
+     */
+    public void playJournalReplay(long fromMillis, double speed) {
+        if (journalReplay == null) {
+            return;
+        }
+        if (simulationStarted() && !simulationPaused()) {
+            simulationWorkspaceView.printToLogWindow("Pause simulation before replaying a journal\n", Color.RED);
+            return;
+        }
+        journalReplay.play(fromMillis, speed);
+    }
+
+    /**
+     * Stops playing the opened journal.
+     */
+    public void stopJournalReplay() {
+        if (journalReplay != null) {
+            journalReplay.stop();
+        }
+    }
+
+    /**
+     * Sets how many frames per second each link animates, the rest is shown as traffic on the link.
+     *
+     * @param maxAnimatedFramesPerLinkPerSecond The limit, 0 to only show traffic, {@link AnimationLevelOfDetail#UNLIMITED} to animate everything.
+     */
+    public void setMaxAnimatedFramesPerLinkPerSecond(int maxAnimatedFramesPerLinkPerSecond) {
+        simulationController.getAnimationLevelOfDetail().setMaxAnimatedFramesPerLinkPerSecond(maxAnimatedFramesPerLinkPerSecond);
+    }
+
+    /**
+     * Sets the egress queue discipline of every router interface in the workspace, including interfaces created later.
+     *
+     * @param egressQueueDiscipline The discipline of the workspace's egress queues.
+     */
+    public void setEgressQueueDiscipline(EgressQueueDiscipline egressQueueDiscipline) {
+        simulationController.setEgressQueueDiscipline(egressQueueDiscipline);
+    }
 }
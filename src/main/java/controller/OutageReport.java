@@ -0,0 +1,22 @@
+package controller;
+
+/**
+ * Summary of one disruption of the topology, from the first failure until routing became stable again.
+ *
+ * @param description         the failures and restorations that made up the disruption
+ * @param failedAtMillis      the simulated time of the first failure
+ * @param reconvergedAtMillis the simulated time of the last routing change caused by the disruption
+ * @param framesDelivered     the frames that crossed a link during the disruption
+ * @param framesLost          the frames that were lost on failed links or devices during the disruption
+ */
+public record OutageReport(String description, long failedAtMillis, long reconvergedAtMillis, long framesDelivered,
+                           long framesLost) {
+    public long timeToReconvergeMillis() {
+        return reconvergedAtMillis - failedAtMillis;
+    }
+
+    public double lossRatio() {
+        long total = framesDelivered + framesLost;
+        return total == 0 ? 0 : (double) framesLost / total;
+    }
+}
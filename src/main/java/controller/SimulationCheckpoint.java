@@ -0,0 +1,594 @@
+package controller;
+
+import io.TopologySnapshotWriter;
+import javafx.util.Pair;
+import model.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Encodes the runtime state of a simulation into state sections of a topology snapshot and restores it into a
+ * workspace rebuilt from the same snapshot.
+ * <p>
+ * The checkpoint covers the simulated time, the configuration and ARP cache of every PC, the CAM tables, the routing
+ * tables and ARP caches of the routers, the address pools of the networks and the frames in flight. Rebuilding a
+ * topology gives the router interfaces new UUIDs and MAC addresses, so every interface is recorded with its router and
+ * IP address and matched by them on restore. The model compares addresses by reference, so every restored address is
+ * resolved to the instance the rebuilt model already holds. The LANs of different routers may use the same addresses,
+ * so an address is recorded with the network holding it and resolved within that network. A frame in flight is put
+ * back at the start of the link it was crossing or waiting for.
+ */
+class SimulationCheckpoint {
+    static final int STATE_SECTION = TopologySnapshotWriter.FIRST_STATE_TAG;
+    static final int INTERFACES_SECTION = STATE_SECTION + 1;
+    static final int NETWORKS_SECTION = STATE_SECTION + 2;
+    static final int PCS_SECTION = STATE_SECTION + 3;
+    static final int ROUTERS_SECTION = STATE_SECTION + 4;
+    static final int SWITCHES_SECTION = STATE_SECTION + 5;
+    static final int FRAMES_SECTION = STATE_SECTION + 6;
+    private static final int FORMAT_VERSION = 2;
+    private static final long NO_IP_ADDRESS = -1;
+    private static final int NO_NETWORK = -1;
+    private static final NetworkType[] NETWORK_TYPES = NetworkType.values();
+
+    private static final byte STRING_MESSAGE = 0;
+    private static final byte ARP_REQUEST_MESSAGE = 1;
+    private static final byte ARP_RESPONSE_MESSAGE = 2;
+    private static final byte DHCP_DISCOVER_MESSAGE = 3;
+    private static final byte DHCP_OFFER_MESSAGE = 4;
+    private static final byte DHCP_RESPONSE_MESSAGE = 5;
+    private static final byte DHCP_ACK_MESSAGE = 6;
+    private static final byte RIP_MESSAGE = 7;
+
+    /**
+     * The state restored into the model that the simulation controller still has to act on.
+     *
+     * @param clockMillis         The simulated time of the checkpoint.
+     * @param learnedMacAddresses The CAM table entries, whose aging starts over.
+     * @param framesInFlight      The frames to be sent again, in the order they were on their links.
+     */
+    record Restored(long clockMillis, List<Pair<SwitchModel, MACAddress>> learnedMacAddresses,
+                    List<Pair<NetworkConnection, Frame>> framesInFlight) {
+    }
+
+    private SimulationCheckpoint() {
+    }
+
+    /**
+     * Captures the runtime state. No frame may be delivered meanwhile.
+     *
+     * @param storage        The devices of the simulation.
+     * @param clockMillis    The current simulated time.
+     * @param framesInFlight The frames on their links or waiting for them.
+     * @return the state sections by their tags
+     * @throws IOException if the state cannot be encoded.
+     */
+    static Map<Integer, ByteBuffer> capture(NetworkDeviceStorage storage, long clockMillis, List<Pair<NetworkConnection, Frame>> framesInFlight) throws IOException {
+        return new Encoder(storage).encode(clockMillis, framesInFlight);
+    }
+
+    /**
+     * Restores the runtime state into a model rebuilt from the topology it was captured with.
+     *
+     * @param storage  The devices of the rebuilt topology.
+     * @param sections The state sections by their tags.
+     * @return the state left for the simulation controller
+     * @throws IOException if the sections are corrupted or do not match the topology.
+     */
+    static Restored restore(NetworkDeviceStorage storage, Map<Integer, ByteBuffer> sections) throws IOException {
+        try {
+            return new Decoder(storage, sections).decode();
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IOException("Corrupted checkpoint", e);
+        }
+    }
+
+    private static class Encoder {
+        private final NetworkDeviceStorage storage;
+        private final Map<Network, Integer> networkIndexes = new IdentityHashMap<>();
+        private final List<Network> networks = new ArrayList<>();
+        private final Map<Network, RouterInterface> networkOwners = new IdentityHashMap<>();
+        private final Map<IPAddress, Network> addressNetworks = new IdentityHashMap<>();
+
+        Encoder(NetworkDeviceStorage storage) {
+            this.storage = storage;
+        }
+
+        Map<Integer, ByteBuffer> encode(long clockMillis, List<Pair<NetworkConnection, Frame>> framesInFlight) throws IOException {
+            Map<Integer, ByteBuffer> sections = new HashMap<>();
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(clockMillis);
+            sections.put(STATE_SECTION, toBuffer(bytes));
+
+            List<RouterInterface> routerInterfaces = new ArrayList<>();
+            for (RouterModel router : storage.getRouterModels()) {
+                routerInterfaces.addAll(router.getRouterInterfaces().values());
+            }
+            for (RouterInterface routerInterface : routerInterfaces) {
+                Network network = routerInterface.getNetwork();
+                networkOwners.putIfAbsent(network, routerInterface);
+                networkIndex(network);
+                addressNetworks.put(routerInterface.getIpAddress(), network);
+                for (IPAddress usedIpAddress : network.getUsedIpAddresses()) {
+                    addressNetworks.putIfAbsent(usedIpAddress, network);
+                }
+            }
+            out.writeInt(routerInterfaces.size());
+            for (RouterInterface routerInterface : routerInterfaces) {
+                writeUuid(out, routerInterface.getInterfacesRouter().getUuid());
+                writeUuid(out, routerInterface.getUuid());
+                writeString(out, routerInterface.getMacAddress().toString());
+                out.writeLong(routerInterface.getIpAddress().toLong());
+            }
+            sections.put(INTERFACES_SECTION, toBuffer(bytes));
+
+            List<PCModel> pcModels = storage.getPcModels();
+            out.writeInt(pcModels.size());
+            for (PCModel pc : pcModels) {
+                writeUuid(out, pc.getUuid());
+                out.writeBoolean(pc.isConfigured());
+                out.writeBoolean(pc.isConfigurationInProgress());
+                writeIpAddress(out, pc.getIpAddress());
+                writeIpAddress(out, pc.getDefaultGateway());
+                out.writeInt(pc.getSubnetMask() == null ? -1 : pc.getSubnetMask().getSize());
+                writeArpCache(out, pc.getArpCache());
+            }
+            sections.put(PCS_SECTION, toBuffer(bytes));
+
+            out.writeInt(storage.getRouterModels().size());
+            for (RouterModel router : storage.getRouterModels()) {
+                writeUuid(out, router.getUuid());
+                writeArpCache(out, router.getArpCache());
+                writeRoutingTable(out, router.getRoutingTable());
+            }
+            sections.put(ROUTERS_SECTION, toBuffer(bytes));
+
+            List<SwitchModel> switchModels = new ArrayList<>();
+            for (NetworkDeviceModel networkDeviceModel : storage.getNetworkDeviceModels()) {
+                if (networkDeviceModel instanceof SwitchModel switchModel) {
+                    switchModels.add(switchModel);
+                }
+            }
+            out.writeInt(switchModels.size());
+            for (SwitchModel switchModel : switchModels) {
+                writeUuid(out, switchModel.getUuid());
+                Set<CamEntry> camEntries = switchModel.getCamTable().getEntries();
+                out.writeInt(camEntries.size());
+                for (CamEntry camEntry : camEntries) {
+                    writeString(out, camEntry.getMacAddress().toString());
+                    out.writeInt(camEntry.getPort());
+                }
+            }
+            sections.put(SWITCHES_SECTION, toBuffer(bytes));
+
+            out.writeInt(framesInFlight.size());
+            for (Pair<NetworkConnection, Frame> frameThroughNetworkConnection : framesInFlight) {
+                writeUuid(out, frameThroughNetworkConnection.getKey().getStartDevice().getUuid());
+                writeUuid(out, frameThroughNetworkConnection.getKey().getEndDevice().getUuid());
+                writeFrame(out, frameThroughNetworkConnection.getValue());
+            }
+            sections.put(FRAMES_SECTION, toBuffer(bytes));
+
+            // Routes and RIP messages may refer to networks no interface belongs to anymore, so the networks go last
+            out.writeInt(networks.size());
+            for (Network network : networks) {
+                RouterInterface owner = networkOwners.get(network);
+                out.writeBoolean(owner != null);
+                if (owner != null) {
+                    writeUuid(out, owner.getUuid());
+                }
+                out.writeLong(network.getNetworkIpAddress().toLong());
+                out.writeInt(network.getSubnetMask().getSize());
+                out.writeByte(network.getNetworkType().ordinal());
+                out.writeLong(network.getCurrentAvailableAddress().toLong());
+                out.writeInt(network.getUsedIpAddresses().size());
+                for (IPAddress usedIpAddress : network.getUsedIpAddresses()) {
+                    writeIpAddress(out, usedIpAddress);
+                }
+            }
+            sections.put(NETWORKS_SECTION, toBuffer(bytes));
+            return sections;
+        }
+
+        private int networkIndex(Network network) {
+            return networkIndexes.computeIfAbsent(network, unused -> {
+                networks.add(network);
+                return networks.size() - 1;
+            });
+        }
+
+        private void writeArpCache(DataOutputStream out, ArpCache arpCache) throws IOException {
+            Map<IPAddress, MACAddress> entries = new HashMap<>(arpCache.getEntries());
+            out.writeInt(entries.size());
+            for (Map.Entry<IPAddress, MACAddress> entry : entries.entrySet()) {
+                writeIpAddress(out, entry.getKey());
+                writeString(out, entry.getValue().toString());
+            }
+        }
+
+        private void writeRoutingTable(DataOutputStream out, RoutingTable routingTable) throws IOException {
+            out.writeInt(routingTable.getEntries().size());
+            for (RouteEntry routeEntry : routingTable.getEntries()) {
+                out.writeInt(networkIndex(routeEntry.getDestinationNetwork()));
+                writeIpAddress(out, routeEntry.getNextHop());
+                out.writeInt(routeEntry.getHopCount());
+            }
+        }
+
+        private void writeFrame(DataOutputStream out, Frame frame) throws IOException {
+            writeString(out, frame.getSourceMac() == null ? null : frame.getSourceMac().toString());
+            writeString(out, frame.getDestinationMac() == null ? null : frame.getDestinationMac().toString());
+            Packet packet = frame.getPacket();
+            writeIpAddress(out, packet.getSourceIp());
+            writeIpAddress(out, packet.getDestinationIp());
+            PacketStamp stamp = packet.getStamp();
+            out.writeBoolean(stamp != null);
+            if (stamp != null) {
+                out.writeLong(stamp.createdAtMillis());
+                writeIpAddress(out, stamp.sourceIp());
+                out.writeInt(stamp.sourceSubnetMask().getSize());
+            }
+            switch (packet.getMessage()) {
+                case StringMessage stringMessage -> {
+                    out.writeByte(STRING_MESSAGE);
+                    writeString(out, stringMessage.getBody());
+                }
+                case ArpRequestMessage arpRequestMessage -> {
+                    out.writeByte(ARP_REQUEST_MESSAGE);
+                    writeIpAddress(out, arpRequestMessage.getRequestedIpAddress());
+                    writeIpAddress(out, arpRequestMessage.getRequesterIpAddress());
+                    writeString(out, arpRequestMessage.getRequesterMacAddress().toString());
+                }
+                case ArpResponseMessage arpResponseMessage -> {
+                    out.writeByte(ARP_RESPONSE_MESSAGE);
+                    writeString(out, arpResponseMessage.getRequestedMacAddress().toString());
+                }
+                case DhcpDiscoverMessage dhcpDiscoverMessage -> {
+                    out.writeByte(DHCP_DISCOVER_MESSAGE);
+                    writeString(out, dhcpDiscoverMessage.getSourceMac().toString());
+                }
+                case DhcpOfferMessage dhcpOfferMessage -> {
+                    out.writeByte(DHCP_OFFER_MESSAGE);
+                    writeIpAddress(out, dhcpOfferMessage.getOfferedIpAddress());
+                    writeIpAddress(out, dhcpOfferMessage.getDefaultGateway());
+                    out.writeInt(dhcpOfferMessage.getSubnetMask().getSize());
+                }
+                case DhcpResponseMessage unused -> out.writeByte(DHCP_RESPONSE_MESSAGE);
+                case DhcpAckMessage unused -> out.writeByte(DHCP_ACK_MESSAGE);
+                case RipMessage ripMessage -> {
+                    out.writeByte(RIP_MESSAGE);
+                    writeRoutingTable(out, ripMessage.getRoutingTable());
+                }
+                default -> throw new IOException("Unsupported message " + packet.getMessage().getClass().getSimpleName());
+            }
+        }
+
+        private static ByteBuffer toBuffer(ByteArrayOutputStream bytes) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+            bytes.reset();
+            return buffer;
+        }
+
+        private static void writeUuid(DataOutputStream out, UUID uuid) throws IOException {
+            out.writeLong(uuid.getMostSignificantBits());
+            out.writeLong(uuid.getLeastSignificantBits());
+        }
+
+        /**
+         * Writes an address followed by the index of the network holding the instance, so that equal addresses of
+         * different LANs stay apart on restore.
+         */
+        private void writeIpAddress(DataOutputStream out, IPAddress ipAddress) throws IOException {
+            out.writeLong(ipAddress == null ? NO_IP_ADDRESS : ipAddress.toLong());
+            Network network = ipAddress == null ? null : addressNetworks.get(ipAddress);
+            out.writeInt(network == null ? NO_NETWORK : networkIndex(network));
+        }
+
+        private static void writeString(DataOutputStream out, String string) throws IOException {
+            if (string == null) {
+                out.writeInt(-1);
+                return;
+            }
+            byte[] utf8 = string.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(utf8.length);
+            out.write(utf8);
+        }
+    }
+
+    private static class Decoder {
+        private final NetworkDeviceStorage storage;
+        private final Map<Integer, ByteBuffer> sections;
+        private final Map<UUID, RouterInterface> routerInterfaces = new HashMap<>();
+        private final Map<String, String> translatedMacAddresses = new HashMap<>();
+        private final Map<String, MACAddress> macAddresses = new HashMap<>();
+        private final Map<Network, Map<Long, IPAddress>> networkIpAddresses = new IdentityHashMap<>();
+        private final Map<Long, IPAddress> ipAddresses = new HashMap<>();
+        private final List<Network> networks = new ArrayList<>();
+
+        Decoder(NetworkDeviceStorage storage, Map<Integer, ByteBuffer> sections) {
+            this.storage = storage;
+            this.sections = sections;
+        }
+
+        Restored decode() throws IOException {
+            ByteBuffer state = section(STATE_SECTION);
+            int version = state.getInt();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported checkpoint version " + version);
+            }
+            long clockMillis = state.getLong();
+
+            for (RouterModel router : storage.getRouterModels()) {
+                for (RouterInterface routerInterface : router.getRouterInterfaces().values()) {
+                    Map<Long, IPAddress> heldIpAddresses = networkIpAddresses.computeIfAbsent(routerInterface.getNetwork(), network -> new HashMap<>());
+                    heldIpAddresses.put(routerInterface.getIpAddress().toLong(), routerInterface.getIpAddress());
+                    for (IPAddress usedIpAddress : routerInterface.getNetwork().getUsedIpAddresses()) {
+                        heldIpAddresses.putIfAbsent(usedIpAddress.toLong(), usedIpAddress);
+                    }
+                    macAddresses.put(routerInterface.getMacAddress().toString(), routerInterface.getMacAddress());
+                }
+            }
+            for (NetworkDeviceModel networkDeviceModel : storage.getNetworkDeviceModels()) {
+                macAddresses.putIfAbsent(networkDeviceModel.getMacAddress().toString(), networkDeviceModel.getMacAddress());
+            }
+
+            readInterfaces(section(INTERFACES_SECTION));
+            readNetworks(section(NETWORKS_SECTION));
+            readPcs(section(PCS_SECTION));
+            readRouters(section(ROUTERS_SECTION));
+            List<Pair<SwitchModel, MACAddress>> learnedMacAddresses = readSwitches(section(SWITCHES_SECTION));
+            List<Pair<NetworkConnection, Frame>> framesInFlight = readFrames(section(FRAMES_SECTION));
+            return new Restored(clockMillis, learnedMacAddresses, framesInFlight);
+        }
+
+        private ByteBuffer section(int tag) throws IOException {
+            ByteBuffer section = sections.get(tag);
+            if (section == null) {
+                throw new IOException("Checkpoint section " + tag + " is missing");
+            }
+            return section.duplicate();
+        }
+
+        private void readInterfaces(ByteBuffer in) throws IOException {
+            int count = in.getInt();
+            for (int i = 0; i < count; i++) {
+                UUID routerUuid = readUuid(in);
+                UUID interfaceUuid = readUuid(in);
+                String macAddress = readString(in);
+                long ipAddress = in.getLong();
+                RouterInterface routerInterface = findRouterInterface(routerUuid, ipAddress);
+                routerInterfaces.put(interfaceUuid, routerInterface);
+                translatedMacAddresses.put(macAddress, routerInterface.getMacAddress().toString());
+            }
+        }
+
+        private RouterInterface findRouterInterface(UUID routerUuid, long ipAddress) throws IOException {
+            if (!(storage.get(routerUuid) instanceof RouterModel router)) {
+                throw new IOException("Checkpoint does not match the topology, router " + routerUuid + " is missing");
+            }
+            for (RouterInterface routerInterface : router.getRouterInterfaces().values()) {
+                if (routerInterface.getIpAddress().toLong() == ipAddress) {
+                    return routerInterface;
+                }
+            }
+            throw new IOException("Checkpoint does not match the topology, " + router + " has no interface "
+                    + IPAddress.longToIPAddress(ipAddress));
+        }
+
+        private void readNetworks(ByteBuffer in) throws IOException {
+            int count = in.getInt();
+            for (int i = 0; i < count; i++) {
+                RouterInterface owner = in.get() != 0 ? routerInterface(readUuid(in)) : null;
+                long networkIpAddress = in.getLong();
+                SubnetMask subnetMask = new SubnetMask(in.getInt());
+                NetworkType networkType = NETWORK_TYPES[in.get()];
+                Network network;
+                if (owner != null) {
+                    network = owner.getNetwork();
+                } else if (networkType == NetworkType.LAN) {
+                    network = new LanNetwork(IPAddress.longToIPAddress(networkIpAddress), subnetMask);
+                } else {
+                    network = new WanNetwork(IPAddress.longToIPAddress(networkIpAddress), subnetMask);
+                }
+                IPAddress currentAvailableAddress = IPAddress.longToIPAddress(in.getLong());
+                // The used addresses are held by the network itself
+                networks.add(network);
+                int usedCount = in.getInt();
+                List<IPAddress> usedIpAddresses = new ArrayList<>(usedCount);
+                for (int j = 0; j < usedCount; j++) {
+                    usedIpAddresses.add(readIpAddress(in));
+                }
+                network.restoreAllocations(currentAvailableAddress, usedIpAddresses);
+            }
+        }
+
+        private void readPcs(ByteBuffer in) throws IOException {
+            int count = in.getInt();
+            for (int i = 0; i < count; i++) {
+                UUID uuid = readUuid(in);
+                if (!(storage.get(uuid) instanceof PCModel pc)) {
+                    throw new IOException("Checkpoint does not match the topology, PC " + uuid + " is missing");
+                }
+                boolean configured = in.get() != 0;
+                boolean configurationInProgress = in.get() != 0;
+                IPAddress ipAddress = readIpAddress(in);
+                IPAddress defaultGateway = readIpAddress(in);
+                int subnetMaskSize = in.getInt();
+                SubnetMask subnetMask = subnetMaskSize < 0 ? null : new SubnetMask(subnetMaskSize);
+                if (configured) {
+                    pc.configure(ipAddress, defaultGateway, subnetMask);
+                } else {
+                    pc.setIpAddress(ipAddress);
+                    pc.setDefaultGateway(defaultGateway);
+                    pc.setSubnetMask(subnetMask);
+                }
+                if (configurationInProgress) {
+                    pc.setConfigurationInProgress();
+                }
+                readArpCache(in, pc.getArpCache());
+            }
+        }
+
+        private void readRouters(ByteBuffer in) throws IOException {
+            int count = in.getInt();
+            for (int i = 0; i < count; i++) {
+                UUID uuid = readUuid(in);
+                if (!(storage.get(uuid) instanceof RouterModel router)) {
+                    throw new IOException("Checkpoint does not match the topology, router " + uuid + " is missing");
+                }
+                readArpCache(in, router.getArpCache());
+                RoutingTable routingTable = readRoutingTable(in);
+                router.getRoutingTable().getEntries().clear();
+                router.getRoutingTable().getEntries().addAll(routingTable.getEntries());
+            }
+        }
+
+        private List<Pair<SwitchModel, MACAddress>> readSwitches(ByteBuffer in) throws IOException {
+            List<Pair<SwitchModel, MACAddress>> learnedMacAddresses = new ArrayList<>();
+            int count = in.getInt();
+            for (int i = 0; i < count; i++) {
+                UUID uuid = readUuid(in);
+                if (!(storage.get(uuid) instanceof SwitchModel switchModel)) {
+                    throw new IOException("Checkpoint does not match the topology, switch " + uuid + " is missing");
+                }
+                switchModel.getCamTable().clear();
+                int entryCount = in.getInt();
+                for (int j = 0; j < entryCount; j++) {
+                    MACAddress macAddress = readMacAddress(in);
+                    switchModel.learnMacAddress(macAddress, in.getInt());
+                    learnedMacAddresses.add(new Pair<>(switchModel, macAddress));
+                }
+            }
+            return learnedMacAddresses;
+        }
+
+        private List<Pair<NetworkConnection, Frame>> readFrames(ByteBuffer in) throws IOException {
+            int count = in.getInt();
+            List<Pair<NetworkConnection, Frame>> framesInFlight = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                NetworkDeviceModel startDevice = device(readUuid(in));
+                NetworkDeviceModel endDevice = device(readUuid(in));
+                framesInFlight.add(new Pair<>(new NetworkConnection(startDevice, endDevice), readFrame(in)));
+            }
+            return framesInFlight;
+        }
+
+        private Frame readFrame(ByteBuffer in) throws IOException {
+            MACAddress sourceMac = readMacAddress(in);
+            MACAddress destinationMac = readMacAddress(in);
+            IPAddress sourceIp = readIpAddress(in);
+            IPAddress destinationIp = readIpAddress(in);
+            PacketStamp stamp = null;
+            if (in.get() != 0) {
+                stamp = new PacketStamp(in.getLong(), readIpAddress(in), new SubnetMask(in.getInt()));
+            }
+            byte messageType = in.get();
+            Message message = switch (messageType) {
+                case STRING_MESSAGE -> new StringMessage(readString(in));
+                case ARP_REQUEST_MESSAGE -> new ArpRequestMessage(readIpAddress(in), readIpAddress(in), readMacAddress(in));
+                case ARP_RESPONSE_MESSAGE -> new ArpResponseMessage(readMacAddress(in));
+                case DHCP_DISCOVER_MESSAGE -> new DhcpDiscoverMessage(readMacAddress(in));
+                case DHCP_OFFER_MESSAGE -> new DhcpOfferMessage(readIpAddress(in), readIpAddress(in), new SubnetMask(in.getInt()));
+                case DHCP_RESPONSE_MESSAGE -> new DhcpResponseMessage();
+                case DHCP_ACK_MESSAGE -> new DhcpAckMessage();
+                case RIP_MESSAGE -> new RipMessage(readRoutingTable(in));
+                default -> throw new IOException("Corrupted checkpoint, unknown message type " + messageType);
+            };
+            return new Frame(sourceMac, destinationMac, new Packet(sourceIp, destinationIp, message, stamp));
+        }
+
+        private void readArpCache(ByteBuffer in, ArpCache arpCache) throws IOException {
+            arpCache.clear();
+            int count = in.getInt();
+            for (int i = 0; i < count; i++) {
+                arpCache.addEntry(readIpAddress(in), readMacAddress(in));
+            }
+        }
+
+        private RoutingTable readRoutingTable(ByteBuffer in) throws IOException {
+            RoutingTable routingTable = new RoutingTable();
+            int count = in.getInt();
+            for (int i = 0; i < count; i++) {
+                int networkIndex = in.getInt();
+                if (networkIndex < 0 || networkIndex >= networks.size()) {
+                    throw new IOException("Corrupted checkpoint, unknown network " + networkIndex);
+                }
+                routingTable.addEntry(new RouteEntry(networks.get(networkIndex), readIpAddress(in), in.getInt()));
+            }
+            return routingTable;
+        }
+
+        private RouterInterface routerInterface(UUID uuid) throws IOException {
+            RouterInterface routerInterface = routerInterfaces.get(uuid);
+            if (routerInterface == null) {
+                throw new IOException("Corrupted checkpoint, unknown router interface " + uuid);
+            }
+            return routerInterface;
+        }
+
+        private NetworkDeviceModel device(UUID uuid) throws IOException {
+            RouterInterface routerInterface = routerInterfaces.get(uuid);
+            if (routerInterface != null) {
+                return routerInterface;
+            }
+            NetworkDeviceModel networkDeviceModel = storage.get(uuid);
+            if (networkDeviceModel == null) {
+                throw new IOException("Checkpoint does not match the topology, device " + uuid + " is missing");
+            }
+            return networkDeviceModel;
+        }
+
+        /**
+         * Reads an address as the instance the network holding it has in the model. The unspecified address 0.0.0.0
+         * is never shared, as an unconfigured PC must not match a packet by reference.
+         */
+        private IPAddress readIpAddress(ByteBuffer in) throws IOException {
+            long ipAddress = in.getLong();
+            int networkIndex = in.getInt();
+            if (ipAddress == NO_IP_ADDRESS) {
+                return null;
+            }
+            if (ipAddress == 0) {
+                return IPAddress.nullIpAddress();
+            }
+            if (networkIndex == NO_NETWORK) {
+                return ipAddresses.computeIfAbsent(ipAddress, IPAddress::longToIPAddress);
+            }
+            if (networkIndex < 0 || networkIndex >= networks.size()) {
+                throw new IOException("Corrupted checkpoint, unknown network " + networkIndex);
+            }
+            return networkIpAddresses.computeIfAbsent(networks.get(networkIndex), network -> new HashMap<>())
+                    .computeIfAbsent(ipAddress, IPAddress::longToIPAddress);
+        }
+
+        private MACAddress readMacAddress(ByteBuffer in) {
+            String macAddress = readString(in);
+            if (macAddress == null) {
+                return null;
+            }
+            return macAddresses.computeIfAbsent(translatedMacAddresses.getOrDefault(macAddress, macAddress), MACAddress::new);
+        }
+
+        private static UUID readUuid(ByteBuffer in) {
+            return new UUID(in.getLong(), in.getLong());
+        }
+
+        private static String readString(ByteBuffer in) {
+            int length = in.getInt();
+            if (length < 0) {
+                return null;
+            }
+            byte[] utf8 = new byte[length];
+            in.get(utf8);
+            return new String(utf8, StandardCharsets.UTF_8);
+        }
+    }
+}
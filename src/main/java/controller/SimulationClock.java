@@ -0,0 +1,81 @@
+package controller;
+
+/**
+ * Measures simulated time. The clock only advances while the simulation is running, so pauses do not count.
+ * By default simulated time passes as fast as wall-clock time, a higher rate runs the simulation faster.
+ */
+public class SimulationClock {
+    private long elapsedNanosBeforeCurrentRun = 0;
+    private long currentRunStartedAtNanos = -1;
+    private double rate = 1;
+
+    /**
+     * Starts or resumes advancing the clock.
+     */
+    public synchronized void start() {
+        if (currentRunStartedAtNanos < 0) {
+            currentRunStartedAtNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * Stops advancing the clock until it is started again.
+     */
+    public synchronized void stop() {
+        if (currentRunStartedAtNanos >= 0) {
+            elapsedNanosBeforeCurrentRun += currentRunElapsedNanos();
+            currentRunStartedAtNanos = -1;
+        }
+    }
+
+    /**
+     * Sets how many times faster than wall-clock time the simulated time passes. Time that already passed is kept.
+     *
+     * @param rate the rate, 1 for real time
+     * @throws IllegalArgumentException if the rate is not positive
+     */
+    public synchronized void setRate(double rate) {
+        if (!(rate > 0)) {
+            throw new IllegalArgumentException("rate must be positive");
+        }
+        if (currentRunStartedAtNanos >= 0) {
+            elapsedNanosBeforeCurrentRun += currentRunElapsedNanos();
+            currentRunStartedAtNanos = System.nanoTime();
+        }
+        this.rate = rate;
+    }
+
+    public synchronized double getRate() {
+        return rate;
+    }
+
+    private long currentRunElapsedNanos() {
+        return (long) ((System.nanoTime() - currentRunStartedAtNanos) * rate);
+    }
+
+    /**
+     * Sets the simulated time, e.g. to continue a saved simulation. The clock must not be running.
+     *
+     * @param elapsedMillis the simulated time in milliseconds
+     * @throws IllegalStateException if the clock is running
+     */
+    public synchronized void restore(long elapsedMillis) {
+        if (currentRunStartedAtNanos >= 0) {
+            throw new IllegalStateException("clock is running");
+        }
+        elapsedNanosBeforeCurrentRun = elapsedMillis * 1_000_000;
+    }
+
+    /**
+     * Returns the simulated time elapsed since the simulation was first started.
+     *
+     * @return the simulated time in milliseconds
+     */
+    public synchronized long currentTimeMillis() {
+        long elapsedNanos = elapsedNanosBeforeCurrentRun;
+        if (currentRunStartedAtNanos >= 0) {
+            elapsedNanos += currentRunElapsedNanos();
+        }
+        return elapsedNanos / 1_000_000;
+    }
+}
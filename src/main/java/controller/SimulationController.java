@@ -1,21 +1,27 @@
 package controller;
 
-import com.google.common.eventbus.Subscribe;
 import common.*;
-import javafx.animation.PathTransition;
+import io.FrameTraceRecord;
+import io.FrameTraceWriter;
+import io.PcapWriter;
+import io.SimulationJournalRecord;
+import io.SimulationJournalWriter;
+import io.TrafficTraceReader;
 import javafx.scene.paint.Color;
-import javafx.scene.shape.LineTo;
-import javafx.scene.shape.MoveTo;
-import javafx.scene.shape.Path;
-import javafx.scene.shape.Rectangle;
-import javafx.util.Duration;
 import javafx.util.Pair;
+import metrics.MetricsMBean;
+import metrics.MetricsSnapshot;
 import model.*;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import view.ConnectionLine;
+import profiling.*;
 import view.SimulationWorkspaceView;
 
+import javax.management.JMException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -24,19 +30,68 @@ import java.util.concurrent.atomic.AtomicBoolean;
  * Controls the simulation of network communications, handling animations, and packet transmissions.
  */
 public class SimulationController {
+    private static final long TIMER_TICK_MILLIS = 10;
+    private static final long RIP_INTERVAL_MILLIS = 30_000;
+    private static final long RANDOM_COMMUNICATION_INTERVAL_MILLIS = 5_000;
+    private static final long CAM_AGING_MILLIS = 300_000;
+    static final long FRAME_TRAVERSAL_MILLIS = 500;
+    static final long TRAFFIC_REPORT_INTERVAL_MILLIS = 500;
+    private static final long METRICS_SNAPSHOT_INTERVAL_MILLIS = 1_000;
+    /**
+     * How many times faster than wall-clock time a headless simulation runs.
+     */
+    public static final double HEADLESS_CLOCK_RATE = 100;
+    private static final int MAX_LOGGED_BODY_LENGTH = 64;
+    private static final String METRICS_OBJECT_NAME = "cz.cvut.fel.pjv.hofmaad:type=SimulationMetrics";
+
     private final ScheduledExecutorService threadPool;
+    private final ExecutorService frameExecutor;
     private final BlockingQueue<Pair<NetworkConnection, Frame>> outboundQueue;
     private final NetworkDeviceStorage storage;
     private final NetworksController networksController;
     private final SimulationWorkspaceView simulationWorkspaceView;
+    private final SimulationEventBus eventBus;
     private final AtomicBoolean simulationStarted = new AtomicBoolean(false);
     private final AtomicBoolean isPaused = new AtomicBoolean(true);
     private final Semaphore pauseSemaphore = new Semaphore(1);
 
-    private ScheduledFuture<?> randomCommunicationTaskHandle;
-    private ScheduledFuture<?> ripTaskHandle;
+    private ScheduledFuture<?> timerWheelTaskHandle;
+    private final AtomicBoolean timerWheelTickPending = new AtomicBoolean(false);
+    private final SimulationClock clock = new SimulationClock();
+    private final TimerWheel timerWheel = new TimerWheel(TIMER_TICK_MILLIS, clock::currentTimeMillis);
+    private final ConcurrentHashMap<CamAgingKey, TimerWheel.Timeout> camAgingTimeouts = new ConcurrentHashMap<>();
+    private final AnimationLevelOfDetail animationLevelOfDetail = new AnimationLevelOfDetail();
+    private final FailureController failureController;
+    private final SimulationMetrics metrics = new SimulationMetrics();
+    private final CommunicationLatency communicationLatency = new CommunicationLatency(metrics.getRegistry());
+    private volatile MetricsSnapshot latestMetricsSnapshot;
+    private volatile FrameTraceWriter frameTrace;
+    private volatile SimulationJournalWriter journal;
+    private volatile PacketCapture packetCapture;
+    private volatile boolean headless = false;
+    private volatile boolean randomCommunication = true;
+    private volatile TrafficTraceSource trafficTrace;
     private static final Logger logger = LogManager.getLogger(SimulationController.class);
     private final ConcurrentHashMap<UUID, Pair<NetworkConnection, Frame>> awaitingCommunication = new ConcurrentHashMap<>();
+    private final Set<Pair<NetworkConnection, Frame>> unanimatedCommunication = ConcurrentHashMap.newKeySet();
+
+    /**
+     * What became of a string message one PC was asked to send to another.
+     */
+    public enum CommunicationOutcome {
+        /**
+         * The message left the initiator.
+         */
+        SENT,
+        /**
+         * The message was not sent, a DHCP or ARP exchange it waits for was started instead.
+         */
+        NOT_SENT,
+        /**
+         * The PCs are in different LANs, which is not simulated.
+         */
+        NOT_ROUTED
+    }
 
     /**
      * Initializes the simulation controller with required dependencies.
@@ -44,27 +99,121 @@ public class SimulationController {
      * @param simulationWorkspaceView The user interface for the simulation.
      * @param storage                 Storage for all network devices.
      * @param networksController      Controller that manages network settings and behaviors.
+     * @param eventBus                The bus of the simulation session, simulation events are posted to it.
      */
-    public SimulationController(SimulationWorkspaceView simulationWorkspaceView, NetworkDeviceStorage storage, NetworksController networksController) {
+    public SimulationController(SimulationWorkspaceView simulationWorkspaceView, NetworkDeviceStorage storage, NetworksController networksController, SimulationEventBus eventBus) {
         this.outboundQueue = new LinkedBlockingQueue<>();
         this.threadPool = Executors.newScheduledThreadPool(50);
+        this.frameExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "simulation-frame-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
         this.storage = storage;
         this.networksController = networksController;
         this.simulationWorkspaceView = simulationWorkspaceView;
-        GlobalEventBus.register(this);
+        this.eventBus = eventBus;
+        this.failureController = new FailureController(storage, networksController, simulationWorkspaceView, clock, timerWheel, frameExecutor, eventBus);
+        eventBus.subscribe(ExitRequestEvent.class, this::handleExitRequestEvent);
+        eventBus.subscribe(NetworkCommunicationAnimationFinishedEvent.class, this::handleAnimationFinishedEvent);
+        eventBus.subscribe(DeviceStateChangedEvent.class, event -> journal(event.up() ? SimulationJournalRecord.Kind.DEVICE_UP : SimulationJournalRecord.Kind.DEVICE_DOWN,
+                event.deviceUuid(), null, SimulationJournalRecord.MessageType.NONE, 0));
+        eventBus.subscribe(LinkStateChangedEvent.class, event -> journal(event.up() ? SimulationJournalRecord.Kind.LINK_UP : SimulationJournalRecord.Kind.LINK_DOWN,
+                event.firstDeviceUuid(), event.secondDeviceUuid(), SimulationJournalRecord.MessageType.NONE, 0));
+        registerMetrics();
+    }
+
+    /**
+     * Adds the gauges sampled from the controller's queues and exposes the metrics through JMX.
+     * The bean of a previous simulation is replaced, so a JMX console always shows the current workspace.
+     */
+    private void registerMetrics() {
+        metrics.getRegistry().gauge("queue.outbound.depth", outboundQueue::size);
+        metrics.getRegistry().gauge("frames.awaitingAnimation", awaitingCommunication::size);
+        metrics.getRegistry().gauge("frames.animated", animationLevelOfDetail::getFramesInFlight);
+        metrics.getRegistry().gauge("timers.pending", timerWheel::size);
+        try {
+            MetricsMBean.register(metrics.getRegistry(), METRICS_OBJECT_NAME);
+        } catch (JMException e) {
+            logger.warn("Simulation metrics are not available through JMX", e);
+        }
+    }
+
+    public FailureController getFailureController() {
+        return failureController;
+    }
+
+    public SimulationClock getClock() {
+        return clock;
+    }
+
+    public TimerWheel getTimerWheel() {
+        return timerWheel;
+    }
+
+    public AnimationLevelOfDetail getAnimationLevelOfDetail() {
+        return animationLevelOfDetail;
+    }
+
+    public SimulationMetrics getMetrics() {
+        return metrics;
+    }
+
+    public CommunicationLatency getCommunicationLatency() {
+        return communicationLatency;
+    }
+
+    /**
+     * Returns the snapshot taken by the last periodic publication, see {@link MetricsSnapshotEvent}.
+     *
+     * @return the latest snapshot, null before the first one was taken
+     */
+    public MetricsSnapshot getLatestMetricsSnapshot() {
+        return latestMetricsSnapshot;
+    }
+
+    /**
+     * Takes a snapshot of every metric, stores it as the latest one and posts it to the session's subscribers.
+     */
+    private void publishMetricsSnapshot() {
+        MetricsSnapshot snapshot = metrics.getRegistry().snapshot(clock.currentTimeMillis());
+        latestMetricsSnapshot = snapshot;
+        eventBus.post(new MetricsSnapshotEvent(snapshot));
+    }
+
+    private record CamAgingKey(UUID switchUuid, MACAddress macAddress) {
+    }
+
+    /**
+     * A running pcap capture and the devices whose frames it takes.
+     *
+     * @param writer     The capture file.
+     * @param deviceUuid The captured device, null to capture every link.
+     * @param peerUuid   The other end of the captured link, null to capture every link of the device.
+     */
+    private record PacketCapture(PcapWriter writer, UUID deviceUuid, UUID peerUuid) {
+        boolean captures(UUID startDeviceUuid, UUID endDeviceUuid) {
+            if (deviceUuid == null) {
+                return true;
+            }
+            if (peerUuid == null) {
+                return deviceUuid.equals(startDeviceUuid) || deviceUuid.equals(endDeviceUuid);
+            }
+            return deviceUuid.equals(startDeviceUuid) && peerUuid.equals(endDeviceUuid) || deviceUuid.equals(endDeviceUuid) && peerUuid.equals(startDeviceUuid);
+        }
     }
 
     public void updateLabelsRequest(PCModel pcModel) {
-        GlobalEventBus.post(new UpdateLabelsEvent(pcModel));
+        eventBus.post(new UpdateLabelsEvent(pcModel));
     }
 
     public int queueSize() {
         return outboundQueue.size();
     }
 
-    @Subscribe
     public void handleExitRequestEvent(ExitRequestEvent event) {
         try {
+            frameExecutor.shutdown();
             threadPool.shutdown();
             if (!threadPool.awaitTermination(800, TimeUnit.MILLISECONDS)) {
                 List<Runnable> droppedTasks = threadPool.shutdownNow();
@@ -72,9 +221,379 @@ public class SimulationController {
             }
         } catch (InterruptedException e) {
             threadPool.shutdownNow();
+            frameExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        try {
+            stopFrameTrace();
+        } catch (IOException e) {
+            logger.error("Frame trace could not be completed", e);
+        }
+        try {
+            stopJournal();
+        } catch (IOException e) {
+            logger.error("Simulation journal could not be completed", e);
+        }
+        try {
+            stopPacketCapture();
+        } catch (IOException e) {
+            logger.error("Packet capture could not be completed", e);
+        }
+        try {
+            stopTrafficTrace();
+        } catch (IOException e) {
+            logger.error("Traffic trace could not be closed", e);
+        }
+        GlobalEventBus.application().post(new ReadyToExitEvent());
+    }
+
+    /**
+     * Starts recording every frame sent, delivered, lost or dropped into a binary trace file, replacing a running trace.
+     *
+     * @param path The trace file.
+     * @throws IOException if the file cannot be created.
+     */
+    public void startFrameTrace(Path path) throws IOException {
+        FrameTraceWriter previous = frameTrace;
+        frameTrace = new FrameTraceWriter(path);
+        if (previous != null) {
+            previous.close();
+        }
+    }
+
+    /**
+     * Stops recording the frame trace and writes out the remaining records.
+     *
+     * @return The number of frame events recorded, 0 if no trace was running.
+     * @throws IOException if the remaining records cannot be written.
+     */
+    public long stopFrameTrace() throws IOException {
+        FrameTraceWriter stopped = frameTrace;
+        frameTrace = null;
+        if (stopped == null) {
+            return 0;
+        }
+        stopped.close();
+        return stopped.getRecordCount();
+    }
+
+    public boolean isFrameTraceRunning() {
+        return frameTrace != null;
+    }
+
+    private void traceFrame(FrameTraceRecord.Kind kind, NetworkConnection networkConnection, Frame frame) {
+        if (journal != null) {
+            SimulationJournalRecord.Kind journalKind = switch (kind) {
+                case SENT -> SimulationJournalRecord.Kind.FRAME_SENT;
+                case DELIVERED -> SimulationJournalRecord.Kind.FRAME_DELIVERED;
+                case LOST -> SimulationJournalRecord.Kind.FRAME_LOST;
+                case DROPPED -> SimulationJournalRecord.Kind.FRAME_DROPPED;
+            };
+            journal(journalKind, networkConnection.getStartDevice(), networkConnection.getEndDevice(), SimulationJournalRecord.MessageType.of(frame.getPacket().getMessage()), 0);
+        }
+        FrameTraceWriter trace = frameTrace;
+        if (trace == null) {
+            return;
+        }
+        try {
+            trace.record(kind, clock.currentTimeMillis(), networkConnection.getStartDevice().getUuid(), networkConnection.getEndDevice().getUuid(),
+                    TrafficClass.of(frame.getPacket().getMessage()));
+        } catch (IOException e) {
+            if (frameTrace == trace) {
+                frameTrace = null;
+            }
+            try {
+                trace.abort();
+            } catch (IOException closeFailure) {
+                e.addSuppressed(closeFailure);
+            }
+            logger.error("Frame trace stopped, it could not be written", e);
+            simulationWorkspaceView.printToLogWindow(String.format("Frame trace stopped, it could not be written: %s\n", e.getMessage()), Color.RED);
+        }
+    }
+
+    /**
+     * Starts recording frame hops, device and link state changes, DHCP assignments and RIP updates into a journal,
+     * replacing a running journal. See {@link JournalReplay} for showing a journal afterwards.
+     *
+     * @param path The journal file.
+     * @throws IOException if the file cannot be created.
+     */
+    public void startJournal(Path path) throws IOException {
+        SimulationJournalWriter previous = journal;
+        journal = new SimulationJournalWriter(path);
+        if (previous != null) {
+            previous.close();
+        }
+    }
+
+    /**
+     * Stops recording the journal and writes its time index.
+     *
+     * @return The number of events recorded, 0 if no journal was running.
+     * @throws IOException if the index cannot be written.
+     */
+    public long stopJournal() throws IOException {
+        SimulationJournalWriter stopped = journal;
+        journal = null;
+        if (stopped == null) {
+            return 0;
+        }
+        stopped.close();
+        return stopped.getEventCount();
+    }
+
+    public boolean isJournalRunning() {
+        return journal != null;
+    }
+
+    /**
+     * Records an event about devices into the journal. Router interfaces are recorded as their router, the device
+     * shown in the view, because the identities of interfaces do not survive saving and loading a topology.
+     */
+    private void journal(SimulationJournalRecord.Kind kind, NetworkDeviceModel device, NetworkDeviceModel peer, SimulationJournalRecord.MessageType messageType, long value) {
+        if (journal != null) {
+            journal(kind, getAnimatedDevice(device).getUuid(), peer == null ? null : getAnimatedDevice(peer).getUuid(), messageType, value);
+        }
+    }
+
+    private void journal(SimulationJournalRecord.Kind kind, UUID deviceUuid, UUID peerUuid, SimulationJournalRecord.MessageType messageType, long value) {
+        SimulationJournalWriter recording = journal;
+        if (recording == null) {
+            return;
+        }
+        try {
+            recording.record(kind, clock.currentTimeMillis(), deviceUuid, peerUuid, messageType, value);
+        } catch (IOException e) {
+            if (journal == recording) {
+                journal = null;
+            }
+            try {
+                // Writes the footer if it still can, so the events recorded so far stay readable
+                recording.close();
+            } catch (IOException closeFailure) {
+                e.addSuppressed(closeFailure);
+            }
+            logger.error("Simulation journal stopped, it could not be written", e);
+            simulationWorkspaceView.printToLogWindow(String.format("Simulation journal stopped, it could not be written: %s\n", e.getMessage()), Color.RED);
+        }
+    }
+
+    /**
+     * Starts capturing the frames put on links into a pcap file, in their real wire formats, replacing a running capture.
+     * Router interfaces are captured as part of their router.
+     *
+     * @param path       The capture file.
+     * @param deviceUuid The device to capture the links of, null to capture every link.
+     * @param peerUuid   The other end of the one link to capture, null to capture every link of the device.
+     * @throws IOException if the file cannot be created.
+     */
+    public void startPacketCapture(Path path, UUID deviceUuid, UUID peerUuid) throws IOException {
+        PacketCapture previous = packetCapture;
+        packetCapture = new PacketCapture(new PcapWriter(path), deviceUuid, peerUuid);
+        if (previous != null) {
+            previous.writer().close();
+        }
+    }
+
+    /**
+     * Stops the packet capture and writes out the remaining frames.
+     *
+     * @return The number of frames captured, 0 if no capture was running.
+     * @throws IOException if the remaining frames cannot be written.
+     */
+    public long stopPacketCapture() throws IOException {
+        PacketCapture stopped = packetCapture;
+        packetCapture = null;
+        if (stopped == null) {
+            return 0;
+        }
+        stopped.writer().close();
+        return stopped.writer().getFrameCount();
+    }
+
+    public boolean isPacketCaptureRunning() {
+        return packetCapture != null;
+    }
+
+    private void capturePacket(NetworkConnection networkConnection, Frame frame) {
+        PacketCapture capture = packetCapture;
+        if (capture == null || !capture.captures(getAnimatedDevice(networkConnection.getStartDevice()).getUuid(), getAnimatedDevice(networkConnection.getEndDevice()).getUuid())) {
+            return;
+        }
+        try {
+            capture.writer().write(clock.currentTimeMillis(), frame);
+        } catch (IOException e) {
+            if (packetCapture == capture) {
+                packetCapture = null;
+            }
+            try {
+                // Writes out the frames still buffered if the file takes them
+                capture.writer().close();
+            } catch (IOException closeFailure) {
+                e.addSuppressed(closeFailure);
+            }
+            logger.error("Packet capture stopped, it could not be written", e);
+            simulationWorkspaceView.printToLogWindow(String.format("Packet capture stopped, it could not be written: %s\n", e.getMessage()), Color.RED);
+        }
+    }
+
+    /**
+     * Runs the simulation without animating frames, every frame crosses its link after the same simulated time as an
+     * animated one. The simulated time passes {@value #HEADLESS_CLOCK_RATE} times faster, so a long run can be recorded
+     * into a journal quickly and inspected with a {@link JournalReplay} afterwards.
+     *
+     * @param headless Whether to run headless.
+     */
+    public void setHeadless(boolean headless) {
+        this.headless = headless;
+        clock.setRate(headless ? HEADLESS_CLOCK_RATE : 1);
+    }
+
+    public boolean isHeadless() {
+        return headless;
+    }
+
+    /**
+     * Turns the random traffic between PCs on or off, e.g. to measure a replayed traffic trace on its own.
+     *
+     * @param randomCommunication Whether to pick a random communication every few seconds.
+     */
+    public void setRandomCommunication(boolean randomCommunication) {
+        this.randomCommunication = randomCommunication;
+    }
+
+    public boolean isRandomCommunication() {
+        return randomCommunication;
+    }
+
+    /**
+     * Starts replaying a pcap capture or CSV flow trace between the PCs, replacing a running replay. The trace is
+     * replayed in simulated time from now on, so it waits while the simulation is paused or not started yet. The packets
+     * are injected on the simulation worker.
+     *
+     * @param path The trace file, see {@link TrafficTraceReader} for the formats.
+     * @return the replay
+     * @throws IOException              if the trace cannot be read.
+     * @throws IllegalArgumentException if there are fewer than 2 PCs.
+     */
+    public TrafficTraceSource startTrafficTrace(Path path) throws IOException {
+        stopTrafficTrace();
+        TrafficTraceReader reader = TrafficTraceReader.open(path);
+        TrafficTraceSource source;
+        try {
+            source = new TrafficTraceSource(reader, storage.getPcModels(), failureController::isDeviceFailed, this::injectCommunication,
+                    timerWheel, clock::currentTimeMillis, this::trafficTraceFinished);
+        } catch (RuntimeException e) {
+            reader.close();
+            throw e;
+        }
+        trafficTrace = source;
+        // Injecting changes the ARP caches and DHCP state of the PCs, which only the simulation worker does
+        submitToFrameWorker(source::start, "Traffic trace start");
+        return source;
+    }
+
+    private void trafficTraceFinished(TrafficTraceSource source, IOException failure) {
+        if (trafficTrace == source) {
+            trafficTrace = null;
+        }
+        if (failure != null) {
+            simulationWorkspaceView.printToLogWindow(String.format("Traffic trace stopped: %s\n", failure.getMessage()), Color.RED);
+        } else {
+            simulationWorkspaceView.printToLogWindow(String.format("Traffic trace finished, %d packets injected, %d skipped (%d between LANs), %d addresses mapped onto PCs\n",
+                    source.getInjectedPackets(), source.getSkippedPackets(), source.getUnroutedPackets(), source.getMappedAddresses()), Color.DARKCYAN);
+        }
+    }
+
+    /**
+     * Stops replaying the traffic trace.
+     *
+     * @return The number of packets injected, 0 if no trace was replayed.
+     * @throws IOException if the trace cannot be closed.
+     */
+    public long stopTrafficTrace() throws IOException {
+        TrafficTraceSource stopped = trafficTrace;
+        trafficTrace = null;
+        if (stopped == null) {
+            return 0;
+        }
+        stopped.close();
+        return stopped.getInjectedPackets();
+    }
+
+    public boolean isTrafficTraceRunning() {
+        return trafficTrace != null;
+    }
+
+    /**
+     * Captures the runtime state of the simulation: the simulated time, the configuration of the PCs, the ARP caches,
+     * CAM tables, routing tables, network address pools and the frames in flight. The capture runs on the simulation
+     * worker, so no frame is delivered meanwhile. Failures and metrics are not part of a checkpoint.
+     *
+     * @return the state sections to save with the topology, see {@link io.TopologySnapshotWriter#write(Path, io.NetworkData, Map)}
+     * @throws IOException           if the state cannot be encoded.
+     * @throws IllegalStateException if the simulation is running.
+     */
+    public Map<Integer, ByteBuffer> captureCheckpoint() throws IOException {
+        if (simulationStarted.get() && !isPaused.get()) {
+            throw new IllegalStateException("Pause the simulation before capturing a checkpoint");
+        }
+        try {
+            return frameExecutor.submit(() -> SimulationCheckpoint.capture(storage, clock.currentTimeMillis(), getFramesInFlight())).get();
+        } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Checkpoint capture interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw new IllegalStateException("Checkpoint capture failed", e.getCause());
+        }
+    }
+
+    /**
+     * Collects the frames crossing a link or waiting for one, in the order they got there.
+     *
+     * @return the frames with the connections they travel over
+     */
+    private List<Pair<NetworkConnection, Frame>> getFramesInFlight() {
+        List<Pair<NetworkConnection, Frame>> framesInFlight = new ArrayList<>(awaitingCommunication.values());
+        framesInFlight.addAll(unanimatedCommunication);
+        for (RouterModel router : storage.getRouterModels()) {
+            for (RouterInterface routerInterface : router.getRouterInterfaces().values()) {
+                for (QueuedFrame queuedFrame : routerInterface.getEgressQueue().getQueuedFrames()) {
+                    framesInFlight.add(new Pair<>(queuedFrame.networkConnection(), queuedFrame.frame()));
+                }
+            }
+        }
+        framesInFlight.addAll(outboundQueue);
+        return framesInFlight;
+    }
+
+    /**
+     * Restores a checkpoint into the topology it was captured with, before the simulation is started.
+     * The frames that were in flight are sent again from the start of their links and the aging of the CAM table
+     * entries starts over.
+     *
+     * @param stateSections The state sections of the checkpoint.
+     * @throws IOException           if the sections are corrupted or do not match the topology.
+     * @throws IllegalStateException if the simulation was already started.
+     */
+    public void restoreCheckpoint(Map<Integer, ByteBuffer> stateSections) throws IOException {
+        if (simulationStarted.get()) {
+            throw new IllegalStateException("A checkpoint can only be restored before the simulation starts");
+        }
+        SimulationCheckpoint.Restored restored = SimulationCheckpoint.restore(storage, stateSections);
+        clock.restore(restored.clockMillis());
+        // Nothing is scheduled yet, so the wheel jumps to the restored time instead of walking every tick up to it
+        timerWheel.advance();
+        for (Pair<SwitchModel, MACAddress> learnedMacAddress : restored.learnedMacAddresses()) {
+            refreshCamAging(learnedMacAddress.getKey(), learnedMacAddress.getValue());
+        }
+        for (Pair<NetworkConnection, Frame> frameThroughNetworkConnection : restored.framesInFlight()) {
+            sendFrame(frameThroughNetworkConnection.getKey(), frameThroughNetworkConnection.getValue());
         }
-        GlobalEventBus.post(new ReadyToExitEvent());
     }
 
     /**
@@ -100,10 +619,45 @@ public class SimulationController {
         }
         isPaused.set(false);
         simulationStarted.set(true);
+        clock.start();
 
-        ripTaskHandle = threadPool.scheduleAtFixedRate(this::startRip, 0, 30, TimeUnit.SECONDS);
+        timerWheel.scheduleAtFixedRate(this::startRip, 0, RIP_INTERVAL_MILLIS);
+        timerWheel.scheduleAtFixedRate(() -> {
+            if (randomCommunication) {
+                pickRandomLanCommunication();
+            }
+        }, 0, RANDOM_COMMUNICATION_INTERVAL_MILLIS);
+        timerWheel.scheduleAtFixedRate(this::reportAggregatedTraffic, TRAFFIC_REPORT_INTERVAL_MILLIS, TRAFFIC_REPORT_INTERVAL_MILLIS);
+        timerWheel.scheduleAtFixedRate(this::publishMetricsSnapshot, METRICS_SNAPSHOT_INTERVAL_MILLIS, METRICS_SNAPSHOT_INTERVAL_MILLIS);
         startPacketProcessing();
-        randomCommunicationTaskHandle = threadPool.scheduleAtFixedRate(this::pickRandomLanCommunication, 0, 5, TimeUnit.SECONDS);
+        startTimerWheel();
+    }
+
+    /**
+     * Reports the frames that were not animated to the view in one batch, so they are shown as link traffic in a single pulse.
+     */
+    private void reportAggregatedTraffic() {
+        List<LinkTrafficEvent> linkTrafficEvents = animationLevelOfDetail.drainAggregatedTraffic(TRAFFIC_REPORT_INTERVAL_MILLIS);
+        if (!linkTrafficEvents.isEmpty()) {
+            eventBus.postAll(linkTrafficEvents);
+        }
+    }
+
+    /**
+     * Drives the timer wheel from the thread pool. The wheel follows the simulation clock, so its timers stand still while paused.
+     * The wheel is advanced on the simulation worker, so routing updates, generated traffic, CAM aging and failure scripts
+     * change device state in turn with the frames being delivered.
+     */
+    private void startTimerWheel() {
+        timerWheelTaskHandle = threadPool.scheduleAtFixedRate(() -> {
+            // A tick still queued behind the frames catches the wheel up to the clock for this one as well
+            if (timerWheelTickPending.compareAndSet(false, true)) {
+                submitToFrameWorker(() -> {
+                    timerWheelTickPending.set(false);
+                    timerWheel.advance();
+                }, "Timer wheel tick");
+            }
+        }, 0, TIMER_TICK_MILLIS, TimeUnit.MILLISECONDS);
     }
 
     /**
@@ -115,12 +669,10 @@ public class SimulationController {
         }
         isPaused.set(true);
         pauseSemaphore.acquireUninterruptibly();
+        clock.stop();
 
-        if (ripTaskHandle != null) {
-            ripTaskHandle.cancel(true);
-        }
-        if (randomCommunicationTaskHandle != null) {
-            randomCommunicationTaskHandle.cancel(true);
+        if (timerWheelTaskHandle != null) {
+            timerWheelTaskHandle.cancel(false);
         }
     }
 
@@ -130,14 +682,16 @@ public class SimulationController {
     public void resumeSimulation() {
         isPaused.set(false);
         pauseSemaphore.release();
-        ripTaskHandle = threadPool.scheduleAtFixedRate(this::startRip, 10, 30, TimeUnit.SECONDS);
-        randomCommunicationTaskHandle = threadPool.scheduleAtFixedRate(this::pickRandomLanCommunication, 5, 10, TimeUnit.SECONDS);
+        clock.start();
+        startTimerWheel();
     }
 
     /**
      * Periodically initiates RIP protocol communications between routers to update routing tables.
+     * RIP messages leave through the router interface egress queues like any other routed traffic.
      */
     private void startRip() {
+        failureController.onRipRound();
         if (storage.getRouterModels().size() < 2) {
             return;
         }
@@ -146,16 +700,16 @@ public class SimulationController {
             for (RouterModel connectedRouter : networksController.getRoutersRipConnections(router)) {
                 Network sharedNetwork = networksController.getSharedNetwork(router, connectedRouter);
                 if (sharedNetwork != null) {
-                    UUID communicationUuid = UUID.randomUUID();
-                    Pair<NetworkConnection, Frame> frameThroughNetworkConnection = new Pair<>(new NetworkConnection(router.getNetworksRouterInterface(sharedNetwork), connectedRouter.getNetworksRouterInterface(sharedNetwork)),
-                            new Frame(router.getMacAddress(), connectedRouter.getMacAddress(),
-                                    new Packet(router.getNetworksRouterInterface(sharedNetwork).getIpAddress(), connectedRouter.getNetworksRouterInterface(sharedNetwork).getIpAddress(), new RipMessage(router.getRoutingTable()))));
-                    awaitingCommunication.put(communicationUuid, frameThroughNetworkConnection);
-
-                    GlobalEventBus.post(new NetworkCommunicationAnimationRequestEvent(
-                            communicationUuid,
-                            transformFrameThroughNetworkConnectionToVisualForm(frameThroughNetworkConnection.getKey(), frameThroughNetworkConnection.getValue()
-                            )));
+                    RouterInterface routerInterface = router.getNetworksRouterInterface(sharedNetwork);
+                    RouterInterface connectedRouterInterface = connectedRouter.getNetworksRouterInterface(sharedNetwork);
+                    NetworkConnection networkConnection = new NetworkConnection(routerInterface, connectedRouterInterface);
+                    if (!failureController.isConnectionUp(networkConnection)) {
+                        continue;
+                    }
+                    sendPacket(networkConnection,
+                            router.getMacAddress(),
+                            connectedRouter.getMacAddress(),
+                            new Packet(routerInterface.getIpAddress(), connectedRouterInterface.getIpAddress(), new RipMessage(router.getRoutingTableFor(connectedRouterInterface.getIpAddress()))));
                 }
             }
         }
@@ -167,29 +721,28 @@ public class SimulationController {
     public void pickRandomLanCommunication() {
         logger.debug("Picking PC communication");
         ArrayList<PCModel> pcModels = storage.getPcModels();
+        pcModels.removeIf(failureController::isDeviceFailed);
         if (pcModels.size() < 2) {
             simulationWorkspaceView.printToLogWindow("Place more than 1 PC to start PC<->PC communication\n", Color.RED);
             logger.warn("Place more than 1 PC to start PC<->PC communication");
             return;
         }
-        Random random = new Random();
-        int randomIndex = random.nextInt(pcModels.size());
-        PCModel initiatorPcModel = pcModels.get(randomIndex);
-        while (initiatorPcModel.isConfigurationInProgress() || initiatorPcModel.getConnection() == null) {
-            logger.debug("Initiator {} is in configuration process, picking another one", initiatorPcModel);
-            randomIndex = random.nextInt(pcModels.size());
-            initiatorPcModel = pcModels.get(randomIndex);
+        // Unconnected PCs and PCs waiting for DHCP cannot take part, picking until a ready one comes up would never end without them
+        pcModels.removeIf(pcModel -> pcModel.getConnection() == null || pcModel.isConfigurationInProgress());
+        if (pcModels.size() < 2) {
+            logger.debug("Fewer than 2 PCs are connected and not being configured, skipping PC communication");
+            return;
         }
-
-        PCModel recipientPcModel = initiatorPcModel;
-        while (initiatorPcModel == recipientPcModel || recipientPcModel.getConnection() == null || recipientPcModel.isConfigurationInProgress()) {
-            randomIndex = random.nextInt(pcModels.size());
-            recipientPcModel = pcModels.get(randomIndex);
+        Random random = new Random();
+        int initiatorIndex = random.nextInt(pcModels.size());
+        int recipientIndex = random.nextInt(pcModels.size() - 1);
+        if (recipientIndex >= initiatorIndex) {
+            recipientIndex++;
         }
+        PCModel initiatorPcModel = pcModels.get(initiatorIndex);
+        PCModel recipientPcModel = pcModels.get(recipientIndex);
         logger.debug("Initiator {} wants to communicate with recipient {}", initiatorPcModel, recipientPcModel);
-        PCModel finalInitiatorPcModel = initiatorPcModel;
-        PCModel finalRecipientPcModel = recipientPcModel;
-        initiateCommunication(finalInitiatorPcModel, finalRecipientPcModel);
+        initiateCommunication(initiatorPcModel, recipientPcModel);
     }
 
     public static RouterInterface findInterfaceByExactIpAddress(List<RouterInterface> interfaces, IPAddress targetIp) {
@@ -202,17 +755,44 @@ public class SimulationController {
 
     /**
      * Initiates a communication session between two PCs, handling configuration and message transmission.
+     * A different pair of PCs is picked if the simulation cannot route between the two.
      *
      * @param initiator The initiating PC.
      * @param recipient The recipient PC.
      */
     public void initiateCommunication(PCModel initiator, PCModel recipient) {
+        if (communicate(initiator, recipient, "googa") == CommunicationOutcome.NOT_ROUTED) {
+            simulationWorkspaceView.printToLogWindow(String.format("PC WAN communication not implemented (%s -> %s)\nPicking different one\n", initiator, recipient), Color.RED);
+            pickRandomLanCommunication();
+        }
+    }
+
+    /**
+     * Sends a string message between two PCs like {@link #initiateCommunication(PCModel, PCModel)}, used to inject
+     * the packets of a traffic trace.
+     *
+     * @param initiator The initiating PC.
+     * @param recipient The recipient PC.
+     * @param body      The body of the message.
+     * @return whether the message was sent
+     */
+    public CommunicationOutcome injectCommunication(PCModel initiator, PCModel recipient, String body) {
+        return communicate(initiator, recipient, body);
+    }
+
+    /**
+     * Configures the PCs, resolves the next hop or sends the message.
+     *
+     * @return whether the message was sent
+     */
+    private CommunicationOutcome communicate(PCModel initiator, PCModel recipient, String body) {
         if (initiator == null || recipient == null) {
             logger.fatal("initiator is {}, recipient {} is", initiator, recipient);
-            return;
+            return CommunicationOutcome.NOT_SENT;
         }
 
         logger.debug("Initiating communication, initiator: {}, recipient {}", initiator, recipient);
+        communicationLatency.communicationRequested(initiator, recipient, clock.currentTimeMillis());
         simulationWorkspaceView.printToLogWindow(String.format("%s wants to communicate with %s\n", initiator, recipient), Color.GRAY);
 
         NetworkDeviceModel next = initiator.getConnection();
@@ -221,7 +801,7 @@ public class SimulationController {
             logger.info("initiator {} is not configured => sending DHCP discovery", initiator);
             initiator.setConfigurationInProgress();
             sendDhcpDiscovery(new NetworkConnection(initiator, next), initiator.getMacAddress());
-            return;
+            return CommunicationOutcome.NOT_SENT;
         }
 
         if (!recipient.isConfigured()) {
@@ -230,7 +810,7 @@ public class SimulationController {
             logger.info("recipient {} is not configured => sending DHCP discovery", recipient);
             recipient.setConfigurationInProgress();
             sendDhcpDiscovery(new NetworkConnection(recipient, next), recipient.getMacAddress());
-            return;
+            return CommunicationOutcome.NOT_SENT;
         }
 
         RouterInterface initiatorRouterInterface = findInterfaceByExactIpAddress(storage.getRouterInterfaces(), initiator.getDefaultGateway());
@@ -238,11 +818,11 @@ public class SimulationController {
 
         if (initiatorRouterInterface == null) {
             System.out.println("initiator interface null");
-            return;
+            return CommunicationOutcome.NOT_SENT;
         }
         if (recipientRouterInterface == null) {
             System.out.println("recipient interface null");
-            return;
+            return CommunicationOutcome.NOT_SENT;
         }
 
         RouterModel initiatorRouterInterfacesRouter = initiatorRouterInterface.getInterfacesRouter();
@@ -251,39 +831,43 @@ public class SimulationController {
         if (networksController.isSameNetwork(initiator, recipient)) {
             if (initiatorRouterInterfacesRouter != recipientRouterInterfacesRouter) {
                 //ip address of networks is the same, but they are somewhere completely different (2 distant LANs can have same network IPs)
-                simulationWorkspaceView.printToLogWindow(String.format("PC WAN communication not implemented (%s -> %s)\nPicking different one\n", initiator, recipient), Color.RED);
-                pickRandomLanCommunication();
-                return;
+                return CommunicationOutcome.NOT_ROUTED;
             }
             logger.warn("Initiator {}, ip {} and recipient {}, ip {} ARE on the same network", initiator, initiator.getIpAddress(), recipient, recipient.getIpAddress());
             MACAddress recipientMac = initiator.queryArp(recipient.getIpAddress());
+            metrics.arpLookup(recipientMac != null);
 
             if (recipientMac != null) {
                 logger.info("Initiator {}, ip {} KNOWS recipient mac, sending direct string message, network communication: {} -> {}", initiator, initiator.getIpAddress(), initiator, next);
                 simulationWorkspaceView.printToLogWindow(String.format("%s KNOWS recipient MAC => sending string message\n", initiator), Color.GREEN);
-                sendPacket(new NetworkConnection(initiator, next), initiator.getMacAddress(), recipientMac, new Packet(initiator.getIpAddress(), recipient.getIpAddress(), new StringMessage("googa")));
+                sendPacket(new NetworkConnection(initiator, next),
+                        initiator.getMacAddress(),
+                        recipientMac,
+                        new Packet(initiator.getIpAddress(), recipient.getIpAddress(), new StringMessage(body),
+                                communicationLatency.stamp(initiator, recipient, clock.currentTimeMillis())));
             } else {
                 logger.info("Initiator DOESN'T KNOW recipient mac, sending ARP request, network communication: {} -> {}", initiator, next);
                 simulationWorkspaceView.printToLogWindow(String.format("%s DOESN'T know recipient MAC => sending ARP request\n", initiator), Color.BLUE);
                 sendArpRequest(new NetworkConnection(initiator, next), initiator.getMacAddress(), initiator.getIpAddress(), recipient.getIpAddress());
+                return CommunicationOutcome.NOT_SENT;
             }
         } else {
             if (initiatorRouterInterfacesRouter != recipientRouterInterfacesRouter) {
                 //this indicates they are on a completely different network, not just a different subnet
-                simulationWorkspaceView.printToLogWindow(String.format("PC WAN communication not implemented (%s -> %s)\nPicking different one\n", initiator, recipient), Color.RED);
-                pickRandomLanCommunication();
-                return;
+                return CommunicationOutcome.NOT_ROUTED;
             }
 
             logger.warn("Initiator {}, ip {} and recipient {}, ip {} AREN'T on the same network", initiator, initiator.getIpAddress(), recipient, recipient.getIpAddress());
             MACAddress defaultGatewayMac = initiator.queryArp(initiator.getDefaultGateway());
+            metrics.arpLookup(defaultGatewayMac != null);
             if (defaultGatewayMac != null) {
                 logger.info("Initiator {}, ip {} KNOWS default gateway mac (ip {}), sending string message, network communication: {} -> {}", initiator, initiator.getIpAddress(), initiator.getDefaultGateway(), initiator, next);
                 simulationWorkspaceView.printToLogWindow(String.format("%s KNOWS default gateway MAC => sending string message\n", initiator), Color.GREEN);
                 sendPacket(new NetworkConnection(initiator, next),
                         initiator.getMacAddress(),
                         defaultGatewayMac,
-                        new Packet(initiator.getIpAddress(), recipient.getIpAddress(), new StringMessage("googa")));
+                        new Packet(initiator.getIpAddress(), recipient.getIpAddress(), new StringMessage(body),
+                                communicationLatency.stamp(initiator, recipient, clock.currentTimeMillis())));
             } else {
                 logger.info("Initiator {}, ip {} DOESN'T KNOW default gateway mac, sending arp request, network communication: {} -> {}", initiator, initiator.getIpAddress(), initiator, next);
                 simulationWorkspaceView.printToLogWindow(String.format("%s DOESN'T know default gateway MAC => sending ARP request\n", initiator), Color.BLUE);
@@ -291,12 +875,15 @@ public class SimulationController {
                         initiator.getMacAddress(),
                         MACAddress.ipv4Broadcast(),
                         new Packet(initiator.getIpAddress(), initiator.getDefaultGateway(), new ArpRequestMessage(initiator.getDefaultGateway(), initiator.getIpAddress(), initiator.getMacAddress())));
+                return CommunicationOutcome.NOT_SENT;
             }
         }
+        return CommunicationOutcome.SENT;
     }
 
     /**
      * Sends a network packet through the simulation infrastructure.
+     * Packets leaving a router interface wait in its egress queue until the interface's link is free.
      *
      * @param networkConnection The network connection through which the packet will be sent.
      * @param sourceMac         The source MAC address.
@@ -304,8 +891,70 @@ public class SimulationController {
      * @param packet            The packet to be sent.
      */
     public void sendPacket(NetworkConnection networkConnection, MACAddress sourceMac, MACAddress destinationMac, Packet packet) {
-        Frame ethernetFrame = new Frame(sourceMac, destinationMac, packet);
-        outboundQueue.add(new Pair<>(networkConnection, ethernetFrame));
+        sendFrame(networkConnection, new Frame(sourceMac, destinationMac, packet));
+    }
+
+    private void sendFrame(NetworkConnection networkConnection, Frame frame) {
+        if (networkConnection.getStartDevice() instanceof RouterInterface routerInterface) {
+            enqueueOnRouterInterface(routerInterface, networkConnection, frame);
+            return;
+        }
+        outboundQueue.add(new Pair<>(networkConnection, frame));
+    }
+
+    /**
+     * Places a frame into the egress queue of a router interface and starts its transmission if the link is free.
+     *
+     * @param routerInterface   The router interface the frame leaves from.
+     * @param networkConnection The network connection the frame will travel over.
+     * @param frame             The frame to be queued.
+     */
+    private void enqueueOnRouterInterface(RouterInterface routerInterface, NetworkConnection networkConnection, Frame frame) {
+        if (!routerInterface.getEgressQueue().enqueue(new QueuedFrame(networkConnection, frame, clock.currentTimeMillis()))) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("{} egress queue dropped {}", routerInterface, frame.getPacket().getMessage().getClass().getSimpleName());
+            }
+            traceFrame(FrameTraceRecord.Kind.DROPPED, networkConnection, frame);
+            FrameDroppedEvent.emit(networkConnection, frame, FrameDroppedEvent.QUEUE_FULL);
+            return;
+        }
+        FrameEnqueuedEvent.emit(routerInterface, frame);
+        transmitNextFromRouterInterface(routerInterface);
+    }
+
+    /**
+     * Moves the next frame chosen by the interface's queue discipline onto its link.
+     * While the simulation runs, a link carries one frame at a time and is released once the frame's animation finishes,
+     * so frames produced faster than the link can carry them accumulate in the egress queue.
+     *
+     * @param routerInterface The router interface whose queue should be served.
+     */
+    private void transmitNextFromRouterInterface(RouterInterface routerInterface) {
+        boolean occupiesLink = simulationStarted.get();
+        if (occupiesLink && !routerInterface.tryOccupyLink()) {
+            return;
+        }
+        long nowMillis = clock.currentTimeMillis();
+        QueuedFrame queuedFrame = routerInterface.getEgressQueue().dequeue(nowMillis);
+        if (queuedFrame == null) {
+            if (occupiesLink) {
+                routerInterface.releaseLink();
+            }
+            return;
+        }
+        long waitMillis = nowMillis - queuedFrame.enqueuedAtMillis();
+        metrics.egressQueueWait(routerInterface, waitMillis);
+        FrameDequeuedEvent.emit(routerInterface, queuedFrame.frame(), waitMillis);
+        outboundQueue.add(new Pair<>(queuedFrame.networkConnection(), queuedFrame.frame()));
+    }
+
+    /**
+     * Replaces the egress queue discipline on every interface of every router, interfaces created later get it too.
+     *
+     * @param egressQueueDiscipline The discipline of the workspace's egress queues.
+     */
+    public void setEgressQueueDiscipline(EgressQueueDiscipline egressQueueDiscipline) {
+        storage.setEgressQueueDiscipline(egressQueueDiscipline);
     }
 
     /**
@@ -319,9 +968,38 @@ public class SimulationController {
                     pauseSemaphore.release();
 
                     Pair<NetworkConnection, Frame> frameThroughNetworkConnection = receiveFrame();
+                    NetworkConnection networkConnection = frameThroughNetworkConnection.getKey();
+                    metrics.frameSent(networkConnection, frameThroughNetworkConnection.getValue());
+                    traceFrame(FrameTraceRecord.Kind.SENT, networkConnection, frameThroughNetworkConnection.getValue());
+                    capturePacket(networkConnection, frameThroughNetworkConnection.getValue());
+                    if (!failureController.isConnectionUp(networkConnection)) {
+                        submitCompletion(frameThroughNetworkConnection);
+                        continue;
+                    }
+                    if (headless) {
+                        completeAfterTraversal(frameThroughNetworkConnection);
+                        continue;
+                    }
+                    NetworkDeviceModel animationStartDevice = getAnimatedDevice(networkConnection.getStartDevice());
+                    NetworkDeviceModel animationEndDevice = getAnimatedDevice(networkConnection.getEndDevice());
+                    if (animationStartDevice == null || animationEndDevice == null || simulationWorkspaceView.getConnectionLine(animationStartDevice, animationEndDevice) == null) {
+                        logger.warn("no connection line found between {} and {}", animationStartDevice, animationEndDevice);
+                        submitCompletion(frameThroughNetworkConnection);
+                        continue;
+                    }
+                    if (!animationLevelOfDetail.tryAnimate(animationStartDevice.getUuid(), animationEndDevice.getUuid(), clock.currentTimeMillis())) {
+                        AnimationDispatchEvent.emit(animationStartDevice, animationEndDevice, frameThroughNetworkConnection.getValue(), false,
+                                animationLevelOfDetail.getFramesInFlight());
+                        // Over the animation budget, the frame still takes as long to cross the link, it is just not drawn
+                        completeAfterTraversal(frameThroughNetworkConnection);
+                        continue;
+                    }
                     UUID communicationUuid = UUID.randomUUID();
                     awaitingCommunication.put(communicationUuid, frameThroughNetworkConnection);
-                    GlobalEventBus.post(new NetworkCommunicationAnimationRequestEvent(communicationUuid, transformFrameThroughNetworkConnectionToVisualForm(frameThroughNetworkConnection.getKey(), frameThroughNetworkConnection.getValue())));
+                    AnimationDispatchEvent.emit(animationStartDevice, animationEndDevice, frameThroughNetworkConnection.getValue(), true,
+                            animationLevelOfDetail.getFramesInFlight());
+                    eventBus.post(new NetworkCommunicationAnimationRequestEvent(communicationUuid, animationStartDevice.getUuid(), animationEndDevice.getUuid(),
+                            getFrameColor(frameThroughNetworkConnection.getValue()), FRAME_TRAVERSAL_MILLIS));
 
                 } catch (InterruptedException e) {
                     Thread.currentThread().interrupt(); // Preserve interrupt status
@@ -331,14 +1009,89 @@ public class SimulationController {
         });
     }
 
-    @Subscribe
+    /**
+     * Completes the transmission of a frame that is not animated once it has spent {@value #FRAME_TRAVERSAL_MILLIS} ms
+     * of simulated time on its link.
+     *
+     * @param frameThroughNetworkConnection The network connection and the frame travelling over it.
+     */
+    private void completeAfterTraversal(Pair<NetworkConnection, Frame> frameThroughNetworkConnection) {
+        unanimatedCommunication.add(frameThroughNetworkConnection);
+        timerWheel.schedule(() -> {
+            unanimatedCommunication.remove(frameThroughNetworkConnection);
+            submitCompletion(frameThroughNetworkConnection);
+        }, FRAME_TRAVERSAL_MILLIS);
+    }
+
+    /**
+     * Handles the end of a frame animation. The event is posted from the JavaFX Application Thread,
+     * so the frame is only handed over to the simulation worker and the UI thread is free to keep rendering.
+     *
+     * @param event The event identifying the finished communication.
+     */
     public void handleAnimationFinishedEvent(NetworkCommunicationAnimationFinishedEvent event) {
-        if (!awaitingCommunication.containsKey(event.communicationUuid())) {
-            logger.warn("no such communication found");
+        Pair<NetworkConnection, Frame> frameThroughNetworkConnection = awaitingCommunication.remove(event.communicationUuid());
+        if (frameThroughNetworkConnection == null) {
+            // Animations of a journal replay are not awaited by the simulation
+            logger.debug("no such communication found");
             return;
         }
-        Pair<NetworkConnection, Frame> frameThroughNetworkConnection = awaitingCommunication.get(event.communicationUuid());
+        animationLevelOfDetail.animationFinished();
+        submitCompletion(frameThroughNetworkConnection);
+    }
+
+    /**
+     * Completes a transmission on the simulation worker. The worker is a single thread that also runs the timers of the
+     * simulation, so device state is only ever changed by one frame or timer at a time and frames are delivered in the
+     * order their transmissions finished.
+     *
+     * @param frameThroughNetworkConnection The network connection and the frame that travelled over it.
+     */
+    private void submitCompletion(Pair<NetworkConnection, Frame> frameThroughNetworkConnection) {
+        try {
+            frameExecutor.execute(() -> {
+                try {
+                    completeTransmission(frameThroughNetworkConnection);
+                } catch (RuntimeException e) {
+                    logger.error("Failed to deliver frame over {} -> {}", frameThroughNetworkConnection.getKey().getStartDevice(), frameThroughNetworkConnection.getKey().getEndDevice(), e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            logger.debug("Simulation is shutting down, frame dropped");
+        }
+    }
+
+    /**
+     * Runs a task that changes device state on the simulation worker, after the frames whose delivery is already queued.
+     *
+     * @param task        The task to run.
+     * @param description What the task does, for the log if it fails.
+     */
+    private void submitToFrameWorker(Runnable task, String description) {
+        try {
+            frameExecutor.execute(() -> {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    logger.error("{} failed", description, e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            logger.debug("Simulation is shutting down, {} dropped", description);
+        }
+    }
+
+    /**
+     * Delivers a frame that has crossed its link and frees the link for the next queued frame.
+     *
+     * @param frameThroughNetworkConnection The network connection and the frame that travelled over it.
+     */
+    private void completeTransmission(Pair<NetworkConnection, Frame> frameThroughNetworkConnection) {
         forwardToNextDevice(frameThroughNetworkConnection.getKey(), frameThroughNetworkConnection.getValue());
+        if (frameThroughNetworkConnection.getKey().getStartDevice() instanceof RouterInterface routerInterface) {
+            routerInterface.releaseLink();
+            transmitNextFromRouterInterface(routerInterface);
+        }
     }
 
     /**
@@ -348,6 +1101,18 @@ public class SimulationController {
      * @param frame             The frame being forwarded.
      */
     public void forwardToNextDevice(NetworkConnection networkConnection, Frame frame) {
+        if (!failureController.isConnectionUp(networkConnection)) {
+            logger.debug("Frame lost, connection {} -> {} is down", networkConnection.getStartDevice(), networkConnection.getEndDevice());
+            failureController.recordFrameLost();
+            traceFrame(FrameTraceRecord.Kind.LOST, networkConnection, frame);
+            FrameDroppedEvent.emit(networkConnection, frame, FrameDroppedEvent.LINK_DOWN);
+            return;
+        }
+        failureController.recordFrameDelivered();
+        metrics.frameDelivered(networkConnection);
+        traceFrame(FrameTraceRecord.Kind.DELIVERED, networkConnection, frame);
+        FrameForwardedEvent frameForwardedEvent = FrameForwardedEvent.start();
+
         if (networkConnection.getEndDevice() instanceof PCModel pc) {
             handleFrameOnPc(pc, networkConnection, frame);
 
@@ -357,6 +1122,7 @@ public class SimulationController {
         } else if (networkConnection.getEndDevice() instanceof RouterInterface routerInterface) {
             handleFrameOnRouter(routerInterface, networkConnection, frame);
         }
+        frameForwardedEvent.finish(networkConnection, frame);
     }
 
     /**
@@ -369,11 +1135,16 @@ public class SimulationController {
     public void handleFrameOnPc(PCModel pc, NetworkConnection networkConnection, Frame frame) {
         if (frame.getDestinationMac() == pc.getMacAddress() || frame.getPacket().getDestinationIp() == pc.getIpAddress()) {
             if (frame.getPacket().getMessage() instanceof StringMessage stringMessage) {
-                logger.debug("Recipient {}, ip {} received STRING MESSAGE, body -> {}", pc, pc.getIpAddress(), stringMessage.getBody());
-                simulationWorkspaceView.printToLogWindow(String.format("%s received string message: %s\n", pc, stringMessage.getBody()), Color.GREEN);
+                String body = describeBody(stringMessage.getBody());
+                logger.debug("Recipient {}, ip {} received STRING MESSAGE, body -> {}", pc, pc.getIpAddress(), body);
+                simulationWorkspaceView.printToLogWindow(String.format("%s received string message: %s\n", pc, body), Color.GREEN);
+                if (frame.getPacket().getStamp() != null) {
+                    communicationLatency.delivered(frame.getPacket().getStamp(), pc, clock.currentTimeMillis());
+                }
             } else if (frame.getPacket().getMessage() instanceof DhcpOfferMessage dhcpOfferMessage) {
                 logger.debug("Recipient {}, ip {} received DHCP OFFER MESSAGE, body -> DG {}, Offered ip {}, Subnetmask {}", pc, pc.getIpAddress(), dhcpOfferMessage.getDefaultGateway(), dhcpOfferMessage.getOfferedIpAddress(), dhcpOfferMessage.getSubnetMask());
                 pc.configure(dhcpOfferMessage.getOfferedIpAddress(), dhcpOfferMessage.getDefaultGateway(), dhcpOfferMessage.getSubnetMask());
+                journal(SimulationJournalRecord.Kind.DHCP_ASSIGNED, pc, null, SimulationJournalRecord.MessageType.NONE, pc.getIpAddress().toLong());
                 pc.updateArp(dhcpOfferMessage.getDefaultGateway(), frame.getSourceMac());
                 updateLabelsRequest(pc);
 
@@ -385,7 +1156,9 @@ public class SimulationController {
                         pc.getDefaultGateway(),
                         new DhcpResponseMessage());
             } else if (frame.getPacket().getMessage() instanceof DhcpAckMessage) {
-                logger.debug("Recipient {}, ip {}, received DHCP ACK MESSAGE, conf state: {}, conf in progress {}", pc, pc.getIpAddress(), pc.isConfigured(), pc.isConfigurationInProgress());
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Recipient {}, ip {}, received DHCP ACK MESSAGE, conf state: {}, conf in progress {}", pc, pc.getIpAddress(), pc.isConfigured(), pc.isConfigurationInProgress());
+                }
             } else if (frame.getPacket().getMessage() instanceof ArpRequestMessage arpRequestMessage && arpRequestMessage.getRequestedIpAddress() == pc.getIpAddress()) {
                 logger.debug("Recipient {}, ip {} received ARP REQUEST MESSAGE", pc, pc.getIpAddress());
                 simulationWorkspaceView.printToLogWindow(String.format("%s sending ARP-Response\n", pc), Color.LIGHTBLUE);
@@ -394,13 +1167,49 @@ public class SimulationController {
                         arpRequestMessage.getRequesterMacAddress(),
                         new Packet(pc.getIpAddress(), arpRequestMessage.getRequesterIpAddress(), new ArpResponseMessage(pc.getMacAddress())));
             } else if (frame.getPacket().getMessage() instanceof ArpResponseMessage arpResponseMessage) {
-                logger.debug("Recipient {}, ip {} received ARP RESPONSE MESSAGE from {}, body -> requested mac for device {}",
-                        pc, pc.getIpAddress(), storage.getNetworkDeviceByMac(frame.getSourceMac()), storage.getNetworkDeviceByMac(arpResponseMessage.getRequestedMacAddress()));
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Recipient {}, ip {} received ARP RESPONSE MESSAGE from {}, body -> requested mac for device {}",
+                            pc, pc.getIpAddress(), storage.getNetworkDeviceByMac(frame.getSourceMac()), storage.getNetworkDeviceByMac(arpResponseMessage.getRequestedMacAddress()));
+                }
                 pc.updateArp(frame.getPacket().getSourceIp(), arpResponseMessage.getRequestedMacAddress());
             }
         }
     }
 
+    /**
+     * The payloads of traffic trace packets are up to 64 kB long, only their length is logged.
+     */
+    private static String describeBody(String body) {
+        if (body.length() > MAX_LOGGED_BODY_LENGTH) {
+            return String.format("%d bytes", body.length());
+        }
+        return body;
+    }
+
+    /**
+     * Restarts the aging timer of a learned MAC address. Entries the switch hears nothing from for
+     * {@value #CAM_AGING_MILLIS} ms of simulated time are removed from its CAM table.
+     *
+     * @param switchModel The switch that learned the MAC address.
+     * @param macAddress  The learned MAC address.
+     */
+    private void refreshCamAging(SwitchModel switchModel, MACAddress macAddress) {
+        CamAgingKey key = new CamAgingKey(switchModel.getUuid(), macAddress);
+        camAgingTimeouts.compute(key, (k, previous) -> {
+            if (previous != null) {
+                previous.cancel();
+            }
+            // The wheel runs on the simulation worker, so no frame is learning the address while it ages out
+            return timerWheel.schedule(() -> {
+                // A refresh racing with the expiry replaces the mapping with a pending timeout, keep that one
+                if (camAgingTimeouts.computeIfPresent(k, (unused, current) -> current.isExpired() ? null : current) == null) {
+                    switchModel.forgetMacAddress(macAddress);
+                    logger.debug("{} aged out mac address {}", switchModel, macAddress);
+                }
+            }, CAM_AGING_MILLIS);
+        });
+    }
+
     /**
      * Handles frames received by a switch, forwarding them to the appropriate connected devices.
      *
@@ -410,33 +1219,45 @@ public class SimulationController {
      */
     public void handleFrameOnSwitch(SwitchModel switchModel, NetworkConnection networkConnection, Frame frame) {
         NetworkDeviceModel connectedDevice = networkConnection.getStartDevice();
-        if (!switchModel.knowsMacAddress(frame.getDestinationMac())) {
+        boolean knowsDestination = switchModel.knowsMacAddress(frame.getDestinationMac());
+        metrics.camLookup(knowsDestination);
+        if (!knowsDestination) {
             logger.debug("{} DOESN'T KNOW the dst mac or it is broadcast", switchModel);
             for (SwitchConnection switchConnection : switchModel.getSwitchConnections()) {
                 if ((switchConnection.getNetworkDeviceModel() == connectedDevice)) {
                     //Do not forward frame to the source device
                     if (!switchModel.knowsMacAddress(frame.getSourceMac())) {
                         switchModel.learnMacAddress(frame.getSourceMac(), switchConnection.getPort());
-                        logger.debug("{} learned mac address of source device {}, mapped to port {}", switchModel, storage.getNetworkDeviceByMac(frame.getSourceMac()), switchConnection.getPort());
+                        if (logger.isDebugEnabled()) {
+                            logger.debug("{} learned mac address of source device {}, mapped to port {}", switchModel, storage.getNetworkDeviceByMac(frame.getSourceMac()), switchConnection.getPort());
+                        }
                     }
+                    refreshCamAging(switchModel, frame.getSourceMac());
                     continue;
                 }
                 outboundQueue.add(new Pair<>(new NetworkConnection(switchModel, switchConnection.getNetworkDeviceModel()), frame));
             }
         } else {
-            logger.debug("{} KNOWS the dst mac of device {}", switchModel, storage.getNetworkDeviceByMac(frame.getDestinationMac()));
+            if (logger.isDebugEnabled()) {
+                logger.debug("{} KNOWS the dst mac of device {}", switchModel, storage.getNetworkDeviceByMac(frame.getDestinationMac()));
+            }
             int outgoingPort = switchModel.getPort(frame.getDestinationMac());
             for (SwitchConnection switchConnection : switchModel.getSwitchConnections()) {
                 if (switchConnection.getNetworkDeviceModel() == connectedDevice) {
                     if (!switchModel.knowsMacAddress(frame.getSourceMac())) {
                         switchModel.learnMacAddress(frame.getSourceMac(), switchConnection.getPort());
-                        logger.debug("{} learned mac address of source device {}, mapped to port {}", switchModel, storage.getNetworkDeviceByMac(frame.getSourceMac()), switchConnection.getPort());
+                        if (logger.isDebugEnabled()) {
+                            logger.debug("{} learned mac address of source device {}, mapped to port {}", switchModel, storage.getNetworkDeviceByMac(frame.getSourceMac()), switchConnection.getPort());
+                        }
                     }
+                    refreshCamAging(switchModel, frame.getSourceMac());
                 }
             }
             for (SwitchConnection switchConnection : switchModel.getSwitchConnections()) {
                 if (switchConnection.getPort() == outgoingPort) {
-                    logger.debug("{} forwarding the frame to port {}, network connection: {} -> {}", switchModel, outgoingPort, switchModel, switchConnection.getNetworkDeviceModel());
+                    if (logger.isDebugEnabled()) {
+                        logger.debug("{} forwarding the frame to port {}, network connection: {} -> {}", switchModel, outgoingPort, switchModel, switchConnection.getNetworkDeviceModel());
+                    }
                     outboundQueue.add(new Pair<>(new NetworkConnection(switchModel, switchConnection.getNetworkDeviceModel()), frame));
                 }
             }
@@ -454,11 +1275,20 @@ public class SimulationController {
         Message message = frame.getPacket().getMessage();
         if (message instanceof RipMessage ripMessage) {
             logger.debug("Recipient {}, ip {} received RIP MESSAGE", routerInterface, routerInterface.getIpAddress());
-            routerInterface.getInterfacesRouter().updateRoutingTable(ripMessage.getRoutingTable(), frame.getPacket().getSourceIp());
+            boolean routingTableChanged = routerInterface.getInterfacesRouter().updateRoutingTable(ripMessage.getRoutingTable(), frame.getPacket().getSourceIp());
+            metrics.ripUpdate(routingTableChanged);
+            journal(SimulationJournalRecord.Kind.RIP_UPDATE, routerInterface, networkConnection.getStartDevice(), SimulationJournalRecord.MessageType.NONE, routingTableChanged ? 1 : 0);
+            if (routingTableChanged) {
+                failureController.recordRoutingChange();
+            }
         } else if (message instanceof DhcpDiscoverMessage dhcpDiscoverMessage) {
-            logger.debug("Recipient {}, ip {} received DHCP DISCOVERY MESSAGE from source device {}",
-                    routerInterface, routerInterface.getIpAddress(), storage.getNetworkDeviceByMac(dhcpDiscoverMessage.getSourceMac()));
+            if (logger.isDebugEnabled()) {
+                logger.debug("Recipient {}, ip {} received DHCP DISCOVERY MESSAGE from source device {}",
+                        routerInterface, routerInterface.getIpAddress(), storage.getNetworkDeviceByMac(dhcpDiscoverMessage.getSourceMac()));
+            }
             IPAddress offeredIpAddress = networksController.reserveIpAddressInNetwork(routerInterface.getNetwork());
+            metrics.dhcpAllocation();
+            DhcpAllocationEvent.emit(routerInterface, offeredIpAddress);
             IPAddress defaultGateway = routerInterface.getIpAddress();
             SubnetMask subnetMask = routerInterface.getNetwork().getSubnetMask();
             simulationWorkspaceView.printToLogWindow(String.format("%s sending DHCP-Offer\n", routerInterface.getInterfacesRouter()), Color.RED);
@@ -468,7 +1298,9 @@ public class SimulationController {
                     routerInterface.getIpAddress(),
                     new DhcpOfferMessage(offeredIpAddress, defaultGateway, subnetMask));
         } else if (message instanceof DhcpResponseMessage) {
-            logger.debug("Recipient {}, ip {} received DHCP RESPONSE MESSAGE from source device {}", routerInterface, routerInterface.getIpAddress(), storage.getNetworkDeviceByMac(frame.getSourceMac()));
+            if (logger.isDebugEnabled()) {
+                logger.debug("Recipient {}, ip {} received DHCP RESPONSE MESSAGE from source device {}", routerInterface, routerInterface.getIpAddress(), storage.getNetworkDeviceByMac(frame.getSourceMac()));
+            }
             routerInterface.getInterfacesRouter().updateArp(frame.getPacket().getSourceIp(), frame.getSourceMac());
             simulationWorkspaceView.printToLogWindow(String.format("%s sending DHCP-Ack message\n", routerInterface.getInterfacesRouter()), Color.YELLOWGREEN);
             sendDhcpAck(new NetworkConnection(routerInterface, networkConnection.getStartDevice()),
@@ -484,6 +1316,7 @@ public class SimulationController {
                 for (NetworkDeviceModel networkDevice : routerInterface.getDirectConnections()) {
                     if (networkDevice instanceof PCModel pc && pc.getIpAddress() == arpRequestMessage.getRequestedIpAddress()) {
                         MACAddress recipientMac = routerInterface.getInterfacesRouter().queryArp(pc.getIpAddress());
+                        metrics.arpLookup(recipientMac != null);
                         if (recipientMac == null) {
                             logger.warn("router interface {}, ip {} DOES'T know mac of device {}, ip {}", routerInterface, routerInterface.getIpAddress(), pc, pc.getIpAddress());
                         } else {
@@ -497,7 +1330,7 @@ public class SimulationController {
                 }
             }
         } else if (message instanceof ArpResponseMessage arpResponseMessage) {
-            logger.info("router interface {}, ip {} received arp response message", routerInterface, routerInterface.getIpAddress());
+            logger.debug("router interface {}, ip {} received arp response message", routerInterface, routerInterface.getIpAddress());
             if (arpResponseMessage.getRequestedMacAddress() != routerInterface.getMacAddress()) {
 
                 MACAddress dstMac = frame.getDestinationMac();
@@ -523,7 +1356,7 @@ public class SimulationController {
 
             LinkedHashMap<Network, RouterInterface> networkRouterInterfaceMap = router.getRouterInterfaces();
 
-            logger.info("{}, ip {} is looking for appropriate subnet", routerInterface, routerInterface.getIpAddress());
+            logger.debug("{}, ip {} is looking for appropriate subnet", routerInterface, routerInterface.getIpAddress());
             for (ConcurrentHashMap.Entry<Network, RouterInterface> entry : networkRouterInterfaceMap.entrySet()) {
                 Network network = entry.getKey();
                 RouterInterface ri = entry.getValue();
@@ -531,16 +1364,17 @@ public class SimulationController {
                 if ((network.getNetworkIpAddress().toLong() & network.getSubnetMask().toLong()) == (forwardToIp.toLong() & routerInterface.getNetwork().getSubnetMask().toLong())) {
                     logger.debug("Found the correct router interface {}, ip {}, on network ip {}, DST IP {}", ri, ri.getIpAddress(), network.getNetworkIpAddress(), forwardToIp);
                     MACAddress dstMacAddress = router.queryArp(forwardToIp);
+                    metrics.arpLookup(dstMacAddress != null);
                     if (dstMacAddress == null) {
                         logger.warn("Router interface {}, ip {} DOES'T KNOW mac of dst device", ri, ri.getIpAddress());
                         return;
                         //knows MAC
                     } else {
-                        logger.info("{}, ip {} KNOWS the mac of dst device, forwarding message", ri, ri.getIpAddress());
+                        logger.debug("{}, ip {} KNOWS the mac of dst device, forwarding message", ri, ri.getIpAddress());
                         sendPacket(new NetworkConnection(ri, ri.getFirstConnectedDevice()),
                                 ri.getMacAddress(),
                                 dstMacAddress,
-                                new Packet(ri.getIpAddress(), forwardToIp, stringMessage));
+                                new Packet(ri.getIpAddress(), forwardToIp, stringMessage, frame.getPacket().getStamp()));
                     }
                 }
 
@@ -611,106 +1445,56 @@ public class SimulationController {
         sendPacket(networkConnection, sourceMac, dstMac, new Packet(sourceIpAddress, dstIpAddress, dhcpAckMessage));
     }
 
-    public Pair<PathTransition, Rectangle> transformFrameThroughNetworkConnectionToVisualForm(NetworkConnection networkConnection, Frame frame) {
-        NetworkDeviceModel animationStartNetworkDevice = networkConnection.getStartDevice();
-        NetworkDeviceModel animationEndNetworkDevice = networkConnection.getEndDevice();
-
-        if (animationStartNetworkDevice instanceof RouterInterface routerInterfaceStart) {
-            animationStartNetworkDevice = routerInterfaceStart.getInterfacesRouter();
-        }
-        if (animationEndNetworkDevice instanceof RouterInterface routerInterfaceEnd) {
-            animationEndNetworkDevice = routerInterfaceEnd.getInterfacesRouter();
-        }
-
-        if (animationStartNetworkDevice == null || animationEndNetworkDevice == null) {
-            logger.warn("Null device: start -> {}, end -> {}", animationStartNetworkDevice, animationEndNetworkDevice);
-            return null;
-        }
-
-        Rectangle visualFrame = createVisualFrame(frame);
-        PathTransition pathTransition = preparePathTransition(visualFrame, animationStartNetworkDevice, animationEndNetworkDevice);
-        if (pathTransition == null) {
-            logger.warn("Path transition could not be initialized.");
-            return null;
+    /**
+     * Router interfaces are drawn as part of their router, so frames are animated from and to the router.
+     *
+     * @param networkDeviceModel The device a frame leaves or arrives to.
+     * @return the device whose view the animation starts or ends at.
+     */
+    private static NetworkDeviceModel getAnimatedDevice(NetworkDeviceModel networkDeviceModel) {
+        if (networkDeviceModel instanceof RouterInterface routerInterface) {
+            return routerInterface.getInterfacesRouter();
         }
-
-        return new Pair<>(pathTransition, visualFrame);
+        return networkDeviceModel;
     }
 
     /**
-     * Prepares a path transition for the animation of a network packet.
+     * Picks the colour a frame is drawn with based on the type of message it carries.
      *
-     * @param visualFrame The visual representation of the frame.
-     * @param startDevice The starting device of the animation.
-     * @param endDevice   The ending device of the animation.
-     * @return The path transition for the animation.
+     * @param frame The frame to be drawn.
+     * @return The colour of the type of message in the frame.
      */
-    private PathTransition preparePathTransition(Rectangle visualFrame, NetworkDeviceModel startDevice, NetworkDeviceModel endDevice) {
-        ConnectionLine connectionLine = simulationWorkspaceView.getConnectionLine(startDevice, endDevice);
-        if (connectionLine == null) {
-            logger.warn("no connection line found for the specified devices.");
-            return null;
-        }
-
-        Path path = new Path();
-        // Set up the path based on the start and end points of the connection line.
-        if (connectionLine.getStartDevice().getUuid().equals(startDevice.getUuid())) {
-            path.getElements().add(new MoveTo(connectionLine.getStartX(), connectionLine.getStartY()));
-            path.getElements().add(new LineTo(connectionLine.getEndX(), connectionLine.getEndY()));
-        } else {
-            path.getElements().add(new MoveTo(connectionLine.getEndX(), connectionLine.getEndY()));
-            path.getElements().add(new LineTo(connectionLine.getStartX(), connectionLine.getStartY()));
-        }
-
-        PathTransition pathTransition = new PathTransition();
-        pathTransition.setDuration(Duration.seconds(0.5));
-        pathTransition.setPath(path);
-        pathTransition.setNode(visualFrame);
-        pathTransition.setCycleCount(1);
-        pathTransition.setAutoReverse(false);
-
-        return pathTransition;
+    public Color getFrameColor(Frame frame) {
+        return getMessageColor(frame.getPacket().getMessage().getClass());
     }
 
     /**
-     * Creates a visual representation of a frame based on the type of message it carries.
+     * Picks the colour frames carrying a type of message are drawn with.
      *
-     * @param frame The frame for which the visual representation is created.
-     * @return A rectangle colored according to the type of message in the frame.
+     * @param messageClass The class of the message.
+     * @return The colour of the type of message.
      */
-    public Rectangle createVisualFrame(Frame frame) {
-        Rectangle rectangle = new Rectangle(10, 10);
-
-        Message message = frame.getPacket().getMessage();
-        switch (message.getClass().getSimpleName()) {
+    public static Color getMessageColor(Class<?> messageClass) {
+        switch (messageClass.getSimpleName()) {
             case "DhcpDiscoverMessage":
-                rectangle.setFill(Color.DARKRED);
-                break;
+                return Color.DARKRED;
             case "DhcpOfferMessage":
-                rectangle.setFill(Color.RED);
-                break;
+                return Color.RED;
             case "DhcpResponseMessage":
-                rectangle.setFill(Color.ORANGE);
-                break;
+                return Color.ORANGE;
             case "DhcpAckMessage":
-                rectangle.setFill(Color.GREENYELLOW);
-                break;
+                return Color.GREENYELLOW;
             case "ArpRequestMessage":
-                rectangle.setFill(Color.BLUE);
-                break;
+                return Color.BLUE;
             case "ArpResponseMessage":
-                rectangle.setFill(Color.LIGHTBLUE);
-                break;
+                return Color.LIGHTBLUE;
             case "StringMessage":
-                rectangle.setFill(Color.GREEN);
-                break;
+                return Color.GREEN;
             case "RipMessage":
-                rectangle.setFill(Color.DARKCYAN);
+                return Color.DARKCYAN;
             default:
-                rectangle.setFill(Color.GRAY);
-                break;
+                return Color.GRAY;
         }
-        return rectangle;
     }
 
     public boolean simulationStarted() {
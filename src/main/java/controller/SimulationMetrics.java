@@ -0,0 +1,141 @@
+package controller;
+
+import common.UnorderedUuidPair;
+import io.FrameEncoder;
+import metrics.Counter;
+import metrics.Histogram;
+import metrics.MetricsRegistry;
+import model.Frame;
+import model.NetworkConnection;
+import model.NetworkDeviceModel;
+import model.RouterInterface;
+import profiling.DeviceNames;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The metrics the simulation records about its devices, links and protocols.
+ * <p>
+ * The counters of a device, link or message type are looked up once and then kept, so recording a frame only
+ * increments a few {@link Counter}s. Metric names:
+ * <ul>
+ *     <li>{@code device.<name>.frames.in|out} and {@code link.<name>.<name>.frames} &ndash; frames delivered and sent</li>
+ *     <li>{@code link.<name>.<name>.bytes} &ndash; bytes sent, counted with the size the frames have on the wire</li>
+ *     <li>{@code messages.<type>} &ndash; frames sent per message type</li>
+ *     <li>{@code arp.hits|misses|hitRatio}, {@code cam.hits|misses|hitRatio} &ndash; ARP and CAM table lookups</li>
+ *     <li>{@code dhcp.allocations}, {@code rip.updates}, {@code rip.routingChanges}</li>
+ *     <li>{@code queue.egress.<interface>.depth} and the histogram {@code queue.egress.waitMillis} &ndash; queueing delay in simulated ms</li>
+ * </ul>
+ */
+public class SimulationMetrics {
+    private final MetricsRegistry registry = new MetricsRegistry();
+    private final Map<UUID, Counter> framesIn = new ConcurrentHashMap<>();
+    private final Map<UUID, Counter> framesOut = new ConcurrentHashMap<>();
+    private final Map<UnorderedUuidPair, Counter> linkFrames = new ConcurrentHashMap<>();
+    private final Map<UnorderedUuidPair, Counter> linkBytes = new ConcurrentHashMap<>();
+    private final Map<Class<?>, Counter> messages = new ConcurrentHashMap<>();
+    private final Map<UUID, RouterInterface> watchedEgressQueues = new ConcurrentHashMap<>();
+    private final Counter arpHits = registry.counter("arp.hits");
+    private final Counter arpMisses = registry.counter("arp.misses");
+    private final Counter camHits = registry.counter("cam.hits");
+    private final Counter camMisses = registry.counter("cam.misses");
+    private final Counter dhcpAllocations = registry.counter("dhcp.allocations");
+    private final Counter ripUpdates = registry.counter("rip.updates");
+    private final Counter ripRoutingChanges = registry.counter("rip.routingChanges");
+    private final Histogram egressWaitMillis = registry.histogram("queue.egress.waitMillis");
+
+    public SimulationMetrics() {
+        registry.gauge("arp.hitRatio", () -> ratio(arpHits.sum(), arpMisses.sum()));
+        registry.gauge("cam.hitRatio", () -> ratio(camHits.sum(), camMisses.sum()));
+    }
+
+    private static double ratio(long hits, long misses) {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    public MetricsRegistry getRegistry() {
+        return registry;
+    }
+
+    /**
+     * Counts a frame put on its link.
+     *
+     * @param networkConnection The link the frame travels over.
+     * @param frame             The frame.
+     */
+    public void frameSent(NetworkConnection networkConnection, Frame frame) {
+        NetworkDeviceModel startDevice = networkConnection.getStartDevice();
+        NetworkDeviceModel endDevice = networkConnection.getEndDevice();
+        framesOut.computeIfAbsent(startDevice.getUuid(), uuid -> registry.counter("device." + DeviceNames.of(startDevice) + ".frames.out")).increment();
+        UnorderedUuidPair link = UnorderedUuidPair.of(startDevice.getUuid(), endDevice.getUuid());
+        linkFrames.computeIfAbsent(link, linkKey -> registry.counter(linkName(startDevice, endDevice) + ".frames")).increment();
+        linkBytes.computeIfAbsent(link, linkKey -> registry.counter(linkName(startDevice, endDevice) + ".bytes")).add(FrameEncoder.encodedLength(frame));
+        messages.computeIfAbsent(frame.getPacket().getMessage().getClass(), type -> registry.counter("messages." + type.getSimpleName())).increment();
+    }
+
+    private static String linkName(NetworkDeviceModel startDevice, NetworkDeviceModel endDevice) {
+        return startDevice.getUuid().compareTo(endDevice.getUuid()) <= 0
+                ? "link." + DeviceNames.of(startDevice) + "." + DeviceNames.of(endDevice)
+                : "link." + DeviceNames.of(endDevice) + "." + DeviceNames.of(startDevice);
+    }
+
+    /**
+     * Counts a frame that crossed its link.
+     *
+     * @param networkConnection The link the frame travelled over.
+     */
+    public void frameDelivered(NetworkConnection networkConnection) {
+        NetworkDeviceModel endDevice = networkConnection.getEndDevice();
+        framesIn.computeIfAbsent(endDevice.getUuid(), uuid -> registry.counter("device." + DeviceNames.of(endDevice) + ".frames.in")).increment();
+    }
+
+    public void arpLookup(boolean hit) {
+        (hit ? arpHits : arpMisses).increment();
+    }
+
+    public void camLookup(boolean hit) {
+        (hit ? camHits : camMisses).increment();
+    }
+
+    public void dhcpAllocation() {
+        dhcpAllocations.increment();
+    }
+
+    /**
+     * Counts a received RIP update.
+     *
+     * @param changedRoutingTable Whether the update changed the routing table of the receiving router.
+     */
+    public void ripUpdate(boolean changedRoutingTable) {
+        ripUpdates.increment();
+        if (changedRoutingTable) {
+            ripRoutingChanges.increment();
+        }
+    }
+
+    /**
+     * Records how long a frame waited in an egress queue and starts sampling the depth of the queue.
+     *
+     * @param routerInterface The interface the frame left from.
+     * @param waitMillis      The simulated time the frame spent in the queue.
+     */
+    public void egressQueueWait(RouterInterface routerInterface, long waitMillis) {
+        watchEgressQueue(routerInterface);
+        egressWaitMillis.record(waitMillis);
+    }
+
+    /**
+     * Starts sampling the depth of an interface's egress queue, the queue discipline may be replaced meanwhile.
+     *
+     * @param routerInterface The interface to watch.
+     */
+    public void watchEgressQueue(RouterInterface routerInterface) {
+        if (watchedEgressQueues.putIfAbsent(routerInterface.getUuid(), routerInterface) == null) {
+            registry.gauge("queue.egress." + DeviceNames.of(routerInterface) + ".depth",
+                    () -> routerInterface.getEgressQueue().getMetrics().getTotalDepth());
+        }
+    }
+}
@@ -0,0 +1,342 @@
+package controller;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * Hashed hierarchical timing wheel driving the protocol timers of the simulation.
+ * <p>
+ * Timers are hashed into wheels of {@value #WHEEL_SIZE} slots. Every level covers {@value #WHEEL_SIZE} times the span
+ * of the level below it. A timer is placed on the lowest level whose span reaches its deadline and moves one level down
+ * whenever its slot comes up, so scheduling and cancelling are O(1) and a tick only touches the timers that are due.
+ * All timers expiring on the same tick are run as one batch.
+ * <p>
+ * The wheel owns no thread. It is advanced to the current time of its time source, which may be the wall clock
+ * ({@code System::currentTimeMillis}) or the virtual {@link SimulationClock}, or it can be stepped explicitly
+ * with {@link #advanceTo(long)}.
+ */
+public class TimerWheel {
+    static final int WHEEL_SIZE = 64;
+    private static final int WHEEL_BITS = Integer.numberOfTrailingZeros(WHEEL_SIZE);
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    private static final int LEVELS = 8;
+    private static final long MAX_TICK_DELTA = (1L << (WHEEL_BITS * LEVELS)) - 1;
+    private static final Logger logger = LogManager.getLogger(TimerWheel.class);
+
+    private final long tickMillis;
+    private final LongSupplier timeSource;
+    private final Bucket[][] wheels = new Bucket[LEVELS][WHEEL_SIZE];
+    private long currentTick;
+    private int pending = 0;
+
+    private enum State {
+        PENDING, EXPIRED, CANCELLED
+    }
+
+    /**
+     * Handle of a scheduled timer.
+     */
+    public static final class Timeout {
+        private final TimerWheel timerWheel;
+        private final Runnable task;
+        private final long periodMillis;
+        private long deadlineMillis;
+        private long deadlineTick;
+        private volatile State state = State.PENDING;
+
+        private Bucket bucket;
+        private Timeout previous;
+        private Timeout next;
+
+        private Timeout(TimerWheel timerWheel, Runnable task, long deadlineMillis, long periodMillis) {
+            this.timerWheel = timerWheel;
+            this.task = task;
+            this.periodMillis = periodMillis;
+            setDeadline(deadlineMillis);
+        }
+
+        private void setDeadline(long deadlineMillis) {
+            this.deadlineMillis = deadlineMillis;
+            this.deadlineTick = Math.ceilDiv(deadlineMillis, timerWheel.tickMillis);
+        }
+
+        /**
+         * Cancels the timer. A periodic timer stops repeating.
+         *
+         * @return true if the timer was pending and will not run anymore.
+         */
+        public boolean cancel() {
+            return timerWheel.cancel(this);
+        }
+
+        public boolean isCancelled() {
+            return state == State.CANCELLED;
+        }
+
+        /**
+         * Checks if a one-shot timer has fired. Periodic timers never expire, they can only be cancelled.
+         *
+         * @return true if the timer has fired.
+         */
+        public boolean isExpired() {
+            return state == State.EXPIRED;
+        }
+
+        public long getDeadlineMillis() {
+            return deadlineMillis;
+        }
+    }
+
+    /**
+     * Slot of a wheel, an intrusive doubly linked list of timers so that a timer can be unlinked in O(1).
+     */
+    private static final class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            timeout.previous = tail;
+            timeout.next = null;
+            if (tail == null) {
+                head = timeout;
+            } else {
+                tail.next = timeout;
+            }
+            tail = timeout;
+        }
+
+        void remove(Timeout timeout) {
+            if (timeout.previous == null) {
+                head = timeout.next;
+            } else {
+                timeout.previous.next = timeout.next;
+            }
+            if (timeout.next == null) {
+                tail = timeout.previous;
+            } else {
+                timeout.next.previous = timeout.previous;
+            }
+            timeout.bucket = null;
+            timeout.previous = null;
+            timeout.next = null;
+        }
+
+        void drainTo(List<Timeout> timeouts) {
+            Timeout timeout = head;
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                timeout.bucket = null;
+                timeout.previous = null;
+                timeout.next = null;
+                timeouts.add(timeout);
+                timeout = next;
+            }
+            head = null;
+            tail = null;
+        }
+    }
+
+    /**
+     * Constructs a timer wheel.
+     *
+     * @param tickMillis The resolution of the wheel in milliseconds. Timers never fire early, but up to one tick late.
+     * @param timeSource The clock the wheel is advanced against, in milliseconds.
+     */
+    public TimerWheel(long tickMillis, LongSupplier timeSource) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("tick must be positive");
+        }
+        this.tickMillis = tickMillis;
+        this.timeSource = timeSource;
+        this.currentTick = Math.floorDiv(timeSource.getAsLong(), tickMillis);
+        for (Bucket[] wheel : wheels) {
+            for (int slot = 0; slot < WHEEL_SIZE; slot++) {
+                wheel[slot] = new Bucket();
+            }
+        }
+    }
+
+    /**
+     * Schedules a one-shot timer.
+     *
+     * @param task        The task to run when the timer fires.
+     * @param delayMillis The delay from the current time of the wheel in milliseconds.
+     * @return the handle of the timer.
+     */
+    public Timeout schedule(Runnable task, long delayMillis) {
+        return scheduleAt(task, timeSource.getAsLong() + Math.max(delayMillis, 0));
+    }
+
+    /**
+     * Schedules a one-shot timer at an absolute time of the time source.
+     *
+     * @param task           The task to run when the timer fires.
+     * @param deadlineMillis The time in milliseconds the timer fires at.
+     * @return the handle of the timer.
+     */
+    public Timeout scheduleAt(Runnable task, long deadlineMillis) {
+        Timeout timeout = new Timeout(this, task, deadlineMillis, 0);
+        synchronized (this) {
+            insert(timeout, 1);
+        }
+        return timeout;
+    }
+
+    /**
+     * Schedules a periodic timer. Periods missed while the wheel was not advanced are caught up one per tick.
+     *
+     * @param task               The task to run every time the timer fires.
+     * @param initialDelayMillis The delay of the first run in milliseconds.
+     * @param periodMillis       The period between runs in milliseconds.
+     * @return the handle of the timer.
+     */
+    public Timeout scheduleAtFixedRate(Runnable task, long initialDelayMillis, long periodMillis) {
+        if (periodMillis <= 0) {
+            throw new IllegalArgumentException("period must be positive");
+        }
+        Timeout timeout = new Timeout(this, task, timeSource.getAsLong() + Math.max(initialDelayMillis, 0), periodMillis);
+        synchronized (this) {
+            insert(timeout, 1);
+        }
+        return timeout;
+    }
+
+    /**
+     * Advances the wheel to the current time of its time source, running every timer that became due.
+     *
+     * @return the number of timers that fired.
+     */
+    public int advance() {
+        return advanceTo(timeSource.getAsLong());
+    }
+
+    /**
+     * Advances the wheel tick by tick up to the given time, running the timers of each tick as one batch.
+     * The tasks run on the calling thread, outside the lock of the wheel, so they may schedule and cancel timers.
+     *
+     * @param nowMillis The time to advance to in milliseconds.
+     * @return the number of timers that fired.
+     */
+    public int advanceTo(long nowMillis) {
+        long targetTick = Math.floorDiv(nowMillis, tickMillis);
+        List<Timeout> expired = new ArrayList<>();
+        int fired = 0;
+        while (true) {
+            synchronized (this) {
+                if (currentTick >= targetTick) {
+                    break;
+                }
+                if (pending == 0) {
+                    currentTick = targetTick;
+                    break;
+                }
+                currentTick++;
+                cascade();
+                collectExpired(expired);
+            }
+            for (Timeout timeout : expired) {
+                if (markFired(timeout)) {
+                    fired++;
+                    try {
+                        timeout.task.run();
+                    } catch (RuntimeException e) {
+                        logger.error("Timer task failed", e);
+                    }
+                }
+            }
+            expired.clear();
+        }
+        return fired;
+    }
+
+    /**
+     * Returns the number of timers waiting to fire.
+     *
+     * @return the number of pending timers.
+     */
+    public synchronized int size() {
+        return pending;
+    }
+
+    private synchronized boolean cancel(Timeout timeout) {
+        if (timeout.state != State.PENDING) {
+            return false;
+        }
+        timeout.state = State.CANCELLED;
+        if (timeout.bucket != null) {
+            timeout.bucket.remove(timeout);
+            pending--;
+        }
+        return true;
+    }
+
+    /**
+     * A timer of the current batch may have been cancelled by a timer that ran before it.
+     */
+    private synchronized boolean markFired(Timeout timeout) {
+        if (timeout.state == State.CANCELLED) {
+            return false;
+        }
+        if (timeout.periodMillis == 0) {
+            timeout.state = State.EXPIRED;
+        }
+        return true;
+    }
+
+    /**
+     * Hashes a timer into its slot. Outside of a tick the slot of the current tick has already been processed,
+     * so a timer that is already due goes to the next tick. During a tick it may still go to the current one.
+     */
+    private void insert(Timeout timeout, long minTickDelta) {
+        long tickDelta = Math.min(Math.max(timeout.deadlineTick - currentTick, minTickDelta), MAX_TICK_DELTA);
+        long tick = currentTick + tickDelta;
+        int level = 0;
+        while (level < LEVELS - 1 && tickDelta >= 1L << (WHEEL_BITS * (level + 1))) {
+            level++;
+        }
+        wheels[level][(int) ((tick >>> (WHEEL_BITS * level)) & WHEEL_MASK)].add(timeout);
+        pending++;
+    }
+
+    /**
+     * Moves the timers of the higher level slots that start at the current tick one or more levels down.
+     */
+    private void cascade() {
+        int level = 0;
+        while (level < LEVELS - 1 && (currentTick & ((1L << (WHEEL_BITS * (level + 1))) - 1)) == 0) {
+            level++;
+        }
+        List<Timeout> moved = new ArrayList<>();
+        for (; level > 0; level--) {
+            wheels[level][(int) ((currentTick >>> (WHEEL_BITS * level)) & WHEEL_MASK)].drainTo(moved);
+            for (Timeout timeout : moved) {
+                pending--;
+                insert(timeout, 0);
+            }
+            moved.clear();
+        }
+    }
+
+    private void collectExpired(List<Timeout> expired) {
+        List<Timeout> slot = new ArrayList<>();
+        wheels[0][(int) (currentTick & WHEEL_MASK)].drainTo(slot);
+        for (Timeout timeout : slot) {
+            pending--;
+            if (timeout.deadlineTick > currentTick) {
+                // Only reachable by timers beyond the span of the highest level
+                insert(timeout, 1);
+                continue;
+            }
+            if (timeout.periodMillis > 0) {
+                timeout.setDeadline(timeout.deadlineMillis + timeout.periodMillis);
+                insert(timeout, 1);
+            }
+            expired.add(timeout);
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package controller;
+
+import io.FrameEncoder;
+import io.TracePacket;
+import io.TrafficTraceReader;
+import model.PCModel;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Replays a recorded traffic trace between the PCs of the simulation, as an alternative to the random traffic of
+ * {@link SimulationController#pickRandomLanCommunication()}.
+ * <p>
+ * Every address of the trace is mapped onto a PC the first time it appears, going round the PCs in order, so the
+ * same trace and topology always produce the same traffic. Packets are injected at their recorded inter-arrival
+ * times in simulated time, starting when the replay is started, and carry a payload that makes the simulated frame
+ * as long as the recorded packet. Only the next packet of the trace is read ahead, it waits on the timer wheel until
+ * it is due. Packets between addresses mapped onto the same PC, from or to a failed PC or one waiting for its
+ * DHCP configuration, packets the simulation cannot route and packets that only started the ARP or DHCP exchange
+ * they wait for are skipped.
+ * <p>
+ * The replay is started and its packets are injected on the thread that advances the timer wheel.
+ */
+public class TrafficTraceSource implements AutoCloseable {
+    private static final Logger logger = LogManager.getLogger(TrafficTraceSource.class);
+    /**
+     * The Ethernet, IPv4 and UDP headers of a simulated string message, the rest of a packet is its payload.
+     */
+    static final int HEADER_BYTES = 14 + 20 + 8;
+    static final int MAX_PAYLOAD_BYTES = FrameEncoder.MAX_UDP_PAYLOAD_SIZE;
+    private static final int CACHED_PAYLOADS = 256;
+
+    /**
+     * Sends a string message between two PCs.
+     */
+    @FunctionalInterface
+    public interface Injector {
+        /**
+         * @return whether the message was sent
+         */
+        SimulationController.CommunicationOutcome inject(PCModel initiator, PCModel recipient, String body);
+    }
+
+    private final TrafficTraceReader reader;
+    private final List<PCModel> pcs;
+    private final Predicate<PCModel> failed;
+    private final Injector injector;
+    private final TimerWheel timerWheel;
+    private final LongSupplier clock;
+    private final BiConsumer<TrafficTraceSource, IOException> finishedListener;
+    private final Map<Long, PCModel> assignedPcs = new HashMap<>();
+    private final Map<Integer, String> payloads = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, String> eldest) {
+            return size() > CACHED_PAYLOADS;
+        }
+    };
+    private TracePacket pending;
+    private TimerWheel.Timeout timeout;
+    private long startMillis;
+    private long firstPacketMicros;
+    private long injectedPackets = 0;
+    private long skippedPackets = 0;
+    private long unroutedPackets = 0;
+    private boolean finished = false;
+
+    /**
+     * Prepares a replay, nothing is injected until it is started.
+     *
+     * @param reader           The trace, closed when the replay finishes or is closed.
+     * @param pcs              The PCs the addresses of the trace are mapped onto.
+     * @param failed           Tells whether a PC is failed.
+     * @param injector         Sends the packets.
+     * @param timerWheel       The wheel the packets wait on until they are due.
+     * @param clock            The simulated time in milliseconds.
+     * @param finishedListener Called once the trace ends, with the exception that ended it early, if any.
+     * @throws IllegalArgumentException if there are fewer than 2 PCs.
+     */
+    public TrafficTraceSource(TrafficTraceReader reader, List<PCModel> pcs, Predicate<PCModel> failed, Injector injector, TimerWheel timerWheel,
+                              LongSupplier clock, BiConsumer<TrafficTraceSource, IOException> finishedListener) {
+        if (pcs.size() < 2) {
+            throw new IllegalArgumentException("Place more than 1 PC to replay a traffic trace");
+        }
+        this.reader = reader;
+        this.pcs = List.copyOf(pcs);
+        this.failed = failed;
+        this.injector = injector;
+        this.timerWheel = timerWheel;
+        this.clock = clock;
+        this.finishedListener = finishedListener;
+    }
+
+    /**
+     * Starts injecting packets, the first packet of the trace is injected at the current simulated time.
+     */
+    public synchronized void start() {
+        startMillis = clock.getAsLong();
+        try {
+            pending = reader.next();
+        } catch (IOException e) {
+            finish(e);
+            return;
+        }
+        if (pending == null) {
+            finish(null);
+            return;
+        }
+        firstPacketMicros = pending.timeMicros();
+        injectDuePackets();
+    }
+
+    private long dueMillis(TracePacket packet) {
+        return startMillis + (packet.timeMicros() - firstPacketMicros) / 1_000;
+    }
+
+    private void schedulePending() {
+        timeout = timerWheel.scheduleAt(this::injectDuePackets, dueMillis(pending));
+    }
+
+    /**
+     * Injects every packet that is due, a trace recorded out of order injects late packets right away.
+     */
+    private synchronized void injectDuePackets() {
+        if (finished) {
+            return;
+        }
+        long now = clock.getAsLong();
+        try {
+            while (pending != null && dueMillis(pending) <= now) {
+                inject(pending);
+                pending = reader.next();
+            }
+        } catch (IOException e) {
+            finish(e);
+            return;
+        }
+        if (pending == null) {
+            finish(null);
+        } else {
+            schedulePending();
+        }
+    }
+
+    private void inject(TracePacket packet) {
+        PCModel initiator = assignedPc(packet.sourceAddress());
+        PCModel recipient = assignedPc(packet.destinationAddress());
+        if (initiator == recipient || !isReady(initiator) || !isReady(recipient)) {
+            skippedPackets++;
+            return;
+        }
+        switch (injector.inject(initiator, recipient, payload(packet.length()))) {
+            case SENT -> injectedPackets++;
+            case NOT_SENT -> skippedPackets++;
+            case NOT_ROUTED -> {
+                // Counted instead of logged, a trace between two LANs would flood the log window
+                skippedPackets++;
+                unroutedPackets++;
+                logger.debug("{} and {} are in different LANs, packet skipped", initiator, recipient);
+            }
+        }
+    }
+
+    /**
+     * A PC waiting for its DHCP configuration would only ask for it again.
+     */
+    private boolean isReady(PCModel pc) {
+        return pc.getConnection() != null && !pc.isConfigurationInProgress() && !failed.test(pc);
+    }
+
+    private PCModel assignedPc(long address) {
+        return assignedPcs.computeIfAbsent(address, unused -> pcs.get(assignedPcs.size() % pcs.size()));
+    }
+
+    /**
+     * The payload making a simulated frame as long as a recorded packet. Traces repeat few packet lengths, so the
+     * payloads of the recent ones are kept.
+     */
+    private String payload(int packetLength) {
+        int payloadLength = Math.min(Math.max(packetLength - HEADER_BYTES, 0), MAX_PAYLOAD_BYTES);
+        return payloads.computeIfAbsent(payloadLength, length -> "x".repeat(length));
+    }
+
+    private void finish(IOException failure) {
+        finished = true;
+        pending = null;
+        try {
+            reader.close();
+        } catch (IOException e) {
+            logger.warn("Traffic trace could not be closed", e);
+        }
+        if (failure != null) {
+            logger.error("Traffic trace replay failed", failure);
+        }
+        finishedListener.accept(this, failure);
+    }
+
+    /**
+     * @return the number of packets injected so far
+     */
+    public synchronized long getInjectedPackets() {
+        return injectedPackets;
+    }
+
+    /**
+     * @return the number of packets skipped so far, see the class description
+     */
+    public synchronized long getSkippedPackets() {
+        return skippedPackets;
+    }
+
+    /**
+     * @return the number of the skipped packets that were between PCs in different LANs
+     */
+    public synchronized long getUnroutedPackets() {
+        return unroutedPackets;
+    }
+
+    /**
+     * @return the number of trace addresses mapped onto PCs so far
+     */
+    public synchronized int getMappedAddresses() {
+        return assignedPcs.size();
+    }
+
+    public synchronized boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * Stops the replay without calling the finished listener.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        pending = null;
+        if (timeout != null) {
+            timeout.cancel();
+        }
+        reader.close();
+    }
+}
@@ -1,6 +1,5 @@
 package entry;
 
-import com.google.common.eventbus.Subscribe;
 import common.ExitRequestEvent;
 import common.GlobalEventBus;
 import common.ReadyToExitEvent;
@@ -17,7 +16,7 @@ public class App extends Application {
     @Override
     public void start(Stage primaryStage) {
         this.stage = primaryStage;
-        GlobalEventBus.register(this);
+        GlobalEventBus.application().subscribe(ReadyToExitEvent.class, this::handleReadyToExitEvent);
         stage.setOnCloseRequest(event -> {
             event.consume();
 
@@ -32,7 +31,6 @@ public class App extends Application {
     }
 
 
-    @Subscribe
     public void handleReadyToExitEvent(ReadyToExitEvent event) {
         Platform.exit();
     }
@@ -0,0 +1,52 @@
+package io;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Replaces files as a whole, so neither a reader nor a failed save ever sees a partly written file.
+ */
+public class AtomicFiles {
+    /**
+     * Writes the content of a file to the given path.
+     */
+    @FunctionalInterface
+    public interface ContentWriter {
+        void write(Path path) throws IOException;
+    }
+
+    private AtomicFiles() {
+    }
+
+    /**
+     * Writes a temporary file next to the target and then moves it in place of the target. Where the file system
+     * cannot move atomically, the target is replaced by a plain move. The temporary file is removed if writing fails,
+     * leaving the previous content of the target untouched.
+     *
+     * @param target The file to replace.
+     * @param writer Writes the new content to the temporary file.
+     * @throws IOException if the content cannot be written or moved in place.
+     */
+    public static void replace(Path target, ContentWriter writer) throws IOException {
+        Path directory = target.toAbsolutePath().getParent();
+        Path temporary = Files.createTempFile(directory, "." + target.getFileName(), ".tmp");
+        try {
+            writer.write(temporary);
+            try {
+                Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException | RuntimeException e) {
+            try {
+                Files.deleteIfExists(temporary);
+            } catch (IOException deleteFailure) {
+                e.addSuppressed(deleteFailure);
+            }
+            throw e;
+        }
+    }
+}
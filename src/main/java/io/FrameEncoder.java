@@ -0,0 +1,437 @@
+package io;
+
+import model.*;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Encodes simulated frames in their real wire formats, so captures can be read by standard tools and frame sizes
+ * match the sizes on a real network.
+ * <ul>
+ *     <li>Every frame is an Ethernet II frame without the frame check sequence, padded to the 60 byte minimum</li>
+ *     <li>ARP requests and responses are ARP packets for IPv4 over Ethernet</li>
+ *     <li>DHCP messages are BOOTP packets over UDP 68/67, padded to the 300 byte BOOTP minimum: a discover, an offer,
+ *     a request for the {@link DhcpResponseMessage} and an ack</li>
+ *     <li>RIP messages are RIPv2 responses over UDP 520, one entry per route of the carried routing table. A table
+ *     of more than {@value #RIP_MAX_ENTRIES} routes is split into several responses, each a frame of its own</li>
+ *     <li>String messages are UDP datagrams to port {@value #STRING_MESSAGE_PORT} carrying the UTF-8 body, at most
+ *     {@value #MAX_UDP_PAYLOAD_SIZE} bytes of it</li>
+ * </ul>
+ * The simulation has no 48-bit MAC addresses, see {@link #macAddressBytes(MACAddress)} for how they are derived.
+ * Missing IPv4 addresses are encoded as 0.0.0.0, a DHCP offer to an unconfigured client is broadcast.
+ */
+public class FrameEncoder {
+    public static final int ETHERNET_HEADER_SIZE = 14;
+    public static final int MIN_FRAME_SIZE = 60;
+    public static final int STRING_MESSAGE_PORT = 9;
+    /**
+     * The largest UDP payload an IPv4 packet can carry.
+     */
+    public static final int MAX_UDP_PAYLOAD_SIZE = 65_507;
+    /**
+     * The most routes one RIPv2 message may carry.
+     */
+    public static final int RIP_MAX_ENTRIES = 25;
+    static final int ETHERTYPE_IPV4 = 0x0800;
+    static final int ETHERTYPE_ARP = 0x0806;
+    static final int IPV4_HEADER_SIZE = 20;
+    static final int UDP_HEADER_SIZE = 8;
+    static final int ARP_SIZE = 28;
+    static final int DHCP_SERVER_PORT = 67;
+    static final int DHCP_CLIENT_PORT = 68;
+    static final int RIP_PORT = 520;
+    private static final int PROTOCOL_UDP = 17;
+    private static final int TTL = 64;
+    private static final int BOOTP_FIXED_SIZE = 236;
+    private static final int BOOTP_MIN_SIZE = 300;
+    private static final int DHCP_MAGIC_COOKIE = 0x63825363;
+    private static final int RIP_HEADER_SIZE = 4;
+    private static final int RIP_ENTRY_SIZE = 20;
+    private static final int RIP_INFINITY = 16;
+    private static final long BROADCAST_IP = 0xffffffffL;
+    private static final byte[] BROADCAST_MAC = {(byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff};
+
+    private final Map<MACAddress, byte[]> macAddresses = new HashMap<>();
+    private short identification = 0;
+
+    /**
+     * Counts the frames a simulated frame takes on the wire. A RIP update of more than {@value #RIP_MAX_ENTRIES} routes
+     * takes one frame per {@value #RIP_MAX_ENTRIES} routes, every other frame takes one.
+     *
+     * @param frame The frame.
+     * @return the number of wire frames
+     */
+    public static int wireFrameCount(Frame frame) {
+        if (frame.getPacket().getMessage() instanceof RipMessage ripMessage) {
+            return Math.max(1, (ripMessage.getRoutingTable().getEntries().size() + RIP_MAX_ENTRIES - 1) / RIP_MAX_ENTRIES);
+        }
+        return 1;
+    }
+
+    /**
+     * Computes the size of a frame on the wire, over all of its wire frames.
+     *
+     * @param frame The frame.
+     * @return the number of bytes the wire frames take together
+     * @throws IllegalArgumentException if a string message does not fit into a UDP datagram.
+     */
+    public static int encodedLength(Frame frame) {
+        int wireFrameCount = wireFrameCount(frame);
+        int length = 0;
+        for (int wireFrame = 0; wireFrame < wireFrameCount; wireFrame++) {
+            length += encodedLength(frame, wireFrame);
+        }
+        return length;
+    }
+
+    /**
+     * Computes the size of one wire frame of a frame.
+     *
+     * @param frame     The frame.
+     * @param wireFrame The index of the wire frame, below {@link #wireFrameCount(Frame)}.
+     * @return the number of bytes {@link #encode(Frame, int, ByteBuffer)} writes
+     * @throws IllegalArgumentException if a string message does not fit into a UDP datagram.
+     */
+    public static int encodedLength(Frame frame, int wireFrame) {
+        return Math.max(MIN_FRAME_SIZE, ETHERNET_HEADER_SIZE + networkLayerLength(frame.getPacket().getMessage(), wireFrame));
+    }
+
+    private static int networkLayerLength(Message message, int wireFrame) {
+        if (message instanceof ArpRequestMessage || message instanceof ArpResponseMessage) {
+            return ARP_SIZE;
+        }
+        return IPV4_HEADER_SIZE + UDP_HEADER_SIZE + udpPayloadLength(message, wireFrame);
+    }
+
+    private static int udpPayloadLength(Message message, int wireFrame) {
+        if (message instanceof DhcpDiscoverMessage || message instanceof DhcpOfferMessage
+                || message instanceof DhcpResponseMessage || message instanceof DhcpAckMessage) {
+            return Math.max(BOOTP_MIN_SIZE, BOOTP_FIXED_SIZE + Integer.BYTES + dhcpOptionsLength(message));
+        }
+        if (message instanceof RipMessage ripMessage) {
+            return RIP_HEADER_SIZE + RIP_ENTRY_SIZE * ripEntries(ripMessage, wireFrame).size();
+        }
+        if (message instanceof StringMessage stringMessage && stringMessage.getBody() != null) {
+            int length = utf8Length(stringMessage.getBody());
+            if (length > MAX_UDP_PAYLOAD_SIZE) {
+                throw new IllegalArgumentException(String.format("A string message of %d bytes does not fit into a UDP datagram", length));
+            }
+            return length;
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the routes one RIPv2 response of an update carries.
+     */
+    private static List<RouteEntry> ripEntries(RipMessage ripMessage, int wireFrame) {
+        List<RouteEntry> entries = ripMessage.getRoutingTable().getEntries();
+        int from = Math.min(wireFrame * RIP_MAX_ENTRIES, entries.size());
+        return entries.subList(from, Math.min(from + RIP_MAX_ENTRIES, entries.size()));
+    }
+
+    private static int dhcpOptionsLength(Message message) {
+        // Message type and end, then server identifier, subnet mask, router, lease time and requested address as needed
+        if (message instanceof DhcpOfferMessage) {
+            return 3 + 4 * 6 + 1;
+        }
+        if (message instanceof DhcpResponseMessage || message instanceof DhcpAckMessage) {
+            return 3 + 2 * 6 + 1;
+        }
+        return 3 + 1;
+    }
+
+    private static int utf8Length(String string) {
+        int length = 0;
+        for (int i = 0; i < string.length(); i++) {
+            char c = string.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < string.length() && Character.isLowSurrogate(string.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Derives the 48-bit address of a simulated MAC address. The broadcast address is all ones and an address written
+     * as 12 hexadecimal digits is taken as it is. Other addresses, such as the UUIDs devices use, are mapped to a locally
+     * administered unicast address made of their last 12 hexadecimal digits, or of a hash if they have fewer.
+     *
+     * @param macAddress The simulated MAC address.
+     * @return the 6 bytes of the address
+     */
+    public static byte[] macAddressBytes(MACAddress macAddress) {
+        String address = macAddress.toString();
+        if (address.equals(MACAddress.ipv4Broadcast().toString())) {
+            return BROADCAST_MAC.clone();
+        }
+        StringBuilder hexDigits = new StringBuilder();
+        boolean onlyHexDigitsAndSeparators = true;
+        for (int i = 0; i < address.length(); i++) {
+            char c = address.charAt(i);
+            if (Character.digit(c, 16) >= 0) {
+                hexDigits.append(c);
+            } else if (c != ':' && c != '-' && c != '.') {
+                onlyHexDigitsAndSeparators = false;
+            }
+        }
+        long bits = hexDigits.length() >= 12
+                ? Long.parseLong(hexDigits.substring(hexDigits.length() - 12), 16)
+                : UUID.nameUUIDFromBytes(address.getBytes(StandardCharsets.UTF_8)).getLeastSignificantBits();
+        byte[] bytes = new byte[6];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) (bits >>> (8 * (5 - i)));
+        }
+        if (hexDigits.length() != 12 || !onlyHexDigitsAndSeparators) {
+            bytes[0] = (byte) ((bytes[0] & 0xfe) | 0x02);
+        }
+        return bytes;
+    }
+
+    private byte[] mac(MACAddress macAddress) {
+        return macAddress == null ? new byte[6] : macAddresses.computeIfAbsent(macAddress, FrameEncoder::macAddressBytes);
+    }
+
+    private static long ip(IPAddress ipAddress) {
+        return ipAddress == null ? 0 : ipAddress.toLong();
+    }
+
+    /**
+     * Writes a frame that takes a single frame on the wire, see {@link #encode(Frame, int, ByteBuffer)}.
+     *
+     * @param frame  The frame.
+     * @param target The buffer to write to.
+     * @throws IllegalArgumentException if the frame takes more than one frame on the wire.
+     * @throws BufferOverflowException  if the buffer has less than {@link #encodedLength(Frame)} bytes remaining.
+     */
+    public void encode(Frame frame, ByteBuffer target) {
+        if (wireFrameCount(frame) > 1) {
+            throw new IllegalArgumentException("The frame takes " + wireFrameCount(frame) + " frames on the wire");
+        }
+        encode(frame, 0, target);
+    }
+
+    /**
+     * Writes one wire frame of a frame at the position of a big-endian buffer and moves the position behind it.
+     * Not thread safe, the encoder numbers the IPv4 packets it writes.
+     *
+     * @param frame     The frame.
+     * @param wireFrame The index of the wire frame, below {@link #wireFrameCount(Frame)}.
+     * @param target    The buffer to write to.
+     * @throws IllegalArgumentException if a string message does not fit into a UDP datagram.
+     * @throws BufferOverflowException  if the buffer has less than {@link #encodedLength(Frame, int)} bytes remaining.
+     */
+    public void encode(Frame frame, int wireFrame, ByteBuffer target) {
+        int length = encodedLength(frame, wireFrame);
+        if (target.remaining() < length) {
+            throw new BufferOverflowException();
+        }
+        int start = target.position();
+        Packet packet = frame.getPacket();
+        Message message = packet.getMessage();
+        target.put(mac(frame.getDestinationMac()));
+        target.put(mac(frame.getSourceMac()));
+        if (message instanceof ArpRequestMessage || message instanceof ArpResponseMessage) {
+            target.putShort((short) ETHERTYPE_ARP);
+            encodeArp(frame, target);
+        } else {
+            target.putShort((short) ETHERTYPE_IPV4);
+            encodeIpv4(frame, wireFrame, target);
+        }
+        while (target.position() < start + length) {
+            target.put((byte) 0);
+        }
+    }
+
+    private void encodeArp(Frame frame, ByteBuffer target) {
+        Packet packet = frame.getPacket();
+        target.putShort((short) 1); // Ethernet
+        target.putShort((short) ETHERTYPE_IPV4);
+        target.put((byte) 6);
+        target.put((byte) 4);
+        if (packet.getMessage() instanceof ArpRequestMessage arpRequest) {
+            target.putShort((short) 1);
+            target.put(mac(arpRequest.getRequesterMacAddress()));
+            target.putInt((int) ip(arpRequest.getRequesterIpAddress()));
+            target.put(new byte[6]);
+            target.putInt((int) ip(arpRequest.getRequestedIpAddress()));
+        } else {
+            ArpResponseMessage arpResponse = (ArpResponseMessage) packet.getMessage();
+            target.putShort((short) 2);
+            target.put(mac(arpResponse.getRequestedMacAddress()));
+            target.putInt((int) ip(packet.getSourceIp()));
+            target.put(mac(frame.getDestinationMac()));
+            target.putInt((int) ip(packet.getDestinationIp()));
+        }
+    }
+
+    private void encodeIpv4(Frame frame, int wireFrame, ByteBuffer target) {
+        Packet packet = frame.getPacket();
+        Message message = packet.getMessage();
+        long sourceIp = ip(packet.getSourceIp());
+        long destinationIp = ip(packet.getDestinationIp());
+        int sourcePort = STRING_MESSAGE_PORT;
+        int destinationPort = STRING_MESSAGE_PORT;
+        if (message instanceof DhcpDiscoverMessage) {
+            sourceIp = 0;
+            destinationIp = BROADCAST_IP;
+        } else if (message instanceof DhcpOfferMessage && destinationIp == 0) {
+            destinationIp = BROADCAST_IP;
+        }
+        if (message instanceof DhcpDiscoverMessage || message instanceof DhcpResponseMessage) {
+            sourcePort = DHCP_CLIENT_PORT;
+            destinationPort = DHCP_SERVER_PORT;
+        } else if (message instanceof DhcpOfferMessage || message instanceof DhcpAckMessage) {
+            sourcePort = DHCP_SERVER_PORT;
+            destinationPort = DHCP_CLIENT_PORT;
+        } else if (message instanceof RipMessage) {
+            sourcePort = RIP_PORT;
+            destinationPort = RIP_PORT;
+        }
+        int udpLength = UDP_HEADER_SIZE + udpPayloadLength(message, wireFrame);
+
+        int ipStart = target.position();
+        target.put((byte) 0x45);
+        target.put((byte) 0);
+        target.putShort((short) (IPV4_HEADER_SIZE + udpLength));
+        target.putShort(identification++);
+        target.putShort((short) 0x4000); // Don't fragment
+        target.put((byte) TTL);
+        target.put((byte) PROTOCOL_UDP);
+        target.putShort((short) 0);
+        target.putInt((int) sourceIp);
+        target.putInt((int) destinationIp);
+        target.putShort(ipStart + 10, (short) ~checksum(target, ipStart, IPV4_HEADER_SIZE, 0));
+
+        int udpStart = target.position();
+        target.putShort((short) sourcePort);
+        target.putShort((short) destinationPort);
+        target.putShort((short) udpLength);
+        target.putShort((short) 0);
+        if (message instanceof RipMessage ripMessage) {
+            encodeRip(ripEntries(ripMessage, wireFrame), target);
+        } else if (message instanceof StringMessage stringMessage) {
+            if (stringMessage.getBody() != null) {
+                target.put(stringMessage.getBody().getBytes(StandardCharsets.UTF_8));
+            }
+        } else if (udpLength > UDP_HEADER_SIZE) {
+            encodeDhcp(frame, target, udpStart + udpLength);
+        }
+        int pseudoHeaderSum = (int) ((sourceIp >>> 16) + (sourceIp & 0xffff) + (destinationIp >>> 16) + (destinationIp & 0xffff) + PROTOCOL_UDP + udpLength);
+        short udpChecksum = (short) ~checksum(target, udpStart, udpLength, pseudoHeaderSum);
+        // A computed checksum of zero is sent as all ones, zero means no checksum
+        target.putShort(udpStart + 6, udpChecksum == 0 ? (short) 0xffff : udpChecksum);
+    }
+
+    private void encodeDhcp(Frame frame, ByteBuffer target, int end) {
+        Packet packet = frame.getPacket();
+        Message message = packet.getMessage();
+        boolean fromClient = message instanceof DhcpDiscoverMessage || message instanceof DhcpResponseMessage;
+        MACAddress clientMac = message instanceof DhcpDiscoverMessage discover ? discover.getSourceMac()
+                : fromClient ? frame.getSourceMac() : frame.getDestinationMac();
+        byte[] clientHardwareAddress = mac(clientMac);
+        long yourIp = message instanceof DhcpOfferMessage offer ? ip(offer.getOfferedIpAddress())
+                : message instanceof DhcpAckMessage ? ip(packet.getDestinationIp()) : 0;
+        long serverIp = fromClient ? ip(packet.getDestinationIp()) : ip(packet.getSourceIp());
+
+        target.put((byte) (fromClient ? 1 : 2));
+        target.put((byte) 1);
+        target.put((byte) 6);
+        target.put((byte) 0);
+        // The transaction ID ties the messages of one client's exchange together
+        target.putInt(((clientHardwareAddress[2] & 0xff) << 24) | ((clientHardwareAddress[3] & 0xff) << 16)
+                | ((clientHardwareAddress[4] & 0xff) << 8) | (clientHardwareAddress[5] & 0xff));
+        target.putShort((short) 0);
+        target.putShort((short) (message instanceof DhcpDiscoverMessage || message instanceof DhcpOfferMessage ? 0x8000 : 0));
+        target.putInt(0); // ciaddr
+        target.putInt((int) yourIp);
+        target.putInt(0); // siaddr
+        target.putInt(0); // giaddr
+        target.put(clientHardwareAddress);
+        target.put(new byte[16 - clientHardwareAddress.length + 64 + 128]); // chaddr padding, sname, file
+        target.putInt(DHCP_MAGIC_COOKIE);
+        if (message instanceof DhcpDiscoverMessage) {
+            putOption(target, 53, 1, 1);
+        } else if (message instanceof DhcpOfferMessage offer) {
+            putOption(target, 53, 1, 2);
+            putOption(target, 54, 4, serverIp);
+            putOption(target, 1, 4, offer.getSubnetMask() == null ? 0 : offer.getSubnetMask().toLong());
+            putOption(target, 3, 4, ip(offer.getDefaultGateway()));
+            putOption(target, 51, 4, 0xffffffffL); // The simulation does not expire leases
+        } else if (message instanceof DhcpResponseMessage) {
+            putOption(target, 53, 1, 3);
+            putOption(target, 50, 4, ip(packet.getSourceIp()));
+            putOption(target, 54, 4, serverIp);
+        } else {
+            putOption(target, 53, 1, 5);
+            putOption(target, 54, 4, serverIp);
+            putOption(target, 51, 4, 0xffffffffL);
+        }
+        target.put((byte) 255);
+        while (target.position() < end) {
+            target.put((byte) 0);
+        }
+    }
+
+    private static void putOption(ByteBuffer target, int code, int length, long value) {
+        target.put((byte) code);
+        target.put((byte) length);
+        if (length == 1) {
+            target.put((byte) value);
+        } else {
+            target.putInt((int) value);
+        }
+    }
+
+    private static void encodeRip(List<RouteEntry> entries, ByteBuffer target) {
+        target.put((byte) 2); // Response
+        target.put((byte) 2); // Version 2
+        target.putShort((short) 0);
+        for (RouteEntry entry : entries) {
+            Network network = entry.getDestinationNetwork();
+            target.putShort((short) 2); // IPv4 address family
+            target.putShort((short) 0);
+            target.putInt((int) ip(network.getNetworkIpAddress()));
+            target.putInt((int) network.getSubnetMask().toLong());
+            target.putInt((int) ip(entry.getNextHop()));
+            target.putInt(Math.min(Math.max(entry.getHopCount(), 1), RIP_INFINITY));
+        }
+    }
+
+    /**
+     * Adds up 16-bit words the way the Internet checksum does.
+     *
+     * @param buffer  The buffer holding the words.
+     * @param offset  Where the words start.
+     * @param length  The number of bytes, an odd last byte is padded with zero.
+     * @param initial A sum to start from, e.g. of a pseudo header.
+     * @return the folded one's complement sum
+     */
+    static int checksum(ByteBuffer buffer, int offset, int length, int initial) {
+        long sum = initial;
+        int end = offset + length;
+        for (int i = offset; i + 1 < end; i += 2) {
+            sum += buffer.getShort(i) & 0xffff;
+        }
+        if ((length & 1) != 0) {
+            sum += (buffer.get(end - 1) & 0xff) << 8;
+        }
+        while ((sum >>> 16) != 0) {
+            sum = (sum & 0xffff) + (sum >>> 16);
+        }
+        return (int) sum;
+    }
+}
@@ -0,0 +1,71 @@
+package io;
+
+import model.TrafficClass;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Reads frame traces written by {@link FrameTraceWriter}.
+ */
+public class FrameTraceReader {
+
+    private FrameTraceReader() {
+    }
+
+    /**
+     * Reads every frame event of a trace.
+     *
+     * @param path The trace file.
+     * @return The frame events in the order they were recorded.
+     * @throws IOException if the file cannot be read or is not a frame trace.
+     */
+    public static List<FrameTraceRecord> read(Path path) throws IOException {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (input.readInt() != FrameTraceWriter.MAGIC) {
+                throw new IOException(path + " is not a frame trace");
+            }
+            short version = input.readShort();
+            if (version != FrameTraceWriter.VERSION) {
+                throw new IOException("Unsupported frame trace version " + version);
+            }
+            List<UUID> devices = new ArrayList<>();
+            List<FrameTraceRecord> records = new ArrayList<>();
+            FrameTraceRecord.Kind[] kinds = FrameTraceRecord.Kind.values();
+            TrafficClass[] trafficClasses = TrafficClass.values();
+            int tag;
+            while ((tag = input.read()) != -1) {
+                try {
+                    if (tag == FrameTraceWriter.DEVICE_TAG) {
+                        int index = input.readInt();
+                        if (index != devices.size()) {
+                            throw new IOException("Unexpected device index " + index);
+                        }
+                        devices.add(new UUID(input.readLong(), input.readLong()));
+                    } else if (tag == FrameTraceWriter.FRAME_TAG) {
+                        FrameTraceRecord.Kind kind = kinds[input.readUnsignedByte()];
+                        TrafficClass trafficClass = trafficClasses[input.readUnsignedByte()];
+                        long simulatedTimeMillis = input.readLong();
+                        UUID from = devices.get(input.readInt());
+                        UUID to = devices.get(input.readInt());
+                        records.add(new FrameTraceRecord(kind, simulatedTimeMillis, from, to, trafficClass));
+                    } else {
+                        throw new IOException("Unknown record tag " + tag);
+                    }
+                } catch (IndexOutOfBoundsException e) {
+                    throw new IOException("Corrupted frame trace", e);
+                } catch (EOFException e) {
+                    throw new IOException("Frame trace ends in the middle of a record", e);
+                }
+            }
+            return records;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package io;
+
+import model.TrafficClass;
+
+import java.util.UUID;
+
+/**
+ * A single per-frame event read back from a binary frame trace.
+ *
+ * @param kind                What happened to the frame.
+ * @param simulatedTimeMillis The simulated time of the event.
+ * @param fromDeviceUuid      The device the frame left.
+ * @param toDeviceUuid        The device the frame was sent to.
+ * @param trafficClass        The traffic class of the carried message.
+ */
+public record FrameTraceRecord(Kind kind, long simulatedTimeMillis, UUID fromDeviceUuid, UUID toDeviceUuid, TrafficClass trafficClass) {
+
+    public enum Kind {
+        /**
+         * The frame was put on its link.
+         */
+        SENT,
+        /**
+         * The frame crossed its link and reached the next device.
+         */
+        DELIVERED,
+        /**
+         * The frame was on a link that failed.
+         */
+        LOST,
+        /**
+         * The frame did not fit into the egress queue of a router interface.
+         */
+        DROPPED
+    }
+}
@@ -0,0 +1,144 @@
+package io;
+
+import model.TrafficClass;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Writes per-frame events into a compact binary file, as a cheap alternative to logging every frame as text.
+ * <p>
+ * The file starts with {@link #MAGIC} and {@link #VERSION}, followed by tagged records:
+ * <ul>
+ *     <li>{@link #DEVICE_TAG}, int index, long most and long least significant bits of the device UUID &ndash; written
+ *     the first time a device appears, later records refer to the device by its index</li>
+ *     <li>{@link #FRAME_TAG}, byte kind, byte traffic class, long simulated time in ms, int source and int target
+ *     device index</li>
+ * </ul>
+ * Records are collected in a fixed direct buffer and written once it is full, so a frame event costs no allocation.
+ * All numbers are big-endian. The file is read back with {@link FrameTraceReader}.
+ */
+public class FrameTraceWriter implements AutoCloseable {
+    public static final int MAGIC = 0x53505452; // "SPTR"
+    public static final short VERSION = 1;
+    static final byte DEVICE_TAG = 0;
+    static final byte FRAME_TAG = 1;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_RECORDS_SIZE = 2 * (1 + Integer.BYTES + 2 * Long.BYTES) + 1 + 2 + Long.BYTES + 2 * Integer.BYTES;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final Map<UUID, Integer> deviceIndexes = new HashMap<>();
+    private long recordCount = 0;
+    private boolean closed = false;
+
+    /**
+     * Creates the trace file, replacing an existing one.
+     *
+     * @param path The file to write to.
+     * @throws IOException if the file cannot be created.
+     */
+    public FrameTraceWriter(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        buffer.putInt(MAGIC);
+        buffer.putShort(VERSION);
+    }
+
+    /**
+     * Appends a frame event. Safe to call from any thread.
+     *
+     * @param kind                What happened to the frame.
+     * @param simulatedTimeMillis The simulated time of the event.
+     * @param fromDeviceUuid      The device the frame left.
+     * @param toDeviceUuid        The device the frame was sent to.
+     * @param trafficClass        The traffic class of the carried message.
+     * @throws IOException if the buffer could not be written to the file.
+     */
+    public synchronized void record(FrameTraceRecord.Kind kind, long simulatedTimeMillis, UUID fromDeviceUuid, UUID toDeviceUuid, TrafficClass trafficClass) throws IOException {
+        if (closed) {
+            return;
+        }
+        if (buffer.remaining() < MAX_RECORDS_SIZE) {
+            flush();
+        }
+        int fromIndex = deviceIndex(fromDeviceUuid);
+        int toIndex = deviceIndex(toDeviceUuid);
+        buffer.put(FRAME_TAG);
+        buffer.put((byte) kind.ordinal());
+        buffer.put((byte) trafficClass.ordinal());
+        buffer.putLong(simulatedTimeMillis);
+        buffer.putInt(fromIndex);
+        buffer.putInt(toIndex);
+        recordCount++;
+    }
+
+    private int deviceIndex(UUID deviceUuid) {
+        Integer index = deviceIndexes.get(deviceUuid);
+        if (index != null) {
+            return index;
+        }
+        int newIndex = deviceIndexes.size();
+        deviceIndexes.put(deviceUuid, newIndex);
+        buffer.put(DEVICE_TAG);
+        buffer.putInt(newIndex);
+        buffer.putLong(deviceUuid.getMostSignificantBits());
+        buffer.putLong(deviceUuid.getLeastSignificantBits());
+        return newIndex;
+    }
+
+    /**
+     * Writes the buffered records to the file.
+     *
+     * @throws IOException if writing fails.
+     */
+    public synchronized void flush() throws IOException {
+        if (closed) {
+            return;
+        }
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * @return The number of frame events recorded so far.
+     */
+    public synchronized long getRecordCount() {
+        return recordCount;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            flush();
+        } finally {
+            closed = true;
+            channel.close();
+        }
+    }
+
+    /**
+     * Closes the file without writing the buffered records, after a write to it has failed.
+     *
+     * @throws IOException if the file cannot be closed.
+     */
+    public synchronized void abort() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        buffer.clear();
+        channel.close();
+    }
+}
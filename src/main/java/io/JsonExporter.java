@@ -1,23 +1,97 @@
 package io;
 
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Paths;
+import java.nio.file.Path;
 import java.util.List;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-
+/**
+ * Writes a topology as JSON, one device and connection at a time, so the file is never built in memory as a whole.
+ * The file is replaced only once it is written completely, see {@link AtomicFiles#replace(Path, AtomicFiles.ContentWriter)}.
+ */
 public class JsonExporter {
+    private static final int PROGRESS_STEP_ITEMS = 1024;
 
-    private final ObjectMapper mapper = new ObjectMapper();
+    private final JsonFactory factory = new JsonFactory();
+
+    /**
+     * Receives how far an export got.
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+        /**
+         * Reports the written part of the topology, about every {@value #PROGRESS_STEP_ITEMS} devices and connections.
+         *
+         * @param itemsWritten the devices and connections written so far
+         * @param totalItems   the devices and connections of the topology
+         */
+        void progress(long itemsWritten, long totalItems);
+    }
 
     public void exportNetworkData(List<NetworkDeviceViewDTO> devices, List<ConnectionLineDTO> connections, AutoNameGeneratorDTO autoNameGenerator, File file) throws IOException {
-        NetworkData exportData = new NetworkData(
-                devices,
-                connections,
-                autoNameGenerator);
+        exportNetworkData(new NetworkData(devices, connections, autoNameGenerator), file.toPath(), (itemsWritten, totalItems) -> {
+        });
+    }
 
-        Files.write(Paths.get(file.toURI()), mapper.writeValueAsString(exportData).getBytes());
+    /**
+     * Exports a topology in the format read by {@link NetworkDataReader}.
+     *
+     * @param networkData The topology.
+     * @param path        The file to replace.
+     * @param listener    Receives the progress of the export.
+     * @throws IOException if the file cannot be written, the previous file is then left as it was.
+     */
+    public void exportNetworkData(NetworkData networkData, Path path, ProgressListener listener) throws IOException {
+        List<NetworkDeviceViewDTO> devices = networkData.devices() == null ? List.of() : networkData.devices();
+        List<ConnectionLineDTO> connections = networkData.connections() == null ? List.of() : networkData.connections();
+        long totalItems = (long) devices.size() + connections.size();
+        AtomicFiles.replace(path, temporary -> {
+            try (JsonGenerator generator = factory.createGenerator(temporary.toFile(), JsonEncoding.UTF8)) {
+                long itemsWritten = 0;
+                generator.writeStartObject();
+                generator.writeArrayFieldStart("devices");
+                for (NetworkDeviceViewDTO device : devices) {
+                    generator.writeStartObject();
+                    generator.writeStringField("uuid", device.uuid().toString());
+                    generator.writeStringField("name", device.name());
+                    generator.writeNumberField("x", device.x());
+                    generator.writeNumberField("y", device.y());
+                    generator.writeStringField("type", device.type() == null ? null : device.type().name());
+                    generator.writeEndObject();
+                    if (++itemsWritten % PROGRESS_STEP_ITEMS == 0) {
+                        listener.progress(itemsWritten, totalItems);
+                    }
+                }
+                generator.writeEndArray();
+                generator.writeArrayFieldStart("connections");
+                for (ConnectionLineDTO connection : connections) {
+                    generator.writeStartObject();
+                    generator.writeStringField("startDeviceId", connection.startDeviceId().toString());
+                    generator.writeStringField("endDeviceId", connection.endDeviceId().toString());
+                    generator.writeEndObject();
+                    if (++itemsWritten % PROGRESS_STEP_ITEMS == 0) {
+                        listener.progress(itemsWritten, totalItems);
+                    }
+                }
+                generator.writeEndArray();
+                AutoNameGeneratorDTO autoNameGenerator = networkData.autoNameGeneratorDTO();
+                if (autoNameGenerator == null) {
+                    generator.writeNullField("autoNameGeneratorDTO");
+                } else {
+                    generator.writeObjectFieldStart("autoNameGeneratorDTO");
+                    generator.writeNumberField("routerNameCounter", autoNameGenerator.routerNameCounter());
+                    generator.writeNumberField("switchNameCounter", autoNameGenerator.switchNameCounter());
+                    generator.writeNumberField("routerInterfaceNameCounter", autoNameGenerator.routerInterfaceNameCounter());
+                    generator.writeNumberField("pcNameCounter", autoNameGenerator.pcNameCounter());
+                    generator.writeEndObject();
+                }
+                generator.writeEndObject();
+            }
+        });
+        listener.progress(totalItems, totalItems);
     }
 }
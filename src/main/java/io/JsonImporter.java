@@ -1,16 +1,34 @@
 package io;
 
-import com.google.gson.Gson;
-
 import java.io.File;
-import java.io.FileReader;
+import java.util.ArrayList;
+import java.util.List;
 
 public class JsonImporter {
+    private final NetworkDataReader reader = new NetworkDataReader();
+
     public NetworkData importNetworkData(File selectedFile) {
-        try (FileReader reader = new FileReader(selectedFile)) {
-            Gson gson = new Gson();
-            return gson.fromJson(reader, NetworkData.class);
+        List<NetworkDeviceViewDTO> devices = new ArrayList<>();
+        List<ConnectionLineDTO> connections = new ArrayList<>();
+        AutoNameGeneratorDTO[] autoNameGenerator = new AutoNameGeneratorDTO[1];
+        try {
+            reader.read(selectedFile, new NetworkDataReader.Listener() {
+                @Override
+                public void device(NetworkDeviceViewDTO device) {
+                    devices.add(device);
+                }
+
+                @Override
+                public void connection(ConnectionLineDTO connection) {
+                    connections.add(connection);
+                }
 
+                @Override
+                public void autoNameGenerator(AutoNameGeneratorDTO autoNameGeneratorDTO) {
+                    autoNameGenerator[0] = autoNameGeneratorDTO;
+                }
+            });
+            return new NetworkData(devices, connections, autoNameGenerator[0]);
         } catch (Exception e) {
             e.printStackTrace();
         }
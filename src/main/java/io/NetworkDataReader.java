@@ -0,0 +1,91 @@
+package io;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Reads a saved topology one device and connection at a time, so a large file is never held in memory as a whole
+ * and the devices can be built while the rest of the file is still being read.
+ */
+public class NetworkDataReader {
+    private static final int PROGRESS_STEP_BYTES = 64 * 1024;
+
+    private final ObjectMapper mapper = new ObjectMapper().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    /**
+     * Receives the parts of a topology in the order they appear in the file.
+     */
+    public interface Listener {
+        void device(NetworkDeviceViewDTO device);
+
+        void connection(ConnectionLineDTO connection);
+
+        void autoNameGenerator(AutoNameGeneratorDTO autoNameGenerator);
+
+        /**
+         * Reports how far the file has been read, about every 64 KiB.
+         *
+         * @param bytesRead  the bytes read so far
+         * @param totalBytes the size of the file
+         */
+        default void progress(long bytesRead, long totalBytes) {
+        }
+    }
+
+    /**
+     * Reads a topology saved by {@link JsonExporter}.
+     *
+     * @param file     the file to read
+     * @param listener receives the devices, connections and name counters
+     * @throws IOException if the file cannot be read or is not a saved topology
+     */
+    public void read(File file, Listener listener) throws IOException {
+        long totalBytes = file.length();
+        long lastReported = 0;
+        try (JsonParser parser = mapper.getFactory().createParser(file)) {
+            expect(parser, parser.nextToken(), JsonToken.START_OBJECT);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case "devices", "connections" -> {
+                        if (value == JsonToken.VALUE_NULL) {
+                            continue;
+                        }
+                        expect(parser, value, JsonToken.START_ARRAY);
+                        while (parser.nextToken() != JsonToken.END_ARRAY) {
+                            if (field.equals("devices")) {
+                                listener.device(parser.readValueAs(NetworkDeviceViewDTO.class));
+                            } else {
+                                listener.connection(parser.readValueAs(ConnectionLineDTO.class));
+                            }
+                            long bytesRead = parser.currentLocation().getByteOffset();
+                            if (bytesRead - lastReported >= PROGRESS_STEP_BYTES) {
+                                lastReported = bytesRead;
+                                listener.progress(bytesRead, totalBytes);
+                            }
+                        }
+                    }
+                    case "autoNameGeneratorDTO" -> {
+                        if (value != JsonToken.VALUE_NULL) {
+                            listener.autoNameGenerator(parser.readValueAs(AutoNameGeneratorDTO.class));
+                        }
+                    }
+                    default -> parser.skipChildren();
+                }
+            }
+        }
+        listener.progress(totalBytes, totalBytes);
+    }
+
+    private static void expect(JsonParser parser, JsonToken actual, JsonToken expected) throws IOException {
+        if (actual != expected) {
+            throw new IOException("Not a saved topology, expected " + expected + " but found " + actual + " at " + parser.currentLocation());
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package io;
+
+import model.Frame;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes frames into a pcap capture file that standard tools such as Wireshark or tcpdump can read.
+ * <p>
+ * The file has the classic pcap layout: a global header with {@link #MAGIC}, version 2.4, a snapshot length of
+ * {@value #SNAPLEN} bytes and the Ethernet link type, followed by one record per frame with the simulated time in
+ * seconds and microseconds, the captured and the original length and the frame encoded by {@link FrameEncoder}.
+ * A frame that takes several frames on the wire, such as a large RIP update, gets a record for each of them.
+ * Frames longer than the snapshot length are cut off like a real capture would cut them. Records are encoded straight
+ * into a fixed direct buffer that is written once it is full, so capturing a frame costs no allocation.
+ */
+public class PcapWriter implements AutoCloseable {
+    public static final int MAGIC = 0xa1b2c3d4;
+    public static final int SNAPLEN = 65535;
+    static final int LINKTYPE_ETHERNET = 1;
+    static final int GLOBAL_HEADER_SIZE = 24;
+    static final int RECORD_HEADER_SIZE = 16;
+    private static final int BUFFER_SIZE = 256 * 1024;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final FrameEncoder encoder = new FrameEncoder();
+    private ByteBuffer oversizedFrame;
+    private long frameCount = 0;
+    private long byteCount = 0;
+    private boolean closed = false;
+
+    /**
+     * Creates the capture file, replacing an existing one.
+     *
+     * @param path The file to write to.
+     * @throws IOException if the file cannot be created.
+     */
+    public PcapWriter(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        buffer.putInt(MAGIC);
+        buffer.putShort((short) 2);
+        buffer.putShort((short) 4);
+        buffer.putInt(0); // Time zone offset
+        buffer.putInt(0); // Timestamp accuracy
+        buffer.putInt(SNAPLEN);
+        buffer.putInt(LINKTYPE_ETHERNET);
+    }
+
+    /**
+     * Appends a frame. Safe to call from any thread.
+     *
+     * @param simulatedTimeMillis The simulated time the frame was captured at.
+     * @param frame               The frame.
+     * @throws IOException if the buffer could not be written to the file.
+     */
+    public synchronized void write(long simulatedTimeMillis, Frame frame) throws IOException {
+        if (closed) {
+            return;
+        }
+        int wireFrameCount = FrameEncoder.wireFrameCount(frame);
+        for (int wireFrame = 0; wireFrame < wireFrameCount; wireFrame++) {
+            write(simulatedTimeMillis, frame, wireFrame);
+        }
+    }
+
+    private void write(long simulatedTimeMillis, Frame frame, int wireFrame) throws IOException {
+        int length = FrameEncoder.encodedLength(frame, wireFrame);
+        int capturedLength = Math.min(length, SNAPLEN);
+        if (buffer.remaining() < RECORD_HEADER_SIZE + capturedLength) {
+            flush();
+        }
+        buffer.putInt((int) (simulatedTimeMillis / 1000));
+        buffer.putInt((int) (simulatedTimeMillis % 1000) * 1000);
+        buffer.putInt(capturedLength);
+        buffer.putInt(length);
+        if (length == capturedLength) {
+            encoder.encode(frame, wireFrame, buffer);
+        } else {
+            // Only a frame over the snapshot length takes this path, the part within the snapshot length is kept
+            if (oversizedFrame == null || oversizedFrame.capacity() < length) {
+                oversizedFrame = ByteBuffer.allocate(length);
+            }
+            oversizedFrame.clear();
+            encoder.encode(frame, wireFrame, oversizedFrame);
+            buffer.put(oversizedFrame.flip().limit(capturedLength));
+        }
+        frameCount++;
+        byteCount += length;
+    }
+
+    /**
+     * Writes the buffered records to the file.
+     *
+     * @throws IOException if writing fails.
+     */
+    public synchronized void flush() throws IOException {
+        if (closed) {
+            return;
+        }
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * @return The number of frames captured so far.
+     */
+    public synchronized long getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * @return The number of bytes the captured frames had on the wire.
+     */
+    public synchronized long getByteCount() {
+        return byteCount;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            flush();
+        } finally {
+            closed = true;
+            channel.close();
+        }
+    }
+}
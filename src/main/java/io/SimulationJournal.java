@@ -0,0 +1,257 @@
+package io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static io.SimulationJournalWriter.*;
+
+/**
+ * A journal written by {@link SimulationJournalWriter}, read from a read-only memory mapping.
+ * <p>
+ * A closed journal is opened from its footer, so seeking by time only walks the sparse index and at most
+ * {@value SimulationJournalWriter#INDEX_INTERVAL_EVENTS} events. A journal whose recording was cut short has no footer,
+ * its device table and index are rebuilt by scanning it once when it is opened. Journals are limited to 2 GiB,
+ * the size of one mapping.
+ */
+public class SimulationJournal {
+    private static final SimulationJournalRecord.Kind[] KINDS = SimulationJournalRecord.Kind.values();
+    private static final SimulationJournalRecord.MessageType[] MESSAGE_TYPES = SimulationJournalRecord.MessageType.values();
+
+    private final ByteBuffer file;
+    private final int eventsEnd;
+    private final List<UUID> devices;
+    private final long[] indexTimes;
+    private final int[] indexOffsets;
+    private final boolean complete;
+    private final long startMillis;
+    private final long endMillis;
+
+    /**
+     * Reads events from a position of the journal onwards.
+     */
+    public class Cursor {
+        private int position;
+        private SimulationJournalRecord pending;
+
+        private Cursor(int position) {
+            this.position = position;
+        }
+
+        /**
+         * Reads the next event.
+         *
+         * @return the event, null once the journal ends
+         * @throws IOException if the journal is corrupted.
+         */
+        public SimulationJournalRecord next() throws IOException {
+            if (pending != null) {
+                SimulationJournalRecord next = pending;
+                pending = null;
+                return next;
+            }
+            while (position < eventsEnd) {
+                byte tag = file.get(position);
+                if (tag == END_TAG) {
+                    return null;
+                }
+                if (tag == DEVICE_TAG) {
+                    position += DEVICE_RECORD_SIZE;
+                    continue;
+                }
+                if (tag != EVENT_TAG || position + EVENT_RECORD_SIZE > eventsEnd) {
+                    throw new IOException("Corrupted simulation journal at offset " + position);
+                }
+                SimulationJournalRecord record = decodeEvent(position);
+                position += EVENT_RECORD_SIZE;
+                return record;
+            }
+            return null;
+        }
+
+        private void skipBefore(long timeMillis) throws IOException {
+            SimulationJournalRecord record;
+            while ((record = next()) != null && record.simulatedTimeMillis() < timeMillis) {
+                // Skip the events between the index entry and the requested time
+            }
+            pending = record;
+        }
+    }
+
+    private SimulationJournal(ByteBuffer file, int eventsEnd, List<UUID> devices, long[] indexTimes, int[] indexOffsets, boolean complete) throws IOException {
+        this.file = file;
+        this.eventsEnd = eventsEnd;
+        this.devices = devices;
+        this.indexTimes = indexTimes;
+        this.indexOffsets = indexOffsets;
+        this.complete = complete;
+        this.startMillis = indexTimes.length == 0 ? 0 : indexTimes[0];
+        long lastMillis = startMillis;
+        Cursor cursor = new Cursor(indexOffsets.length == 0 ? HEADER_SIZE : indexOffsets[indexOffsets.length - 1]);
+        SimulationJournalRecord record;
+        while ((record = cursor.next()) != null) {
+            lastMillis = record.simulatedTimeMillis();
+        }
+        this.endMillis = lastMillis;
+    }
+
+    /**
+     * Maps a journal into memory.
+     *
+     * @param path The journal file.
+     * @return the opened journal
+     * @throws IOException if the file cannot be read or is not a journal of a supported version.
+     */
+    public static SimulationJournal open(Path path) throws IOException {
+        ByteBuffer file;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(path + " is larger than 2 GiB");
+            }
+            // The mapping stays valid after the channel is closed
+            file = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (file.capacity() < HEADER_SIZE || file.getInt(0) != MAGIC) {
+            throw new IOException(path + " is not a simulation journal");
+        }
+        short version = file.getShort(Integer.BYTES);
+        if (version != VERSION) {
+            throw new IOException("Unsupported simulation journal version " + version);
+        }
+        long footerOffset = file.getLong(FOOTER_OFFSET_POSITION);
+        if (footerOffset == 0) {
+            return scan(file);
+        }
+        if (footerOffset < HEADER_SIZE || footerOffset > file.capacity() - 2 * Integer.BYTES) {
+            throw new IOException("Corrupted simulation journal, the footer lies outside of the file");
+        }
+        int position = (int) footerOffset;
+        int deviceCount = file.getInt(position);
+        position += Integer.BYTES;
+        if (deviceCount < 0 || position + 2L * Long.BYTES * deviceCount + Integer.BYTES > file.capacity()) {
+            throw new IOException("Corrupted simulation journal, the device table is cut off");
+        }
+        List<UUID> devices = new ArrayList<>(deviceCount);
+        for (int i = 0; i < deviceCount; i++, position += 2 * Long.BYTES) {
+            devices.add(new UUID(file.getLong(position), file.getLong(position + Long.BYTES)));
+        }
+        int indexCount = file.getInt(position);
+        position += Integer.BYTES;
+        if (indexCount < 0 || position + 2L * Long.BYTES * indexCount > file.capacity()) {
+            throw new IOException("Corrupted simulation journal, the time index is cut off");
+        }
+        long[] indexTimes = new long[indexCount];
+        int[] indexOffsets = new int[indexCount];
+        for (int i = 0; i < indexCount; i++, position += 2 * Long.BYTES) {
+            indexTimes[i] = file.getLong(position);
+            long offset = file.getLong(position + Long.BYTES);
+            if (offset < HEADER_SIZE || offset >= footerOffset) {
+                throw new IOException("Corrupted simulation journal, index entry " + i + " lies outside of the events");
+            }
+            indexOffsets[i] = (int) offset;
+        }
+        return new SimulationJournal(file, (int) footerOffset, devices, indexTimes, indexOffsets, true);
+    }
+
+    /**
+     * Rebuilds the device table and time index of a journal without a footer. The journal ends at the first
+     * unwritten byte or at a record cut off by the end of the file.
+     */
+    private static SimulationJournal scan(ByteBuffer file) throws IOException {
+        List<UUID> devices = new ArrayList<>();
+        long[] indexTimes = new long[16];
+        int[] indexOffsets = new int[16];
+        int indexCount = 0;
+        long eventCount = 0;
+        int position = HEADER_SIZE;
+        while (position < file.capacity()) {
+            byte tag = file.get(position);
+            if (tag == DEVICE_TAG && position + DEVICE_RECORD_SIZE <= file.capacity()) {
+                if (file.getInt(position + 1) != devices.size()) {
+                    throw new IOException("Corrupted simulation journal, unexpected device index at offset " + position);
+                }
+                devices.add(new UUID(file.getLong(position + 1 + Integer.BYTES), file.getLong(position + 1 + Integer.BYTES + Long.BYTES)));
+                position += DEVICE_RECORD_SIZE;
+            } else if (tag == EVENT_TAG && position + EVENT_RECORD_SIZE <= file.capacity()) {
+                if (eventCount++ % INDEX_INTERVAL_EVENTS == 0) {
+                    if (indexCount == indexTimes.length) {
+                        indexTimes = Arrays.copyOf(indexTimes, indexCount * 2);
+                        indexOffsets = Arrays.copyOf(indexOffsets, indexCount * 2);
+                    }
+                    indexTimes[indexCount] = file.getLong(position + 3);
+                    indexOffsets[indexCount++] = position;
+                }
+                position += EVENT_RECORD_SIZE;
+            } else {
+                break;
+            }
+        }
+        return new SimulationJournal(file, position, devices, Arrays.copyOf(indexTimes, indexCount), Arrays.copyOf(indexOffsets, indexCount), false);
+    }
+
+    private SimulationJournalRecord decodeEvent(int position) throws IOException {
+        int kind = Byte.toUnsignedInt(file.get(position + 1));
+        int messageType = Byte.toUnsignedInt(file.get(position + 2));
+        long simulatedTimeMillis = file.getLong(position + 3);
+        int deviceIndex = file.getInt(position + 3 + Long.BYTES);
+        int peerIndex = file.getInt(position + 3 + Long.BYTES + Integer.BYTES);
+        long value = file.getLong(position + 3 + Long.BYTES + 2 * Integer.BYTES);
+        if (kind >= KINDS.length || messageType >= MESSAGE_TYPES.length || deviceIndex < 0 || deviceIndex >= devices.size()
+                || peerIndex < -1 || peerIndex >= devices.size()) {
+            throw new IOException("Corrupted simulation journal, invalid event at offset " + position);
+        }
+        return new SimulationJournalRecord(KINDS[kind], simulatedTimeMillis, devices.get(deviceIndex), peerIndex < 0 ? null : devices.get(peerIndex),
+                MESSAGE_TYPES[messageType], value);
+    }
+
+    /**
+     * Positions a cursor at the first event at or after a simulated time. The sparse index narrows the search down to
+     * the events between two of its entries.
+     *
+     * @param timeMillis The simulated time.
+     * @return a cursor returning the events from that time on
+     * @throws IOException if the journal is corrupted.
+     */
+    public Cursor seek(long timeMillis) throws IOException {
+        // The last index entry before the requested time, events at exactly that time may start before an entry stamped with it
+        int entry = Arrays.binarySearch(indexTimes, timeMillis);
+        if (entry < 0) {
+            entry = -entry - 1;
+        } else {
+            while (entry > 0 && indexTimes[entry - 1] == timeMillis) {
+                entry--;
+            }
+        }
+        entry--;
+        Cursor cursor = new Cursor(entry < 0 ? HEADER_SIZE : indexOffsets[entry]);
+        cursor.skipBefore(timeMillis);
+        return cursor;
+    }
+
+    /**
+     * @return the simulated time of the first event, 0 for an empty journal
+     */
+    public long getStartMillis() {
+        return startMillis;
+    }
+
+    /**
+     * @return the simulated time of the last event, 0 for an empty journal
+     */
+    public long getEndMillis() {
+        return endMillis;
+    }
+
+    /**
+     * @return true if the recording was closed properly, false if the journal was recovered by scanning it
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+}
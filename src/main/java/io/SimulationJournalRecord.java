@@ -0,0 +1,95 @@
+package io;
+
+import model.*;
+
+import java.util.UUID;
+
+/**
+ * A single simulation event read back from a journal written by {@link SimulationJournalWriter}.
+ *
+ * @param kind                What happened.
+ * @param simulatedTimeMillis The simulated time of the event.
+ * @param deviceUuid          The device the event happened on, the device a frame left or the first end of a link.
+ * @param peerUuid            The device a frame was sent to, the second end of a link or the RIP neighbour, null if the event has none.
+ * @param messageType         The message carried by a frame, {@link MessageType#NONE} for events that are not about frames.
+ * @param value               The assigned IPv4 address of {@link Kind#DHCP_ASSIGNED} as a long, 1 if a {@link Kind#RIP_UPDATE}
+ *                            changed the routing table, otherwise 0.
+ */
+public record SimulationJournalRecord(Kind kind, long simulatedTimeMillis, UUID deviceUuid, UUID peerUuid, MessageType messageType, long value) {
+
+    public enum Kind {
+        /**
+         * A frame was put on its link.
+         */
+        FRAME_SENT,
+        /**
+         * A frame crossed its link and reached the next device.
+         */
+        FRAME_DELIVERED,
+        /**
+         * A frame was on a link that failed.
+         */
+        FRAME_LOST,
+        /**
+         * A frame did not fit into the egress queue of a router interface.
+         */
+        FRAME_DROPPED,
+        DEVICE_DOWN,
+        DEVICE_UP,
+        LINK_DOWN,
+        LINK_UP,
+        /**
+         * A PC was configured with the address offered by its DHCP server.
+         */
+        DHCP_ASSIGNED,
+        /**
+         * A router received the routing table of a neighbour.
+         */
+        RIP_UPDATE
+    }
+
+    /**
+     * The message types a frame can carry.
+     */
+    public enum MessageType {
+        NONE(null),
+        DHCP_DISCOVER(DhcpDiscoverMessage.class),
+        DHCP_OFFER(DhcpOfferMessage.class),
+        DHCP_RESPONSE(DhcpResponseMessage.class),
+        DHCP_ACK(DhcpAckMessage.class),
+        ARP_REQUEST(ArpRequestMessage.class),
+        ARP_RESPONSE(ArpResponseMessage.class),
+        STRING(StringMessage.class),
+        RIP(RipMessage.class);
+
+        private static final MessageType[] VALUES = values();
+
+        private final Class<? extends Message> messageClass;
+
+        MessageType(Class<? extends Message> messageClass) {
+            this.messageClass = messageClass;
+        }
+
+        /**
+         * @return the class of the message, null for {@link #NONE}
+         */
+        public Class<? extends Message> getMessageClass() {
+            return messageClass;
+        }
+
+        /**
+         * Finds the type of a message.
+         *
+         * @param message The message.
+         * @return the type of the message, {@link #NONE} for a message of an unknown class
+         */
+        public static MessageType of(Message message) {
+            for (MessageType messageType : VALUES) {
+                if (messageType.messageClass == message.getClass()) {
+                    return messageType;
+                }
+            }
+            return NONE;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package io;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Appends simulation events to a binary journal through a memory mapping of the file, so recording an event is a few
+ * stores into memory and never a system call or allocation on the simulation threads.
+ * <p>
+ * The file starts with {@link #MAGIC}, {@link #VERSION} and the long offset of the footer, 0 while the journal is being
+ * recorded. Tagged records follow:
+ * <ul>
+ *     <li>{@link #DEVICE_TAG}, int index, long most and long least significant bits of the device UUID &ndash; written
+ *     the first time a device appears, events refer to the device by its index</li>
+ *     <li>{@link #EVENT_TAG}, byte kind, byte message type, long simulated time in ms, int device index, int peer
+ *     index or -1, long value</li>
+ * </ul>
+ * The unwritten rest of the mapping is zero, which reads as {@link #END_TAG}. Closing the journal appends the footer:
+ * the device table (int count, UUIDs) and a sparse time index (int count, long time and long offset of every
+ * {@value #INDEX_INTERVAL_EVENTS}th event), so a reader can seek by time without scanning the journal. Event times
+ * never decrease. All numbers are big-endian. The journal is read back with {@link SimulationJournal}.
+ */
+public class SimulationJournalWriter implements AutoCloseable {
+    public static final int MAGIC = 0x53504a52; // "SPJR"
+    public static final short VERSION = 1;
+    static final int HEADER_SIZE = Integer.BYTES + Short.BYTES + Long.BYTES;
+    static final int FOOTER_OFFSET_POSITION = Integer.BYTES + Short.BYTES;
+    static final byte END_TAG = 0;
+    static final byte DEVICE_TAG = 1;
+    static final byte EVENT_TAG = 2;
+    static final int DEVICE_RECORD_SIZE = 1 + Integer.BYTES + 2 * Long.BYTES;
+    static final int EVENT_RECORD_SIZE = 3 + 2 * Long.BYTES + 2 * Integer.BYTES;
+    static final int INDEX_INTERVAL_EVENTS = 1024;
+    private static final int REGION_SIZE = 8 * 1024 * 1024;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+    private MappedByteBuffer region;
+    private long regionStart = 0;
+    private final Map<UUID, Integer> deviceIndexes = new HashMap<>();
+    private final List<UUID> devices = new ArrayList<>();
+    private final List<long[]> timeIndex = new ArrayList<>();
+    private long lastTimeMillis = 0;
+    private long eventCount = 0;
+    private boolean closed = false;
+
+    /**
+     * Creates the journal file, replacing an existing one.
+     *
+     * @param path The file to write to.
+     * @throws IOException if the file cannot be created or mapped.
+     */
+    public SimulationJournalWriter(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+            header.putInt(MAGIC);
+            header.putShort(VERSION);
+            header.putLong(0);
+            region = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_SIZE, REGION_SIZE);
+            regionStart = HEADER_SIZE;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Appends an event. Safe to call from any thread. An event timed before the previous one is recorded at the time
+     * of the previous one.
+     *
+     * @param kind                What happened.
+     * @param simulatedTimeMillis The simulated time of the event.
+     * @param deviceUuid          The device the event happened on.
+     * @param peerUuid            The other device of the event, null if it has none.
+     * @param messageType         The message carried by a frame.
+     * @param value               The value of the event, see {@link SimulationJournalRecord#value()}.
+     * @throws IOException if the journal could not be extended.
+     */
+    public synchronized void record(SimulationJournalRecord.Kind kind, long simulatedTimeMillis, UUID deviceUuid, UUID peerUuid,
+                                    SimulationJournalRecord.MessageType messageType, long value) throws IOException {
+        if (closed) {
+            return;
+        }
+        ensureRemaining(2 * DEVICE_RECORD_SIZE + EVENT_RECORD_SIZE);
+        int deviceIndex = deviceIndex(deviceUuid);
+        int peerIndex = peerUuid == null ? -1 : deviceIndex(peerUuid);
+        lastTimeMillis = Math.max(lastTimeMillis, simulatedTimeMillis);
+        if (eventCount % INDEX_INTERVAL_EVENTS == 0) {
+            timeIndex.add(new long[]{lastTimeMillis, regionStart + region.position()});
+        }
+        region.put(EVENT_TAG);
+        region.put((byte) kind.ordinal());
+        region.put((byte) messageType.ordinal());
+        region.putLong(lastTimeMillis);
+        region.putInt(deviceIndex);
+        region.putInt(peerIndex);
+        region.putLong(value);
+        eventCount++;
+    }
+
+    private int deviceIndex(UUID deviceUuid) {
+        Integer index = deviceIndexes.get(deviceUuid);
+        if (index != null) {
+            return index;
+        }
+        int newIndex = devices.size();
+        deviceIndexes.put(deviceUuid, newIndex);
+        devices.add(deviceUuid);
+        region.put(DEVICE_TAG);
+        region.putInt(newIndex);
+        region.putLong(deviceUuid.getMostSignificantBits());
+        region.putLong(deviceUuid.getLeastSignificantBits());
+        return newIndex;
+    }
+
+    /**
+     * Maps the next part of the file once the current one cannot take the given number of bytes.
+     */
+    private void ensureRemaining(int bytes) throws IOException {
+        if (region.remaining() < bytes) {
+            regionStart += region.position();
+            region = channel.map(FileChannel.MapMode.READ_WRITE, regionStart, REGION_SIZE);
+        }
+    }
+
+    /**
+     * @return The number of events recorded so far.
+     */
+    public synchronized long getEventCount() {
+        return eventCount;
+    }
+
+    /**
+     * Appends the device table and time index, stores their offset in the header and cuts off the unused rest of the mapping.
+     *
+     * @throws IOException if the footer cannot be written.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            long footerOffset = regionStart + region.position();
+            ensureRemaining(Integer.BYTES);
+            region.putInt(devices.size());
+            for (UUID device : devices) {
+                ensureRemaining(2 * Long.BYTES);
+                region.putLong(device.getMostSignificantBits());
+                region.putLong(device.getLeastSignificantBits());
+            }
+            ensureRemaining(Integer.BYTES);
+            region.putInt(timeIndex.size());
+            for (long[] indexEntry : timeIndex) {
+                ensureRemaining(2 * Long.BYTES);
+                region.putLong(indexEntry[0]);
+                region.putLong(indexEntry[1]);
+            }
+            long end = regionStart + region.position();
+            region.force();
+            header.putLong(FOOTER_OFFSET_POSITION, footerOffset);
+            header.force();
+            try {
+                channel.truncate(end);
+            } catch (IOException e) {
+                // Some platforms refuse to shrink a mapped file, readers stop at the end of the footer anyway
+            }
+        } finally {
+            channel.close();
+        }
+    }
+}
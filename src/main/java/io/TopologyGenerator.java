@@ -0,0 +1,304 @@
+package io;
+
+import common.NetworkDeviceType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Generates large topologies for scale testing, in the format saved by the workspace, so they can be loaded like any
+ * other saved topology or imported in benchmarks.
+ * <p>
+ * The same seed and parameters always give the same topology, including device UUIDs and positions. The generated
+ * topologies follow the rules of the simulation: routers are linked to each other by WAN links, every switch attached
+ * to a router becomes one LAN of the router and holds at most {@value #MAX_PCS_PER_LAN} PCs, and a router holds at
+ * most {@value #MAX_LANS_PER_ROUTER} LANs. PCs of a router that do not fit one LAN are spread over several switches.
+ */
+public class TopologyGenerator {
+    public static final int MAX_PCS_PER_LAN = 250;
+    public static final int MAX_LANS_PER_ROUTER = 250;
+    private static final double DEVICE_SPACING = 60;
+    private static final double LAN_WIDTH = 16 * DEVICE_SPACING;
+
+    private final Random random;
+
+    /**
+     * @param seed The seed all generated UUIDs and random links are derived from.
+     */
+    public TopologyGenerator(long seed) {
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Generates a k-ary fat tree: {@code (k/2)^2} core routers, {@code k} pods of {@code k/2} aggregation routers
+     * linked to {@code k/2} core routers each, and one edge switch with its PCs under every aggregation router.
+     * An edge switch is a LAN of a single router, so edge switches are not meshed with every aggregation router of
+     * their pod as in a data centre fat tree.
+     *
+     * @param k                   The number of pods, even.
+     * @param pcsPerEdgeSwitch    The PCs of every edge switch.
+     * @return The topology with {@code k^2/2 * pcsPerEdgeSwitch} PCs, e.g. 100 352 for k = 32 and 196 PCs.
+     */
+    public NetworkData fatTree(int k, int pcsPerEdgeSwitch) {
+        requirePositive(k, "k");
+        if (k % 2 != 0) {
+            throw new IllegalArgumentException("k must be even");
+        }
+        requireLanSize(pcsPerEdgeSwitch);
+        Topology topology = new Topology();
+        int half = k / 2;
+        List<UUID> coreRouters = new ArrayList<>();
+        for (int core = 0; core < half * half; core++) {
+            coreRouters.add(topology.router(core * LAN_WIDTH * k / (half * half), 0));
+        }
+        for (int pod = 0; pod < k; pod++) {
+            for (int aggregation = 0; aggregation < half; aggregation++) {
+                double x = (pod * half + aggregation) * LAN_WIDTH;
+                UUID aggregationRouter = topology.router(x, 4 * DEVICE_SPACING);
+                for (int uplink = 0; uplink < half; uplink++) {
+                    topology.wanLink(aggregationRouter, coreRouters.get(aggregation * half + uplink));
+                }
+                topology.lans(aggregationRouter, x, 8 * DEVICE_SPACING, pcsPerEdgeSwitch);
+            }
+        }
+        return topology.build();
+    }
+
+    /**
+     * Generates a star of stars: a hub router linked to branch routers, each branch with its switches and PCs.
+     *
+     * @param branches         The branch routers.
+     * @param switchesPerBranch The switches of every branch, at most {@value #MAX_LANS_PER_ROUTER}.
+     * @param pcsPerSwitch     The PCs of every switch.
+     * @return The topology with {@code branches * switchesPerBranch * pcsPerSwitch} PCs.
+     */
+    public NetworkData starOfStars(int branches, int switchesPerBranch, int pcsPerSwitch) {
+        requirePositive(branches, "branches");
+        requirePositive(switchesPerBranch, "switchesPerBranch");
+        if (switchesPerBranch > MAX_LANS_PER_ROUTER) {
+            throw new IllegalArgumentException("A router holds at most " + MAX_LANS_PER_ROUTER + " LANs");
+        }
+        requireLanSize(pcsPerSwitch);
+        Topology topology = new Topology();
+        double branchWidth = switchesPerBranch * LAN_WIDTH;
+        UUID hub = topology.router(branches * branchWidth / 2, 0);
+        for (int branch = 0; branch < branches; branch++) {
+            double x = branch * branchWidth;
+            UUID branchRouter = topology.router(x + branchWidth / 2, 4 * DEVICE_SPACING);
+            topology.wanLink(hub, branchRouter);
+            for (int lan = 0; lan < switchesPerBranch; lan++) {
+                topology.lan(branchRouter, x + lan * LAN_WIDTH, 8 * DEVICE_SPACING, pcsPerSwitch);
+            }
+        }
+        return topology.build();
+    }
+
+    /**
+     * Generates routers linked into a ring, every router with its own PCs.
+     *
+     * @param routers      The routers of the ring, at least 3.
+     * @param pcsPerRouter The PCs of every router, spread over as few switches as possible.
+     * @return The topology with {@code routers * pcsPerRouter} PCs.
+     */
+    public NetworkData ringOfRouters(int routers, int pcsPerRouter) {
+        if (routers < 3) {
+            throw new IllegalArgumentException("A ring needs at least 3 routers");
+        }
+        Topology topology = new Topology();
+        double radius = routers * LAN_WIDTH / (2 * Math.PI);
+        List<UUID> ring = new ArrayList<>();
+        for (int i = 0; i < routers; i++) {
+            double angle = 2 * Math.PI * i / routers;
+            double x = radius + radius * Math.cos(angle);
+            double y = radius + radius * Math.sin(angle);
+            UUID router = topology.router(x, y);
+            ring.add(router);
+            topology.lans(router, x, y + 4 * DEVICE_SPACING, pcsPerRouter);
+        }
+        for (int i = 0; i < routers; i++) {
+            topology.wanLink(ring.get(i), ring.get((i + 1) % routers));
+        }
+        return topology.build();
+    }
+
+    /**
+     * Generates a random WAN mesh: every pair of routers is linked with the same probability, independently of the
+     * others (the Erdős–Rényi G(n, p) model). Below a probability of about {@code ln(n) / n} the mesh is likely to
+     * fall apart into several components.
+     *
+     * @param routers         The routers of the mesh.
+     * @param linkProbability The probability of a link between two routers.
+     * @param pcsPerRouter    The PCs of every router, spread over as few switches as possible.
+     * @return The topology with {@code routers * pcsPerRouter} PCs.
+     */
+    public NetworkData randomWanMesh(int routers, double linkProbability, int pcsPerRouter) {
+        requirePositive(routers, "routers");
+        if (linkProbability < 0 || linkProbability > 1) {
+            throw new IllegalArgumentException("linkProbability must be between 0 and 1");
+        }
+        Topology topology = new Topology();
+        int columns = (int) Math.ceil(Math.sqrt(routers));
+        List<UUID> mesh = new ArrayList<>();
+        for (int i = 0; i < routers; i++) {
+            double x = (i % columns) * LAN_WIDTH;
+            double y = (i / columns) * 12 * DEVICE_SPACING;
+            UUID router = topology.router(x, y);
+            mesh.add(router);
+            topology.lans(router, x, y + 4 * DEVICE_SPACING, pcsPerRouter);
+        }
+        if (linkProbability == 0) {
+            return topology.build();
+        }
+        if (linkProbability == 1) {
+            for (int v = 1; v < routers; v++) {
+                for (int w = 0; w < v; w++) {
+                    topology.wanLink(mesh.get(v), mesh.get(w));
+                }
+            }
+            return topology.build();
+        }
+        // Skips over the pairs without a link instead of drawing for each pair (Batagelj and Brandes), O(n + links)
+        double logNoLink = Math.log(1 - linkProbability);
+        int v = 1;
+        int w = -1;
+        while (v < routers) {
+            w += 1 + (int) Math.floor(Math.log(1 - random.nextDouble()) / logNoLink);
+            while (w >= v && v < routers) {
+                w -= v;
+                v++;
+            }
+            if (v < routers) {
+                topology.wanLink(mesh.get(v), mesh.get(w));
+            }
+        }
+        return topology.build();
+    }
+
+    /**
+     * Generates chains of switches hanging off a single router, with the PCs at the far end of every chain,
+     * so every frame crosses the whole chain.
+     *
+     * @param chains      The chains, at most {@value #MAX_LANS_PER_ROUTER}.
+     * @param chainLength The switches of every chain.
+     * @param pcsPerChain The PCs at the end of every chain.
+     * @return The topology with {@code chains * pcsPerChain} PCs.
+     */
+    public NetworkData switchChains(int chains, int chainLength, int pcsPerChain) {
+        requirePositive(chains, "chains");
+        requirePositive(chainLength, "chainLength");
+        if (chains > MAX_LANS_PER_ROUTER) {
+            throw new IllegalArgumentException("A router holds at most " + MAX_LANS_PER_ROUTER + " LANs");
+        }
+        requireLanSize(pcsPerChain);
+        Topology topology = new Topology();
+        UUID router = topology.router(chains * LAN_WIDTH / 2, 0);
+        for (int chain = 0; chain < chains; chain++) {
+            double x = chain * LAN_WIDTH;
+            UUID previous = router;
+            for (int depth = 0; depth < chainLength; depth++) {
+                UUID switchUuid = topology.switchAt(x, (depth + 2) * 2 * DEVICE_SPACING);
+                topology.connect(previous, switchUuid);
+                previous = switchUuid;
+            }
+            topology.pcs(previous, x, (chainLength + 3) * 2 * DEVICE_SPACING, pcsPerChain);
+        }
+        return topology.build();
+    }
+
+    private static void requirePositive(int value, String name) {
+        if (value <= 0) {
+            throw new IllegalArgumentException(name + " must be positive");
+        }
+    }
+
+    private static void requireLanSize(int pcs) {
+        if (pcs < 0 || pcs > MAX_PCS_PER_LAN) {
+            throw new IllegalArgumentException("A LAN holds between 0 and " + MAX_PCS_PER_LAN + " PCs");
+        }
+    }
+
+    /**
+     * Collects the devices and connections of one topology and names them the way the workspace does.
+     */
+    private class Topology {
+        private final List<NetworkDeviceViewDTO> devices = new ArrayList<>();
+        private final List<ConnectionLineDTO> connections = new ArrayList<>();
+        private int routerCount = 0;
+        private int switchCount = 0;
+        private int pcCount = 0;
+        private int routerInterfaceCount = 0;
+
+        private UUID nextUuid() {
+            // Random version 4 UUID from the seeded generator
+            long mostSignificantBits = (random.nextLong() & ~0xF000L) | 0x4000L;
+            long leastSignificantBits = (random.nextLong() & ~(0xC000L << 48)) | (0x8000L << 48);
+            return new UUID(mostSignificantBits, leastSignificantBits);
+        }
+
+        UUID router(double x, double y) {
+            UUID uuid = nextUuid();
+            devices.add(new NetworkDeviceViewDTO(uuid, "Router" + routerCount++, x, y, NetworkDeviceType.ROUTER));
+            // A placed router names the interface of its default LAN twice, see MasterController#addDevice
+            routerInterfaceCount += 2;
+            return uuid;
+        }
+
+        UUID switchAt(double x, double y) {
+            UUID uuid = nextUuid();
+            devices.add(new NetworkDeviceViewDTO(uuid, "Switch" + switchCount++, x, y, NetworkDeviceType.SWITCH));
+            return uuid;
+        }
+
+        void connect(UUID first, UUID second) {
+            connections.add(new ConnectionLineDTO(first, second));
+        }
+
+        void wanLink(UUID first, UUID second) {
+            connect(first, second);
+        }
+
+        /**
+         * Adds a switch with PCs as a new LAN of the router.
+         */
+        void lan(UUID router, double x, double y, int pcs) {
+            UUID switchUuid = switchAt(x + LAN_WIDTH / 2, y);
+            connect(router, switchUuid);
+            routerInterfaceCount++;
+            pcs(switchUuid, x, y + 2 * DEVICE_SPACING, pcs);
+        }
+
+        /**
+         * Spreads PCs over as few LANs of the router as possible.
+         */
+        void lans(UUID router, double x, double y, int pcs) {
+            if (pcs < 0) {
+                throw new IllegalArgumentException("The number of PCs must not be negative");
+            }
+            int lans = Math.max(1, (pcs + MAX_PCS_PER_LAN - 1) / MAX_PCS_PER_LAN);
+            if (lans > MAX_LANS_PER_ROUTER) {
+                throw new IllegalArgumentException("A router holds at most " + MAX_LANS_PER_ROUTER * MAX_PCS_PER_LAN + " PCs");
+            }
+            for (int lan = 0; lan < lans; lan++) {
+                int lanPcs = pcs / lans + (lan < pcs % lans ? 1 : 0);
+                lan(router, x + lan * LAN_WIDTH, y, lanPcs);
+            }
+        }
+
+        /**
+         * Connects PCs to a switch, placed in rows of 16 below it.
+         */
+        void pcs(UUID switchUuid, double x, double y, int pcs) {
+            for (int i = 0; i < pcs; i++) {
+                UUID uuid = nextUuid();
+                devices.add(new NetworkDeviceViewDTO(uuid, "PC" + pcCount++, x + (i % 16) * DEVICE_SPACING, y + (i / 16) * DEVICE_SPACING, NetworkDeviceType.PC));
+                connect(switchUuid, uuid);
+            }
+        }
+
+        NetworkData build() {
+            return new NetworkData(devices, connections, new AutoNameGeneratorDTO(routerCount, switchCount, routerInterfaceCount, pcCount));
+        }
+    }
+}
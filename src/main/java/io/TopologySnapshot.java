@@ -0,0 +1,252 @@
+package io;
+
+import common.NetworkDeviceType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+import static io.TopologySnapshotWriter.*;
+
+/**
+ * A binary snapshot written by {@link TopologySnapshotWriter}, read straight from a read-only memory mapping.
+ * <p>
+ * Opening a snapshot only checks its header and section table. Devices, connections and strings are decoded from the
+ * mapping when they are asked for, so a large snapshot opens without reading it as a whole. Snapshots are limited to
+ * 2 GiB, the size of one mapping.
+ */
+public class TopologySnapshot {
+    private static final NetworkDeviceType[] DEVICE_TYPES = NetworkDeviceType.values();
+
+    private final Map<Integer, ByteBuffer> sections;
+    private final ByteBuffer strings;
+    private final ByteBuffer devices;
+    private final ByteBuffer connections;
+    private final ByteBuffer nameCounters;
+    private final int stringCount;
+    private final int deviceCount;
+    private final int connectionCount;
+
+    private TopologySnapshot(Map<Integer, ByteBuffer> sections) throws IOException {
+        this.sections = sections;
+        strings = requireSection(STRINGS_SECTION, Integer.BYTES);
+        devices = requireSection(DEVICES_SECTION, COUNT_SIZE);
+        connections = requireSection(CONNECTIONS_SECTION, COUNT_SIZE);
+        nameCounters = requireSection(NAME_COUNTERS_SECTION, 4 * Integer.BYTES);
+        stringCount = strings.getInt(0);
+        deviceCount = devices.getInt(0);
+        connectionCount = connections.getInt(0);
+        if (stringCount < 0 || strings.capacity() < Integer.BYTES * (stringCount + 2L)
+                || deviceCount < 0 || devices.capacity() != COUNT_SIZE + (long) DEVICE_RECORD_SIZE * deviceCount
+                || connectionCount < 0 || connections.capacity() != COUNT_SIZE + (long) CONNECTION_RECORD_SIZE * connectionCount) {
+            throw new IOException("Corrupted topology snapshot, section sizes do not match their counts");
+        }
+    }
+
+    /**
+     * Maps a snapshot into memory.
+     *
+     * @param path The snapshot file.
+     * @return the opened snapshot
+     * @throws IOException if the file cannot be read or is not a snapshot of a supported version.
+     */
+    public static TopologySnapshot open(Path path) throws IOException {
+        ByteBuffer file;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(path + " is larger than 2 GiB");
+            }
+            // The mapping stays valid after the channel is closed
+            file = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (file.capacity() < HEADER_SIZE || file.getInt(0) != MAGIC) {
+            throw new IOException(path + " is not a topology snapshot");
+        }
+        short version = file.getShort(Integer.BYTES);
+        if (version != VERSION) {
+            throw new IOException("Unsupported topology snapshot version " + version);
+        }
+        int sectionCount = Short.toUnsignedInt(file.getShort(Integer.BYTES + Short.BYTES));
+        if (file.capacity() < HEADER_SIZE + (long) SECTION_ENTRY_SIZE * sectionCount) {
+            throw new IOException("Corrupted topology snapshot, the section table is cut off");
+        }
+        Map<Integer, ByteBuffer> sections = new HashMap<>();
+        for (int i = 0; i < sectionCount; i++) {
+            int entry = HEADER_SIZE + i * SECTION_ENTRY_SIZE;
+            int tag = file.getInt(entry);
+            long offset = file.getLong(entry + Integer.BYTES);
+            long length = file.getLong(entry + Integer.BYTES + Long.BYTES);
+            if (offset < 0 || length < 0 || offset + length > file.capacity()) {
+                throw new IOException("Corrupted topology snapshot, section " + tag + " lies outside of the file");
+            }
+            sections.put(tag, file.slice((int) offset, (int) length));
+        }
+        return new TopologySnapshot(sections);
+    }
+
+    /**
+     * Checks whether a file starts like a topology snapshot, e.g. to tell it from a JSON export.
+     *
+     * @param path The file to check.
+     * @return true if the file starts with {@link TopologySnapshotWriter#MAGIC}
+     * @throws IOException if the file cannot be read.
+     */
+    public static boolean isSnapshot(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(Integer.BYTES);
+            while (magic.hasRemaining() && channel.read(magic) >= 0) {
+                // Read until the magic is complete or the file ends
+            }
+            return !magic.hasRemaining() && magic.getInt(0) == MAGIC;
+        }
+    }
+
+    private ByteBuffer requireSection(int tag, int minimumLength) throws IOException {
+        ByteBuffer section = sections.get(tag);
+        if (section == null || section.capacity() < minimumLength) {
+            throw new IOException("Corrupted topology snapshot, section " + tag + " is missing");
+        }
+        return section;
+    }
+
+    public int getDeviceCount() {
+        return deviceCount;
+    }
+
+    public int getConnectionCount() {
+        return connectionCount;
+    }
+
+    /**
+     * Decodes one device.
+     *
+     * @param index The index of the device, from 0 to {@link #getDeviceCount()} - 1.
+     * @return the device
+     */
+    public NetworkDeviceViewDTO getDevice(int index) {
+        int record = COUNT_SIZE + index * DEVICE_RECORD_SIZE;
+        UUID uuid = new UUID(devices.getLong(record), devices.getLong(record + Long.BYTES));
+        double x = devices.getDouble(record + 2 * Long.BYTES);
+        double y = devices.getDouble(record + 2 * Long.BYTES + Double.BYTES);
+        int nameIndex = devices.getInt(record + 2 * Long.BYTES + 2 * Double.BYTES);
+        NetworkDeviceType type = DEVICE_TYPES[devices.get(record + 2 * Long.BYTES + 2 * Double.BYTES + Integer.BYTES)];
+        return new NetworkDeviceViewDTO(uuid, nameIndex < 0 ? null : getString(nameIndex), x, y, type);
+    }
+
+    /**
+     * Decodes one connection.
+     *
+     * @param index The index of the connection, from 0 to {@link #getConnectionCount()} - 1.
+     * @return the connection
+     */
+    public ConnectionLineDTO getConnection(int index) {
+        int record = COUNT_SIZE + index * CONNECTION_RECORD_SIZE;
+        return new ConnectionLineDTO(deviceUuid(connections.getInt(record)), deviceUuid(connections.getInt(record + Integer.BYTES)));
+    }
+
+    private UUID deviceUuid(int deviceIndex) {
+        if (deviceIndex < 0 || deviceIndex >= deviceCount) {
+            throw new IndexOutOfBoundsException("Device index " + deviceIndex);
+        }
+        int record = COUNT_SIZE + deviceIndex * DEVICE_RECORD_SIZE;
+        return new UUID(devices.getLong(record), devices.getLong(record + Long.BYTES));
+    }
+
+    private String getString(int index) {
+        if (index >= stringCount) {
+            throw new IndexOutOfBoundsException("String index " + index);
+        }
+        int bytesStart = Integer.BYTES * (stringCount + 2);
+        int start = strings.getInt(Integer.BYTES * (index + 1));
+        int end = strings.getInt(Integer.BYTES * (index + 2));
+        byte[] bytes = new byte[end - start];
+        strings.get(bytesStart + start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public AutoNameGeneratorDTO getAutoNameGenerator() {
+        return new AutoNameGeneratorDTO(nameCounters.getInt(0), nameCounters.getInt(Integer.BYTES),
+                nameCounters.getInt(2 * Integer.BYTES), nameCounters.getInt(3 * Integer.BYTES));
+    }
+
+    /**
+     * Returns a section of runtime state.
+     *
+     * @param tag The tag the section was written with.
+     * @return a read-only view of the section's content, or null if the snapshot has no such section
+     */
+    public ByteBuffer getSection(int tag) {
+        ByteBuffer section = sections.get(tag);
+        return section == null ? null : section.asReadOnlyBuffer();
+    }
+
+    /**
+     * Returns every section of runtime state, i.e. with a tag from {@link TopologySnapshotWriter#FIRST_STATE_TAG} on.
+     *
+     * @return read-only views of the sections by their tags, empty if the snapshot only holds a topology
+     */
+    public Map<Integer, ByteBuffer> getStateSections() {
+        Map<Integer, ByteBuffer> stateSections = new HashMap<>();
+        sections.forEach((tag, section) -> {
+            if (tag >= FIRST_STATE_TAG) {
+                stateSections.put(tag, section.asReadOnlyBuffer());
+            }
+        });
+        return stateSections;
+    }
+
+    /**
+     * Reports the devices, then the connections and the name counters to a listener, in the same way a JSON export
+     * is read by {@link NetworkDataReader}.
+     *
+     * @param listener receives the parts of the topology
+     * @throws IOException if the snapshot refers to devices or strings it does not contain.
+     */
+    public void read(NetworkDataReader.Listener listener) throws IOException {
+        long total = (long) deviceCount + connectionCount;
+        try {
+            for (int i = 0; i < deviceCount; i++) {
+                listener.device(getDevice(i));
+                if (i % 1024 == 0) {
+                    listener.progress(i, total);
+                }
+            }
+            for (int i = 0; i < connectionCount; i++) {
+                listener.connection(getConnection(i));
+                if (i % 1024 == 0) {
+                    listener.progress(deviceCount + i, total);
+                }
+            }
+        } catch (IndexOutOfBoundsException e) {
+            throw new IOException("Corrupted topology snapshot", e);
+        }
+        listener.autoNameGenerator(getAutoNameGenerator());
+        listener.progress(total, total);
+    }
+
+    /**
+     * Decodes the whole topology.
+     *
+     * @return the devices, connections and name counters of the snapshot
+     * @throws IOException if the snapshot refers to devices or strings it does not contain.
+     */
+    public NetworkData toNetworkData() throws IOException {
+        List<NetworkDeviceViewDTO> deviceList = new ArrayList<>(deviceCount);
+        List<ConnectionLineDTO> connectionList = new ArrayList<>(connectionCount);
+        try {
+            for (int i = 0; i < deviceCount; i++) {
+                deviceList.add(getDevice(i));
+            }
+            for (int i = 0; i < connectionCount; i++) {
+                connectionList.add(getConnection(i));
+            }
+        } catch (IndexOutOfBoundsException e) {
+            throw new IOException("Corrupted topology snapshot", e);
+        }
+        return new NetworkData(deviceList, connectionList, getAutoNameGenerator());
+    }
+}
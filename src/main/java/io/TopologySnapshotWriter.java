@@ -0,0 +1,218 @@
+package io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Writes a topology into a compact binary snapshot, the binary counterpart of the JSON written by {@link JsonExporter}.
+ * <p>
+ * The file starts with {@link #MAGIC}, {@link #VERSION} and the number of sections, followed by a table of int tag,
+ * long offset and long length for every section. Sections start at multiples of 8 bytes:
+ * <ul>
+ *     <li>{@link #STRINGS_SECTION} &ndash; int count, {@code count + 1} int offsets into the UTF-8 bytes of all
+ *     strings, the bytes</li>
+ *     <li>{@link #DEVICES_SECTION} &ndash; int count, 4 bytes padding, {@value #DEVICE_RECORD_SIZE} bytes per device:
+ *     long most and long least significant bits of the UUID, double x, double y, int name string index (-1 if none),
+ *     byte type ordinal and 3 bytes padding</li>
+ *     <li>{@link #CONNECTIONS_SECTION} &ndash; int count, 4 bytes padding, int start and int end device index per
+ *     connection</li>
+ *     <li>{@link #NAME_COUNTERS_SECTION} &ndash; the router, switch, router interface and PC name counters</li>
+ *     <li>optional sections of runtime state, tagged from {@link #FIRST_STATE_TAG} on, whose content is up to the
+ *     code writing them</li>
+ * </ul>
+ * Records have a fixed size, so the file is read through {@link TopologySnapshot} straight from a memory mapping.
+ * The file is written through one reused direct buffer instead of being built in memory first. All numbers are big-endian.
+ */
+public class TopologySnapshotWriter {
+    public static final int MAGIC = 0x53505453; // "SPTS"
+    public static final short VERSION = 1;
+    public static final int STRINGS_SECTION = 1;
+    public static final int DEVICES_SECTION = 2;
+    public static final int CONNECTIONS_SECTION = 3;
+    public static final int NAME_COUNTERS_SECTION = 4;
+    public static final int FIRST_STATE_TAG = 100;
+    static final int HEADER_SIZE = Integer.BYTES + 2 * Short.BYTES;
+    static final int SECTION_ENTRY_SIZE = Integer.BYTES + 2 * Long.BYTES;
+    static final int DEVICE_RECORD_SIZE = 2 * Long.BYTES + 2 * Double.BYTES + Integer.BYTES + 4;
+    static final int CONNECTION_RECORD_SIZE = 2 * Integer.BYTES;
+    static final int COUNT_SIZE = 2 * Integer.BYTES;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    private TopologySnapshotWriter(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Writes a topology without runtime state.
+     *
+     * @see #write(Path, NetworkData, Map)
+     */
+    public static void write(Path path, NetworkData networkData) throws IOException {
+        write(path, networkData, Map.of());
+    }
+
+    /**
+     * Writes a topology and sections of runtime state into a snapshot, replacing an existing file.
+     *
+     * @param path          The file to write to.
+     * @param networkData   The devices, connections and name counters.
+     * @param stateSections The content of every runtime state section by its tag, from the buffers' positions to
+     *                      their limits. Tags must be at least {@link #FIRST_STATE_TAG}.
+     * @throws IOException if the file cannot be written.
+     * @throws IllegalArgumentException if a connection refers to a device that is not part of the topology,
+     *                                  or a state section uses a reserved tag.
+     */
+    public static void write(Path path, NetworkData networkData, Map<Integer, ByteBuffer> stateSections) throws IOException {
+        for (int tag : stateSections.keySet()) {
+            if (tag < FIRST_STATE_TAG) {
+                throw new IllegalArgumentException("Tag " + tag + " is reserved for the topology");
+            }
+        }
+        Map<UUID, Integer> deviceIndexes = new HashMap<>();
+        Map<String, Integer> stringIndexes = new LinkedHashMap<>();
+        List<byte[]> strings = new ArrayList<>();
+        int stringBytes = 0;
+        for (NetworkDeviceViewDTO device : networkData.devices()) {
+            deviceIndexes.put(device.uuid(), deviceIndexes.size());
+            if (device.name() != null && !stringIndexes.containsKey(device.name())) {
+                stringIndexes.put(device.name(), strings.size());
+                byte[] bytes = device.name().getBytes(StandardCharsets.UTF_8);
+                strings.add(bytes);
+                stringBytes += bytes.length;
+            }
+        }
+        int[] connectionIndexes = new int[2 * networkData.connections().size()];
+        for (int i = 0; i < networkData.connections().size(); i++) {
+            ConnectionLineDTO connection = networkData.connections().get(i);
+            connectionIndexes[2 * i] = deviceIndex(deviceIndexes, connection.startDeviceId());
+            connectionIndexes[2 * i + 1] = deviceIndex(deviceIndexes, connection.endDeviceId());
+        }
+
+        SortedMap<Integer, Long> sectionLengths = new TreeMap<>();
+        sectionLengths.put(STRINGS_SECTION, (long) Integer.BYTES * (strings.size() + 2) + stringBytes);
+        sectionLengths.put(DEVICES_SECTION, COUNT_SIZE + (long) DEVICE_RECORD_SIZE * networkData.devices().size());
+        sectionLengths.put(CONNECTIONS_SECTION, COUNT_SIZE + (long) CONNECTION_RECORD_SIZE * networkData.connections().size());
+        sectionLengths.put(NAME_COUNTERS_SECTION, 4L * Integer.BYTES);
+        stateSections.forEach((tag, content) -> sectionLengths.put(tag, (long) content.remaining()));
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            TopologySnapshotWriter writer = new TopologySnapshotWriter(channel);
+            ByteBuffer buffer = writer.buffer;
+            buffer.putInt(MAGIC);
+            buffer.putShort(VERSION);
+            buffer.putShort((short) sectionLengths.size());
+            long offset = align(HEADER_SIZE + (long) SECTION_ENTRY_SIZE * sectionLengths.size());
+            for (Map.Entry<Integer, Long> section : sectionLengths.entrySet()) {
+                buffer.putInt(section.getKey());
+                buffer.putLong(offset);
+                buffer.putLong(section.getValue());
+                offset = align(offset + section.getValue());
+            }
+
+            writer.startSection();
+            buffer.putInt(strings.size());
+            int stringOffset = 0;
+            for (byte[] string : strings) {
+                writer.ensureRemaining(Integer.BYTES);
+                buffer.putInt(stringOffset);
+                stringOffset += string.length;
+            }
+            writer.ensureRemaining(Integer.BYTES);
+            buffer.putInt(stringOffset);
+            for (byte[] string : strings) {
+                writer.put(ByteBuffer.wrap(string));
+            }
+
+            writer.startSection();
+            buffer.putInt(networkData.devices().size());
+            buffer.putInt(0);
+            for (NetworkDeviceViewDTO device : networkData.devices()) {
+                writer.ensureRemaining(DEVICE_RECORD_SIZE);
+                buffer.putLong(device.uuid().getMostSignificantBits());
+                buffer.putLong(device.uuid().getLeastSignificantBits());
+                buffer.putDouble(device.x());
+                buffer.putDouble(device.y());
+                buffer.putInt(device.name() == null ? -1 : stringIndexes.get(device.name()));
+                buffer.put((byte) device.type().ordinal());
+                buffer.put(new byte[3]);
+            }
+
+            writer.startSection();
+            buffer.putInt(networkData.connections().size());
+            buffer.putInt(0);
+            for (int index : connectionIndexes) {
+                writer.ensureRemaining(Integer.BYTES);
+                buffer.putInt(index);
+            }
+
+            writer.startSection();
+            AutoNameGeneratorDTO nameCounters = networkData.autoNameGeneratorDTO() == null
+                    ? new AutoNameGeneratorDTO(0, 0, 0, 0) : networkData.autoNameGeneratorDTO();
+            buffer.putInt(nameCounters.routerNameCounter());
+            buffer.putInt(nameCounters.switchNameCounter());
+            buffer.putInt(nameCounters.routerInterfaceNameCounter());
+            buffer.putInt(nameCounters.pcNameCounter());
+
+            for (ByteBuffer content : new TreeMap<>(stateSections).values()) {
+                writer.startSection();
+                writer.put(content.duplicate());
+            }
+            writer.flush();
+        }
+    }
+
+    private static int deviceIndex(Map<UUID, Integer> deviceIndexes, UUID uuid) {
+        Integer index = deviceIndexes.get(uuid);
+        if (index == null) {
+            throw new IllegalArgumentException("Device with UUID " + uuid + " not found");
+        }
+        return index;
+    }
+
+    static long align(long offset) {
+        return (offset + 7) & ~7L;
+    }
+
+    /**
+     * Pads the file to the start of the next section and makes room for its count.
+     */
+    private void startSection() throws IOException {
+        long position = channel.position() + buffer.position();
+        int padding = (int) (align(position) - position);
+        ensureRemaining(padding + COUNT_SIZE);
+        buffer.put(new byte[padding]);
+    }
+
+    private void ensureRemaining(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    private void put(ByteBuffer content) throws IOException {
+        if (content.remaining() <= buffer.remaining()) {
+            buffer.put(content);
+            return;
+        }
+        flush();
+        while (content.hasRemaining()) {
+            channel.write(content);
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
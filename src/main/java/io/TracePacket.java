@@ -0,0 +1,12 @@
+package io;
+
+/**
+ * A single packet read from a traffic trace by {@link TrafficTraceReader}.
+ *
+ * @param timeMicros         The time the packet was recorded at, in microseconds since the trace's epoch.
+ * @param sourceAddress      The IPv4 source address as a long, see {@link model.IPAddress#toLong()}.
+ * @param destinationAddress The IPv4 destination address as a long.
+ * @param length             The length of the packet on the wire in bytes, 0 if the trace does not record it.
+ */
+public record TracePacket(long timeMicros, long sourceAddress, long destinationAddress, int length) {
+}
@@ -0,0 +1,364 @@
+package io;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Streams the IPv4 packets of a recorded traffic trace, so real traffic can be replayed in the simulation.
+ * <p>
+ * Two formats are read:
+ * <ul>
+ *     <li>pcap captures in either byte order, with microsecond or nanosecond timestamps, of Ethernet (optionally VLAN
+ *     tagged) or raw IPv4 links &ndash; packets that are not IPv4 are skipped</li>
+ *     <li>CSV flow traces with one packet per line: {@code time,source,destination[,bytes]}, the time in seconds and
+ *     the addresses as dotted IPv4 addresses. A header line, empty lines and lines starting with {@code #} are skipped.</li>
+ * </ul>
+ * The file is read through a window of at most {@value #WINDOW_SIZE} bytes mapped into memory that slides along with
+ * the reader, so traces of any size are streamed without ever being loaded whole. A capture cut off in the middle of
+ * a packet, like one of an interrupted tcpdump, ends at the last complete packet.
+ */
+public class TrafficTraceReader implements AutoCloseable {
+    public enum Format {
+        PCAP,
+        CSV
+    }
+
+    static final int WINDOW_SIZE = 64 * 1024 * 1024;
+    static final int MAX_CSV_LINE_LENGTH = 4096;
+    private static final int PCAP_MAGIC_MICROSECONDS = 0xa1b2c3d4;
+    private static final int PCAP_MAGIC_NANOSECONDS = 0xa1b23c4d;
+    private static final int PCAPNG_MAGIC = 0x0a0d0d0a;
+    private static final int PCAP_GLOBAL_HEADER_SIZE = 24;
+    private static final int PCAP_RECORD_HEADER_SIZE = 16;
+    private static final int LINKTYPE_ETHERNET = 1;
+    private static final int LINKTYPE_RAW = 101;
+    private static final int LINKTYPE_IPV4 = 228;
+    private static final int ETHERNET_HEADER_SIZE = 14;
+    private static final int ETHERTYPE_IPV4 = 0x0800;
+    private static final int ETHERTYPE_VLAN = 0x8100;
+    private static final int ETHERTYPE_QINQ = 0x88a8;
+    private static final int IPV4_MIN_HEADER_SIZE = 20;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final long size;
+    private final Format format;
+    private MappedByteBuffer window;
+    private long windowStart = 0;
+    private long position = 0;
+    private ByteOrder pcapByteOrder = ByteOrder.BIG_ENDIAN;
+    private boolean nanosecondTimestamps = false;
+    private int linkType = LINKTYPE_ETHERNET;
+    private long lineNumber = 0;
+    private int field;
+    private boolean csvPacketRead = false;
+
+    private TrafficTraceReader(Path path, FileChannel channel) throws IOException {
+        this.path = path;
+        this.channel = channel;
+        this.size = channel.size();
+        map(0);
+        this.format = readHeader();
+    }
+
+    /**
+     * Opens a trace, telling a pcap capture from a CSV trace by its first bytes.
+     *
+     * @param path The trace file.
+     * @return the reader, positioned before the first packet
+     * @throws IOException if the file cannot be read or is a capture of an unsupported kind.
+     */
+    public static TrafficTraceReader open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new TrafficTraceReader(path, channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+
+    private Format readHeader() throws IOException {
+        if (size < Integer.BYTES) {
+            return Format.CSV;
+        }
+        int magic = window.order(ByteOrder.BIG_ENDIAN).getInt(0);
+        if (magic == PCAPNG_MAGIC) {
+            throw new IOException(path + " is a pcapng capture, save it as pcap first, e.g. with editcap -F pcap");
+        }
+        if (magic == PCAP_MAGIC_MICROSECONDS || magic == PCAP_MAGIC_NANOSECONDS) {
+            pcapByteOrder = ByteOrder.BIG_ENDIAN;
+        } else if (Integer.reverseBytes(magic) == PCAP_MAGIC_MICROSECONDS || Integer.reverseBytes(magic) == PCAP_MAGIC_NANOSECONDS) {
+            pcapByteOrder = ByteOrder.LITTLE_ENDIAN;
+        } else {
+            return Format.CSV;
+        }
+        if (size < PCAP_GLOBAL_HEADER_SIZE) {
+            throw new IOException(path + " is a pcap capture without a complete header");
+        }
+        window.order(pcapByteOrder);
+        nanosecondTimestamps = window.getInt(0) == PCAP_MAGIC_NANOSECONDS;
+        linkType = window.getInt(20) & 0x0fffffff; // The upper bits may carry the FCS length
+        if (linkType != LINKTYPE_ETHERNET && linkType != LINKTYPE_RAW && linkType != LINKTYPE_IPV4) {
+            throw new IOException(path + " captures link type " + linkType + ", only Ethernet and raw IPv4 captures are supported");
+        }
+        position = PCAP_GLOBAL_HEADER_SIZE;
+        return Format.PCAP;
+    }
+
+    /**
+     * Reads the next packet.
+     *
+     * @return the packet, null once the trace ends
+     * @throws IOException if the file cannot be read or is corrupted.
+     */
+    public TracePacket next() throws IOException {
+        return format == Format.PCAP ? nextPcapPacket() : nextCsvPacket();
+    }
+
+    private TracePacket nextPcapPacket() throws IOException {
+        while (true) {
+            if (available(PCAP_RECORD_HEADER_SIZE) < PCAP_RECORD_HEADER_SIZE) {
+                return null;
+            }
+            int offset = offset();
+            long seconds = Integer.toUnsignedLong(window.getInt(offset));
+            long fraction = Integer.toUnsignedLong(window.getInt(offset + 4));
+            long capturedLength = Integer.toUnsignedLong(window.getInt(offset + 8));
+            long originalLength = Integer.toUnsignedLong(window.getInt(offset + 12));
+            if (capturedLength > WINDOW_SIZE - PCAP_RECORD_HEADER_SIZE) {
+                throw new IOException("Corrupted pcap capture, the record at offset " + position + " claims " + capturedLength + " bytes");
+            }
+            int recordSize = PCAP_RECORD_HEADER_SIZE + (int) capturedLength;
+            if (available(recordSize) < recordSize) {
+                return null;
+            }
+            long recordPosition = position;
+            position += recordSize;
+            int packet = (int) (recordPosition - windowStart) + PCAP_RECORD_HEADER_SIZE;
+            int ipHeader = ipv4HeaderOffset(packet, (int) capturedLength);
+            if (ipHeader < 0) {
+                continue;
+            }
+            long timeMicros = seconds * 1_000_000 + (nanosecondTimestamps ? fraction / 1_000 : fraction);
+            return new TracePacket(timeMicros, Integer.toUnsignedLong(bigEndianInt(ipHeader + 12)), Integer.toUnsignedLong(bigEndianInt(ipHeader + 16)),
+                    (int) Math.min(originalLength, Integer.MAX_VALUE));
+        }
+    }
+
+    /**
+     * Finds the IPv4 header of a captured packet.
+     *
+     * @return the offset of the header within the window, -1 if the packet is not IPv4
+     */
+    private int ipv4HeaderOffset(int packet, int capturedLength) {
+        int ipHeader = packet;
+        if (linkType == LINKTYPE_ETHERNET) {
+            if (capturedLength < ETHERNET_HEADER_SIZE) {
+                return -1;
+            }
+            int etherTypeOffset = packet + 12;
+            int etherType = bigEndianShort(etherTypeOffset);
+            while ((etherType == ETHERTYPE_VLAN || etherType == ETHERTYPE_QINQ) && etherTypeOffset + 6 <= packet + capturedLength) {
+                etherTypeOffset += 4;
+                etherType = bigEndianShort(etherTypeOffset);
+            }
+            if (etherType != ETHERTYPE_IPV4) {
+                return -1;
+            }
+            ipHeader = etherTypeOffset + 2;
+        }
+        if (ipHeader + IPV4_MIN_HEADER_SIZE > packet + capturedLength || (window.get(ipHeader) & 0xf0) != 0x40) {
+            return -1;
+        }
+        return ipHeader;
+    }
+
+    private int bigEndianShort(int offset) {
+        return (Byte.toUnsignedInt(window.get(offset)) << 8) | Byte.toUnsignedInt(window.get(offset + 1));
+    }
+
+    private int bigEndianInt(int offset) {
+        return (bigEndianShort(offset) << 16) | bigEndianShort(offset + 2);
+    }
+
+    private TracePacket nextCsvPacket() throws IOException {
+        while (true) {
+            int available = available(MAX_CSV_LINE_LENGTH);
+            if (available == 0) {
+                return null;
+            }
+            int start = offset();
+            int end = start;
+            while (end < start + available && window.get(end) != '\n') {
+                end++;
+            }
+            if (end == start + available && position + available < size) {
+                throw new IOException(String.format("%s:%d: the line is longer than %d characters", path, lineNumber + 1, MAX_CSV_LINE_LENGTH));
+            }
+            position += end - start + (end < start + available ? 1 : 0);
+            lineNumber++;
+            if (end > start && window.get(end - 1) == '\r') {
+                end--;
+            }
+            TracePacket packet = parseCsvLine(start, end);
+            if (packet != null) {
+                return packet;
+            }
+        }
+    }
+
+    /**
+     * Parses a line of a CSV trace without allocating anything but the packet.
+     *
+     * @return the packet, null for a line that is skipped
+     */
+    private TracePacket parseCsvLine(int start, int end) throws IOException {
+        int first = skipSpaces(start, end);
+        if (first == end || window.get(first) == '#') {
+            return null;
+        }
+        if (!csvPacketRead && !isDigit(window.get(first))) {
+            return null; // Header
+        }
+        field = first;
+        long timeMicros = parseSeconds(end);
+        long sourceAddress = parseAddress(end);
+        long destinationAddress = parseAddress(end);
+        int length = 0;
+        if (field < end) {
+            length = (int) parseNumber(end);
+        }
+        csvPacketRead = true;
+        return new TracePacket(timeMicros, sourceAddress, destinationAddress, length);
+    }
+
+    /**
+     * Parses a time in seconds with up to microsecond precision into microseconds, further digits are ignored.
+     */
+    private long parseSeconds(int end) throws IOException {
+        int position = field;
+        long micros = 0;
+        while (position < end && isDigit(window.get(position))) {
+            micros = micros * 10 + (window.get(position++) - '0');
+        }
+        micros *= 1_000_000;
+        if (position < end && window.get(position) == '.') {
+            position++;
+            long scale = 100_000;
+            while (position < end && isDigit(window.get(position))) {
+                micros += (window.get(position++) - '0') * scale;
+                scale /= 10;
+            }
+        }
+        if (position == field) {
+            throw csvError("a time in seconds");
+        }
+        field = nextField(position, end);
+        return micros;
+    }
+
+    private long parseAddress(int end) throws IOException {
+        long address = 0;
+        int position = field;
+        for (int octet = 0; octet < 4; octet++) {
+            if (octet > 0) {
+                if (position >= end || window.get(position) != '.') {
+                    throw csvError("a dotted IPv4 address");
+                }
+                position++;
+            }
+            int digitsStart = position;
+            int value = 0;
+            while (position < end && isDigit(window.get(position)) && position - digitsStart < 3) {
+                value = value * 10 + (window.get(position++) - '0');
+            }
+            if (position == digitsStart || value > 255) {
+                throw csvError("a dotted IPv4 address");
+            }
+            address = address << 8 | value;
+        }
+        field = nextField(position, end);
+        return address;
+    }
+
+    private long parseNumber(int end) throws IOException {
+        int position = field;
+        long value = 0;
+        while (position < end && isDigit(window.get(position)) && value < Integer.MAX_VALUE) {
+            value = value * 10 + (window.get(position++) - '0');
+        }
+        if (position == field) {
+            throw csvError("a number of bytes");
+        }
+        field = nextField(position, end);
+        return value;
+    }
+
+    /**
+     * Moves past the separator after a field.
+     *
+     * @return the start of the next field, the end of the line if there is none
+     */
+    private int nextField(int position, int end) throws IOException {
+        position = skipSpaces(position, end);
+        if (position == end) {
+            return end;
+        }
+        if (window.get(position) != ',') {
+            throw csvError("a comma");
+        }
+        return skipSpaces(position + 1, end);
+    }
+
+    private int skipSpaces(int position, int end) {
+        while (position < end && (window.get(position) == ' ' || window.get(position) == '\t')) {
+            position++;
+        }
+        return position;
+    }
+
+    private static boolean isDigit(byte character) {
+        return character >= '0' && character <= '9';
+    }
+
+    private IOException csvError(String expected) {
+        return new IOException(String.format("%s:%d: expected %s, lines are time,source,destination[,bytes]", path, lineNumber, expected));
+    }
+
+    /**
+     * Makes the next bytes of the file readable through the window, sliding it forward when they lie beyond it.
+     *
+     * @return how many of the requested bytes are left in the file
+     */
+    private int available(int bytes) throws IOException {
+        long left = Math.min(bytes, size - position);
+        if (position + left > windowStart + window.limit()) {
+            map(position);
+        }
+        return (int) left;
+    }
+
+    private int offset() {
+        return (int) (position - windowStart);
+    }
+
+    private void map(long start) throws IOException {
+        window = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(WINDOW_SIZE, size - start));
+        window.order(pcapByteOrder);
+        windowStart = start;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,9 @@
+package metrics;
+
+/**
+ * A value sampled when a snapshot is taken, e.g. a queue depth or a hit ratio.
+ */
+@FunctionalInterface
+public interface Gauge {
+    double value();
+}
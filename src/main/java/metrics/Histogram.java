@@ -0,0 +1,109 @@
+package metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Distribution of non-negative long values, e.g. latencies, in the log-linear bucket layout used by HDR histograms.
+ * <p>
+ * Values below {@value #SUB_BUCKET_COUNT} get a bucket each. Every further power of two is split into
+ * {@value #HALF_SUB_BUCKET_COUNT} equal buckets, so a bucket is never wider than 1/64 of its lower bound and
+ * percentiles are reported within 1 % for the whole long range. Recording is a single atomic increment and never
+ * allocates, the buckets take about 30 KiB.
+ */
+public class Histogram {
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int HALF_SUB_BUCKET_COUNT = SUB_BUCKET_COUNT / 2;
+    private static final int BUCKET_COUNT = SUB_BUCKET_COUNT + (Long.SIZE - 1 - SUB_BUCKET_BITS) * HALF_SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder total = new LongAdder();
+    private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong max = new AtomicLong(Long.MIN_VALUE);
+
+    /**
+     * Records a value. Safe to call from any thread.
+     *
+     * @param value the value, negative values are recorded as 0
+     */
+    public void record(long value) {
+        long recorded = Math.max(value, 0);
+        counts.incrementAndGet(bucketIndex(recorded));
+        total.add(recorded);
+        if (recorded < min.get()) {
+            min.accumulateAndGet(recorded, Math::min);
+        }
+        if (recorded > max.get()) {
+            max.accumulateAndGet(recorded, Math::max);
+        }
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int shift = (Long.SIZE - 1 - Long.numberOfLeadingZeros(value)) - (SUB_BUCKET_BITS - 1);
+        int subBucket = (int) (value >>> shift);
+        return SUB_BUCKET_COUNT + (shift - 1) * HALF_SUB_BUCKET_COUNT + (subBucket - HALF_SUB_BUCKET_COUNT);
+    }
+
+    /**
+     * Returns the largest value that falls into a bucket.
+     */
+    static long highestValueInBucket(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int offset = index - SUB_BUCKET_COUNT;
+        int shift = offset / HALF_SUB_BUCKET_COUNT + 1;
+        long subBucket = offset % HALF_SUB_BUCKET_COUNT + HALF_SUB_BUCKET_COUNT;
+        long highest = ((subBucket + 1) << shift) - 1;
+        return highest < 0 ? Long.MAX_VALUE : highest;
+    }
+
+    /**
+     * Summarizes the recorded values. Values recorded meanwhile may or may not be included.
+     *
+     * @return the count, extremes, mean and p50/p90/p99/p99.9
+     */
+    public HistogramSnapshot snapshot() {
+        long[] bucketCounts = new long[BUCKET_COUNT];
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            bucketCounts[i] = counts.get(i);
+            count += bucketCounts[i];
+        }
+        if (count == 0) {
+            return new HistogramSnapshot(0, 0, 0, 0, 0, 0, 0, 0);
+        }
+        long minValue = min.get();
+        long maxValue = max.get();
+        return new HistogramSnapshot(count, minValue, maxValue, total.sum() / (double) count,
+                valueAtPercentile(bucketCounts, count, 50, minValue, maxValue),
+                valueAtPercentile(bucketCounts, count, 90, minValue, maxValue),
+                valueAtPercentile(bucketCounts, count, 99, minValue, maxValue),
+                valueAtPercentile(bucketCounts, count, 99.9, minValue, maxValue));
+    }
+
+    private static long valueAtPercentile(long[] bucketCounts, long count, double percentile, long minValue, long maxValue) {
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < bucketCounts.length; i++) {
+            seen += bucketCounts[i];
+            if (seen >= rank) {
+                return Math.max(minValue, Math.min(highestValueInBucket(i), maxValue));
+            }
+        }
+        return maxValue;
+    }
+
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+}
@@ -0,0 +1,16 @@
+package metrics;
+
+/**
+ * Summary of a {@link Histogram} at one moment. Percentiles are within 1 % of the recorded values.
+ *
+ * @param count the number of recorded values
+ * @param min   the smallest recorded value, 0 if nothing was recorded
+ * @param max   the largest recorded value, 0 if nothing was recorded
+ * @param mean  the mean of the recorded values
+ * @param p50   the median
+ * @param p90   the 90th percentile
+ * @param p99   the 99th percentile
+ * @param p999  the 99.9th percentile
+ */
+public record HistogramSnapshot(long count, long min, long max, double mean, long p50, long p90, long p99, long p999) {
+}
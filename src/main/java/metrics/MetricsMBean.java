@@ -0,0 +1,119 @@
+package metrics;
+
+import javax.management.*;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Exposes a {@link MetricsRegistry} to JMX consoles such as JConsole or VisualVM.
+ * <p>
+ * Metrics appear while the simulation runs, so the bean is dynamic and lists the metrics present when it is asked.
+ * Counters are {@code long} attributes, gauges {@code double} attributes and every histogram is shown as a group of
+ * attributes {@code <name>.count}, {@code .mean}, {@code .p50}, {@code .p90}, {@code .p99}, {@code .p999} and {@code .max}.
+ * All attributes are read-only.
+ */
+public class MetricsMBean implements DynamicMBean {
+    private static final Map<String, ToDoubleFunction<HistogramSnapshot>> HISTOGRAM_ATTRIBUTES = Map.of(
+            "count", HistogramSnapshot::count,
+            "mean", HistogramSnapshot::mean,
+            "p50", HistogramSnapshot::p50,
+            "p90", HistogramSnapshot::p90,
+            "p99", HistogramSnapshot::p99,
+            "p999", HistogramSnapshot::p999,
+            "max", HistogramSnapshot::max);
+
+    private final MetricsRegistry registry;
+
+    public MetricsMBean(MetricsRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Registers a bean for the registry with the platform MBean server, replacing a bean registered under the same
+     * name, e.g. by the previous simulation.
+     *
+     * @param registry   the metrics to expose
+     * @param objectName the JMX name of the bean
+     * @return the name the bean was registered under
+     * @throws JMException if the name is invalid or the bean cannot be registered
+     */
+    public static ObjectName register(MetricsRegistry registry, String objectName) throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(objectName);
+        if (server.isRegistered(name)) {
+            server.unregisterMBean(name);
+        }
+        server.registerMBean(new MetricsMBean(registry), name);
+        return name;
+    }
+
+    @Override
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+        Counter counter = registry.getCounters().get(attribute);
+        if (counter != null) {
+            return counter.sum();
+        }
+        Gauge gauge = registry.getGauges().get(attribute);
+        if (gauge != null) {
+            return gauge.value();
+        }
+        int separator = attribute.lastIndexOf('.');
+        if (separator > 0) {
+            Histogram histogram = registry.getHistograms().get(attribute.substring(0, separator));
+            ToDoubleFunction<HistogramSnapshot> value = HISTOGRAM_ATTRIBUTES.get(attribute.substring(separator + 1));
+            if (histogram != null && value != null) {
+                return value.applyAsDouble(histogram.snapshot());
+            }
+        }
+        throw new AttributeNotFoundException(attribute);
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException(attribute.getName() + " is read-only");
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] attributes) {
+        AttributeList attributeList = new AttributeList();
+        for (String attribute : attributes) {
+            try {
+                attributeList.add(new Attribute(attribute, getAttribute(attribute)));
+            } catch (AttributeNotFoundException e) {
+                // Metrics of a replaced registry disappear, the attribute is left out as the interface allows
+            }
+        }
+        return attributeList;
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList();
+    }
+
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+        throw new ReflectionException(new NoSuchMethodException(actionName));
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        List<MBeanAttributeInfo> attributes = new ArrayList<>();
+        for (String name : registry.getCounters().keySet()) {
+            attributes.add(new MBeanAttributeInfo(name, "long", "Counter", true, false, false));
+        }
+        for (String name : registry.getGauges().keySet()) {
+            attributes.add(new MBeanAttributeInfo(name, "double", "Gauge", true, false, false));
+        }
+        for (String name : registry.getHistograms().keySet()) {
+            for (String suffix : HISTOGRAM_ATTRIBUTES.keySet()) {
+                attributes.add(new MBeanAttributeInfo(name + "." + suffix, "double", "Histogram " + suffix, true, false, false));
+            }
+        }
+        return new MBeanInfo(getClass().getName(), "Simulation metrics", attributes.toArray(new MBeanAttributeInfo[0]),
+                null, null, null);
+    }
+}
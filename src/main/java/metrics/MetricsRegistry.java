@@ -0,0 +1,75 @@
+package metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Named counters, gauges and histograms of one simulation. Names are dot separated, e.g. {@code device.PC0.frames.in}.
+ * Metrics are created on first use and live as long as the registry; hot paths should keep the returned instance
+ * instead of looking it up by name for every event.
+ */
+public class MetricsRegistry {
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private final Map<String, Gauge> gauges = new ConcurrentHashMap<>();
+    private final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the counter of the given name, creating it if needed.
+     *
+     * @param name the metric name
+     * @return the counter
+     */
+    public Counter counter(String name) {
+        return counters.computeIfAbsent(name, key -> new Counter());
+    }
+
+    /**
+     * Registers a gauge, replacing a gauge of the same name.
+     *
+     * @param name  the metric name
+     * @param gauge samples the value when a snapshot is taken
+     */
+    public void gauge(String name, Gauge gauge) {
+        gauges.put(name, gauge);
+    }
+
+    /**
+     * Returns the histogram of the given name, creating it if needed.
+     *
+     * @param name the metric name
+     * @return the histogram
+     */
+    public Histogram histogram(String name) {
+        return histograms.computeIfAbsent(name, key -> new Histogram());
+    }
+
+    public Map<String, Counter> getCounters() {
+        return Collections.unmodifiableMap(counters);
+    }
+
+    public Map<String, Gauge> getGauges() {
+        return Collections.unmodifiableMap(gauges);
+    }
+
+    public Map<String, Histogram> getHistograms() {
+        return Collections.unmodifiableMap(histograms);
+    }
+
+    /**
+     * Reads every metric.
+     *
+     * @param simulatedTimeMillis the simulated time stored in the snapshot
+     * @return the current values sorted by name
+     */
+    public MetricsSnapshot snapshot(long simulatedTimeMillis) {
+        TreeMap<String, Long> counterValues = new TreeMap<>();
+        counters.forEach((name, counter) -> counterValues.put(name, counter.sum()));
+        TreeMap<String, Double> gaugeValues = new TreeMap<>();
+        gauges.forEach((name, gauge) -> gaugeValues.put(name, gauge.value()));
+        TreeMap<String, HistogramSnapshot> histogramValues = new TreeMap<>();
+        histograms.forEach((name, histogram) -> histogramValues.put(name, histogram.snapshot()));
+        return new MetricsSnapshot(simulatedTimeMillis, counterValues, gaugeValues, histogramValues);
+    }
+}
@@ -0,0 +1,15 @@
+package metrics;
+
+import java.util.SortedMap;
+
+/**
+ * The values of every metric of a {@link MetricsRegistry} at one moment, sorted by name.
+ *
+ * @param simulatedTimeMillis the simulated time the snapshot was taken at
+ * @param counters            the counter sums
+ * @param gauges              the sampled gauge values
+ * @param histograms          the histogram summaries
+ */
+public record MetricsSnapshot(long simulatedTimeMillis, SortedMap<String, Long> counters, SortedMap<String, Double> gauges,
+                              SortedMap<String, HistogramSnapshot> histograms) {
+}
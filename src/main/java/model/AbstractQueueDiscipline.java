@@ -0,0 +1,89 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Base class for queue disciplines that keeps the metrics bookkeeping in one place.
+ * Subclasses only decide admission and service order.
+ */
+public abstract class AbstractQueueDiscipline implements QueueDiscipline {
+    private final QueueMetrics metrics = new QueueMetrics();
+
+    @Override
+    public synchronized boolean enqueue(QueuedFrame queuedFrame) {
+        TrafficClass trafficClass = queuedFrame.trafficClass();
+        if (!offer(queuedFrame)) {
+            metrics.recordDrop(trafficClass);
+            return false;
+        }
+        metrics.recordEnqueue(trafficClass);
+        return true;
+    }
+
+    @Override
+    public synchronized QueuedFrame dequeue(long nowMillis) {
+        QueuedFrame queuedFrame = poll();
+        if (queuedFrame != null) {
+            metrics.recordDequeue(queuedFrame.trafficClass(), nowMillis - queuedFrame.enqueuedAtMillis());
+        }
+        return queuedFrame;
+    }
+
+    @Override
+    public synchronized List<QueuedFrame> drain() {
+        List<QueuedFrame> drained = new ArrayList<>(queuedFrames());
+        QueuedFrame queuedFrame;
+        while ((queuedFrame = poll()) != null) {
+            metrics.recordRemoval(queuedFrame.trafficClass());
+            drained.add(queuedFrame);
+        }
+        return drained;
+    }
+
+    @Override
+    public synchronized int size() {
+        return queuedFrames();
+    }
+
+    @Override
+    public synchronized List<QueuedFrame> getQueuedFrames() {
+        List<QueuedFrame> queuedFrames = new ArrayList<>(queuedFrames());
+        copyQueuedFrames(queuedFrames);
+        return queuedFrames;
+    }
+
+    @Override
+    public QueueMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Admits the frame into the queue or rejects it.
+     *
+     * @param queuedFrame the frame to admit
+     * @return true if the frame was stored, false if it should be dropped
+     */
+    protected abstract boolean offer(QueuedFrame queuedFrame);
+
+    /**
+     * Removes the next frame according to the discipline's service order.
+     *
+     * @return the next frame, or null if no frame is waiting
+     */
+    protected abstract QueuedFrame poll();
+
+    /**
+     * Returns the number of stored frames.
+     *
+     * @return the number of stored frames
+     */
+    protected abstract int queuedFrames();
+
+    /**
+     * Adds every stored frame to the target list, leaving the queue unchanged.
+     *
+     * @param target the list receiving the frames
+     */
+    protected abstract void copyQueuedFrames(List<QueuedFrame> target);
+}
@@ -1,5 +1,7 @@
 package model;
 
+import java.util.Collections;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
@@ -27,4 +29,30 @@ public class ArpCache {
     public void addEntry(IPAddress ipAddress, MACAddress mac) {
         entries.putIfAbsent(ipAddress, mac);
     }
+
+    /**
+     * Removes every entry that resolves to the specified MAC address.
+     *
+     * @param mac the MAC address whose entries should be removed
+     * @return true if at least one entry was removed
+     */
+    public boolean removeEntriesFor(MACAddress mac) {
+        return entries.values().removeIf(entryMac -> entryMac.equals(mac));
+    }
+
+    /**
+     * Returns a read-only view of the cached mappings.
+     *
+     * @return the mappings from IP addresses to MAC addresses
+     */
+    public Map<IPAddress, MACAddress> getEntries() {
+        return Collections.unmodifiableMap(entries);
+    }
+
+    /**
+     * Removes all entries from the ARP cache.
+     */
+    public void clear() {
+        entries.clear();
+    }
 }
@@ -50,6 +50,22 @@ public class CAMTable {
         entries.removeIf(camEntry -> camEntry.macAddress.equals(macAddress));
     }
 
+    /**
+     * Removes all entries learned on the specified port.
+     *
+     * @param port the port whose entries should be removed
+     */
+    public void removeEntriesForPort(int port) {
+        entries.removeIf(camEntry -> camEntry.port == port);
+    }
+
+    /**
+     * Removes all entries from the CAM table.
+     */
+    public void clear() {
+        entries.clear();
+    }
+
     /**
      * Gets all entries in the CAM table.
      *
@@ -17,4 +17,12 @@ public class CamEntry {
         this.macAddress = macAddress;
         this.port = port;
     }
+
+    public MACAddress getMacAddress() {
+        return macAddress;
+    }
+
+    public int getPort() {
+        return port;
+    }
 }
@@ -0,0 +1,35 @@
+package model;
+
+import java.util.function.Supplier;
+
+/**
+ * The egress queue disciplines a workspace can give its router interfaces, each creating an independent queue
+ * of {@link RouterInterface#DEFAULT_EGRESS_QUEUE_CAPACITY} frames, per traffic class where the discipline separates them.
+ */
+public enum EgressQueueDiscipline {
+    TAIL_DROP("Tail drop (FIFO)", () -> new TailDropQueue(RouterInterface.DEFAULT_EGRESS_QUEUE_CAPACITY)),
+    RED("Random early detection", () -> new RedQueue(RouterInterface.DEFAULT_EGRESS_QUEUE_CAPACITY)),
+    STRICT_PRIORITY("Strict priority", () -> new StrictPriorityQueue(RouterInterface.DEFAULT_EGRESS_QUEUE_CAPACITY)),
+    WEIGHTED_FAIR("Weighted fair queuing", () -> new WeightedFairQueue(RouterInterface.DEFAULT_EGRESS_QUEUE_CAPACITY));
+
+    private final String displayName;
+    private final Supplier<QueueDiscipline> factory;
+
+    EgressQueueDiscipline(String displayName, Supplier<QueueDiscipline> factory) {
+        this.displayName = displayName;
+        this.factory = factory;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    /**
+     * Creates a new, empty queue of this discipline for one interface.
+     *
+     * @return the new queue
+     */
+    public QueueDiscipline create() {
+        return factory.get();
+    }
+}
@@ -34,7 +34,7 @@ public class IPAddress {
     }
 
     /**
-     * Increments a specified octet by a given amount.
+     * Increments a specified octet by a given amount. An octet exceeding 255 carries over into the octet before it.
      *
      * @param octet the octet to increment (1 to 4)
      * @param increment the amount to add to the octet
@@ -42,6 +42,10 @@ public class IPAddress {
     public void incrementOctet(int octet, int increment) {
         if (octet >= 1 && octet <= 4) {
             octets[octet - 1] += increment;
+            for (int i = octet - 1; i > 0 && octets[i] > 255; i--) {
+                octets[i - 1] += octets[i] / 256;
+                octets[i] %= 256;
+            }
         }
     }
 
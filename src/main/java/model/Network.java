@@ -1,6 +1,7 @@
 package model;
 
-import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 
 /**
@@ -70,5 +71,36 @@ public class Network {
         return subnetMask;
     }
 
+    /**
+     * Returns the addresses handed out in the network so far.
+     *
+     * @return a read-only view of the used IP addresses
+     */
+    public Collection<IPAddress> getUsedIpAddresses() {
+        return Collections.unmodifiableCollection(usedIpAddresses.values());
+    }
+
+    /**
+     * Returns the address the search for the next available address starts from.
+     *
+     * @return the current candidate address
+     */
+    public IPAddress getCurrentAvailableAddress() {
+        return currentAvailableAddress;
+    }
+
+    /**
+     * Replaces the allocation state of the network, e.g. when a saved simulation is restored.
+     *
+     * @param currentAvailableAddress the address the search for the next available address starts from
+     * @param usedIpAddresses         the addresses already handed out, kept as the given instances
+     */
+    public void restoreAllocations(IPAddress currentAvailableAddress, Collection<IPAddress> usedIpAddresses) {
+        this.usedIpAddresses.clear();
+        for (IPAddress usedIpAddress : usedIpAddresses) {
+            this.usedIpAddresses.put(usedIpAddress.toLong(), usedIpAddress);
+        }
+        this.currentAvailableAddress = currentAvailableAddress;
+    }
 
 }
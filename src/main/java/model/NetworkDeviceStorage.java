@@ -1,8 +1,7 @@
 package model;
 
-import com.google.common.eventbus.Subscribe;
-import common.GlobalEventBus;
 import common.RouterInterfaceCreatedEvent;
+import common.SimulationEventBus;
 
 import java.util.*;
 import java.util.concurrent.CopyOnWriteArrayList;
@@ -12,13 +11,19 @@ import java.util.concurrent.CopyOnWriteArrayList;
  * including routers and PCs, in a network simulation environment.
  */
 public class NetworkDeviceStorage {
-    public NetworkDeviceStorage(){
-        GlobalEventBus.register(this);
+    /**
+     * Constructs the storage of a simulation session.
+     *
+     * @param eventBus The bus of the session, router interfaces announced on it are stored.
+     */
+    public NetworkDeviceStorage(SimulationEventBus eventBus) {
+        eventBus.subscribe(RouterInterfaceCreatedEvent.class, this::handleRouterInterfaceCreatedEvent);
     }
     Map<UUID, NetworkDeviceModel> networkDeviceModels = new HashMap<>();
     ArrayList<RouterModel> routerModels = new ArrayList<>();
     List<PCModel> pcModels = new CopyOnWriteArrayList<>();
     ArrayList<RouterInterface> routerInterfaces = new ArrayList<>();
+    private volatile EgressQueueDiscipline egressQueueDiscipline = EgressQueueDiscipline.TAIL_DROP;
 
     /**
      * Adds a generic network device model to the storage.
@@ -49,15 +54,37 @@ public class NetworkDeviceStorage {
         pcModels.add(pcModel);
     }
 
-    @Subscribe
     public void handleRouterInterfaceCreatedEvent(RouterInterfaceCreatedEvent event){
         addRouterInterface(event.routerInterface());
     }
 
+    /**
+     * Adds a router interface to the storage and gives it an egress queue of the workspace's discipline.
+     *
+     * @param routerInterface The router interface to be added.
+     */
     public void addRouterInterface(RouterInterface routerInterface) {
+        routerInterface.setEgressQueue(egressQueueDiscipline.create());
         routerInterfaces.add(routerInterface);
     }
 
+    /**
+     * Gives every stored router interface a new egress queue of the discipline, as well as every interface added later.
+     * Frames waiting in the previous queues are moved to the new ones.
+     *
+     * @param egressQueueDiscipline The discipline of the workspace's egress queues.
+     */
+    public void setEgressQueueDiscipline(EgressQueueDiscipline egressQueueDiscipline) {
+        this.egressQueueDiscipline = egressQueueDiscipline;
+        for (RouterInterface routerInterface : routerInterfaces) {
+            routerInterface.setEgressQueue(egressQueueDiscipline.create());
+        }
+    }
+
+    public EgressQueueDiscipline getEgressQueueDiscipline() {
+        return egressQueueDiscipline;
+    }
+
     public List<RouterInterface> getRouterInterfaces(){
         return routerInterfaces;
     }
@@ -116,6 +143,30 @@ public class NetworkDeviceStorage {
         return networkDeviceModels.getOrDefault(uuidFromMac, null);
     }
 
+    /**
+     * Retrieves a network device model by its name.
+     *
+     * @param name The name of the network device model.
+     * @return The network device model if found, or null otherwise.
+     */
+    public NetworkDeviceModel getByName(String name) {
+        for (NetworkDeviceModel networkDeviceModel : networkDeviceModels.values()) {
+            if (name.equals(networkDeviceModel.getName()) && !(networkDeviceModel instanceof RouterInterface)) {
+                return networkDeviceModel;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Retrieves all network device models stored in the system.
+     *
+     * @return A collection of all stored network device models.
+     */
+    public Collection<NetworkDeviceModel> getNetworkDeviceModels() {
+        return networkDeviceModels.values();
+    }
+
     /**
      * Retrieves all PC models stored in the system.
      *
@@ -1,6 +1,8 @@
 package model;
 
 import common.NetworkDeviceType;
+import profiling.ArpResolutionEvent;
+
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -98,7 +100,13 @@ public class PCModel extends NetworkDeviceModel {
     }
 
     public MACAddress queryArp(IPAddress ipAddress) {
-        return getArpCache().getMAC(ipAddress);
+        MACAddress macAddress = getArpCache().getMAC(ipAddress);
+        ArpResolutionEvent.emit(this, ipAddress, macAddress);
+        return macAddress;
+    }
+
+    public void flushArp(MACAddress macAddress) {
+        arpCache.removeEntriesFor(macAddress);
     }
 
     public void setIpAddress(IPAddress ipAddress) {
@@ -8,6 +8,7 @@ public class Packet {
     private final IPAddress sourceIp;
     private final IPAddress destinationIp;
     private final Message message;
+    private final PacketStamp stamp;
 
     /**
      * Constructs a Packet with source and destination IP addresses and a message.
@@ -17,9 +18,22 @@ public class Packet {
      * @param message         the message payload of the packet.
      */
     public Packet(IPAddress sourceIp, IPAddress destinationIp, Message message) {
+        this(sourceIp, destinationIp, message, null);
+    }
+
+    /**
+     * Constructs a Packet whose delivery latency is measured.
+     *
+     * @param sourceIp        the source IP address of the packet.
+     * @param destinationIp   the destination IP address of the packet.
+     * @param message         the message payload of the packet.
+     * @param stamp           when and where the communication started, null if it is not measured.
+     */
+    public Packet(IPAddress sourceIp, IPAddress destinationIp, Message message, PacketStamp stamp) {
         this.sourceIp = sourceIp;
         this.destinationIp = destinationIp;
         this.message = message;
+        this.stamp = stamp;
     }
 
     public IPAddress getSourceIp() {
@@ -33,4 +47,11 @@ public class Packet {
     public Message getMessage() {
         return message;
     }
+
+    /**
+     * @return when and where the communication started, null if the packet is not measured
+     */
+    public PacketStamp getStamp() {
+        return stamp;
+    }
 }
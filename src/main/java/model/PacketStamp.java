@@ -0,0 +1,30 @@
+package model;
+
+/**
+ * Marks when and where a packet's communication started, so its delivery latency can be measured end to end.
+ * The stamp is carried unchanged when a router forwards the payload in a new packet.
+ *
+ * @param createdAtMillis  the simulated time the communication was requested
+ * @param sourceIp         the address of the initiator
+ * @param sourceSubnetMask the subnet mask of the initiator
+ */
+public record PacketStamp(long createdAtMillis, IPAddress sourceIp, SubnetMask sourceSubnetMask) {
+
+    /**
+     * @return the initiator's subnet in CIDR notation, e.g. {@code 192.168.1.0/24}
+     */
+    public String sourceSubnet() {
+        return subnet(sourceIp, sourceSubnetMask);
+    }
+
+    /**
+     * Formats the subnet an address belongs to in CIDR notation.
+     *
+     * @param ipAddress  an address in the subnet
+     * @param subnetMask the mask of the subnet
+     * @return e.g. {@code 192.168.1.0/24}
+     */
+    public static String subnet(IPAddress ipAddress, SubnetMask subnetMask) {
+        return IPAddress.longToIPAddress(ipAddress.toLong() & subnetMask.toLong()) + "/" + subnetMask.getSize();
+    }
+}
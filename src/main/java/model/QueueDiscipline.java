@@ -0,0 +1,52 @@
+package model;
+
+import java.util.List;
+
+/**
+ * Egress queue discipline of a router interface, deciding which frames are admitted and in which order they leave.
+ */
+public interface QueueDiscipline {
+    /**
+     * Offers a frame to the queue.
+     *
+     * @param queuedFrame the frame to enqueue
+     * @return true if the frame was admitted, false if it was dropped
+     */
+    boolean enqueue(QueuedFrame queuedFrame);
+
+    /**
+     * Removes the next frame to be transmitted.
+     *
+     * @param nowMillis the current simulated time, the frame's queueing delay is measured up to it
+     * @return the next frame, or null if the queue is empty
+     */
+    QueuedFrame dequeue(long nowMillis);
+
+    /**
+     * Removes every waiting frame in service order without counting it as transmitted, e.g. to move it into another queue.
+     *
+     * @return the removed frames
+     */
+    List<QueuedFrame> drain();
+
+    /**
+     * Returns the number of frames currently waiting in the queue.
+     *
+     * @return the queue depth
+     */
+    int size();
+
+    /**
+     * Returns the frames currently waiting in the queue without removing them.
+     *
+     * @return a copy of the waiting frames, grouped as the discipline stores them
+     */
+    List<QueuedFrame> getQueuedFrames();
+
+    /**
+     * Returns the depth, drop and delay metrics collected by this queue.
+     *
+     * @return the queue metrics
+     */
+    QueueMetrics getMetrics();
+}
@@ -0,0 +1,112 @@
+package model;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Per traffic class counters of an egress queue: current and peak depth, admitted, transmitted and dropped frames
+ * and the queueing delay of transmitted frames in simulated time.
+ */
+public class QueueMetrics {
+    private static final int CLASSES = TrafficClass.values().length;
+
+    private final AtomicLongArray depth = new AtomicLongArray(CLASSES);
+    private final AtomicLongArray maxDepth = new AtomicLongArray(CLASSES);
+    private final AtomicLongArray enqueued = new AtomicLongArray(CLASSES);
+    private final AtomicLongArray dequeued = new AtomicLongArray(CLASSES);
+    private final AtomicLongArray dropped = new AtomicLongArray(CLASSES);
+    private final AtomicLongArray totalDelayMillis = new AtomicLongArray(CLASSES);
+    private final AtomicLongArray maxDelayMillis = new AtomicLongArray(CLASSES);
+
+    void recordEnqueue(TrafficClass trafficClass) {
+        int index = trafficClass.ordinal();
+        enqueued.incrementAndGet(index);
+        long currentDepth = depth.incrementAndGet(index);
+        maxDepth.accumulateAndGet(index, currentDepth, Math::max);
+    }
+
+    void recordDequeue(TrafficClass trafficClass, long delayMillis) {
+        int index = trafficClass.ordinal();
+        dequeued.incrementAndGet(index);
+        depth.decrementAndGet(index);
+        totalDelayMillis.addAndGet(index, delayMillis);
+        maxDelayMillis.accumulateAndGet(index, delayMillis, Math::max);
+    }
+
+    void recordRemoval(TrafficClass trafficClass) {
+        depth.decrementAndGet(trafficClass.ordinal());
+    }
+
+    void recordDrop(TrafficClass trafficClass) {
+        dropped.incrementAndGet(trafficClass.ordinal());
+    }
+
+    public long getDepth(TrafficClass trafficClass) {
+        return depth.get(trafficClass.ordinal());
+    }
+
+    public long getMaxDepth(TrafficClass trafficClass) {
+        return maxDepth.get(trafficClass.ordinal());
+    }
+
+    public long getEnqueued(TrafficClass trafficClass) {
+        return enqueued.get(trafficClass.ordinal());
+    }
+
+    public long getDequeued(TrafficClass trafficClass) {
+        return dequeued.get(trafficClass.ordinal());
+    }
+
+    public long getDropped(TrafficClass trafficClass) {
+        return dropped.get(trafficClass.ordinal());
+    }
+
+    /**
+     * Returns the total number of frames currently waiting across all traffic classes.
+     *
+     * @return the total queue depth
+     */
+    public long getTotalDepth() {
+        long total = 0;
+        for (int i = 0; i < CLASSES; i++) {
+            total += depth.get(i);
+        }
+        return total;
+    }
+
+    /**
+     * Returns the total number of frames dropped across all traffic classes.
+     *
+     * @return the total number of dropped frames
+     */
+    public long getTotalDropped() {
+        long total = 0;
+        for (int i = 0; i < CLASSES; i++) {
+            total += dropped.get(i);
+        }
+        return total;
+    }
+
+    /**
+     * Returns the average simulated time transmitted frames of the class spent waiting in the queue.
+     *
+     * @param trafficClass the traffic class
+     * @return the average queueing delay in milliseconds, or 0 if nothing was transmitted yet
+     */
+    public double getAverageDelayMillis(TrafficClass trafficClass) {
+        long count = dequeued.get(trafficClass.ordinal());
+        if (count == 0) {
+            return 0;
+        }
+        return totalDelayMillis.get(trafficClass.ordinal()) / (double) count;
+    }
+
+    /**
+     * Returns the longest simulated time a transmitted frame of the class spent waiting in the queue.
+     *
+     * @param trafficClass the traffic class
+     * @return the maximum queueing delay in milliseconds
+     */
+    public double getMaxDelayMillis(TrafficClass trafficClass) {
+        return maxDelayMillis.get(trafficClass.ordinal());
+    }
+}
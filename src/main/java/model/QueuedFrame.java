@@ -0,0 +1,14 @@
+package model;
+
+/**
+ * A frame waiting in a router interface egress queue together with the connection it will leave on.
+ *
+ * @param networkConnection the connection the frame will be transmitted over
+ * @param frame             the queued frame
+ * @param enqueuedAtMillis  the simulated time the frame entered the queue, used for queueing delay metrics
+ */
+public record QueuedFrame(NetworkConnection networkConnection, Frame frame, long enqueuedAtMillis) {
+    public TrafficClass trafficClass() {
+        return TrafficClass.of(frame.getPacket().getMessage());
+    }
+}
@@ -0,0 +1,91 @@
+package model;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * First-in first-out queue with Random Early Detection.
+ * Arriving frames are dropped with a probability that grows linearly with the exponentially weighted average
+ * queue depth between the minimum and maximum threshold, and always once the average exceeds the maximum threshold
+ * or the queue is full.
+ */
+public class RedQueue extends AbstractQueueDiscipline {
+    private final ArrayDeque<QueuedFrame> frames = new ArrayDeque<>();
+    private final int capacity;
+    private final double minThreshold;
+    private final double maxThreshold;
+    private final double maxDropProbability;
+    private final double weight;
+    private final Random random;
+
+    private double averageDepth = 0;
+    private int admittedSinceLastDrop = 0;
+
+    /**
+     * Constructs a RED queue.
+     *
+     * @param capacity           the hard limit of waiting frames
+     * @param minThreshold       the average depth below which no frame is dropped
+     * @param maxThreshold       the average depth above which every frame is dropped
+     * @param maxDropProbability the drop probability reached at the maximum threshold
+     * @param weight             the weight of the current depth in the moving average
+     * @param random             the source of randomness for drop decisions
+     */
+    public RedQueue(int capacity, double minThreshold, double maxThreshold, double maxDropProbability, double weight, Random random) {
+        this.capacity = capacity;
+        this.minThreshold = minThreshold;
+        this.maxThreshold = maxThreshold;
+        this.maxDropProbability = maxDropProbability;
+        this.weight = weight;
+        this.random = random;
+    }
+
+    /**
+     * Constructs a RED queue with thresholds at a quarter and three quarters of the capacity.
+     *
+     * @param capacity the hard limit of waiting frames
+     */
+    public RedQueue(int capacity) {
+        this(capacity, capacity / 4.0, capacity * 3 / 4.0, 0.1, 0.2, new Random());
+    }
+
+    @Override
+    protected boolean offer(QueuedFrame queuedFrame) {
+        averageDepth = (1 - weight) * averageDepth + weight * frames.size();
+
+        if (frames.size() >= capacity || averageDepth >= maxThreshold) {
+            admittedSinceLastDrop = 0;
+            return false;
+        }
+        if (averageDepth >= minThreshold) {
+            double dropProbability = maxDropProbability * (averageDepth - minThreshold) / (maxThreshold - minThreshold);
+            double spreadProbability = dropProbability / Math.max(1 - admittedSinceLastDrop * dropProbability, dropProbability);
+            if (random.nextDouble() < spreadProbability) {
+                admittedSinceLastDrop = 0;
+                return false;
+            }
+        }
+        admittedSinceLastDrop++;
+        return frames.add(queuedFrame);
+    }
+
+    @Override
+    protected QueuedFrame poll() {
+        return frames.poll();
+    }
+
+    @Override
+    protected int queuedFrames() {
+        return frames.size();
+    }
+
+    public double getAverageDepth() {
+        return averageDepth;
+    }
+
+    @Override
+    protected void copyQueuedFrames(List<QueuedFrame> target) {
+        target.addAll(frames);
+    }
+}
@@ -4,17 +4,22 @@ import common.NetworkDeviceType;
 
 import java.util.HashSet;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Represents an interface on a router within the network simulation.
  * This interface connects the router to various networks and handles the interactions with other devices.
  */
 public class RouterInterface extends NetworkDeviceModel {
+    public static final int DEFAULT_EGRESS_QUEUE_CAPACITY = 64;
+
     private final IPAddress ipAddress;
     private final MACAddress macAddress;
     private final RouterModel interfacesRouter;
     private final HashSet<NetworkDeviceModel> directConnections = new HashSet<>();
     private final Network network;
+    private final AtomicBoolean linkOccupied = new AtomicBoolean(false);
+    private volatile QueueDiscipline egressQueue = new TailDropQueue(DEFAULT_EGRESS_QUEUE_CAPACITY);
 
     /**
      * Constructs a RouterInterface with specified parameters.
@@ -88,4 +93,43 @@ public class RouterInterface extends NetworkDeviceModel {
     public synchronized HashSet<NetworkDeviceModel> getDirectConnections() {
         return directConnections;
     }
+
+    /**
+     * Gets the queue holding frames waiting to be transmitted from this interface.
+     *
+     * @return The egress queue discipline.
+     */
+    public QueueDiscipline getEgressQueue() {
+        return egressQueue;
+    }
+
+    /**
+     * Replaces the egress queue discipline. Frames waiting in the previous queue are moved to the new one,
+     * frames the new discipline does not admit are dropped.
+     *
+     * @param egressQueue The new egress queue discipline.
+     */
+    public synchronized void setEgressQueue(QueueDiscipline egressQueue) {
+        QueueDiscipline previous = this.egressQueue;
+        this.egressQueue = egressQueue;
+        for (QueuedFrame queuedFrame : previous.drain()) {
+            egressQueue.enqueue(queuedFrame);
+        }
+    }
+
+    /**
+     * Marks the outgoing link as carrying a frame, if it is not already.
+     *
+     * @return true if the link was free and is now occupied by the caller.
+     */
+    public boolean tryOccupyLink() {
+        return linkOccupied.compareAndSet(false, true);
+    }
+
+    /**
+     * Marks the outgoing link as free again once the frame in flight has arrived.
+     */
+    public void releaseLink() {
+        linkOccupied.set(false);
+    }
 }
@@ -1,9 +1,11 @@
 package model;
 
 import common.AutoNameGenerator;
-import common.GlobalEventBus;
 import common.NetworkDeviceType;
 import common.RouterInterfaceCreatedEvent;
+import common.SimulationEventBus;
+import profiling.ArpResolutionEvent;
+import profiling.RipUpdateEvent;
 
 import java.util.*;
 
@@ -12,6 +14,8 @@ import java.util.*;
  * and interfaces to other network devices.
  */
 public class RouterModel extends NetworkDeviceModel {
+    public static final int RIP_INFINITY = 16;
+
     private final RoutingTable routingTable;
     private final IPAddress currentAvailableLanNetworkIp = new IPAddress(192, 168, 1, 0);
     private final SubnetMask defaultLanSubnetMask = new SubnetMask(24);
@@ -19,31 +23,44 @@ public class RouterModel extends NetworkDeviceModel {
     private final LinkedHashMap<Network, RouterInterface> routerInterfaces = new LinkedHashMap<>();
     private final ArpCache arpCache;
     private final HashSet<NetworkDeviceModel> directConnections = new HashSet<>();
+    private final SimulationEventBus eventBus;
 
     /**
      * Constructor for RouterModel, initializes a router with a UUID and MAC address.
+     * The router is not part of a simulation session, so the interfaces it creates are not announced.
      *
      * @param uuid       The unique identifier for the router.
      * @param macAddress The MAC address of the router.
      */
     public RouterModel(UUID uuid, MACAddress macAddress) {
-        super(uuid, macAddress, NetworkDeviceType.ROUTER);
-        this.routingTable = new RoutingTable();
-        this.arpCache = new ArpCache();
-        GlobalEventBus.register(this);
+        this(uuid, macAddress, null, null);
     }
 
     /**
      * Constructor for RouterModel, initializes a router with a UUID, MAC address, and a name.
+     * The router is not part of a simulation session, so the interfaces it creates are not announced.
      *
      * @param uuid       The unique identifier for the router.
      * @param macAddress The MAC address of the router.
      * @param name       The name of the router.
      */
     public RouterModel(UUID uuid, MACAddress macAddress, String name) {
+        this(uuid, macAddress, name, null);
+    }
+
+    /**
+     * Constructor for RouterModel, initializes a router of a simulation session with a UUID, MAC address, and a name.
+     *
+     * @param uuid       The unique identifier for the router.
+     * @param macAddress The MAC address of the router.
+     * @param name       The name of the router.
+     * @param eventBus   The bus of the session, router interfaces created for new LANs are announced on it.
+     */
+    public RouterModel(UUID uuid, MACAddress macAddress, String name, SimulationEventBus eventBus) {
         super(uuid, macAddress, NetworkDeviceType.ROUTER, name);
         this.routingTable = new RoutingTable();
         this.arpCache = new ArpCache();
+        this.eventBus = eventBus;
     }
 
     /**
@@ -66,40 +83,121 @@ public class RouterModel extends NetworkDeviceModel {
 
     /**
      * Processes a received routing entry and updates the routing table accordingly.
+     * A route is replaced when the received one is shorter, or when it comes from the route's current next hop,
+     * so that the next hop can also report a longer path or an unreachable network.
      *
      * @param receivedEntry   The received routing entry.
      * @param sourceIPAddress The IP address from which the routing information was received.
+     * @return true if the routing table changed.
      */
-    private void processReceivedEntry(RouteEntry receivedEntry, IPAddress sourceIPAddress) {
+    private boolean processReceivedEntry(RouteEntry receivedEntry, IPAddress sourceIPAddress) {
         if (receivedEntry.getDestinationNetwork().getNetworkType() == NetworkType.LAN) {
-            return;
+            return false;
         }
-        boolean routeExists = false;
+        int hopCount = Math.min(receivedEntry.getHopCount() + 1, RIP_INFINITY);
         for (RouteEntry existingEntry : routingTable.getEntries()) {
             if (existingEntry.getDestinationNetwork().equals(receivedEntry.getDestinationNetwork())) {
-                routeExists = true;
-                if (receivedEntry.getHopCount() + 1 < existingEntry.getHopCount()) {
-                    existingEntry.setHopCount(receivedEntry.getHopCount() + 1);
+                boolean fromCurrentNextHop = existingEntry.getNextHop().equals(sourceIPAddress);
+                if (hopCount < existingEntry.getHopCount() || (fromCurrentNextHop && hopCount != existingEntry.getHopCount())) {
+                    existingEntry.setHopCount(hopCount);
                     existingEntry.setNextHop(sourceIPAddress);
+                    return true;
                 }
-                break;
+                return false;
             }
         }
-        if (!routeExists) {
-            routingTable.addEntry(new RouteEntry(receivedEntry.getDestinationNetwork(), sourceIPAddress, receivedEntry.getHopCount() + 1));
+        if (hopCount >= RIP_INFINITY) {
+            return false;
         }
+        routingTable.addEntry(new RouteEntry(receivedEntry.getDestinationNetwork(), sourceIPAddress, hopCount));
+        return true;
     }
 
     /**
      * Updates the router's routing table based on a received routing table from another router.
+     * Routes through the sender that it no longer advertises, or advertises as unreachable, are withdrawn.
      *
      * @param receivedRoutingTable The routing table received from another router.
      * @param sourceIPAddress      The source IP address of the router that sent the routing table.
+     * @return true if the routing table changed.
      */
-    public void updateRoutingTable(RoutingTable receivedRoutingTable, IPAddress sourceIPAddress) {
+    public boolean updateRoutingTable(RoutingTable receivedRoutingTable, IPAddress sourceIPAddress) {
+        RipUpdateEvent ripUpdateEvent = RipUpdateEvent.start();
+        boolean changed = false;
         for (RouteEntry entry : receivedRoutingTable.getEntries()) {
-            processReceivedEntry(entry, sourceIPAddress);
+            changed |= processReceivedEntry(entry, sourceIPAddress);
+        }
+        changed |= routingTable.getEntries().removeIf(existingEntry -> existingEntry.getNextHop().equals(sourceIPAddress)
+                && (existingEntry.getHopCount() >= RIP_INFINITY || !advertises(receivedRoutingTable, existingEntry.getDestinationNetwork())));
+        ripUpdateEvent.finish(this, sourceIPAddress, receivedRoutingTable.getEntries().size(), changed);
+        return changed;
+    }
+
+    /**
+     * Checks if a routing table contains a route to the specified network.
+     *
+     * @param routingTable The routing table to search.
+     * @param network      The destination network.
+     * @return true if the routing table has a route to the network.
+     */
+    private static boolean advertises(RoutingTable routingTable, Network network) {
+        for (RouteEntry entry : routingTable.getEntries()) {
+            if (entry.getDestinationNetwork().equals(network)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Creates a copy of the routing table to be advertised to a neighbor.
+     * Routes learned from that neighbor are left out (split horizon) to avoid counting to infinity between the two.
+     *
+     * @param neighborIpAddress The IP address of the neighbor receiving the advertisement.
+     * @return The routing table to advertise.
+     */
+    public RoutingTable getRoutingTableFor(IPAddress neighborIpAddress) {
+        RoutingTable advertisedRoutingTable = new RoutingTable();
+        for (RouteEntry entry : routingTable.getEntries()) {
+            if (!entry.getNextHop().equals(neighborIpAddress)) {
+                advertisedRoutingTable.addEntry(new RouteEntry(entry.getDestinationNetwork(), entry.getNextHop(), entry.getHopCount()));
+            }
+        }
+        return advertisedRoutingTable;
+    }
+
+    /**
+     * Removes all routes using the specified next hop.
+     *
+     * @param nextHop The next hop IP address that became unreachable.
+     * @return true if at least one route was removed.
+     */
+    public boolean removeRoutesVia(IPAddress nextHop) {
+        return routingTable.getEntries().removeIf(entry -> entry.getNextHop().equals(nextHop));
+    }
+
+    /**
+     * Removes the route to the specified network.
+     *
+     * @param network The destination network.
+     * @return true if a route was removed.
+     */
+    public boolean removeRoute(Network network) {
+        return routingTable.getEntries().removeIf(entry -> entry.getDestinationNetwork().equals(network));
+    }
+
+    /**
+     * Re-establishes the route to a directly connected network, replacing any learned route to it.
+     *
+     * @param network The directly connected network.
+     */
+    public void restoreDirectRoute(Network network) {
+        RouterInterface routerInterface = getNetworksRouterInterface(network);
+        if (routerInterface == null) {
+            return;
         }
+        removeRoute(network);
+        routingTable.addEntry(new RouteEntry(network, routerInterface.getIpAddress(), 0));
     }
 
     /**
@@ -188,6 +286,15 @@ public class RouterModel extends NetworkDeviceModel {
         return routerInterfaces;
     }
 
+    /**
+     * Retrieves the ARP cache of the router.
+     *
+     * @return The ARP cache.
+     */
+    public ArpCache getArpCache() {
+        return arpCache;
+    }
+
     /**
      * Retrieves the current IP address available for LAN networks.
      *
@@ -229,7 +336,9 @@ public class RouterModel extends NetworkDeviceModel {
                 return false;
             }
             routerInterface.addConnection(switchModel);
-            GlobalEventBus.post(new RouterInterfaceCreatedEvent(routerInterface));
+            if (eventBus != null) {
+                eventBus.post(new RouterInterfaceCreatedEvent(routerInterface));
+            }
         }
         directConnections.add(networkDeviceModel);
         return true;
@@ -252,7 +361,33 @@ public class RouterModel extends NetworkDeviceModel {
      * @return The MAC address associated with the specified IP address.
      */
     public MACAddress queryArp(IPAddress ipAddress) {
-        return arpCache.getMAC(ipAddress);
+        MACAddress macAddress = arpCache.getMAC(ipAddress);
+        ArpResolutionEvent.emit(this, ipAddress, macAddress);
+        return macAddress;
+    }
+
+    /**
+     * Removes ARP entries resolving to the specified MAC address.
+     *
+     * @param macAddress The MAC address that is no longer reachable.
+     */
+    public void flushArp(MACAddress macAddress) {
+        arpCache.removeEntriesFor(macAddress);
+    }
+
+    /**
+     * Retrieves the router interface a LAN device (PC or switch) is connected to.
+     *
+     * @param networkDeviceModel The connected device.
+     * @return The interface the device is connected to, or null if it is not directly connected.
+     */
+    public RouterInterface getInterfaceTowards(NetworkDeviceModel networkDeviceModel) {
+        for (RouterInterface routerInterface : routerInterfaces.values()) {
+            if (routerInterface.getDirectConnections().contains(networkDeviceModel)) {
+                return routerInterface;
+            }
+        }
+        return null;
     }
 
     public RouterInterface getLastRouterInterface() {
@@ -0,0 +1,61 @@
+package model;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps one tail drop queue per traffic class and always serves the highest priority non-empty class first,
+ * so routing and address resolution traffic overtakes queued data.
+ */
+public class StrictPriorityQueue extends AbstractQueueDiscipline {
+    private final List<ArrayDeque<QueuedFrame>> queues;
+    private final int capacityPerClass;
+    private int size = 0;
+
+    /**
+     * Constructs a strict priority queue.
+     *
+     * @param capacityPerClass the maximum number of waiting frames of each traffic class
+     */
+    public StrictPriorityQueue(int capacityPerClass) {
+        this.capacityPerClass = capacityPerClass;
+        this.queues = new ArrayList<>(TrafficClass.values().length);
+        for (int i = 0; i < TrafficClass.values().length; i++) {
+            queues.add(new ArrayDeque<>());
+        }
+    }
+
+    @Override
+    protected boolean offer(QueuedFrame queuedFrame) {
+        ArrayDeque<QueuedFrame> queue = queues.get(queuedFrame.trafficClass().ordinal());
+        if (queue.size() >= capacityPerClass) {
+            return false;
+        }
+        size++;
+        return queue.add(queuedFrame);
+    }
+
+    @Override
+    protected QueuedFrame poll() {
+        for (ArrayDeque<QueuedFrame> queue : queues) {
+            if (!queue.isEmpty()) {
+                size--;
+                return queue.poll();
+            }
+        }
+        return null;
+    }
+
+    @Override
+    protected int queuedFrames() {
+        return size;
+    }
+
+    @Override
+    protected void copyQueuedFrames(List<QueuedFrame> target) {
+        for (ArrayDeque<QueuedFrame> queue : queues) {
+            target.addAll(queue);
+        }
+    }
+}
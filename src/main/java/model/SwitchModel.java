@@ -91,6 +91,21 @@ public class SwitchModel extends NetworkDeviceModel {
         return -1;
     }
 
+    /**
+     * Retrieves the port a network device is connected to.
+     *
+     * @param networkDeviceModel The connected network device.
+     * @return The port number, or -1 if the device is not connected to this switch.
+     */
+    public int getPortOf(NetworkDeviceModel networkDeviceModel) {
+        for (SwitchConnection switchConnection : switchConnections) {
+            if (switchConnection.getNetworkDeviceModel() == networkDeviceModel) {
+                return switchConnection.getPort();
+            }
+        }
+        return -1;
+    }
+
     /**
      * Adds a network device connection to the switch.
      *
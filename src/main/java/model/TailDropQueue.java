@@ -0,0 +1,44 @@
+package model;
+
+import java.util.ArrayDeque;
+import java.util.List;
+
+/**
+ * First-in first-out queue that drops arriving frames once its capacity is reached.
+ */
+public class TailDropQueue extends AbstractQueueDiscipline {
+    private final ArrayDeque<QueuedFrame> frames = new ArrayDeque<>();
+    private final int capacity;
+
+    /**
+     * Constructs a tail drop queue.
+     *
+     * @param capacity the maximum number of waiting frames
+     */
+    public TailDropQueue(int capacity) {
+        this.capacity = capacity;
+    }
+
+    @Override
+    protected boolean offer(QueuedFrame queuedFrame) {
+        if (frames.size() >= capacity) {
+            return false;
+        }
+        return frames.add(queuedFrame);
+    }
+
+    @Override
+    protected QueuedFrame poll() {
+        return frames.poll();
+    }
+
+    @Override
+    protected int queuedFrames() {
+        return frames.size();
+    }
+
+    @Override
+    protected void copyQueuedFrames(List<QueuedFrame> target) {
+        target.addAll(frames);
+    }
+}
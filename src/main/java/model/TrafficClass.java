@@ -0,0 +1,32 @@
+package model;
+
+/**
+ * Classifies messages into traffic classes used by router egress queue disciplines.
+ * Classes are declared in descending scheduling priority, control-plane traffic first.
+ */
+public enum TrafficClass {
+    ROUTING,
+    ADDRESS_RESOLUTION,
+    CONFIGURATION,
+    DATA;
+
+    /**
+     * Determines the traffic class of a message based on its type.
+     *
+     * @param message the message to classify
+     * @return the traffic class of the message
+     */
+    public static TrafficClass of(Message message) {
+        if (message instanceof RipMessage) {
+            return ROUTING;
+        }
+        if (message instanceof ArpRequestMessage || message instanceof ArpResponseMessage) {
+            return ADDRESS_RESOLUTION;
+        }
+        if (message instanceof DhcpDiscoverMessage || message instanceof DhcpOfferMessage
+                || message instanceof DhcpResponseMessage || message instanceof DhcpAckMessage) {
+            return CONFIGURATION;
+        }
+        return DATA;
+    }
+}
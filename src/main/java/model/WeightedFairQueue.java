@@ -0,0 +1,86 @@
+package model;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Weighted fair queuing over traffic classes implemented as deficit round robin.
+ * Frames are treated as equally sized, so in every round each backlogged class may send as many frames as its weight.
+ */
+public class WeightedFairQueue extends AbstractQueueDiscipline {
+    private final List<ArrayDeque<QueuedFrame>> queues;
+    private final int[] weights;
+    private final int capacityPerClass;
+    private int size = 0;
+    private int currentClass = 0;
+    private int remainingCredit;
+
+    /**
+     * Constructs a weighted fair queue.
+     *
+     * @param capacityPerClass the maximum number of waiting frames of each traffic class
+     * @param weights          the share of every traffic class, classes without a weight get 1
+     */
+    public WeightedFairQueue(int capacityPerClass, Map<TrafficClass, Integer> weights) {
+        this.capacityPerClass = capacityPerClass;
+        this.queues = new ArrayList<>(TrafficClass.values().length);
+        this.weights = new int[TrafficClass.values().length];
+        for (TrafficClass trafficClass : TrafficClass.values()) {
+            queues.add(new ArrayDeque<>());
+            this.weights[trafficClass.ordinal()] = Math.max(1, weights.getOrDefault(trafficClass, 1));
+        }
+        this.remainingCredit = this.weights[0];
+    }
+
+    /**
+     * Constructs a weighted fair queue that gives control-plane classes four times the share of data.
+     *
+     * @param capacityPerClass the maximum number of waiting frames of each traffic class
+     */
+    public WeightedFairQueue(int capacityPerClass) {
+        this(capacityPerClass, new EnumMap<>(Map.of(
+                TrafficClass.ROUTING, 4,
+                TrafficClass.ADDRESS_RESOLUTION, 4,
+                TrafficClass.CONFIGURATION, 2,
+                TrafficClass.DATA, 1)));
+    }
+
+    @Override
+    protected boolean offer(QueuedFrame queuedFrame) {
+        ArrayDeque<QueuedFrame> queue = queues.get(queuedFrame.trafficClass().ordinal());
+        if (queue.size() >= capacityPerClass) {
+            return false;
+        }
+        size++;
+        return queue.add(queuedFrame);
+    }
+
+    @Override
+    protected QueuedFrame poll() {
+        if (size == 0) {
+            return null;
+        }
+        while (queues.get(currentClass).isEmpty() || remainingCredit == 0) {
+            currentClass = (currentClass + 1) % queues.size();
+            remainingCredit = weights[currentClass];
+        }
+        remainingCredit--;
+        size--;
+        return queues.get(currentClass).poll();
+    }
+
+    @Override
+    protected int queuedFrames() {
+        return size;
+    }
+
+    @Override
+    protected void copyQueuedFrames(List<QueuedFrame> target) {
+        for (ArrayDeque<QueuedFrame> queue : queues) {
+            target.addAll(queue);
+        }
+    }
+}
@@ -1,15 +1,19 @@
 module cz.cvut.fel.pjv.hofmaad {
     requires javafx.controls;
     requires java.logging;
+    requires java.management;
+    requires jdk.jfr;
     requires org.slf4j;
     requires org.apache.logging.log4j;
+    // Not used directly, log4j needs it on the module path for its asynchronous loggers
+    requires com.lmax.disruptor;
     requires com.fasterxml.jackson.databind;
-    requires com.google.common;
-    requires com.google.gson;
     exports entry;
     exports model;
     exports controller;
     exports common;
     exports view;
     exports io;
+    exports metrics;
+    exports profiling;
 }
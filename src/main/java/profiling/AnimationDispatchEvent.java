@@ -0,0 +1,44 @@
+package profiling;
+
+import jdk.jfr.*;
+import model.Frame;
+import model.NetworkDeviceModel;
+
+/**
+ * A frame put on its link was handed to the UI to be animated, or left undrawn over the animation budget.
+ */
+@Name("spudrnet.AnimationDispatch")
+@Label("Animation Dispatch")
+@Category({"Network Simulation", "Animation"})
+@Description("A frame put on its link was handed to the UI to be animated, or left undrawn over the animation budget")
+@Enabled(false)
+@StackTrace(false)
+public class AnimationDispatchEvent extends Event {
+    @Label("From")
+    String fromDevice;
+
+    @Label("To")
+    String toDevice;
+
+    @Label("Message Type")
+    String messageType;
+
+    @Label("Animated")
+    boolean animated;
+
+    @Label("Frames In Flight")
+    @Description("Frames being animated at the moment")
+    int framesInFlight;
+
+    public static void emit(NetworkDeviceModel startDevice, NetworkDeviceModel endDevice, Frame frame, boolean animated, int framesInFlight) {
+        AnimationDispatchEvent event = new AnimationDispatchEvent();
+        if (event.shouldCommit()) {
+            event.fromDevice = DeviceNames.of(startDevice);
+            event.toDevice = DeviceNames.of(endDevice);
+            event.messageType = DeviceNames.messageType(frame);
+            event.animated = animated;
+            event.framesInFlight = framesInFlight;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package profiling;
+
+import jdk.jfr.*;
+import model.IPAddress;
+import model.MACAddress;
+import model.NetworkDeviceModel;
+
+/**
+ * A device looked up the MAC address of an IP address in its ARP cache.
+ */
+@Name("spudrnet.ArpResolution")
+@Label("ARP Resolution")
+@Category({"Network Simulation", "Protocols"})
+@Description("A device looked up the MAC address of an IP address in its ARP cache")
+@Enabled(false)
+@StackTrace(false)
+public class ArpResolutionEvent extends Event {
+    @Label("Device")
+    String device;
+
+    @Label("Address")
+    String ipAddress;
+
+    @Label("Resolved")
+    boolean resolved;
+
+    public static void emit(NetworkDeviceModel device, IPAddress ipAddress, MACAddress macAddress) {
+        ArpResolutionEvent event = new ArpResolutionEvent();
+        if (event.shouldCommit()) {
+            event.device = DeviceNames.of(device);
+            event.ipAddress = String.valueOf(ipAddress);
+            event.resolved = macAddress != null;
+            event.commit();
+        }
+    }
+}
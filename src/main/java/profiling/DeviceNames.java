@@ -0,0 +1,33 @@
+package profiling;
+
+import model.Frame;
+import model.NetworkDeviceModel;
+import model.RouterInterface;
+
+/**
+ * Names devices in metrics and recorded events.
+ */
+public final class DeviceNames {
+    private DeviceNames() {
+    }
+
+    /**
+     * Names a device. Router interfaces have no name of their own and are named after their router and address.
+     *
+     * @param device the device
+     * @return the device's name, e.g. {@code PC3} or {@code Router0[192.168.1.1]}
+     */
+    public static String of(NetworkDeviceModel device) {
+        if (device.getName() != null) {
+            return device.getName();
+        }
+        if (device instanceof RouterInterface routerInterface) {
+            return routerInterface.getInterfacesRouter().getName() + "[" + routerInterface.getIpAddress() + "]";
+        }
+        return device.getUuid().toString();
+    }
+
+    static String messageType(Frame frame) {
+        return frame.getPacket().getMessage().getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,31 @@
+package profiling;
+
+import jdk.jfr.*;
+import model.IPAddress;
+import model.RouterInterface;
+
+/**
+ * A router interface leased an address of its LAN to a PC asking over DHCP.
+ */
+@Name("spudrnet.DhcpAllocation")
+@Label("DHCP Allocation")
+@Category({"Network Simulation", "Protocols"})
+@Description("A router interface leased an address of its LAN to a PC asking over DHCP")
+@Enabled(false)
+@StackTrace(false)
+public class DhcpAllocationEvent extends Event {
+    @Label("Interface")
+    String device;
+
+    @Label("Offered Address")
+    String offeredIp;
+
+    public static void emit(RouterInterface routerInterface, IPAddress offeredIpAddress) {
+        DhcpAllocationEvent event = new DhcpAllocationEvent();
+        if (event.shouldCommit()) {
+            event.device = DeviceNames.of(routerInterface);
+            event.offeredIp = String.valueOf(offeredIpAddress);
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package profiling;
+
+import jdk.jfr.*;
+import model.Frame;
+import model.RouterInterface;
+
+/**
+ * A frame left the egress queue of a router interface for its link.
+ */
+@Name("spudrnet.FrameDequeued")
+@Label("Frame Dequeued")
+@Category({"Network Simulation", "Frames"})
+@Description("A frame left the egress queue of a router interface for its link")
+@Enabled(false)
+@StackTrace(false)
+public class FrameDequeuedEvent extends Event {
+    @Label("Interface")
+    String device;
+
+    @Label("Message Type")
+    String messageType;
+
+    @Label("Queue Depth")
+    @Description("Frames still waiting in the queue")
+    long queueDepth;
+
+    @Label("Queue Wait")
+    @Description("Simulated time the frame spent in the queue")
+    @Timespan(Timespan.MILLISECONDS)
+    long waitMillis;
+
+    public static void emit(RouterInterface routerInterface, Frame frame, long waitMillis) {
+        FrameDequeuedEvent event = new FrameDequeuedEvent();
+        if (event.shouldCommit()) {
+            event.device = DeviceNames.of(routerInterface);
+            event.messageType = DeviceNames.messageType(frame);
+            event.queueDepth = routerInterface.getEgressQueue().getMetrics().getTotalDepth();
+            event.waitMillis = waitMillis;
+            event.commit();
+        }
+    }
+}
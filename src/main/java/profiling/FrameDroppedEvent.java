@@ -0,0 +1,45 @@
+package profiling;
+
+import jdk.jfr.*;
+import model.Frame;
+import model.NetworkConnection;
+
+/**
+ * A frame was dropped by a full egress queue or lost on a link that is down.
+ */
+@Name("spudrnet.FrameDropped")
+@Label("Frame Dropped")
+@Category({"Network Simulation", "Frames"})
+@Description("A frame was dropped by a full egress queue or lost on a link that is down")
+@Enabled(false)
+@StackTrace(false)
+public class FrameDroppedEvent extends Event {
+    public static final String QUEUE_FULL = "Queue full";
+    public static final String LINK_DOWN = "Link down";
+
+    @Label("From")
+    String fromDevice;
+
+    @Label("To")
+    String toDevice;
+
+    @Label("Message Type")
+    String messageType;
+
+    @Label("Reason")
+    String reason;
+
+    /**
+     * @param reason {@link #QUEUE_FULL} or {@link #LINK_DOWN}
+     */
+    public static void emit(NetworkConnection networkConnection, Frame frame, String reason) {
+        FrameDroppedEvent event = new FrameDroppedEvent();
+        if (event.shouldCommit()) {
+            event.fromDevice = DeviceNames.of(networkConnection.getStartDevice());
+            event.toDevice = DeviceNames.of(networkConnection.getEndDevice());
+            event.messageType = DeviceNames.messageType(frame);
+            event.reason = reason;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package profiling;
+
+import jdk.jfr.*;
+import model.Frame;
+import model.RouterInterface;
+
+/**
+ * A frame was admitted to the egress queue of a router interface.
+ */
+@Name("spudrnet.FrameEnqueued")
+@Label("Frame Enqueued")
+@Category({"Network Simulation", "Frames"})
+@Description("A frame was admitted to the egress queue of a router interface")
+@Enabled(false)
+@StackTrace(false)
+public class FrameEnqueuedEvent extends Event {
+    @Label("Interface")
+    String device;
+
+    @Label("Message Type")
+    String messageType;
+
+    @Label("Queue Depth")
+    @Description("Frames waiting in the queue, including this one")
+    long queueDepth;
+
+    public static void emit(RouterInterface routerInterface, Frame frame) {
+        FrameEnqueuedEvent event = new FrameEnqueuedEvent();
+        if (event.shouldCommit()) {
+            event.device = DeviceNames.of(routerInterface);
+            event.messageType = DeviceNames.messageType(frame);
+            event.queueDepth = routerInterface.getEgressQueue().getMetrics().getTotalDepth();
+            event.commit();
+        }
+    }
+}
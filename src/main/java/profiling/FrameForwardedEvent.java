@@ -0,0 +1,46 @@
+package profiling;
+
+import jdk.jfr.*;
+import model.Frame;
+import model.NetworkConnection;
+
+/**
+ * A device handled a frame that crossed its link, the duration of the event is the CPU time the handling took.
+ */
+@Name("spudrnet.FrameForwarded")
+@Label("Frame Forwarded")
+@Category({"Network Simulation", "Frames"})
+@Description("A device handled a frame that crossed its link")
+@Enabled(false)
+@StackTrace(false)
+public class FrameForwardedEvent extends Event {
+    @Label("From")
+    String fromDevice;
+
+    @Label("To")
+    String toDevice;
+
+    @Label("Message Type")
+    String messageType;
+
+    /**
+     * Starts timing the handling of a frame.
+     *
+     * @return the event to {@link #finish} once the frame is handled
+     */
+    public static FrameForwardedEvent start() {
+        FrameForwardedEvent event = new FrameForwardedEvent();
+        event.begin();
+        return event;
+    }
+
+    public void finish(NetworkConnection networkConnection, Frame frame) {
+        end();
+        if (shouldCommit()) {
+            fromDevice = DeviceNames.of(networkConnection.getStartDevice());
+            toDevice = DeviceNames.of(networkConnection.getEndDevice());
+            messageType = DeviceNames.messageType(frame);
+            commit();
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package profiling;
+
+import jdk.jfr.*;
+import model.IPAddress;
+import model.RouterModel;
+
+/**
+ * A router merged a received RIP advertisement into its routing table.
+ */
+@Name("spudrnet.RipUpdate")
+@Label("RIP Update")
+@Category({"Network Simulation", "Protocols"})
+@Description("A router merged a received RIP advertisement into its routing table")
+@Enabled(false)
+@StackTrace(false)
+public class RipUpdateEvent extends Event {
+    @Label("Router")
+    String router;
+
+    @Label("Source")
+    String sourceIp;
+
+    @Label("Advertised Routes")
+    int advertisedRoutes;
+
+    @Label("Routing Table Size")
+    int routingTableSize;
+
+    @Label("Changed")
+    boolean changed;
+
+    /**
+     * Starts timing a merge.
+     *
+     * @return the event to {@link #finish} once the routing table is merged
+     */
+    public static RipUpdateEvent start() {
+        RipUpdateEvent event = new RipUpdateEvent();
+        event.begin();
+        return event;
+    }
+
+    public void finish(RouterModel routerModel, IPAddress sourceIpAddress, int advertisedRoutes, boolean changed) {
+        end();
+        if (shouldCommit()) {
+            this.router = routerModel.getName();
+            this.sourceIp = String.valueOf(sourceIpAddress);
+            this.advertisedRoutes = advertisedRoutes;
+            this.routingTableSize = routerModel.getRoutingTable().getEntries().size();
+            this.changed = changed;
+            commit();
+        }
+    }
+}
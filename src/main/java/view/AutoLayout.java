@@ -0,0 +1,141 @@
+package view;
+
+import common.NetworkDeviceType;
+import javafx.application.Platform;
+import javafx.concurrent.Task;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Arranges the devices of a workspace with a {@link ForceDirectedLayout} without blocking the JavaFX Application
+ * Thread.
+ * <p>
+ * The positions and links are taken from the views on the JavaFX Application Thread before the task starts. While the
+ * layout settles its positions are pushed to the views at most every {@value #PUBLISH_INTERVAL_MILLIS} ms; positions
+ * computed while the previous ones wait to be shown replace them, so a slow pulse never queues up moves. The
+ * hierarchical layout puts routers on the top row, switches below them and PCs at the bottom.
+ */
+public class AutoLayout extends Task<Void> {
+    static final int ITERATIONS = 300;
+    private static final long PUBLISH_INTERVAL_MILLIS = 50;
+    private static final double MARGIN_X = 50;
+    // Below the menu and the toolbar
+    private static final double MARGIN_Y = 100;
+    private static final AtomicInteger workerCount = new AtomicInteger();
+    // Shared by all layouts, the threads idle between them
+    private static final ExecutorService WORKERS = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+        Thread thread = new Thread(runnable, "auto-layout-" + workerCount.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final NetworkDeviceView[] devices;
+    private final ForceDirectedLayout layout;
+    private final Consumer<NetworkDeviceView> movedListener;
+    private final AtomicReference<double[][]> pendingPositions = new AtomicReference<>();
+
+    /**
+     * Takes the topology from the views, call on the JavaFX Application Thread.
+     *
+     * @param devices       The devices to arrange.
+     * @param lines         The links between them.
+     * @param hierarchical  Whether to arrange the devices in rows by their type.
+     * @param movedListener Called on the JavaFX Application Thread for every device moved.
+     */
+    public AutoLayout(List<NetworkDeviceView> devices, List<ConnectionLine> lines, boolean hierarchical, Consumer<NetworkDeviceView> movedListener) {
+        this.devices = devices.toArray(new NetworkDeviceView[0]);
+        this.movedListener = movedListener;
+        Map<NetworkDeviceView, Integer> indices = new HashMap<>();
+        double[] x = new double[this.devices.length];
+        double[] y = new double[this.devices.length];
+        int[] layers = hierarchical ? new int[this.devices.length] : null;
+        for (int device = 0; device < this.devices.length; device++) {
+            indices.put(this.devices[device], device);
+            x[device] = this.devices[device].getLayoutX();
+            y[device] = this.devices[device].getLayoutY();
+            if (hierarchical) {
+                layers[device] = layer(this.devices[device].getNetworkDeviceType());
+            }
+        }
+        int[] edgeStarts = new int[lines.size()];
+        int[] edgeEnds = new int[lines.size()];
+        int edgeCount = 0;
+        for (ConnectionLine line : lines) {
+            Integer start = indices.get(line.getStartDevice());
+            Integer end = indices.get(line.getEndDevice());
+            if (start != null && end != null) {
+                edgeStarts[edgeCount] = start;
+                edgeEnds[edgeCount] = end;
+                edgeCount++;
+            }
+        }
+        layout = new ForceDirectedLayout(x, y, Arrays.copyOf(edgeStarts, edgeCount), Arrays.copyOf(edgeEnds, edgeCount), layers, ITERATIONS);
+    }
+
+    private static int layer(NetworkDeviceType networkDeviceType) {
+        return switch (networkDeviceType) {
+            case ROUTER, ROUTER_INTERFACE -> 0;
+            case SWITCH -> 1;
+            case PC -> 2;
+        };
+    }
+
+    @Override
+    protected Void call() throws Exception {
+        long nextPublishNanos = System.nanoTime();
+        while (layout.step(WORKERS)) {
+            if (isCancelled()) {
+                return null;
+            }
+            updateProgress(layout.getIteration(), layout.getIterations());
+            if (System.nanoTime() - nextPublishNanos >= 0) {
+                publish();
+                nextPublishNanos = System.nanoTime() + PUBLISH_INTERVAL_MILLIS * 1_000_000;
+            }
+        }
+        publish();
+        updateProgress(1, 1);
+        return null;
+    }
+
+    /**
+     * Hands the current positions, moved below and right of the margins, to the JavaFX Application Thread.
+     */
+    private void publish() {
+        double[] x = layout.getX();
+        double[] y = layout.getY();
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        for (int device = 0; device < x.length; device++) {
+            minX = Math.min(minX, x[device]);
+            minY = Math.min(minY, y[device]);
+        }
+        for (int device = 0; device < x.length; device++) {
+            x[device] += MARGIN_X - minX;
+            y[device] += MARGIN_Y - minY;
+        }
+        if (pendingPositions.getAndSet(new double[][]{x, y}) == null) {
+            Platform.runLater(this::applyPendingPositions);
+        }
+    }
+
+    private void applyPendingPositions() {
+        double[][] positions = pendingPositions.getAndSet(null);
+        if (positions == null || isCancelled()) {
+            return;
+        }
+        for (int device = 0; device < devices.length; device++) {
+            devices[device].setLayoutX(positions[0][device]);
+            devices[device].setLayoutY(positions[1][device]);
+            movedListener.accept(devices[device]);
+        }
+    }
+}
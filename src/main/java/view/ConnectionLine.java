@@ -2,6 +2,7 @@ package view;
 
 import common.Connection;
 import javafx.scene.control.Label;
+import javafx.scene.paint.Color;
 import javafx.scene.shape.Line;
 
 /**
@@ -14,6 +15,9 @@ public class ConnectionLine extends Line implements Connection {
     private final Label middleLabel;
     private final Label startLabel;
     private final Label endLabel;
+    private final Label trafficLabel;
+    private boolean trafficShown = false;
+    private boolean culled = false;
 
     /**
      * Constructs a ConnectionLine between two devices with labels for additional information.
@@ -38,6 +42,9 @@ public class ConnectionLine extends Line implements Connection {
         this.startLabel.setStyle("-fx-text-fill: #ff0942; -fx-font-style: italic;");
         this.endLabel = new Label(endLabel);
         this.endLabel.setStyle("-fx-text-fill: #ff0942; -fx-font-style: italic;");
+        this.trafficLabel = new Label();
+        this.trafficLabel.setStyle("-fx-text-fill: #008b8b; -fx-font-size: 10;");
+        this.trafficLabel.setVisible(false);
     }
 
     public NetworkDeviceView getStartDevice() {
@@ -65,4 +72,61 @@ public class ConnectionLine extends Line implements Connection {
     public Label getEndLabel() {
         return endLabel;
     }
+
+    public Label getTrafficLabel() {
+        return trafficLabel;
+    }
+
+    /**
+     * Shows the traffic that was counted instead of animated as the width of the line and a rate label.
+     *
+     * @param framesPerSecond the rate of frames over the link that were not animated, 0 hides the indicator
+     */
+    public void showAggregatedTraffic(double framesPerSecond) {
+        trafficShown = framesPerSecond > 0;
+        trafficLabel.setVisible(trafficShown && !culled);
+        if (!trafficShown) {
+            setStrokeWidth(1);
+            return;
+        }
+        // Logarithmic so that both a few and thousands of frames per second remain distinguishable
+        setStrokeWidth(1 + Math.min(6, Math.log10(1 + framesPerSecond) * 2));
+        trafficLabel.setText(String.format("%.0f/s", framesPerSecond));
+    }
+
+    /**
+     * @return whether the traffic rate label is shown
+     */
+    public boolean isTrafficShown() {
+        return trafficShown;
+    }
+
+    /**
+     * Hides the line with its labels while it lies outside the visible part of the workspace.
+     *
+     * @param culled true to hide the line
+     */
+    public void setCulled(boolean culled) {
+        this.culled = culled;
+        setVisible(!culled);
+        middleLabel.setVisible(!culled);
+        startLabel.setVisible(!culled);
+        endLabel.setVisible(!culled);
+        trafficLabel.setVisible(trafficShown && !culled);
+    }
+
+    /**
+     * Draws the line dashed and red while the link it represents is down.
+     *
+     * @param failed true if the link is down
+     */
+    public void setFailed(boolean failed) {
+        if (failed) {
+            setStroke(Color.RED);
+            getStrokeDashArray().setAll(8.0, 6.0);
+        } else {
+            setStroke(Color.BLACK);
+            getStrokeDashArray().clear();
+        }
+    }
 }
@@ -11,7 +11,6 @@ public class CursorFollowingNetworkDeviceHandler {
     NetworkDeviceView cursorFollowingNetworkDevice;
 
     public CursorFollowingNetworkDeviceHandler() {
-        GlobalEventBus.register(this);
     }
 
     public NetworkDeviceView get() {
@@ -32,7 +31,7 @@ public class CursorFollowingNetworkDeviceHandler {
     }
 
     public void drop() {
-        GlobalEventBus.post(new DecrementNameCounterRequestEvent(cursorFollowingNetworkDevice.getNetworkDeviceType()));
+        GlobalEventBus.application().post(new DecrementNameCounterRequestEvent(cursorFollowingNetworkDevice.getNetworkDeviceType()));
         cursorFollowingNetworkDevice = null;
     }
 }
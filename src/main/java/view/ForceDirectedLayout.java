@@ -0,0 +1,398 @@
+package view;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Lays out a graph with a force-directed simulation: every two nodes push each other apart, the nodes at the ends of
+ * an edge pull each other together and every node is pulled slightly towards the centre, so disconnected parts stay
+ * close. Nodes move a limited distance per iteration and the limit shrinks from iteration to iteration until the
+ * layout settles.
+ * <p>
+ * The repulsion between all pairs is approximated with a Barnes–Hut quadtree: a distant cell of nodes pushes like a
+ * single node of their combined weight at their centre, so an iteration takes O(n log n) rather than O(n²). The
+ * repulsion is computed in chunks of nodes on a thread pool, every node from the same tree, so the result does not
+ * depend on the number of threads.
+ * <p>
+ * In a hierarchical layout every node has a layer and stays on the row of its layer, only moving sideways.
+ */
+public class ForceDirectedLayout {
+    /**
+     * The distance the nodes at the ends of an edge settle at.
+     */
+    static final double IDEAL_EDGE_LENGTH = 150;
+    /**
+     * The distance between the rows of two consecutive layers.
+     */
+    static final double LAYER_SPACING = 300;
+    /**
+     * How far away a cell must be, relative to its size, to push like a single node.
+     * Below 1/√2, so a cell is never approximated for a node inside it.
+     */
+    private static final double THETA = 0.7;
+    private static final double GRAVITY = 0.02;
+    private static final double MIN_DISTANCE = 1;
+    private static final double FINAL_TEMPERATURE = 0.5;
+    private static final int MAX_DEPTH = 24;
+    private static final int CHUNK_SIZE = 512;
+    private static final int EMPTY = -1;
+    private static final int MULTIPLE = -2;
+    private static final double GOLDEN_ANGLE = Math.PI * (3 - Math.sqrt(5));
+
+    private final int nodeCount;
+    private final double[] x;
+    private final double[] y;
+    private final double[] forceX;
+    private final double[] forceY;
+    private final int[] edgeStarts;
+    private final int[] edgeEnds;
+    private final boolean hierarchical;
+    private final int iterations;
+    private final double cooling;
+    private int iteration = 0;
+    private double temperature;
+
+    // The Barnes–Hut tree, rebuilt every iteration into the same arrays. Cell 0 is the root, so 0 marks a missing child.
+    private int cellCount;
+    private int[] children = new int[0];
+    private int[] bodies = new int[0];
+    private double[] masses = new double[0];
+    private double[] centerX = new double[0];
+    private double[] centerY = new double[0];
+    private double[] cellMinX = new double[0];
+    private double[] cellMinY = new double[0];
+    private double[] cellSizes = new double[0];
+
+    /**
+     * Prepares a layout starting from the given positions.
+     *
+     * @param x          The horizontal positions of the nodes.
+     * @param y          The vertical positions of the nodes, ignored in a hierarchical layout.
+     * @param edgeStarts The node at one end of every edge.
+     * @param edgeEnds   The node at the other end of every edge.
+     * @param layers     The layer of every node from 0 at the top for a hierarchical layout, null for a free one.
+     * @param iterations How many iterations the layout takes to settle.
+     * @throws IllegalArgumentException if the arrays differ in length or an edge refers to a missing node.
+     */
+    public ForceDirectedLayout(double[] x, double[] y, int[] edgeStarts, int[] edgeEnds, int[] layers, int iterations) {
+        if (x.length != y.length || edgeStarts.length != edgeEnds.length || (layers != null && layers.length != x.length)) {
+            throw new IllegalArgumentException("The positions, the ends of the edges and the layers must come in pairs");
+        }
+        nodeCount = x.length;
+        for (int edge = 0; edge < edgeStarts.length; edge++) {
+            if (edgeStarts[edge] < 0 || edgeStarts[edge] >= nodeCount || edgeEnds[edge] < 0 || edgeEnds[edge] >= nodeCount) {
+                throw new IllegalArgumentException("Edge " + edge + " refers to a missing node");
+            }
+        }
+        this.x = x.clone();
+        this.y = y.clone();
+        if (layers != null) {
+            for (int node = 0; node < nodeCount; node++) {
+                this.y[node] = layers[node] * LAYER_SPACING;
+            }
+        }
+        this.edgeStarts = edgeStarts.clone();
+        this.edgeEnds = edgeEnds.clone();
+        this.hierarchical = layers != null;
+        this.iterations = iterations;
+        forceX = new double[nodeCount];
+        forceY = new double[nodeCount];
+        // Enough to move a node across a layout of this many nodes at first, whatever the positions were
+        temperature = IDEAL_EDGE_LENGTH * Math.max(1, Math.sqrt(nodeCount)) / 2;
+        cooling = Math.pow(FINAL_TEMPERATURE / temperature, 1.0 / Math.max(1, iterations));
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    public int getIteration() {
+        return iteration;
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    public boolean isDone() {
+        return iteration >= iterations || nodeCount == 0;
+    }
+
+    /**
+     * @return a copy of the current horizontal positions
+     */
+    public double[] getX() {
+        return x.clone();
+    }
+
+    /**
+     * @return a copy of the current vertical positions
+     */
+    public double[] getY() {
+        return y.clone();
+    }
+
+    /**
+     * Runs one iteration of the layout.
+     *
+     * @param workers The pool computing the repulsion, a layout of few nodes is computed on the calling thread. Must
+     *                not be the pool the caller runs on.
+     * @return false once the layout has settled
+     * @throws InterruptedException if the thread is interrupted while waiting for the pool.
+     */
+    public boolean step(ExecutorService workers) throws InterruptedException {
+        if (isDone()) {
+            return false;
+        }
+        buildTree();
+        if (nodeCount <= CHUNK_SIZE) {
+            computeRepulsion(0, nodeCount, new int[stackSize()]);
+        } else {
+            List<Callable<Void>> chunks = new ArrayList<>();
+            for (int start = 0; start < nodeCount; start += CHUNK_SIZE) {
+                int chunkStart = start;
+                int chunkEnd = Math.min(nodeCount, start + CHUNK_SIZE);
+                chunks.add(() -> {
+                    computeRepulsion(chunkStart, chunkEnd, new int[stackSize()]);
+                    return null;
+                });
+            }
+            for (Future<Void> chunk : workers.invokeAll(chunks)) {
+                try {
+                    chunk.get();
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Computing the repulsion failed", e.getCause());
+                }
+            }
+        }
+        computeAttraction();
+        move();
+        temperature *= cooling;
+        iteration++;
+        return !isDone();
+    }
+
+    private void computeAttraction() {
+        for (int edge = 0; edge < edgeStarts.length; edge++) {
+            int start = edgeStarts[edge];
+            int end = edgeEnds[edge];
+            double dx = x[start] - x[end];
+            double dy = y[start] - y[end];
+            double distance = Math.sqrt(dx * dx + dy * dy);
+            // d² / k along the edge, i.e. d / k per unit of dx and dy
+            double pull = distance / IDEAL_EDGE_LENGTH;
+            forceX[start] -= dx * pull;
+            forceY[start] -= dy * pull;
+            forceX[end] += dx * pull;
+            forceY[end] += dy * pull;
+        }
+        double sumX = 0;
+        double sumY = 0;
+        for (int node = 0; node < nodeCount; node++) {
+            sumX += x[node];
+            sumY += y[node];
+        }
+        double meanX = sumX / nodeCount;
+        double meanY = sumY / nodeCount;
+        for (int node = 0; node < nodeCount; node++) {
+            forceX[node] -= GRAVITY * (x[node] - meanX);
+            forceY[node] -= GRAVITY * (y[node] - meanY);
+        }
+    }
+
+    private void move() {
+        for (int node = 0; node < nodeCount; node++) {
+            double fx = forceX[node];
+            double fy = hierarchical ? 0 : forceY[node];
+            double force = Math.sqrt(fx * fx + fy * fy);
+            if (force > 0) {
+                double distance = Math.min(force, temperature);
+                x[node] += fx / force * distance;
+                y[node] += fy / force * distance;
+            }
+        }
+    }
+
+    /**
+     * Computes the repulsion on a range of nodes, k² / d from every other node, walking the tree depth first.
+     */
+    private void computeRepulsion(int startNode, int endNode, int[] stack) {
+        double k2 = IDEAL_EDGE_LENGTH * IDEAL_EDGE_LENGTH;
+        for (int node = startNode; node < endNode; node++) {
+            double px = x[node];
+            double py = y[node];
+            double fx = 0;
+            double fy = 0;
+            int top = 0;
+            stack[top++] = 0;
+            while (top > 0) {
+                int cell = stack[--top];
+                int body = bodies[cell];
+                if (masses[cell] == 0 || body == node) {
+                    continue;
+                }
+                double mass = masses[cell];
+                double cx = centerX[cell];
+                double cy = centerY[cell];
+                double dx = px - cx;
+                double dy = py - cy;
+                double distanceSquared = dx * dx + dy * dy;
+                if (body == EMPTY && cellSizes[cell] * cellSizes[cell] >= THETA * THETA * distanceSquared) {
+                    for (int quadrant = 0; quadrant < 4; quadrant++) {
+                        int child = children[4 * cell + quadrant];
+                        if (child != 0) {
+                            stack[top++] = child;
+                        }
+                    }
+                    continue;
+                }
+                if (body == MULTIPLE && containsPoint(cell, px, py)) {
+                    // Nodes piled up at the depth limit, the node itself is among them
+                    mass -= 1;
+                    if (mass == 0) {
+                        continue;
+                    }
+                    cx = (cx * (mass + 1) - px) / mass;
+                    cy = (cy * (mass + 1) - py) / mass;
+                    dx = px - cx;
+                    dy = py - cy;
+                    distanceSquared = dx * dx + dy * dy;
+                }
+                if (distanceSquared == 0) {
+                    // Nodes on top of each other are pushed apart in a direction of their own
+                    double angle = node * GOLDEN_ANGLE;
+                    dx = Math.cos(angle) * MIN_DISTANCE;
+                    dy = Math.sin(angle) * MIN_DISTANCE;
+                    distanceSquared = MIN_DISTANCE * MIN_DISTANCE;
+                } else if (distanceSquared < MIN_DISTANCE * MIN_DISTANCE) {
+                    double scale = MIN_DISTANCE / Math.sqrt(distanceSquared);
+                    dx *= scale;
+                    dy *= scale;
+                    distanceSquared = MIN_DISTANCE * MIN_DISTANCE;
+                }
+                // k² m / d along (dx, dy) / d
+                double push = k2 * mass / distanceSquared;
+                fx += dx * push;
+                fy += dy * push;
+            }
+            forceX[node] = fx;
+            forceY[node] = fy;
+        }
+    }
+
+    private boolean containsPoint(int cell, double px, double py) {
+        return px >= cellMinX[cell] && px <= cellMinX[cell] + cellSizes[cell] && py >= cellMinY[cell] && py <= cellMinY[cell] + cellSizes[cell];
+    }
+
+    /**
+     * The deepest walk pushes three siblings per level and the last child, which is popped right away.
+     */
+    private static int stackSize() {
+        return 3 * (MAX_DEPTH + 1) + 2;
+    }
+
+    private void buildTree() {
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        for (int node = 0; node < nodeCount; node++) {
+            minX = Math.min(minX, x[node]);
+            minY = Math.min(minY, y[node]);
+            maxX = Math.max(maxX, x[node]);
+            maxY = Math.max(maxY, y[node]);
+        }
+        cellCount = 0;
+        newCell(minX, minY, Math.max(MIN_DISTANCE, Math.max(maxX - minX, maxY - minY)));
+        for (int node = 0; node < nodeCount; node++) {
+            insert(node);
+        }
+        for (int cell = 0; cell < cellCount; cell++) {
+            if (masses[cell] > 0) {
+                centerX[cell] /= masses[cell];
+                centerY[cell] /= masses[cell];
+            }
+        }
+    }
+
+    /**
+     * Adds a node to the tree. Until the tree is complete the centres of the cells hold the sums of the positions.
+     */
+    private void insert(int node) {
+        int cell = 0;
+        int depth = 0;
+        while (true) {
+            if (masses[cell] == 0) {
+                bodies[cell] = node;
+                masses[cell] = 1;
+                centerX[cell] = x[node];
+                centerY[cell] = y[node];
+                return;
+            }
+            if (bodies[cell] >= 0) {
+                if (depth >= MAX_DEPTH) {
+                    bodies[cell] = MULTIPLE;
+                } else {
+                    int resident = bodies[cell];
+                    bodies[cell] = EMPTY;
+                    int child = quadrant(cell, x[resident], y[resident]);
+                    bodies[child] = resident;
+                    masses[child] = 1;
+                    centerX[child] = x[resident];
+                    centerY[child] = y[resident];
+                }
+            }
+            masses[cell]++;
+            centerX[cell] += x[node];
+            centerY[cell] += y[node];
+            if (bodies[cell] == MULTIPLE) {
+                return;
+            }
+            cell = quadrant(cell, x[node], y[node]);
+            depth++;
+        }
+    }
+
+    /**
+     * @return the quadrant of a cell a point lies in, created if it did not exist
+     */
+    private int quadrant(int cell, double px, double py) {
+        double half = cellSizes[cell] / 2;
+        int quadrant = (px >= cellMinX[cell] + half ? 1 : 0) + (py >= cellMinY[cell] + half ? 2 : 0);
+        int child = children[4 * cell + quadrant];
+        if (child == 0) {
+            child = newCell(cellMinX[cell] + (quadrant & 1) * half, cellMinY[cell] + (quadrant >> 1) * half, half);
+            children[4 * cell + quadrant] = child;
+        }
+        return child;
+    }
+
+    private int newCell(double minX, double minY, double size) {
+        if (cellCount == bodies.length) {
+            int capacity = Math.max(64, 2 * bodies.length);
+            children = Arrays.copyOf(children, 4 * capacity);
+            bodies = Arrays.copyOf(bodies, capacity);
+            masses = Arrays.copyOf(masses, capacity);
+            centerX = Arrays.copyOf(centerX, capacity);
+            centerY = Arrays.copyOf(centerY, capacity);
+            cellMinX = Arrays.copyOf(cellMinX, capacity);
+            cellMinY = Arrays.copyOf(cellMinY, capacity);
+            cellSizes = Arrays.copyOf(cellSizes, capacity);
+        }
+        int cell = cellCount++;
+        Arrays.fill(children, 4 * cell, 4 * cell + 4, 0);
+        bodies[cell] = EMPTY;
+        masses[cell] = 0;
+        centerX[cell] = 0;
+        centerY[cell] = 0;
+        cellMinX[cell] = minX;
+        cellMinY[cell] = minY;
+        cellSizes[cell] = size;
+        return cell;
+    }
+}
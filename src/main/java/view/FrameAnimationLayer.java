@@ -0,0 +1,157 @@
+package view;
+
+import common.NetworkCommunicationAnimationFinishedEvent;
+import common.SimulationEventBus;
+import javafx.animation.AnimationTimer;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.BiFunction;
+
+/**
+ * Overlay canvas drawing every frame in flight in a single pass per pulse.
+ * <p>
+ * Frames are kept in the flat arrays of {@link FramesInFlight} instead of a node and a transition each. Every pulse the position of each frame is interpolated along the current coordinates of its
+ * connection line, so frames follow devices that are being moved. The frames that arrived during a pulse are
+ * reported with one batch of {@link NetworkCommunicationAnimationFinishedEvent}s.
+ */
+public class FrameAnimationLayer extends Canvas {
+    private static final double FRAME_SIZE = 10;
+
+    private record PendingFrame(UUID communicationId, UUID startDeviceUuid, UUID endDeviceUuid, Color color, long durationMillis) {
+    }
+
+    private final Queue<PendingFrame> pendingFrames = new ConcurrentLinkedQueue<>();
+    private final BiFunction<UUID, UUID, ConnectionLine> connectionLineLookup;
+    private final SimulationEventBus eventBus;
+    private final AnimationTimer animationTimer;
+
+    private final FramesInFlight frames = new FramesInFlight();
+    private boolean drawnLastPulse = false;
+    private double scale = 1;
+    private double translateX = 0;
+    private double translateY = 0;
+
+    /**
+     * Constructs the layer.
+     *
+     * @param connectionLineLookup finds the connection line between two devices given by their UUIDs, in any order
+     * @param eventBus             the bus of the simulation session, finished animations are posted to it
+     */
+    public FrameAnimationLayer(BiFunction<UUID, UUID, ConnectionLine> connectionLineLookup, SimulationEventBus eventBus) {
+        this.connectionLineLookup = connectionLineLookup;
+        this.eventBus = eventBus;
+        setMouseTransparent(true);
+        animationTimer = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                render(now);
+            }
+        };
+    }
+
+    public void start() {
+        animationTimer.start();
+    }
+
+    public void stop() {
+        animationTimer.stop();
+    }
+
+    /**
+     * Adds a frame to be animated from the next pulse on. Safe to call from any thread.
+     *
+     * @param communicationId the id reported back when the frame arrives
+     * @param startDeviceUuid the device the frame leaves
+     * @param endDeviceUuid   the device the frame arrives to
+     * @param color           the colour of the frame
+     * @param durationMillis  how long the frame takes to cross the link
+     */
+    public void animate(UUID communicationId, UUID startDeviceUuid, UUID endDeviceUuid, Color color, long durationMillis) {
+        pendingFrames.add(new PendingFrame(communicationId, startDeviceUuid, endDeviceUuid, color, durationMillis));
+    }
+
+    /**
+     * Maps the workspace onto the layer the way a {@link TopologyCanvas} maps it onto the screen, so frames follow
+     * its zoom and pan.
+     *
+     * @param scale      how many pixels a unit of the workspace takes
+     * @param translateX where the origin of the workspace lies on the layer, horizontally
+     * @param translateY where the origin of the workspace lies on the layer, vertically
+     */
+    public void setViewTransform(double scale, double translateX, double translateY) {
+        this.scale = scale;
+        this.translateX = translateX;
+        this.translateY = translateY;
+        drawnLastPulse = true;
+    }
+
+    public int getFrameCount() {
+        return frames.size();
+    }
+
+    private void render(long now) {
+        List<NetworkCommunicationAnimationFinishedEvent> finished = new ArrayList<>();
+        admitPendingFrames(now, finished);
+
+        GraphicsContext graphicsContext = getGraphicsContext2D();
+        if (frames.size() == 0 && !drawnLastPulse) {
+            postFinished(finished);
+            return;
+        }
+        graphicsContext.clearRect(0, 0, getWidth(), getHeight());
+
+        int frame = 0;
+        while (frame < frames.size()) {
+            double progress = (double) (now - frames.startNanos(frame)) / frames.durationNanos(frame);
+            if (progress >= 1) {
+                finished.add(new NetworkCommunicationAnimationFinishedEvent(frames.communicationId(frame)));
+                frames.remove(frame);
+                continue;
+            }
+            ConnectionLine connectionLine = frames.connectionLine(frame);
+            boolean reversed = frames.isReversed(frame);
+            double fromX = reversed ? connectionLine.getEndX() : connectionLine.getStartX();
+            double fromY = reversed ? connectionLine.getEndY() : connectionLine.getStartY();
+            double toX = reversed ? connectionLine.getStartX() : connectionLine.getEndX();
+            double toY = reversed ? connectionLine.getStartY() : connectionLine.getEndY();
+            graphicsContext.setFill(frames.color(frame));
+            double x = (fromX + (toX - fromX) * progress) * scale + translateX;
+            double y = (fromY + (toY - fromY) * progress) * scale + translateY;
+            graphicsContext.fillRect(x - FRAME_SIZE / 2, y - FRAME_SIZE / 2, FRAME_SIZE, FRAME_SIZE);
+            frame++;
+        }
+        drawnLastPulse = frames.size() > 0;
+        postFinished(finished);
+    }
+
+    private void admitPendingFrames(long now, List<NetworkCommunicationAnimationFinishedEvent> finished) {
+        PendingFrame pendingFrame;
+        while ((pendingFrame = pendingFrames.poll()) != null) {
+            ConnectionLine connectionLine = connectionLineLookup.apply(pendingFrame.startDeviceUuid(), pendingFrame.endDeviceUuid());
+            if (connectionLine == null) {
+                // The line was removed meanwhile, nothing to draw the frame on
+                finished.add(new NetworkCommunicationAnimationFinishedEvent(pendingFrame.communicationId()));
+                continue;
+            }
+            frames.add(pendingFrame.communicationId(),
+                    connectionLine,
+                    !connectionLine.getStartDevice().getUuid().equals(pendingFrame.startDeviceUuid()),
+                    now,
+                    Math.max(pendingFrame.durationMillis(), 1) * 1_000_000,
+                    pendingFrame.color());
+        }
+    }
+
+    private void postFinished(List<NetworkCommunicationAnimationFinishedEvent> finished) {
+        if (!finished.isEmpty()) {
+            eventBus.postAll(finished);
+        }
+    }
+}
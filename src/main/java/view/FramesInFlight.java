@@ -0,0 +1,108 @@
+package view;
+
+import javafx.scene.paint.Color;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * The frames drawn by a {@link FrameAnimationLayer}, kept in flat arrays of (link, direction, start time, duration,
+ * colour) indexed by frame. A frame is removed by moving the last frame into its place, so the order of the frames
+ * changes, which does not matter for drawing them.
+ */
+final class FramesInFlight {
+    static final int INITIAL_CAPACITY = 64;
+
+    private int size = 0;
+    private UUID[] communicationIds = new UUID[INITIAL_CAPACITY];
+    private ConnectionLine[] connectionLines = new ConnectionLine[INITIAL_CAPACITY];
+    private boolean[] reversed = new boolean[INITIAL_CAPACITY];
+    private long[] startNanos = new long[INITIAL_CAPACITY];
+    private long[] durationNanos = new long[INITIAL_CAPACITY];
+    private Color[] colors = new Color[INITIAL_CAPACITY];
+
+    /**
+     * Appends a frame, growing the arrays when they are full.
+     *
+     * @param communicationId the id reported back when the frame arrives
+     * @param connectionLine  the line the frame travels along
+     * @param reversed        whether the frame travels from the end of the line to its start
+     * @param startNanos      when the frame left
+     * @param durationNanos   how long the frame takes to cross the link
+     * @param color           the colour of the frame
+     */
+    void add(UUID communicationId, ConnectionLine connectionLine, boolean reversed, long startNanos, long durationNanos, Color color) {
+        ensureCapacity(size + 1);
+        communicationIds[size] = communicationId;
+        connectionLines[size] = connectionLine;
+        this.reversed[size] = reversed;
+        this.startNanos[size] = startNanos;
+        this.durationNanos[size] = durationNanos;
+        colors[size] = color;
+        size++;
+    }
+
+    /**
+     * Removes a frame by moving the last frame into its place.
+     *
+     * @param frame the index of the frame
+     */
+    void remove(int frame) {
+        int last = size - 1;
+        communicationIds[frame] = communicationIds[last];
+        connectionLines[frame] = connectionLines[last];
+        reversed[frame] = reversed[last];
+        startNanos[frame] = startNanos[last];
+        durationNanos[frame] = durationNanos[last];
+        colors[frame] = colors[last];
+        communicationIds[last] = null;
+        connectionLines[last] = null;
+        colors[last] = null;
+        size = last;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= communicationIds.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, communicationIds.length * 2);
+        communicationIds = Arrays.copyOf(communicationIds, newCapacity);
+        connectionLines = Arrays.copyOf(connectionLines, newCapacity);
+        reversed = Arrays.copyOf(reversed, newCapacity);
+        startNanos = Arrays.copyOf(startNanos, newCapacity);
+        durationNanos = Arrays.copyOf(durationNanos, newCapacity);
+        colors = Arrays.copyOf(colors, newCapacity);
+    }
+
+    int size() {
+        return size;
+    }
+
+    int capacity() {
+        return communicationIds.length;
+    }
+
+    UUID communicationId(int frame) {
+        return communicationIds[frame];
+    }
+
+    ConnectionLine connectionLine(int frame) {
+        return connectionLines[frame];
+    }
+
+    boolean isReversed(int frame) {
+        return reversed[frame];
+    }
+
+    long startNanos(int frame) {
+        return startNanos[frame];
+    }
+
+    long durationNanos(int frame) {
+        return durationNanos[frame];
+    }
+
+    Color color(int frame) {
+        return colors[frame];
+    }
+}
@@ -0,0 +1,40 @@
+package view;
+
+import common.NetworkDeviceType;
+import javafx.scene.image.Image;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Loads every image resource once and shares it between all workspaces, device views and the topology canvas.
+ * Safe to use from any thread, e.g. from a {@link TopologyLoader}.
+ */
+public final class ImageCache {
+    private static final Map<String, Image> images = new ConcurrentHashMap<>();
+
+    private ImageCache() {
+    }
+
+    /**
+     * @param resource The name of an image on the class path.
+     * @return the image, loaded on first use
+     */
+    public static Image get(String resource) {
+        return images.computeIfAbsent(resource, Image::new);
+    }
+
+    /**
+     * @param networkDeviceType The type of a device.
+     * @return the image shown for devices of the type
+     * @throws IllegalArgumentException for router interfaces, which have no view of their own.
+     */
+    public static Image forDevice(NetworkDeviceType networkDeviceType) {
+        return switch (networkDeviceType) {
+            case ROUTER -> get("router_image.png");
+            case SWITCH -> get("switch_image.png");
+            case PC -> get("server_image.png");
+            case ROUTER_INTERFACE -> throw new IllegalArgumentException("Router interfaces are shown as part of their router");
+        };
+    }
+}
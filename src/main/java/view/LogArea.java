@@ -1,55 +1,160 @@
 package view;
 
-import javafx.scene.control.ScrollPane;
+import javafx.animation.AnimationTimer;
+import javafx.collections.transformation.FilteredList;
+import javafx.scene.control.CheckBox;
+import javafx.scene.control.ComboBox;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.control.TextField;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
 import javafx.scene.layout.StackPane;
+import javafx.scene.layout.VBox;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.Rectangle;
-import javafx.scene.text.Text;
-import javafx.scene.text.TextFlow;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 /**
  * The {@code LogArea} class extends {@code StackPane} and provides a dedicated area for
  * displaying log messages with an automatically scrolling view.
  *
- * It encapsulates a {@code TextFlow} within a {@code ScrollPane} to handle overflow by
- * scrolling, and uses a {@code Rectangle} as a visual frame around the log area.
+ * Messages are kept in a {@link LogRingBuffer} of limited capacity and shown in a {@code ListView}, which only creates
+ * nodes for the visible rows. Messages can be printed from any thread. They are collected and appended once per pulse,
+ * followed by at most one scroll. The rows shown can be filtered by text, e.g. a device name, and by protocol.
  */
 public class LogArea extends StackPane {
-    private final TextFlow logWindow;
+    public static final int DEFAULT_CAPACITY = 5000;
+    private static final String ALL_CATEGORIES = "All";
+
+    private final Queue<LogLine> pendingLines = new ConcurrentLinkedQueue<>();
+    private final LogRingBuffer lines;
+    private final FilteredList<LogLine> filteredLines;
+    private final ListView<LogLine> logWindow;
+    private final TextField textFilter;
+    private final ComboBox<String> categoryFilter;
+    private final CheckBox follow;
     private final Rectangle frame;
-    private final ScrollPane logWindowScrollWrapper;
+    private final AnimationTimer flushTimer;
 
     /**
-     * Constructs a {@code LogArea} with a specified width and height.
+     * Constructs a {@code LogArea} with a specified width and height, keeping the default number of messages.
      *
      * @param width  the preferred width of the log area
      * @param height the preferred height of the log area
      */
     public LogArea(double width, double height) {
+        this(width, height, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs a {@code LogArea} with a specified width and height.
+     *
+     * @param width    the preferred width of the log area
+     * @param height   the preferred height of the log area
+     * @param capacity the number of most recent messages kept
+     */
+    public LogArea(double width, double height, int capacity) {
         this.setPrefSize(width, height);
 
-        logWindow = new TextFlow();
+        lines = new LogRingBuffer(capacity);
+        filteredLines = new FilteredList<>(lines);
+
+        logWindow = new ListView<>(filteredLines);
+        logWindow.setCellFactory(listView -> new ListCell<>() {
+            @Override
+            protected void updateItem(LogLine logLine, boolean empty) {
+                super.updateItem(logLine, empty);
+                if (empty || logLine == null) {
+                    setText(null);
+                } else {
+                    setText(logLine.text());
+                    setTextFill(logLine.color());
+                }
+            }
+        });
+        VBox.setVgrow(logWindow, Priority.ALWAYS);
+
+        textFilter = new TextField();
+        textFilter.setPromptText("Filter, e.g. PC0");
+        textFilter.textProperty().addListener((observable, oldValue, newValue) -> updateFilter());
+        HBox.setHgrow(textFilter, Priority.ALWAYS);
 
-        logWindowScrollWrapper = new ScrollPane(logWindow);
-        logWindowScrollWrapper.setPrefViewportWidth(width);
-        logWindowScrollWrapper.setPrefViewportHeight(height);
-        logWindowScrollWrapper.setVbarPolicy(ScrollPane.ScrollBarPolicy.AS_NEEDED);
+        categoryFilter = new ComboBox<>();
+        categoryFilter.getItems().add(ALL_CATEGORIES);
+        for (LogLine.Category category : LogLine.Category.values()) {
+            categoryFilter.getItems().add(category.name());
+        }
+        categoryFilter.getSelectionModel().selectFirst();
+        categoryFilter.valueProperty().addListener((observable, oldValue, newValue) -> updateFilter());
+
+        follow = new CheckBox("Follow");
+        follow.setSelected(true);
+
+        HBox filters = new HBox(5, textFilter, categoryFilter, follow);
+        VBox content = new VBox(filters, logWindow);
+        content.setPrefSize(width, height);
 
         frame = new Rectangle(width, height);
         frame.setStroke(Color.BLACK);
         frame.setFill(Color.TRANSPARENT);
 
-        this.getChildren().addAll(frame, logWindowScrollWrapper);
+        this.getChildren().addAll(frame, content);
+
+        flushTimer = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                flush();
+            }
+        };
+        flushTimer.start();
     }
 
     /**
-     * Prints the given {@code Text} object to the log area and scrolls to the bottom.
+     * Queues a message to be shown on the next pulse. Each line of the message becomes its own row.
+     * Safe to call from any thread.
      *
-     * @param text the {@code Text} object to print
+     * @param text  the message
+     * @param color the colour of the message
+     */
+    public void print(String text, Color color) {
+        for (String line : text.split("\n")) {
+            if (!line.isBlank()) {
+                pendingLines.add(new LogLine(line, color, LogLine.Category.of(line)));
+            }
+        }
+    }
+
+    private void flush() {
+        if (pendingLines.isEmpty()) {
+            return;
+        }
+        List<LogLine> flushed = new ArrayList<>();
+        LogLine logLine;
+        while ((logLine = pendingLines.poll()) != null) {
+            flushed.add(logLine);
+        }
+        lines.appendAll(flushed);
+        if (follow.isSelected() && !filteredLines.isEmpty()) {
+            logWindow.scrollTo(filteredLines.size() - 1);
+        }
+    }
+
+    private void updateFilter() {
+        String text = textFilter.getText() == null ? "" : textFilter.getText().strip().toLowerCase();
+        String category = categoryFilter.getValue();
+        filteredLines.setPredicate(logLine -> (text.isEmpty() || logLine.text().toLowerCase().contains(text))
+                && (category == null || ALL_CATEGORIES.equals(category) || logLine.category().name().equals(category)));
+    }
+
+    /**
+     * Stops collecting messages, e.g. when the view is replaced.
      */
-    public void print(Text text) {
-        logWindow.getChildren().add(text);
-        // Scroll to the bottom to ensure the most recent log entry is visible
-        logWindowScrollWrapper.setVvalue(logWindowScrollWrapper.getVmax());
+    public void stop() {
+        flushTimer.stop();
     }
 }
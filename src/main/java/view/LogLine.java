@@ -0,0 +1,44 @@
+package view;
+
+import javafx.scene.paint.Color;
+
+/**
+ * A single row of the log window.
+ *
+ * @param text     the text of the row
+ * @param color    the colour the row is drawn with
+ * @param category the protocol or activity the row belongs to
+ */
+public record LogLine(String text, Color color, Category category) {
+    /**
+     * Protocol or activity a log row is about, used to filter the log window.
+     */
+    public enum Category {
+        DHCP, ARP, RIP, DATA, FAILURE, OTHER;
+
+        /**
+         * Recognizes the category of a log message from its wording.
+         *
+         * @param text the log message
+         * @return the category of the message
+         */
+        public static Category of(String text) {
+            if (text.contains("DHCP")) {
+                return DHCP;
+            }
+            if (text.contains("ARP")) {
+                return ARP;
+            }
+            if (text.contains("RIP")) {
+                return RIP;
+            }
+            if (text.startsWith("Failure") || text.startsWith("Repair") || text.startsWith("Reconverged")) {
+                return FAILURE;
+            }
+            if (text.contains("string message") || text.contains("communicate")) {
+                return DATA;
+            }
+            return OTHER;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package view;
+
+import javafx.collections.ObservableListBase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Observable list of log rows with a fixed capacity. Appending to a full buffer evicts the oldest rows,
+ * so memory and the work of the list views observing it stay bounded however long the simulation runs.
+ */
+class LogRingBuffer extends ObservableListBase<LogLine> {
+    private final LogLine[] lines;
+    private int head = 0;
+    private int size = 0;
+
+    /**
+     * Constructs an empty buffer.
+     *
+     * @param capacity the maximum number of rows kept
+     */
+    LogRingBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.lines = new LogLine[capacity];
+    }
+
+    @Override
+    public LogLine get(int index) {
+        Objects.checkIndex(index, size);
+        return lines[(head + index) % lines.length];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Appends rows as a single change, evicting as many of the oldest rows as needed.
+     *
+     * @param newLines the rows to append, in order
+     */
+    void appendAll(List<LogLine> newLines) {
+        if (newLines.isEmpty()) {
+            return;
+        }
+        List<LogLine> appended = newLines.size() > lines.length ? newLines.subList(newLines.size() - lines.length, newLines.size()) : newLines;
+        int evicted = Math.max(0, size + appended.size() - lines.length);
+
+        beginChange();
+        if (evicted > 0) {
+            List<LogLine> removed = new ArrayList<>(evicted);
+            for (int i = 0; i < evicted; i++) {
+                removed.add(lines[head]);
+                lines[head] = null;
+                head = (head + 1) % lines.length;
+                size--;
+            }
+            nextRemove(0, removed);
+        }
+        int from = size;
+        for (LogLine line : appended) {
+            lines[(head + size) % lines.length] = line;
+            size++;
+        }
+        nextAdd(from, size);
+        endChange();
+    }
+}
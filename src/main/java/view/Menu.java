@@ -1,58 +1,139 @@
 package view;
 
 import common.AutoNameGenerator;
-import common.GlobalEventBus;
 import io.DTOConvertor;
-import io.JsonExporter;
+import io.NetworkData;
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.scene.control.CheckMenuItem;
 import javafx.scene.control.MenuItem;
+import javafx.scene.paint.Color;
 import javafx.stage.FileChooser;
 import javafx.stage.Window;
+import javafx.util.Duration;
 
 import java.io.File;
-import java.io.IOException;
 import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class Menu extends javafx.scene.control.Menu {
+    private static final Duration AUTOSAVE_INTERVAL = Duration.minutes(1);
+    // A single thread shared by all workspaces, so two saves never write at the same time
+    private static final ExecutorService SAVE_EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "topology-saver");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     ArrayList<NetworkDeviceView> deviceViews;
     ArrayList<ConnectionLine> connectionLines;
+    private final SimulationWorkspaceView simulationWorkspaceView;
+    private final Timeline autosaveTimeline = new Timeline(new KeyFrame(AUTOSAVE_INTERVAL, tick -> autosave()));
+    private final CheckMenuItem autosaveMenuItem = new CheckMenuItem("Autosave");
+    private File autosaveFile;
+    private TopologySaver runningSave;
+    private TopologySaver lastSave;
 
-    public Menu(String name, ArrayList<NetworkDeviceView> deviceViews, ArrayList<ConnectionLine> connectionLines) {
+    public Menu(String name, ArrayList<NetworkDeviceView> deviceViews, ArrayList<ConnectionLine> connectionLines, SimulationWorkspaceView simulationWorkspaceView) {
         super(name);
         this.deviceViews = deviceViews;
         this.connectionLines = connectionLines;
-        GlobalEventBus.register(this);
+        this.simulationWorkspaceView = simulationWorkspaceView;
+        autosaveTimeline.setCycleCount(Animation.INDEFINITE);
 
         MenuItem save = new MenuItem("Save");
         save.setOnAction(clickEvent -> saveEventHandler(save));
+        autosaveMenuItem.setOnAction(clickEvent -> autosaveEventHandler(autosaveMenuItem));
 
-        this.getItems().addAll(save);
+        this.getItems().addAll(save, autosaveMenuItem);
     }
 
     private void saveEventHandler(MenuItem save) {
-        {
-            FileChooser fileChooser = new FileChooser();
-            fileChooser.setTitle("Save simulation setup");
-            fileChooser.getExtensionFilters().addAll(
-                    new FileChooser.ExtensionFilter("JSON Files", "*.json")
-            );
-            fileChooser.setInitialDirectory(new File(System.getProperty("user.home")));
-
-            Window window = save.getParentPopup().getOwnerWindow();
-            File file = fileChooser.showSaveDialog(window);
-            if (file != null) {
-                try {
-                    exportNetworkData(file);
-                } catch (IOException e) {
-                    System.err.println("Failed to save network data: " + e.getMessage());
-                    throw new RuntimeException(e);
-                }
-            }
+        File file = chooseFile(save, "Save simulation setup");
+        if (file != null) {
+            save(file, false);
+        }
+    }
+
+    /**
+     * Starts or stops saving the topology every {@link #AUTOSAVE_INTERVAL} into a chosen file.
+     */
+    private void autosaveEventHandler(CheckMenuItem autosave) {
+        if (!autosave.isSelected()) {
+            stopAutosave();
+            return;
         }
+        autosaveFile = chooseFile(autosave, "Autosave simulation setup");
+        if (autosaveFile == null) {
+            autosave.setSelected(false);
+            return;
+        }
+        autosave();
+        autosaveTimeline.play();
+    }
+
+    /**
+     * Stops saving the topology periodically, e.g. when the workspace is closed or rebuilt.
+     */
+    public void stopAutosave() {
+        autosaveTimeline.stop();
+        autosaveFile = null;
+        autosaveMenuItem.setSelected(false);
     }
 
-    private void exportNetworkData(File file) throws IOException {
-        JsonExporter jsonExporter = new JsonExporter();
+    private File chooseFile(MenuItem menuItem, String title) {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle(title);
+        fileChooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("JSON Files", "*.json"),
+                new FileChooser.ExtensionFilter("Binary snapshots", "*.spts")
+        );
+        fileChooser.setInitialDirectory(new File(System.getProperty("user.home")));
+
+        Window window = menuItem.getParentPopup().getOwnerWindow();
+        return fileChooser.showSaveDialog(window);
+    }
+
+    /**
+     * Saves the topology into the autosave file unless it is unchanged since it was last saved there
+     * or the previous save is still being written.
+     */
+    private void autosave() {
+        if (simulationWorkspaceView.isSessionClosed()) {
+            // The workspace belongs to a simulation that has been replaced
+            stopAutosave();
+            return;
+        }
+        if (autosaveFile == null || (runningSave != null && runningSave.isRunning())) {
+            return;
+        }
+        save(autosaveFile, true);
+    }
+
+    /**
+     * Takes the topology from the views and writes it on the saver thread, showing the progress in the workspace.
+     *
+     * @param file           The file to replace.
+     * @param onlyIfModified Whether to skip the save if the file already holds the same topology.
+     */
+    private void save(File file, boolean onlyIfModified) {
         DTOConvertor dtoConvertor = new DTOConvertor();
-        jsonExporter.exportNetworkData(dtoConvertor.convertNetworkDeviceViewsToDTOs(deviceViews), dtoConvertor.convertConnectionLinesToDTOs(connectionLines), dtoConvertor.convertAutoNameGeneratorToDTO(AutoNameGenerator.getInstance()),file);
+        NetworkData networkData = new NetworkData(dtoConvertor.convertNetworkDeviceViewsToDTOs(deviceViews),
+                dtoConvertor.convertConnectionLinesToDTOs(connectionLines), dtoConvertor.convertAutoNameGeneratorToDTO(AutoNameGenerator.getInstance()));
+        if (onlyIfModified && lastSave != null && lastSave.getFile().equals(file) && lastSave.getNetworkData().equals(networkData)) {
+            return;
+        }
+        TopologySaver topologySaver = new TopologySaver(networkData, file);
+        topologySaver.setOnSucceeded(saved -> {
+            lastSave = topologySaver;
+            simulationWorkspaceView.printToLogWindow(String.format("Saved to %s\n", file.getName()), onlyIfModified ? Color.GRAY : Color.DARKCYAN);
+        });
+        topologySaver.setOnFailed(failed -> simulationWorkspaceView.printToLogWindow(
+                String.format("Failed to save network data: %s\n", topologySaver.getException().getMessage()), Color.RED));
+        runningSave = topologySaver;
+        simulationWorkspaceView.showSaveProgress(topologySaver);
+        SAVE_EXECUTOR.execute(topologySaver);
     }
 }
@@ -80,4 +80,13 @@ public abstract class NetworkDeviceView extends StackPane implements NetworkDevi
     public List<ConnectionLine> getConnections() {
         return connections;
     }
+
+    /**
+     * Hides the device while it lies outside the visible part of the workspace.
+     *
+     * @param culled true to hide the device
+     */
+    public void setCulled(boolean culled) {
+        setVisible(!culled);
+    }
 }
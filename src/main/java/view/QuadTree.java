@@ -0,0 +1,249 @@
+package view;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * A quadtree over the axis-aligned bounding boxes of items, answering which items intersect a rectangle without
+ * looking at the items far away from it.
+ * <p>
+ * Every item is kept in the smallest cell that contains its box whole, so an item crossing the border between two
+ * cells stays in their parent. A cell is split into quadrants once it holds more than {@value #CELL_CAPACITY} items,
+ * unless it is smaller than {@value #MIN_CELL_SIZE} units. The tree grows outwards when an item lies outside of it,
+ * so items may have any coordinates. Moving an item within its cell only updates its box. Emptied cells are kept,
+ * they are few compared to the items of a workspace.
+ *
+ * @param <T> the type of the items, told apart by their {@code equals}
+ */
+public class QuadTree<T> {
+    static final int CELL_CAPACITY = 8;
+    static final double MIN_CELL_SIZE = 16;
+    private static final double INITIAL_SIZE = 1024;
+
+    private static final class Entry<T> {
+        private final T item;
+        private double minX;
+        private double minY;
+        private double maxX;
+        private double maxY;
+        private Cell<T> cell;
+
+        private Entry(T item) {
+            this.item = item;
+        }
+
+        private boolean intersects(double minX, double minY, double maxX, double maxY) {
+            return this.minX <= maxX && this.maxX >= minX && this.minY <= maxY && this.maxY >= minY;
+        }
+    }
+
+    private static final class Cell<T> {
+        private final double minX;
+        private final double minY;
+        private final double size;
+        private final List<Entry<T>> entries = new ArrayList<>();
+        private List<Cell<T>> quadrants;
+
+        private Cell(double minX, double minY, double size) {
+            this.minX = minX;
+            this.minY = minY;
+            this.size = size;
+        }
+
+        private boolean contains(double minX, double minY, double maxX, double maxY) {
+            return minX >= this.minX && minY >= this.minY && maxX < this.minX + size && maxY < this.minY + size;
+        }
+
+        private boolean intersects(double minX, double minY, double maxX, double maxY) {
+            return this.minX <= maxX && this.minX + size >= minX && this.minY <= maxY && this.minY + size >= minY;
+        }
+
+        /**
+         * @return the quadrant containing the box whole, null if it crosses the middle of the cell
+         */
+        private Cell<T> quadrantContaining(double minX, double minY, double maxX, double maxY) {
+            if (quadrants == null) {
+                return null;
+            }
+            for (Cell<T> quadrant : quadrants) {
+                if (quadrant.contains(minX, minY, maxX, maxY)) {
+                    return quadrant;
+                }
+            }
+            return null;
+        }
+    }
+
+    private final Map<T, Entry<T>> entries = new HashMap<>();
+    private Cell<T> root = new Cell<>(0, 0, INITIAL_SIZE);
+
+    /**
+     * Adds an item, or moves it if it is already in the tree.
+     *
+     * @param item The item.
+     * @param minX The left edge of its box.
+     * @param minY The top edge of its box.
+     * @param maxX The right edge of its box.
+     * @param maxY The bottom edge of its box.
+     * @throws IllegalArgumentException if the box is not finite.
+     */
+    public void insert(T item, double minX, double minY, double maxX, double maxY) {
+        Entry<T> entry = entries.get(item);
+        if (entry != null) {
+            update(entry, minX, minY, maxX, maxY);
+            return;
+        }
+        entry = new Entry<>(item);
+        setBox(entry, minX, minY, maxX, maxY);
+        entries.put(item, entry);
+        place(entry);
+    }
+
+    /**
+     * Moves an item that may have been added before.
+     *
+     * @return false if the item is not in the tree
+     */
+    public boolean update(T item, double minX, double minY, double maxX, double maxY) {
+        Entry<T> entry = entries.get(item);
+        if (entry == null) {
+            return false;
+        }
+        update(entry, minX, minY, maxX, maxY);
+        return true;
+    }
+
+    private void update(Entry<T> entry, double minX, double minY, double maxX, double maxY) {
+        Cell<T> cell = entry.cell;
+        if (cell.contains(minX, minY, maxX, maxY) && cell.quadrantContaining(minX, minY, maxX, maxY) == null) {
+            setBox(entry, minX, minY, maxX, maxY);
+            return;
+        }
+        setBox(entry, minX, minY, maxX, maxY);
+        cell.entries.remove(entry);
+        place(entry);
+    }
+
+    /**
+     * Removes an item.
+     *
+     * @return false if the item is not in the tree
+     */
+    public boolean remove(T item) {
+        Entry<T> entry = entries.remove(item);
+        if (entry == null) {
+            return false;
+        }
+        entry.cell.entries.remove(entry);
+        return true;
+    }
+
+    public boolean contains(T item) {
+        return entries.containsKey(item);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Passes every item whose box intersects a rectangle, edges included, to a consumer.
+     *
+     * @param minX     The left edge of the rectangle.
+     * @param minY     The top edge of the rectangle.
+     * @param maxX     The right edge of the rectangle.
+     * @param maxY     The bottom edge of the rectangle.
+     * @param consumer Receives the items, in no particular order.
+     */
+    public void query(double minX, double minY, double maxX, double maxY, Consumer<? super T> consumer) {
+        query(root, minX, minY, maxX, maxY, consumer);
+    }
+
+    private void query(Cell<T> cell, double minX, double minY, double maxX, double maxY, Consumer<? super T> consumer) {
+        for (Entry<T> entry : cell.entries) {
+            if (entry.intersects(minX, minY, maxX, maxY)) {
+                consumer.accept(entry.item);
+            }
+        }
+        if (cell.quadrants != null) {
+            for (Cell<T> quadrant : cell.quadrants) {
+                if (quadrant.intersects(minX, minY, maxX, maxY)) {
+                    query(quadrant, minX, minY, maxX, maxY, consumer);
+                }
+            }
+        }
+    }
+
+    private static <T> void setBox(Entry<T> entry, double minX, double minY, double maxX, double maxY) {
+        if (!Double.isFinite(minX) || !Double.isFinite(minY) || !Double.isFinite(maxX) || !Double.isFinite(maxY)) {
+            throw new IllegalArgumentException("The box of an item must be finite");
+        }
+        entry.minX = Math.min(minX, maxX);
+        entry.minY = Math.min(minY, maxY);
+        entry.maxX = Math.max(minX, maxX);
+        entry.maxY = Math.max(minY, maxY);
+    }
+
+    private void place(Entry<T> entry) {
+        while (!root.contains(entry.minX, entry.minY, entry.maxX, entry.maxY)) {
+            grow(entry);
+        }
+        Cell<T> cell = root;
+        Cell<T> quadrant;
+        while ((quadrant = cell.quadrantContaining(entry.minX, entry.minY, entry.maxX, entry.maxY)) != null) {
+            cell = quadrant;
+        }
+        entry.cell = cell;
+        cell.entries.add(entry);
+        if (cell.quadrants == null && cell.entries.size() > CELL_CAPACITY && cell.size / 2 >= MIN_CELL_SIZE) {
+            split(cell);
+        }
+    }
+
+    /**
+     * Doubles the tree towards an item lying outside of it, the old root becomes a quadrant of the new one.
+     */
+    private void grow(Entry<T> towards) {
+        double size = root.size;
+        double minX = towards.minX < root.minX ? root.minX - size : root.minX;
+        double minY = towards.minY < root.minY ? root.minY - size : root.minY;
+        Cell<T> grown = new Cell<>(minX, minY, size * 2);
+        grown.quadrants = newQuadrants(grown);
+        Cell<T> oldRoot = root;
+        grown.quadrants.replaceAll(quadrant -> quadrant.minX == oldRoot.minX && quadrant.minY == oldRoot.minY ? oldRoot : quadrant);
+        root = grown;
+    }
+
+    private void split(Cell<T> cell) {
+        cell.quadrants = newQuadrants(cell);
+        List<Entry<T>> kept = new ArrayList<>();
+        for (Entry<T> entry : cell.entries) {
+            Cell<T> quadrant = cell.quadrantContaining(entry.minX, entry.minY, entry.maxX, entry.maxY);
+            if (quadrant == null) {
+                kept.add(entry);
+            } else {
+                entry.cell = quadrant;
+                quadrant.entries.add(entry);
+            }
+        }
+        cell.entries.clear();
+        cell.entries.addAll(kept);
+        for (Cell<T> quadrant : cell.quadrants) {
+            if (quadrant.entries.size() > CELL_CAPACITY && quadrant.size / 2 >= MIN_CELL_SIZE) {
+                split(quadrant);
+            }
+        }
+    }
+
+    private static <T> List<Cell<T>> newQuadrants(Cell<T> cell) {
+        double half = cell.size / 2;
+        return new ArrayList<>(List.of(
+                new Cell<T>(cell.minX, cell.minY, half),
+                new Cell<T>(cell.minX + half, cell.minY, half),
+                new Cell<T>(cell.minX, cell.minY + half, half),
+                new Cell<T>(cell.minX + half, cell.minY + half, half)));
+    }
+}
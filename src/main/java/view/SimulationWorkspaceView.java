@@ -1,10 +1,12 @@
 package view;
 
-import com.google.common.eventbus.Subscribe;
 import common.*;
+import controller.AnimationLevelOfDetail;
 import controller.MasterController;
-import javafx.animation.PathTransition;
-import javafx.application.Platform;
+import io.DTOConvertor;
+import io.NetworkData;
+import io.SimulationJournal;
+import javafx.concurrent.Task;
 import javafx.geometry.Point2D;
 import javafx.geometry.Pos;
 import javafx.scene.Node;
@@ -16,19 +18,26 @@ import javafx.scene.input.KeyCode;
 import javafx.scene.input.MouseButton;
 import javafx.scene.layout.AnchorPane;
 import javafx.scene.paint.Color;
-import javafx.scene.shape.Rectangle;
-import javafx.scene.text.Text;
+import javafx.stage.FileChooser;
 import javafx.stage.Stage;
+import model.EgressQueueDiscipline;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
+import java.io.File;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Represents the main workspace of a network simulation environment.
  * This class manages the graphical user interface components and interactions for simulating network devices and connections.
  */
 public class SimulationWorkspaceView {
+    private static final Logger logger = LogManager.getLogger(SimulationWorkspaceView.class);
     private final Stage stage;
     private Scene scene;
     private AnchorPane simulationWorkspace;
@@ -37,45 +46,55 @@ public class SimulationWorkspaceView {
     private boolean isConnectionMode = false;
     private NetworkDeviceView firstSelectedDevice = null;
     private LogArea logArea;
+    private FrameAnimationLayer frameAnimationLayer;
+    private WorkspaceIndex workspaceIndex;
+    private TopologyCanvas topologyCanvas;
+    private AutoLayout runningAutoLayout;
+    private Menu optionsMenu;
     ArrayList<ConnectionLine> connectionLines = new ArrayList<>();
+    private final Map<UnorderedUuidPair, ConnectionLine> connectionLinesByDevices = new ConcurrentHashMap<>();
     ArrayList<NetworkDeviceView> networkDeviceViews = new ArrayList<>();
 
     private final int iconSize = 32;
     private final int imageSize = 70;
+    private static final double TRAFFIC_LABEL_OFFSET = 16;
 
     private final Tooltip labelsTooltip = new Tooltip();
 
     ToolBar toolBar;
+    private final ProgressBar saveProgressBar = new ProgressBar();
+    private final SimulationEventBus eventBus;
 
 
     /**
      * Constructs a SimulationWorkspaceView with a reference to the primary stage.
      *
-     * @param stage the primary stage for this view
+     * @param stage    the primary stage for this view
+     * @param eventBus the bus of the simulation session shown in this view
      */
-    public SimulationWorkspaceView(Stage stage) {
+    public SimulationWorkspaceView(Stage stage, SimulationEventBus eventBus) {
         this.stage = stage;
         stage.setMinWidth(1200);
         stage.setMinHeight(1000);
-        GlobalEventBus.register(this);
+        this.eventBus = eventBus;
+        eventBus.subscribe(NetworkCommunicationAnimationRequestEvent.class, this::handleNetworkConnectionAnimationRequestEvent);
+        eventBus.subscribe(DeviceStateChangedEvent.class, this::handleDeviceStateChangedEvent, SimulationEventBus.FX_THREAD);
+        eventBus.subscribe(LinkStateChangedEvent.class, this::handleLinkStateChangedEvent, SimulationEventBus.FX_THREAD);
+        eventBus.subscribe(LinkTrafficEvent.class, this::handleLinkTrafficEvent, SimulationEventBus.FX_THREAD);
+        eventBus.subscribe(UpdateLabelsEvent.class, updateLabelsEvent -> invalidateTopologyCanvas(), SimulationEventBus.FX_THREAD);
+        eventBus.subscribe(ExitRequestEvent.class, exitRequestEvent -> optionsMenu.stopAutosave(), SimulationEventBus.FX_THREAD);
         initializeView();
     }
 
     /**
-     * Retrieves a connection line between two network devices if it exists.
+     * Retrieves a connection line between two network devices if it exists. Safe to call from any thread.
      *
      * @param first  the first network device
      * @param second the second network device
      * @return the connection line if found, otherwise null
      */
-    public synchronized ConnectionLine getConnectionLine(NetworkDevice first, NetworkDevice second) {
-        for (ConnectionLine connectionLine : connectionLines) {
-            if ((connectionLine.getStartDevice().getUuid() == first.getUuid() && connectionLine.getEndDevice().getUuid() == second.getUuid())
-                    || connectionLine.getStartDevice().getUuid() == second.getUuid() && connectionLine.getEndDevice().getUuid() == first.getUuid()) {
-                return connectionLine;
-            }
-        }
-        return null;
+    public ConnectionLine getConnectionLine(NetworkDevice first, NetworkDevice second) {
+        return findConnectionLine(first.getUuid(), second.getUuid());
     }
 
     public ArrayList<ConnectionLine> getConnectionLines() {
@@ -86,38 +105,69 @@ public class SimulationWorkspaceView {
         return networkDeviceViews;
     }
 
+    /**
+     * @return true once the simulation shown in this workspace has been closed or replaced by another one
+     */
+    public boolean isSessionClosed() {
+        return eventBus.isClosed();
+    }
+
     /**
      * Initializes the view and its components.
      */
     public void initializeView() {
         simulationWorkspace = new AnchorPane();
+        workspaceIndex = new WorkspaceIndex(simulationWorkspace);
+        if (frameAnimationLayer != null) {
+            frameAnimationLayer.stop();
+        }
+        if (topologyCanvas != null) {
+            topologyCanvas.stop();
+            topologyCanvas = null;
+        }
+        frameAnimationLayer = new FrameAnimationLayer(this::findConnectionLine, eventBus);
+        frameAnimationLayer.widthProperty().bind(simulationWorkspace.widthProperty());
+        frameAnimationLayer.heightProperty().bind(simulationWorkspace.heightProperty());
+        frameAnimationLayer.setManaged(false);
+        addNode(frameAnimationLayer);
+        frameAnimationLayer.start();
         toolBar = new ToolBar();
 
-        RouterView routerView = new RouterView(UUID.randomUUID(), new Image("router_image.png"));
-        SwitchView switchView = new SwitchView(UUID.randomUUID(), new Image("switch_image.png"));
-        PCView pcView = new PCView(UUID.randomUUID(), new Image("server_image.png"));
+        RouterView routerView = new RouterView(UUID.randomUUID(), ImageCache.forDevice(NetworkDeviceType.ROUTER));
+        SwitchView switchView = new SwitchView(UUID.randomUUID(), ImageCache.forDevice(NetworkDeviceType.SWITCH));
+        PCView pcView = new PCView(UUID.randomUUID(), ImageCache.forDevice(NetworkDeviceType.PC));
 
-        Button routerToolBarButton = createNetworkDeviceButton(routerView, new Image("router_icon.png"));
-        Button switchToolBarButton = createNetworkDeviceButton(switchView, new Image("switch_icon.png"));
-        Button pcToolBarButton = createNetworkDeviceButton(pcView, new Image("server_icon.png"));
-        Button connectorToolBarButton = createConnectorButton(new ImageView(new Image("connector_icon.png")));
-        Button startSimulationToolBarButton = createStartSimulationButton(new ImageView(new Image("start_icon.png")));
-        Button pauseSimulationToolBarButton = createPauseSimulationButton(new ImageView(new Image("pause_icon.png")));
+        Button routerToolBarButton = createNetworkDeviceButton(routerView, ImageCache.get("router_icon.png"));
+        Button switchToolBarButton = createNetworkDeviceButton(switchView, ImageCache.get("switch_icon.png"));
+        Button pcToolBarButton = createNetworkDeviceButton(pcView, ImageCache.get("server_icon.png"));
+        Button connectorToolBarButton = createConnectorButton(new ImageView(ImageCache.get("connector_icon.png")));
+        Button startSimulationToolBarButton = createStartSimulationButton(new ImageView(ImageCache.get("start_icon.png")));
+        Button pauseSimulationToolBarButton = createPauseSimulationButton(new ImageView(ImageCache.get("pause_icon.png")));
 
         MenuBar menuBar = new MenuBar();
-        Menu menu = new Menu("Options", networkDeviceViews, connectionLines);
+        if (optionsMenu != null) {
+            optionsMenu.stopAutosave();
+        }
+        Menu menu = new Menu("Options", networkDeviceViews, connectionLines, this);
+        optionsMenu = menu;
+        menu.getItems().addAll(createFailureScriptMenuItem(), createAnimationDetailMenu(), createEgressQueueMenu(), createCanvasRenderingMenuItem(), createAutoLayoutMenu(), createFrameTraceMenuItem(), createPacketCaptureMenu(), createTrafficTraceMenu(), createJournalMenu(), createLatencyReportMenuItem(), createCheckpointMenuItem());
         menuBar.getMenus().add(menu);
         AnchorPane.setTopAnchor(menuBar, 0.0);
         AnchorPane.setLeftAnchor(menuBar, 0.0);
         AnchorPane.setRightAnchor(menuBar, 0.0);
         addNode(menuBar);
 
-        toolBar.getItems().addAll(routerToolBarButton, switchToolBarButton, pcToolBarButton, connectorToolBarButton, startSimulationToolBarButton, pauseSimulationToolBarButton);
+        saveProgressBar.setVisible(false);
+        saveProgressBar.managedProperty().bind(saveProgressBar.visibleProperty());
+        toolBar.getItems().addAll(routerToolBarButton, switchToolBarButton, pcToolBarButton, connectorToolBarButton, startSimulationToolBarButton, pauseSimulationToolBarButton, saveProgressBar);
         toolBar.toFront();
         addNode(toolBar);
         AnchorPane.setTopAnchor(toolBar, 30.0);
 
-        logArea = new LogArea(450, 250);
+        if (logArea != null) {
+            logArea.stop();
+        }
+        logArea = new LogArea(450, 250, LogArea.DEFAULT_CAPACITY);
         AnchorPane.setTopAnchor(logArea, 35.0);
         AnchorPane.setRightAnchor(logArea, 10.0);
         logArea.setAlignment(Pos.TOP_RIGHT);
@@ -136,6 +186,362 @@ public class SimulationWorkspaceView {
         AutoNameGenerator.registerListener();
     }
 
+    /**
+     * Shows the progress of a save in the toolbar while the save is running.
+     *
+     * @param save The task writing the topology.
+     */
+    public void showSaveProgress(Task<?> save) {
+        saveProgressBar.progressProperty().bind(save.progressProperty());
+        saveProgressBar.visibleProperty().bind(save.runningProperty());
+    }
+
+    /**
+     * Creates a menu item for loading a script of scheduled link and device failures.
+     *
+     * @return a configured menu item
+     */
+    private MenuItem createFailureScriptMenuItem() {
+        MenuItem loadFailureScript = new MenuItem("Load failure script");
+        loadFailureScript.setOnAction(clickEvent -> {
+            FileChooser fileChooser = new FileChooser();
+            fileChooser.setTitle("Load failure script");
+            File file = fileChooser.showOpenDialog(stage);
+            if (file != null) {
+                masterController.loadFailureScript(file);
+            }
+        });
+        return loadFailureScript;
+    }
+
+    /**
+     * Creates a menu item printing the end-to-end latency percentiles per subnet pair into the log window.
+     *
+     * @return a configured menu item
+     */
+    private MenuItem createLatencyReportMenuItem() {
+        MenuItem latencyReport = new MenuItem("Show latency report");
+        latencyReport.setOnAction(clickEvent -> printToLogWindow(masterController.getLatencyReport(), Color.DARKCYAN));
+        return latencyReport;
+    }
+
+    /**
+     * Creates a menu item saving the topology with the runtime state of the paused simulation as a binary snapshot.
+     *
+     * @return a configured menu item
+     */
+    private MenuItem createCheckpointMenuItem() {
+        MenuItem checkpoint = new MenuItem("Save checkpoint");
+        checkpoint.setOnAction(clickEvent -> {
+            FileChooser fileChooser = new FileChooser();
+            fileChooser.setTitle("Save checkpoint");
+            fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Binary snapshots", "*.spts"));
+            fileChooser.setInitialFileName("checkpoint.spts");
+            File file = fileChooser.showSaveDialog(stage);
+            if (file == null) {
+                return;
+            }
+            DTOConvertor dtoConvertor = new DTOConvertor();
+            masterController.saveCheckpoint(file, new NetworkData(dtoConvertor.convertNetworkDeviceViewsToDTOs(networkDeviceViews),
+                    dtoConvertor.convertConnectionLinesToDTOs(connectionLines), dtoConvertor.convertAutoNameGeneratorToDTO(AutoNameGenerator.getInstance())));
+        });
+        return checkpoint;
+    }
+
+    /**
+     * Creates a menu item recording every frame into a binary trace file while it is checked.
+     *
+     * @return a configured menu item
+     */
+    private MenuItem createFrameTraceMenuItem() {
+        CheckMenuItem frameTrace = new CheckMenuItem("Record frame trace");
+        frameTrace.setOnAction(clickEvent -> {
+            if (!frameTrace.isSelected()) {
+                masterController.stopFrameTrace();
+                return;
+            }
+            FileChooser fileChooser = new FileChooser();
+            fileChooser.setTitle("Record frame trace");
+            fileChooser.setInitialFileName("frames.sptr");
+            File file = fileChooser.showSaveDialog(stage);
+            if (file == null) {
+                frameTrace.setSelected(false);
+                return;
+            }
+            masterController.startFrameTrace(file);
+        });
+        return frameTrace;
+    }
+
+    /**
+     * Creates a menu capturing the frames on every link into a pcap file and stopping a running capture.
+     * Captures of a single device or link are started from their context menus.
+     *
+     * @return a configured menu
+     */
+    private javafx.scene.control.Menu createPacketCaptureMenu() {
+        javafx.scene.control.Menu packetCapture = new javafx.scene.control.Menu("Packet capture");
+        MenuItem captureAll = new MenuItem("Capture all links...");
+        captureAll.setOnAction(clickEvent -> startPacketCapture(null, null));
+        MenuItem stop = new MenuItem("Stop capture");
+        stop.setOnAction(clickEvent -> masterController.stopPacketCapture());
+        packetCapture.getItems().addAll(captureAll, stop);
+        return packetCapture;
+    }
+
+    /**
+     * Creates a context menu item starting a packet capture, or stopping the running one.
+     *
+     * @param device The device to capture the links of.
+     * @param peer   The other end of the one link to capture, null to capture every link of the device.
+     * @return a configured menu item
+     */
+    private MenuItem createPacketCaptureMenuItem(NetworkDevice device, NetworkDevice peer) {
+        MenuItem packetCapture;
+        if (masterController.isPacketCaptureRunning()) {
+            packetCapture = new MenuItem("Stop packet capture");
+            packetCapture.setOnAction(actionEvent -> masterController.stopPacketCapture());
+        } else {
+            packetCapture = new MenuItem("Capture packets...");
+            packetCapture.setOnAction(actionEvent -> startPacketCapture(device, peer));
+        }
+        return packetCapture;
+    }
+
+    private void startPacketCapture(NetworkDevice device, NetworkDevice peer) {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Capture packets");
+        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Packet captures", "*.pcap"));
+        fileChooser.setInitialFileName("capture.pcap");
+        File file = fileChooser.showSaveDialog(stage);
+        if (file != null) {
+            masterController.startPacketCapture(file, device, peer);
+        }
+    }
+
+    /**
+     * Creates a menu replaying a recorded traffic trace between the PCs and turning the random PC traffic on or off.
+     *
+     * @return a configured menu
+     */
+    private javafx.scene.control.Menu createTrafficTraceMenu() {
+        javafx.scene.control.Menu trafficMenu = new javafx.scene.control.Menu("Traffic");
+        MenuItem replay = new MenuItem("Replay traffic trace...");
+        replay.setOnAction(clickEvent -> {
+            FileChooser fileChooser = new FileChooser();
+            fileChooser.setTitle("Replay traffic trace");
+            fileChooser.getExtensionFilters().addAll(new FileChooser.ExtensionFilter("Traffic traces", "*.pcap", "*.cap", "*.csv"),
+                    new FileChooser.ExtensionFilter("All files", "*.*"));
+            File file = fileChooser.showOpenDialog(stage);
+            if (file != null) {
+                masterController.startTrafficTrace(file);
+            }
+        });
+        MenuItem stop = new MenuItem("Stop traffic trace");
+        stop.setOnAction(clickEvent -> masterController.stopTrafficTrace());
+        CheckMenuItem random = new CheckMenuItem("Random PC traffic");
+        random.setSelected(true);
+        random.setOnAction(clickEvent -> masterController.setRandomCommunication(random.isSelected()));
+        trafficMenu.getItems().addAll(replay, stop, new SeparatorMenuItem(), random);
+        return trafficMenu;
+    }
+
+    /**
+     * Creates a menu recording the simulation into a journal, running it headless and replaying a recorded journal.
+     *
+     * @return a configured menu
+     */
+    private javafx.scene.control.Menu createJournalMenu() {
+        javafx.scene.control.Menu journalMenu = new javafx.scene.control.Menu("Journal");
+        CheckMenuItem record = new CheckMenuItem("Record journal");
+        record.setOnAction(clickEvent -> {
+            if (!record.isSelected()) {
+                masterController.stopJournal();
+                return;
+            }
+            FileChooser fileChooser = new FileChooser();
+            fileChooser.setTitle("Record journal");
+            fileChooser.setInitialFileName("simulation.spjr");
+            File file = fileChooser.showSaveDialog(stage);
+            if (file == null) {
+                record.setSelected(false);
+                return;
+            }
+            masterController.startJournal(file);
+        });
+        CheckMenuItem headless = new CheckMenuItem("Run headless");
+        headless.setOnAction(clickEvent -> masterController.setHeadless(headless.isSelected()));
+        MenuItem replay = new MenuItem("Replay journal...");
+        replay.setOnAction(clickEvent -> replayJournal());
+        MenuItem stopReplay = new MenuItem("Stop replay");
+        stopReplay.setOnAction(clickEvent -> masterController.stopJournalReplay());
+        journalMenu.getItems().addAll(record, headless, new SeparatorMenuItem(), replay, stopReplay);
+        return journalMenu;
+    }
+
+    /**
+     * Asks for a journal, the simulated second to start at and the speed, then plays the journal.
+     */
+    private void replayJournal() {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Replay journal");
+        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Simulation journals", "*.spjr"));
+        File file = fileChooser.showOpenDialog(stage);
+        if (file == null) {
+            return;
+        }
+        SimulationJournal journal = masterController.openJournalReplay(file);
+        if (journal == null) {
+            return;
+        }
+        TextInputDialog startDialog = new TextInputDialog(String.format("%.1f", journal.getStartMillis() / 1000.0));
+        startDialog.setTitle("Replay journal");
+        startDialog.setHeaderText(String.format("Start at simulated second (%.1f - %.1f)", journal.getStartMillis() / 1000.0, journal.getEndMillis() / 1000.0));
+        Optional<String> start = startDialog.showAndWait();
+        if (start.isEmpty()) {
+            return;
+        }
+        long fromMillis;
+        try {
+            fromMillis = Math.round(Double.parseDouble(start.get().trim().replace(',', '.')) * 1000);
+        } catch (NumberFormatException e) {
+            printToLogWindow(String.format("Not a number of seconds: %s\n", start.get()), Color.RED);
+            return;
+        }
+        ChoiceDialog<Double> speedDialog = new ChoiceDialog<>(1.0, 0.25, 0.5, 1.0, 2.0, 4.0, 8.0, 16.0, 64.0);
+        speedDialog.setTitle("Replay journal");
+        speedDialog.setHeaderText("Speed relative to the recording");
+        speedDialog.showAndWait().ifPresent(speed -> masterController.playJournalReplay(fromMillis, speed));
+    }
+
+    /**
+     * Creates a menu choosing how many frames are animated. Frames that are not animated are shown as traffic on their link.
+     *
+     * @return a configured menu
+     */
+    private javafx.scene.control.Menu createAnimationDetailMenu() {
+        javafx.scene.control.Menu animationDetail = new javafx.scene.control.Menu("Animation detail");
+        ToggleGroup toggleGroup = new ToggleGroup();
+        RadioMenuItem all = new RadioMenuItem("Animate every frame");
+        all.setOnAction(clickEvent -> masterController.setMaxAnimatedFramesPerLinkPerSecond(AnimationLevelOfDetail.UNLIMITED));
+        RadioMenuItem adaptive = new RadioMenuItem("Adaptive");
+        adaptive.setOnAction(clickEvent -> masterController.setMaxAnimatedFramesPerLinkPerSecond(AnimationLevelOfDetail.DEFAULT_MAX_ANIMATED_FRAMES_PER_LINK_PER_SECOND));
+        RadioMenuItem countersOnly = new RadioMenuItem("Traffic counters only");
+        countersOnly.setOnAction(clickEvent -> masterController.setMaxAnimatedFramesPerLinkPerSecond(0));
+        toggleGroup.getToggles().addAll(all, adaptive, countersOnly);
+        adaptive.setSelected(true);
+        animationDetail.getItems().addAll(all, adaptive, countersOnly);
+        return animationDetail;
+    }
+
+    /**
+     * Creates a menu choosing the egress queue discipline of the router interfaces in this workspace.
+     *
+     * @return a configured menu
+     */
+    private javafx.scene.control.Menu createEgressQueueMenu() {
+        javafx.scene.control.Menu egressQueue = new javafx.scene.control.Menu("Egress queues");
+        ToggleGroup toggleGroup = new ToggleGroup();
+        for (EgressQueueDiscipline discipline : EgressQueueDiscipline.values()) {
+            RadioMenuItem disciplineItem = new RadioMenuItem(discipline.getDisplayName());
+            disciplineItem.setOnAction(clickEvent -> {
+                masterController.setEgressQueueDiscipline(discipline);
+                printToLogWindow(String.format("Router interfaces queue frames by %s\n", discipline.getDisplayName()), Color.DARKCYAN);
+            });
+            disciplineItem.setSelected(discipline == EgressQueueDiscipline.TAIL_DROP);
+            toggleGroup.getToggles().add(disciplineItem);
+            egressQueue.getItems().add(disciplineItem);
+        }
+        return egressQueue;
+    }
+
+    /**
+     * Creates a menu item drawing the topology on a zoomable {@link TopologyCanvas} while it is checked, for
+     * topologies too large to show a node per device. Devices are moved while it is unchecked.
+     *
+     * @return a configured menu item
+     */
+    private MenuItem createCanvasRenderingMenuItem() {
+        CheckMenuItem canvasRendering = new CheckMenuItem("Canvas rendering");
+        canvasRendering.setOnAction(clickEvent -> setCanvasRendering(canvasRendering.isSelected()));
+        return canvasRendering;
+    }
+
+    private void setCanvasRendering(boolean canvasRendering) {
+        if (canvasRendering == (topologyCanvas != null)) {
+            return;
+        }
+        workspaceIndex.setNodesHidden(canvasRendering);
+        if (!canvasRendering) {
+            topologyCanvas.stop();
+            removeNode(topologyCanvas);
+            topologyCanvas = null;
+            workspaceIndex.setChangeListener(() -> {
+            });
+            frameAnimationLayer.setViewTransform(1, 0, 0);
+            return;
+        }
+        topologyCanvas = new TopologyCanvas(workspaceIndex);
+        topologyCanvas.widthProperty().bind(simulationWorkspace.widthProperty());
+        topologyCanvas.heightProperty().bind(simulationWorkspace.heightProperty());
+        topologyCanvas.setManaged(false);
+        TopologyCanvas canvas = topologyCanvas;
+        topologyCanvas.setViewChangeListener(() -> frameAnimationLayer.setViewTransform(canvas.getScale(), canvas.getTranslateXOfView(), canvas.getTranslateYOfView()));
+        workspaceIndex.setChangeListener(topologyCanvas::invalidate);
+        addNode(topologyCanvas);
+        topologyCanvas.toBack();
+        topologyCanvas.start();
+    }
+
+    /**
+     * Creates a menu arranging the devices by a force-directed layout, freely or in rows of routers, switches and PCs.
+     *
+     * @return a configured menu
+     */
+    private javafx.scene.control.Menu createAutoLayoutMenu() {
+        javafx.scene.control.Menu autoLayout = new javafx.scene.control.Menu("Auto layout");
+        MenuItem forceDirected = new MenuItem("Force-directed");
+        forceDirected.setOnAction(clickEvent -> startAutoLayout(false));
+        MenuItem hierarchical = new MenuItem("Hierarchical");
+        hierarchical.setOnAction(clickEvent -> startAutoLayout(true));
+        autoLayout.getItems().addAll(forceDirected, hierarchical);
+        return autoLayout;
+    }
+
+    /**
+     * Lays out the devices on a background thread, replacing a layout that is still running.
+     */
+    private void startAutoLayout(boolean hierarchical) {
+        if (!masterController.simulationPaused()) {
+            printToLogWindow("Pause simulation before making adjustments\n", Color.RED);
+            return;
+        }
+        if (runningAutoLayout != null) {
+            runningAutoLayout.cancel();
+        }
+        AutoLayout autoLayout = new AutoLayout(networkDeviceViews, connectionLines, hierarchical, networkDeviceView -> {
+            for (ConnectionLine line : networkDeviceView.getConnections()) {
+                updateLabelPositions(line);
+            }
+        });
+        long startNanos = System.nanoTime();
+        autoLayout.setOnSucceeded(succeeded -> printToLogWindow(String.format("Laid out %d devices in %d ms\n", networkDeviceViews.size(), (System.nanoTime() - startNanos) / 1_000_000), Color.DARKCYAN));
+        autoLayout.setOnFailed(failed -> {
+            logger.error("Auto layout failed", autoLayout.getException());
+            printToLogWindow(String.format("Auto layout failed: %s\n", autoLayout.getException().getMessage()), Color.RED);
+        });
+        runningAutoLayout = autoLayout;
+        Thread layoutThread = new Thread(autoLayout, "auto-layout");
+        layoutThread.setDaemon(true);
+        layoutThread.start();
+    }
+
+    private void invalidateTopologyCanvas() {
+        if (topologyCanvas != null) {
+            topologyCanvas.invalidate();
+        }
+    }
+
     /**
      * Creates a button for adding network devices to the simulation.
      *
@@ -266,6 +672,9 @@ public class SimulationWorkspaceView {
                 if (!simulationWorkspace.getChildren().contains(cursorFollowingDeviceHandler.get())) {
                     simulationWorkspace.getChildren().add(cursorFollowingDeviceHandler.get());
                     cursorFollowingDeviceHandler.get().toBack();
+                    if (topologyCanvas != null) {
+                        topologyCanvas.toBack();
+                    }
                 }
                 cursorFollowingDeviceHandler.get().setLayoutX(moveEvent.getSceneX());
                 cursorFollowingDeviceHandler.get().setLayoutY(moveEvent.getSceneY());
@@ -279,6 +688,12 @@ public class SimulationWorkspaceView {
     private void setupCursorFollowingDeviceClickEvent() {
         simulationWorkspace.setOnMouseClicked(clickEvent -> {
             if (cursorFollowingDeviceHandler.isFollowing()) {
+                if (topologyCanvas != null) {
+                    // The canvas shows the workspace zoomed and panned, the device is placed where it appears
+                    Point2D position = topologyCanvas.sceneToLocal(clickEvent.getSceneX(), clickEvent.getSceneY());
+                    cursorFollowingDeviceHandler.get().setLayoutX(topologyCanvas.toWorkspaceX(position.getX()));
+                    cursorFollowingDeviceHandler.get().setLayoutY(topologyCanvas.toWorkspaceY(position.getY()));
+                }
                 setupPlacedDeviceEvents(cursorFollowingDeviceHandler.get());
                 masterController.addDevice(cursorFollowingDeviceHandler.get());
                 addDeviceView(cursorFollowingDeviceHandler.get());
@@ -298,6 +713,50 @@ public class SimulationWorkspaceView {
         setupPlacedDeviceClickEvent(networkDeviceView, cursorDistanceFromShapeTopLeft);
         setupPlacedDeviceDragEvent(networkDeviceView, cursorDistanceFromShapeTopLeft);
         setupPlacedDeviceHoverEvent(networkDeviceView);
+        setupPlacedDeviceContextMenu(networkDeviceView);
+    }
+
+    /**
+     * Configures the context menu of a placed network device, allowing to take the device down and bring it back up
+     * and to capture its packets.
+     *
+     * @param networkDeviceView the network device view to configure
+     */
+    private void setupPlacedDeviceContextMenu(NetworkDeviceView networkDeviceView) {
+        networkDeviceView.setOnContextMenuRequested(contextMenuEvent -> {
+            MenuItem toggleFailure;
+            if (masterController.isDeviceFailed(networkDeviceView)) {
+                toggleFailure = new MenuItem("Restore device");
+                toggleFailure.setOnAction(actionEvent -> masterController.restoreDevice(networkDeviceView));
+            } else {
+                toggleFailure = new MenuItem("Fail device");
+                toggleFailure.setOnAction(actionEvent -> masterController.failDevice(networkDeviceView));
+            }
+            new ContextMenu(toggleFailure, createPacketCaptureMenuItem(networkDeviceView, null)).show(networkDeviceView, contextMenuEvent.getScreenX(), contextMenuEvent.getScreenY());
+            contextMenuEvent.consume();
+        });
+    }
+
+    /**
+     * Configures the context menu of a connection line, allowing to take the link down and bring it back up
+     * and to capture its packets.
+     *
+     * @param connectionLine the connection line to configure
+     */
+    private void setupConnectionLineContextMenu(ConnectionLine connectionLine) {
+        connectionLine.setOnContextMenuRequested(contextMenuEvent -> {
+            MenuItem toggleFailure;
+            if (masterController.isLinkFailed(connectionLine.getStartDevice(), connectionLine.getEndDevice())) {
+                toggleFailure = new MenuItem("Restore link");
+                toggleFailure.setOnAction(actionEvent -> masterController.restoreLink(connectionLine.getStartDevice(), connectionLine.getEndDevice()));
+            } else {
+                toggleFailure = new MenuItem("Fail link");
+                toggleFailure.setOnAction(actionEvent -> masterController.failLink(connectionLine.getStartDevice(), connectionLine.getEndDevice()));
+            }
+            new ContextMenu(toggleFailure, createPacketCaptureMenuItem(connectionLine.getStartDevice(), connectionLine.getEndDevice()))
+                    .show(connectionLine, contextMenuEvent.getScreenX(), contextMenuEvent.getScreenY());
+            contextMenuEvent.consume();
+        });
     }
 
     /**
@@ -434,16 +893,27 @@ public class SimulationWorkspaceView {
         connectionLine.updateLabelPosition(connectionLine.getMiddleLabel(), centerX, centerY);
         connectionLine.updateLabelPosition(connectionLine.getStartLabel(), thirdXFromStart, thirdYFromStart);
         connectionLine.updateLabelPosition(connectionLine.getEndLabel(), thirdXFromEnd, thirdYFromEnd);
-        simulationWorkspace.getChildren().addAll(connectionLine, connectionLine.getMiddleLabel(), connectionLine.getStartLabel(), connectionLine.getEndLabel());
+        connectionLine.updateLabelPosition(connectionLine.getTrafficLabel(), centerX, centerY + TRAFFIC_LABEL_OFFSET);
+        simulationWorkspace.getChildren().addAll(connectionLine, connectionLine.getMiddleLabel(), connectionLine.getStartLabel(), connectionLine.getEndLabel(), connectionLine.getTrafficLabel());
         connectionLine.toBack();
 
+        setupConnectionLineContextMenu(connectionLine);
+
         startDeviceView.addConnectionLine(connectionLine);
         endDeviceView.addConnectionLine(connectionLine);
         connectionLines.add(connectionLine);
+        connectionLinesByDevices.putIfAbsent(UnorderedUuidPair.of(startDeviceView.getUuid(), endDeviceView.getUuid()), connectionLine);
+        workspaceIndex.addConnectionLine(connectionLine);
     }
 
+    /**
+     * Registers a placed device with the workspace, which culls it while it is out of view and picks it for the mouse.
+     *
+     * @param networkDeviceView the placed device view
+     */
     public void addDeviceView(NetworkDeviceView networkDeviceView) {
         networkDeviceViews.add(networkDeviceView);
+        workspaceIndex.addDevice(networkDeviceView);
     }
 
     /**
@@ -468,6 +938,7 @@ public class SimulationWorkspaceView {
         connectionLine.updateLabelPosition(connectionLine.getMiddleLabel(), centerX, centerY);
         connectionLine.updateLabelPosition(connectionLine.getStartLabel(), thirdXFromStart, thirdYFromStart);
         connectionLine.updateLabelPosition(connectionLine.getEndLabel(), thirdXFromEnd, thirdYFromEnd);
+        connectionLine.updateLabelPosition(connectionLine.getTrafficLabel(), centerX, centerY + TRAFFIC_LABEL_OFFSET);
     }
 
     /**
@@ -504,6 +975,15 @@ public class SimulationWorkspaceView {
         simulationWorkspace.getChildren().add(node);
     }
 
+    /**
+     * Adds graphical nodes to the simulation workspace in a single change of its children.
+     *
+     * @param nodes the nodes to be added
+     */
+    public void addNodes(Collection<? extends Node> nodes) {
+        simulationWorkspace.getChildren().addAll(nodes);
+    }
+
     /**
      * Removes a graphical node from the simulation workspace.
      *
@@ -522,28 +1002,74 @@ public class SimulationWorkspaceView {
         this.masterController = masterController;
     }
 
+    /**
+     * Prints a message to the log window. Safe to call from any thread, the message is shown on the next pulse.
+     *
+     * @param string the message
+     * @param color  the colour of the message
+     */
     public void printToLogWindow(String string, Color color) {
-        Text text = new Text(string);
-        text.setFill(color);
-        Platform.runLater(() -> {
-            logArea.print(text);
-        });
+        logArea.print(string, color);
     }
 
-    @Subscribe
+    /**
+     * Starts the animation of a frame travelling over a connection. Delivered on the posting thread,
+     * the frame is picked up by the next pulse of the frame animation layer.
+     *
+     * @param event the event describing the frame and its link
+     */
     public void handleNetworkConnectionAnimationRequestEvent(NetworkCommunicationAnimationRequestEvent event) {
-        Platform.runLater(() -> {
-            Rectangle visualFrame = event.frameThroughNetworkConnection().getValue();
-            PathTransition animationPath = event.frameThroughNetworkConnection().getKey();
-
-            addNode(visualFrame);
-            animationPath.setOnFinished(animationFinishedEvent -> {
-                removeNode(visualFrame);
-                GlobalEventBus.post(new NetworkCommunicationAnimationFinishedEvent(event.communicationId()));
-            });
-            animationPath.play();
-        });
+        frameAnimationLayer.animate(event.communicationId(), event.startDeviceUuid(), event.endDeviceUuid(), event.color(), event.durationMillis());
+    }
 
+    /**
+     * Finds the connection line between two devices. Safe to call from any thread.
+     *
+     * @param firstUuid  the UUID of one device
+     * @param secondUuid the UUID of the other device
+     * @return the connection line, or null if the devices are not connected
+     */
+    private ConnectionLine findConnectionLine(UUID firstUuid, UUID secondUuid) {
+        return connectionLinesByDevices.get(UnorderedUuidPair.of(firstUuid, secondUuid));
+    }
+
+    /**
+     * Dims a network device that is down. Delivered on the JavaFX Application Thread.
+     *
+     * @param event the event describing the new state of the device
+     */
+    public void handleDeviceStateChangedEvent(DeviceStateChangedEvent event) {
+        for (NetworkDeviceView networkDeviceView : networkDeviceViews) {
+            if (networkDeviceView.getUuid().equals(event.deviceUuid())) {
+                networkDeviceView.setOpacity(event.up() ? 1.0 : 0.35);
+            }
+        }
+        invalidateTopologyCanvas();
+    }
+
+    /**
+     * Marks a connection line whose link is down. Delivered on the JavaFX Application Thread.
+     *
+     * @param event the event describing the new state of the link
+     */
+    public void handleLinkStateChangedEvent(LinkStateChangedEvent event) {
+        ConnectionLine connectionLine = findConnectionLine(event.firstDeviceUuid(), event.secondDeviceUuid());
+        if (connectionLine != null) {
+            connectionLine.setFailed(!event.up());
+        }
+        invalidateTopologyCanvas();
     }
-}
 
+    /**
+     * Shows the traffic a link carried without animating it. Delivered on the JavaFX Application Thread.
+     *
+     * @param event the event with the aggregated traffic of the link
+     */
+    public void handleLinkTrafficEvent(LinkTrafficEvent event) {
+        ConnectionLine connectionLine = findConnectionLine(event.firstDeviceUuid(), event.secondDeviceUuid());
+        if (connectionLine != null) {
+            connectionLine.showAggregatedTraffic(event.framesPerSecond());
+        }
+        invalidateTopologyCanvas();
+    }
+}
@@ -1,26 +1,26 @@
 package view;
 
-import common.AutoNameGenerator;
 import common.GlobalEventBus;
+import common.SimulationEventBus;
 import controller.MasterController;
 import controller.NetworksController;
 import controller.SimulationController;
-import io.*;
-import javafx.application.Platform;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.control.Button;
-import javafx.scene.image.Image;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
 import javafx.scene.layout.VBox;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 import model.NetworkDeviceStorage;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
 import java.io.File;
-import java.util.List;
-import java.util.Map;
 
 public class StartupView {
+    private static final Logger logger = LogManager.getLogger(StartupView.class);
 
     private final Stage stage;
     private Scene scene;
@@ -28,7 +28,6 @@ public class StartupView {
 
     public StartupView(Stage stage) {
         this.stage = stage;
-        GlobalEventBus.register(this);
         initializeView();
     }
 
@@ -41,47 +40,63 @@ public class StartupView {
         Button newButton = new Button("New");
         newButton.setPrefSize(200, 40);
         newButton.setOnAction(event -> {
-            SimulationWorkspaceView simulationWorkspaceView = new SimulationWorkspaceView(stage);
+            SimulationEventBus eventBus = GlobalEventBus.openSession();
+            SimulationWorkspaceView simulationWorkspaceView = new SimulationWorkspaceView(stage, eventBus);
             NetworksController networksController = new NetworksController();
-            NetworkDeviceStorage networkDeviceStorage = new NetworkDeviceStorage();
-            SimulationController simulationController = new SimulationController(simulationWorkspaceView, networkDeviceStorage, networksController);
-            MasterController masterController = new MasterController(simulationWorkspaceView, networkDeviceStorage, networksController, simulationController);
+            NetworkDeviceStorage networkDeviceStorage = new NetworkDeviceStorage(eventBus);
+            SimulationController simulationController = new SimulationController(simulationWorkspaceView, networkDeviceStorage, networksController, eventBus);
+            MasterController masterController = new MasterController(simulationWorkspaceView, networkDeviceStorage, networksController, simulationController, eventBus);
 
             simulationWorkspaceView.display();
         });
 
         Button loadButton = new Button("Load");
         loadButton.setPrefSize(200, 40);
+        ProgressBar loadProgressBar = new ProgressBar();
+        loadProgressBar.setPrefWidth(200);
+        loadProgressBar.setVisible(false);
+        Label loadStatusLabel = new Label();
+        loadStatusLabel.setWrapText(true);
+        loadStatusLabel.setMaxWidth(400);
         loadButton.setOnAction(event -> {
             FileChooser fileChooser = new FileChooser();
             FileChooser.ExtensionFilter jsonFilter = new FileChooser.ExtensionFilter("JSON files (*.json)", "*.json");
-            fileChooser.getExtensionFilters().add(jsonFilter);
+            FileChooser.ExtensionFilter snapshotFilter = new FileChooser.ExtensionFilter("Binary snapshots (*.spts)", "*.spts");
+            fileChooser.getExtensionFilters().addAll(jsonFilter, snapshotFilter);
 
             File selectedFile = fileChooser.showOpenDialog(null);
 
             if (selectedFile != null) {
-                Platform.runLater(() -> {
-                    JsonImporter jsonImporter = new JsonImporter();
-                    System.out.println("Loading simulation from: " + selectedFile.getAbsolutePath());
-                    SimulationWorkspaceView simulationWorkspaceView = new SimulationWorkspaceView(stage);
-                    NetworksController networksController = new NetworksController();
-                    NetworkDeviceStorage networkDeviceStorage = new NetworkDeviceStorage();
-                    SimulationController simulationController = new SimulationController(simulationWorkspaceView, networkDeviceStorage, networksController);
-                    MasterController masterController = new MasterController(simulationWorkspaceView, networkDeviceStorage, networksController, simulationController);
-
-                    NetworkData networkData = jsonImporter.importNetworkData(selectedFile);
-                    insertDevices(networkData.devices(), simulationWorkspaceView, masterController);
-                    insertConnections(networkData, simulationWorkspaceView, masterController);
-                    AutoNameGenerator.getInstance().setRouterNextAvailableNumber(networkData.autoNameGeneratorDTO().routerNameCounter());
-                    AutoNameGenerator.getInstance().setSwitchNextAvailableNumber(networkData.autoNameGeneratorDTO().switchNameCounter());
-                    AutoNameGenerator.getInstance().setRouterInterfaceNextAvailableNumber(networkData.autoNameGeneratorDTO().routerInterfaceNameCounter());
-                    AutoNameGenerator.getInstance().setPcNextAvailableNumber(networkData.autoNameGeneratorDTO().pcNameCounter());
-                    simulationWorkspaceView.display();
+                SimulationEventBus eventBus = GlobalEventBus.openSession();
+                logger.info("Loading simulation from {}", selectedFile.getAbsolutePath());
+                SimulationWorkspaceView simulationWorkspaceView = new SimulationWorkspaceView(stage, eventBus);
+                NetworksController networksController = new NetworksController();
+                NetworkDeviceStorage networkDeviceStorage = new NetworkDeviceStorage(eventBus);
+                SimulationController simulationController = new SimulationController(simulationWorkspaceView, networkDeviceStorage, networksController, eventBus);
+                MasterController masterController = new MasterController(simulationWorkspaceView, networkDeviceStorage, networksController, simulationController, eventBus);
+
+                TopologyLoader topologyLoader = new TopologyLoader(selectedFile, simulationWorkspaceView, masterController);
+                newButton.setDisable(true);
+                loadButton.setDisable(true);
+                loadProgressBar.progressProperty().bind(topologyLoader.progressProperty());
+                loadProgressBar.setVisible(true);
+                loadStatusLabel.setText("Loading " + selectedFile.getName());
+                topologyLoader.setOnSucceeded(loaded -> simulationWorkspaceView.display());
+                topologyLoader.setOnFailed(failed -> {
+                    logger.error("Unable to load {}", selectedFile, topologyLoader.getException());
+                    loadProgressBar.progressProperty().unbind();
+                    loadProgressBar.setVisible(false);
+                    loadStatusLabel.setText(String.format("Unable to load %s: %s", selectedFile.getName(), topologyLoader.getException().getMessage()));
+                    newButton.setDisable(false);
+                    loadButton.setDisable(false);
                 });
+                Thread loaderThread = new Thread(topologyLoader, "topology-loader");
+                loaderThread.setDaemon(true);
+                loaderThread.start();
             }
         });
 
-        menu.getChildren().addAll(newButton, loadButton);
+        menu.getChildren().addAll(newButton, loadButton, loadProgressBar, loadStatusLabel);
 
         scene = new Scene(menu, 800, 600);
     }
@@ -91,53 +106,4 @@ public class StartupView {
         stage.setScene(scene);
         stage.show();
     }
-
-    public void insertDevices(List<NetworkDeviceViewDTO> devices, SimulationWorkspaceView simulationWorkspaceView, MasterController masterController) {
-        simulationWorkspaceView.initializeView();
-
-        NetworkDeviceView networkDeviceView;
-        for (NetworkDeviceViewDTO deviceData : devices) {
-            switch (deviceData.type()) {
-                case ROUTER -> {
-                    networkDeviceView = new RouterView(deviceData.uuid(), new Image("router_image.png"));
-                }
-                case SWITCH -> {
-                    networkDeviceView = new SwitchView(deviceData.uuid(), new Image("switch_image.png"));
-                }
-                case PC -> {
-                    networkDeviceView = new PCView(deviceData.uuid(), new Image("server_image.png"));
-                }
-                case null, default -> {
-                    return;
-                }
-            }
-            networkDeviceView.setLayoutX(deviceData.x());
-            networkDeviceView.setLayoutY(deviceData.y());
-            networkDeviceView.setName(deviceData.name());
-
-            simulationWorkspaceView.setupPlacedDeviceEvents(networkDeviceView);
-
-            simulationWorkspaceView.addNode(networkDeviceView);
-            simulationWorkspaceView.addDeviceView(networkDeviceView);
-            masterController.addDevice(networkDeviceView);
-        }
-    }
-
-    public void insertConnections(NetworkData networkData, SimulationWorkspaceView simulationWorkspaceView, MasterController masterController) {
-        for (ConnectionLineDTO connectionLine : networkData.connections()) {
-            NetworkDeviceView startDevice = simulationWorkspaceView.getNetworkDeviceViews().stream()
-                    .filter(device -> device.getUuid().equals(connectionLine.startDeviceId()))
-                    .findFirst()
-                    .orElseThrow(() -> new RuntimeException("Device with UUID " + connectionLine.startDeviceId() + " not found"));
-
-            NetworkDeviceView endDevice = simulationWorkspaceView.getNetworkDeviceViews().stream()
-                    .filter(device -> device.getUuid().equals(connectionLine.endDeviceId()))
-                    .findFirst()
-                    .orElseThrow(() -> new RuntimeException("Device with UUID " + connectionLine.startDeviceId() + " not found"));
-
-            masterController.addConnection(startDevice, endDevice);
-            Map<String, String> labels = masterController.setupInitialLabelsForConnection(startDevice, endDevice);
-            simulationWorkspaceView.addConnectionLine(startDevice, endDevice, labels.get("Middle"), labels.get("Start"), labels.get("End"));
-        }
-    }
 }
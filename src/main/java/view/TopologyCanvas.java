@@ -0,0 +1,375 @@
+package view;
+
+import common.NetworkDeviceType;
+import javafx.animation.AnimationTimer;
+import javafx.event.Event;
+import javafx.geometry.Bounds;
+import javafx.geometry.VPos;
+import javafx.scene.Node;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.input.ContextMenuEvent;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.input.ScrollEvent;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.Paint;
+import javafx.scene.text.Font;
+import javafx.scene.text.TextAlignment;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Draws the topology of a workspace on a single canvas that can be zoomed with the mouse wheel and panned by dragging,
+ * instead of showing a node per device, line and label.
+ * <p>
+ * Only the devices and lines within view are drawn, found through the {@link WorkspaceIndex}. The level of detail
+ * follows the zoom: devices are drawn as icons with their names and links with their labels when zoomed in, as
+ * coloured dots when zoomed out, and when zoomed out further devices close to each other on the screen are merged
+ * into one dot and the links between two such groups into one edge that gets stronger the more links it stands for.
+ * The canvas is redrawn on the next pulse after it was invalidated, so a topology of many thousands of devices is
+ * drawn once per change rather than once per pulse. Device views keep their positions in workspace coordinates,
+ * the canvas only changes how they are mapped onto the screen.
+ * <p>
+ * Clicks and context menu requests on a device or line are redirected to its hidden node, so connecting devices and
+ * failing devices and links work as in the node view. Devices are moved in the node view.
+ */
+public class TopologyCanvas extends Canvas {
+    static final double MIN_SCALE = 0.02;
+    static final double MAX_SCALE = 4;
+    private static final double ZOOM_PER_SCROLL_UNIT = 1.0015;
+    /**
+     * The scale from which devices are drawn as icons with their names.
+     */
+    private static final double ICON_SCALE = 0.5;
+    /**
+     * The scale from which links are drawn with their labels.
+     */
+    private static final double LINK_LABEL_SCALE = 0.9;
+    /**
+     * The scale below which devices and links are aggregated into screen cells.
+     */
+    private static final double AGGREGATION_SCALE = 0.15;
+    private static final double AGGREGATION_CELL_PIXELS = 10;
+    private static final double DOT_RADIUS = 3;
+    private static final double IMAGE_SIZE = 70;
+    private static final double PICK_TOLERANCE_PIXELS = 4;
+    private static final Font NAME_FONT = Font.font("System", 11);
+    private static final Font LABEL_FONT = Font.font("System", 10);
+    private static final Color NAME_COLOR = Color.web("#FF0000");
+    private static final Color MIDDLE_LABEL_COLOR = Color.web("#FF0000");
+    private static final Color INTERFACE_LABEL_COLOR = Color.web("#ff0942");
+    private static final Color TRAFFIC_LABEL_COLOR = Color.web("#008b8b");
+
+    private final WorkspaceIndex index;
+    private final AnimationTimer animationTimer;
+    private Runnable viewChangeListener = () -> {
+    };
+    private double scale = 1;
+    private double translateX = 0;
+    private double translateY = 0;
+    private boolean invalid = true;
+    private boolean panning = false;
+    private double panStartX;
+    private double panStartY;
+
+    /**
+     * Constructs the canvas.
+     *
+     * @param index The index of the devices and lines of the workspace to draw.
+     */
+    TopologyCanvas(WorkspaceIndex index) {
+        this.index = index;
+        widthProperty().addListener(observable -> invalidate());
+        heightProperty().addListener(observable -> invalidate());
+        setOnScroll(this::zoom);
+        setOnMousePressed(this::press);
+        setOnMouseDragged(this::pan);
+        setOnMouseReleased(releaseEvent -> panning = false);
+        setOnContextMenuRequested(this::redirectContextMenuRequest);
+        animationTimer = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                if (invalid) {
+                    invalid = false;
+                    render();
+                }
+            }
+        };
+    }
+
+    public void start() {
+        invalidate();
+        animationTimer.start();
+    }
+
+    public void stop() {
+        animationTimer.stop();
+    }
+
+    /**
+     * Redraws the canvas on the next pulse.
+     */
+    public void invalidate() {
+        invalid = true;
+    }
+
+    /**
+     * @param viewChangeListener Called after the canvas was zoomed or panned.
+     */
+    public void setViewChangeListener(Runnable viewChangeListener) {
+        this.viewChangeListener = viewChangeListener;
+    }
+
+    /**
+     * @return how many pixels a unit of the workspace takes on the screen
+     */
+    public double getScale() {
+        return scale;
+    }
+
+    /**
+     * @return where the origin of the workspace lies on the canvas, horizontally
+     */
+    public double getTranslateXOfView() {
+        return translateX;
+    }
+
+    /**
+     * @return where the origin of the workspace lies on the canvas, vertically
+     */
+    public double getTranslateYOfView() {
+        return translateY;
+    }
+
+    public double toWorkspaceX(double canvasX) {
+        return (canvasX - translateX) / scale;
+    }
+
+    public double toWorkspaceY(double canvasY) {
+        return (canvasY - translateY) / scale;
+    }
+
+    /**
+     * Zooms around the mouse, so the point under it stays where it is.
+     */
+    private void zoom(ScrollEvent scrollEvent) {
+        double newScale = Math.clamp(scale * Math.pow(ZOOM_PER_SCROLL_UNIT, scrollEvent.getDeltaY()), MIN_SCALE, MAX_SCALE);
+        translateX = scrollEvent.getX() - (scrollEvent.getX() - translateX) * newScale / scale;
+        translateY = scrollEvent.getY() - (scrollEvent.getY() - translateY) * newScale / scale;
+        scale = newScale;
+        viewChanged();
+        scrollEvent.consume();
+    }
+
+    private void press(MouseEvent pressEvent) {
+        NetworkDeviceView device = index.pickDevice(toWorkspaceX(pressEvent.getX()), toWorkspaceY(pressEvent.getY()), true);
+        if (device != null) {
+            Event.fireEvent(device, pressEvent.copyFor(device, device));
+            return;
+        }
+        if (pressEvent.getButton() == MouseButton.PRIMARY) {
+            panning = true;
+            panStartX = pressEvent.getX() - translateX;
+            panStartY = pressEvent.getY() - translateY;
+        }
+    }
+
+    private void pan(MouseEvent dragEvent) {
+        if (!panning) {
+            return;
+        }
+        translateX = dragEvent.getX() - panStartX;
+        translateY = dragEvent.getY() - panStartY;
+        viewChanged();
+    }
+
+    private void viewChanged() {
+        invalidate();
+        viewChangeListener.run();
+    }
+
+    private void redirectContextMenuRequest(ContextMenuEvent contextMenuEvent) {
+        double x = toWorkspaceX(contextMenuEvent.getX());
+        double y = toWorkspaceY(contextMenuEvent.getY());
+        Node target = index.pickDevice(x, y, true);
+        if (target == null) {
+            target = index.pickConnectionLine(x, y, PICK_TOLERANCE_PIXELS / scale, true);
+        }
+        if (target != null) {
+            Event.fireEvent(target, contextMenuEvent.copyFor(target, target));
+        }
+        contextMenuEvent.consume();
+    }
+
+    private void render() {
+        GraphicsContext graphicsContext = getGraphicsContext2D();
+        graphicsContext.setTransform(1, 0, 0, 1, 0, 0);
+        graphicsContext.clearRect(0, 0, getWidth(), getHeight());
+        double minX = toWorkspaceX(0);
+        double minY = toWorkspaceY(0);
+        double maxX = toWorkspaceX(getWidth());
+        double maxY = toWorkspaceY(getHeight());
+        if (scale < AGGREGATION_SCALE) {
+            renderAggregated(graphicsContext, minX, minY, maxX, maxY);
+            return;
+        }
+        List<ConnectionLine> lines = new ArrayList<>();
+        index.queryConnectionLines(minX, minY, maxX, maxY, lines::add);
+        for (ConnectionLine line : lines) {
+            renderLine(graphicsContext, line);
+        }
+        List<NetworkDeviceView> devices = new ArrayList<>();
+        index.queryDevices(minX, minY, maxX, maxY, devices::add);
+        for (NetworkDeviceView device : devices) {
+            renderDevice(graphicsContext, device);
+        }
+        if (scale >= LINK_LABEL_SCALE) {
+            for (ConnectionLine line : lines) {
+                renderLinkLabels(graphicsContext, line);
+            }
+        }
+        graphicsContext.setGlobalAlpha(1);
+    }
+
+    private void renderLine(GraphicsContext graphicsContext, ConnectionLine line) {
+        Paint stroke = line.getStroke();
+        graphicsContext.setStroke(stroke == null ? Color.BLACK : stroke);
+        graphicsContext.setLineWidth(line.getStrokeWidth());
+        if (line.getStrokeDashArray().isEmpty()) {
+            graphicsContext.setLineDashes();
+        } else {
+            double[] dashes = new double[line.getStrokeDashArray().size()];
+            for (int i = 0; i < dashes.length; i++) {
+                dashes[i] = line.getStrokeDashArray().get(i);
+            }
+            graphicsContext.setLineDashes(dashes);
+        }
+        graphicsContext.strokeLine(screenX(line.getStartX()), screenY(line.getStartY()), screenX(line.getEndX()), screenY(line.getEndY()));
+        graphicsContext.setLineDashes();
+    }
+
+    private void renderDevice(GraphicsContext graphicsContext, NetworkDeviceView device) {
+        Bounds bounds = device.getBoundsInParent();
+        double centerX = screenX(bounds.getCenterX());
+        double centerY = screenY(bounds.getCenterY());
+        graphicsContext.setGlobalAlpha(device.getOpacity());
+        if (scale < ICON_SCALE) {
+            graphicsContext.setFill(dotColor(device.getNetworkDeviceType()));
+            graphicsContext.fillOval(centerX - DOT_RADIUS, centerY - DOT_RADIUS, 2 * DOT_RADIUS, 2 * DOT_RADIUS);
+            graphicsContext.setGlobalAlpha(1);
+            return;
+        }
+        double imageSize = IMAGE_SIZE * scale;
+        graphicsContext.drawImage(ImageCache.forDevice(device.getNetworkDeviceType()), centerX - imageSize / 2, centerY - imageSize / 2, imageSize, imageSize);
+        graphicsContext.setFill(NAME_COLOR);
+        graphicsContext.setFont(NAME_FONT);
+        graphicsContext.setTextAlign(TextAlignment.CENTER);
+        graphicsContext.setTextBaseline(VPos.CENTER);
+        graphicsContext.fillText(device.getName(), centerX, centerY);
+        graphicsContext.setGlobalAlpha(1);
+    }
+
+    /**
+     * Draws the labels of a link where the node view places them: the network in the middle, the interfaces a fifth
+     * of the way from either end and the aggregated traffic below the middle.
+     */
+    private void renderLinkLabels(GraphicsContext graphicsContext, ConnectionLine line) {
+        double startX = screenX(line.getStartX());
+        double startY = screenY(line.getStartY());
+        double endX = screenX(line.getEndX());
+        double endY = screenY(line.getEndY());
+        graphicsContext.setFont(LABEL_FONT);
+        graphicsContext.setTextAlign(TextAlignment.LEFT);
+        graphicsContext.setTextBaseline(VPos.TOP);
+        graphicsContext.setFill(MIDDLE_LABEL_COLOR);
+        graphicsContext.fillText(line.getMiddleLabel().getText(), (startX + endX) / 2, (startY + endY) / 2);
+        graphicsContext.setFill(INTERFACE_LABEL_COLOR);
+        graphicsContext.fillText(line.getStartLabel().getText(), startX + (endX - startX) / 5, startY + (endY - startY) / 5);
+        graphicsContext.fillText(line.getEndLabel().getText(), endX - (endX - startX) / 5, endY - (endY - startY) / 5);
+        if (line.isTrafficShown()) {
+            graphicsContext.setFill(TRAFFIC_LABEL_COLOR);
+            graphicsContext.fillText(line.getTrafficLabel().getText(), (startX + endX) / 2, (startY + endY) / 2 + 16 * scale);
+        }
+    }
+
+    /**
+     * Merges the devices falling into the same cell of a screen grid into one dot sized by their number and the links
+     * between two cells into one edge, so the work per frame depends on the screen rather than on the topology.
+     */
+    private void renderAggregated(GraphicsContext graphicsContext, double minX, double minY, double maxX, double maxY) {
+        double cellSize = AGGREGATION_CELL_PIXELS / scale;
+        Map<Long, int[]> edges = new HashMap<>();
+        index.queryConnectionLines(minX, minY, maxX, maxY, line -> {
+            long startCell = cell(line.getStartX(), line.getStartY(), minX, minY, cellSize);
+            long endCell = cell(line.getEndX(), line.getEndY(), minX, minY, cellSize);
+            if (startCell != endCell) {
+                edges.computeIfAbsent(Math.min(startCell, endCell) << 32 | Math.max(startCell, endCell), key -> new int[1])[0]++;
+            }
+        });
+        graphicsContext.setStroke(Color.BLACK);
+        graphicsContext.setLineWidth(1);
+        for (Map.Entry<Long, int[]> edge : edges.entrySet()) {
+            long startCell = edge.getKey() >>> 32;
+            long endCell = edge.getKey() & 0xffffffffL;
+            graphicsContext.setGlobalAlpha(Math.min(1, 0.2 + 0.15 * log2(edge.getValue()[0])));
+            graphicsContext.strokeLine(cellCenterX(startCell), cellCenterY(startCell), cellCenterX(endCell), cellCenterY(endCell));
+        }
+        Map<Long, int[]> cells = new HashMap<>();
+        index.queryDevices(minX, minY, maxX, maxY, device -> {
+            Bounds bounds = device.getBoundsInParent();
+            // Per cell: the number of routers, switches and PCs
+            int[] counts = cells.computeIfAbsent(cell(bounds.getCenterX(), bounds.getCenterY(), minX, minY, cellSize), key -> new int[3]);
+            counts[device.getNetworkDeviceType() == NetworkDeviceType.ROUTER ? 0 : device.getNetworkDeviceType() == NetworkDeviceType.SWITCH ? 1 : 2]++;
+        });
+        graphicsContext.setGlobalAlpha(1);
+        for (Map.Entry<Long, int[]> cell : cells.entrySet()) {
+            int[] counts = cell.getValue();
+            NetworkDeviceType dominant = counts[0] > 0 ? NetworkDeviceType.ROUTER : counts[1] > 0 ? NetworkDeviceType.SWITCH : NetworkDeviceType.PC;
+            double radius = Math.min(AGGREGATION_CELL_PIXELS / 2, DOT_RADIUS / 2 + log2(counts[0] + counts[1] + counts[2]));
+            graphicsContext.setFill(dotColor(dominant));
+            graphicsContext.fillOval(cellCenterX(cell.getKey()) - radius, cellCenterY(cell.getKey()) - radius, 2 * radius, 2 * radius);
+        }
+    }
+
+    /**
+     * Numbers the cells of the screen grid, a cell is its column in the upper and its row in the lower 16 bits.
+     * Cells of points far off the screen may share numbers, the edges to them only need their direction.
+     */
+    private static long cell(double x, double y, double minX, double minY, double cellSize) {
+        long column = (long) Math.floor((x - minX) / cellSize) & 0xffff;
+        long row = (long) Math.floor((y - minY) / cellSize) & 0xffff;
+        return column << 16 | row;
+    }
+
+    private static double cellCenterX(long cell) {
+        return ((short) (cell >>> 16) + 0.5) * AGGREGATION_CELL_PIXELS;
+    }
+
+    private static double cellCenterY(long cell) {
+        return ((short) cell + 0.5) * AGGREGATION_CELL_PIXELS;
+    }
+
+    private static double log2(int value) {
+        return Math.log(value) / Math.log(2);
+    }
+
+    private static Color dotColor(NetworkDeviceType networkDeviceType) {
+        return switch (networkDeviceType) {
+            case ROUTER -> Color.DARKORANGE;
+            case SWITCH -> Color.STEELBLUE;
+            default -> Color.DIMGRAY;
+        };
+    }
+
+    private double screenX(double workspaceX) {
+        return workspaceX * scale + translateX;
+    }
+
+    private double screenY(double workspaceY) {
+        return workspaceY * scale + translateY;
+    }
+}
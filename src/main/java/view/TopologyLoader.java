@@ -0,0 +1,175 @@
+package view;
+
+import common.AutoNameGenerator;
+import common.NetworkDeviceType;
+import controller.MasterController;
+import io.*;
+import javafx.application.Platform;
+import javafx.concurrent.Task;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Loads a saved topology into a workspace without blocking the JavaFX Application Thread.
+ * <p>
+ * A JSON export is read as a stream and a binary snapshot from its memory mapping, both on the task's thread, which
+ * also builds the device views and the model. The views are handed over to the workspace in batches of
+ * {@value #BATCH_SIZE}, one {@link Platform#runLater} each, so the UI keeps rendering and the progress can be shown
+ * while the topology is being loaded. Connections look their devices up in
+ * an index by UUID. A connection that appears before one of its devices is kept until the whole file is read.
+ * A snapshot saved as a checkpoint also restores the runtime state of the simulation once the topology is built.
+ */
+public class TopologyLoader extends Task<Void> {
+    private static final int BATCH_SIZE = 500;
+
+    private record PendingConnection(NetworkDeviceView startDevice, NetworkDeviceView endDevice, Map<String, String> labels) {
+    }
+
+    private final File file;
+    private final SimulationWorkspaceView simulationWorkspaceView;
+    private final MasterController masterController;
+    private final Map<UUID, NetworkDeviceView> deviceViews = new HashMap<>();
+    private final List<ConnectionLineDTO> unresolvedConnections = new ArrayList<>();
+    private List<NetworkDeviceView> deviceBatch = new ArrayList<>();
+    private List<PendingConnection> connectionBatch = new ArrayList<>();
+    private AutoNameGeneratorDTO autoNameGenerator;
+
+    /**
+     * @param file                    The saved topology.
+     * @param simulationWorkspaceView The workspace the devices and connections are placed into.
+     * @param masterController        The controller building the model of the workspace.
+     */
+    public TopologyLoader(File file, SimulationWorkspaceView simulationWorkspaceView, MasterController masterController) {
+        this.file = file;
+        this.simulationWorkspaceView = simulationWorkspaceView;
+        this.masterController = masterController;
+    }
+
+    @Override
+    protected Void call() throws Exception {
+        NetworkDataReader.Listener listener = new NetworkDataReader.Listener() {
+            @Override
+            public void device(NetworkDeviceViewDTO device) {
+                insertDevice(device);
+            }
+
+            @Override
+            public void connection(ConnectionLineDTO connection) {
+                NetworkDeviceView startDevice = deviceViews.get(connection.startDeviceId());
+                NetworkDeviceView endDevice = deviceViews.get(connection.endDeviceId());
+                if (startDevice == null || endDevice == null) {
+                    unresolvedConnections.add(connection);
+                    return;
+                }
+                insertConnection(startDevice, endDevice);
+            }
+
+            @Override
+            public void autoNameGenerator(AutoNameGeneratorDTO autoNameGeneratorDTO) {
+                autoNameGenerator = autoNameGeneratorDTO;
+            }
+
+            @Override
+            public void progress(long bytesRead, long totalBytes) {
+                updateProgress(bytesRead, totalBytes);
+            }
+        };
+        TopologySnapshot snapshot = null;
+        if (TopologySnapshot.isSnapshot(file.toPath())) {
+            snapshot = TopologySnapshot.open(file.toPath());
+            snapshot.read(listener);
+        } else {
+            new NetworkDataReader().read(file, listener);
+        }
+        for (ConnectionLineDTO connection : unresolvedConnections) {
+            NetworkDeviceView startDevice = deviceViews.get(connection.startDeviceId());
+            NetworkDeviceView endDevice = deviceViews.get(connection.endDeviceId());
+            if (startDevice == null || endDevice == null) {
+                throw new IllegalStateException("Device with UUID " + (startDevice == null ? connection.startDeviceId() : connection.endDeviceId()) + " not found");
+            }
+            insertConnection(startDevice, endDevice);
+        }
+        flush();
+        awaitFxThread();
+        if (autoNameGenerator != null) {
+            AutoNameGenerator.getInstance().setRouterNextAvailableNumber(autoNameGenerator.routerNameCounter());
+            AutoNameGenerator.getInstance().setSwitchNextAvailableNumber(autoNameGenerator.switchNameCounter());
+            AutoNameGenerator.getInstance().setRouterInterfaceNextAvailableNumber(autoNameGenerator.routerInterfaceNameCounter());
+            AutoNameGenerator.getInstance().setPcNextAvailableNumber(autoNameGenerator.pcNameCounter());
+        }
+        if (snapshot != null) {
+            Map<Integer, ByteBuffer> stateSections = snapshot.getStateSections();
+            if (!stateSections.isEmpty()) {
+                masterController.restoreCheckpoint(stateSections);
+            }
+        }
+        return null;
+    }
+
+    private void insertDevice(NetworkDeviceViewDTO deviceData) {
+        NetworkDeviceView networkDeviceView;
+        switch (deviceData.type()) {
+            case ROUTER -> networkDeviceView = new RouterView(deviceData.uuid(), ImageCache.forDevice(NetworkDeviceType.ROUTER));
+            case SWITCH -> networkDeviceView = new SwitchView(deviceData.uuid(), ImageCache.forDevice(NetworkDeviceType.SWITCH));
+            case PC -> networkDeviceView = new PCView(deviceData.uuid(), ImageCache.forDevice(NetworkDeviceType.PC));
+            case null, default -> {
+                return;
+            }
+        }
+        networkDeviceView.setLayoutX(deviceData.x());
+        networkDeviceView.setLayoutY(deviceData.y());
+        networkDeviceView.setName(deviceData.name());
+        masterController.addDevice(networkDeviceView);
+        deviceViews.put(deviceData.uuid(), networkDeviceView);
+        deviceBatch.add(networkDeviceView);
+        if (deviceBatch.size() >= BATCH_SIZE) {
+            flush();
+        }
+    }
+
+    private void insertConnection(NetworkDeviceView startDevice, NetworkDeviceView endDevice) {
+        // The labels describe the interfaces the connection has just created, so they are read right after it
+        masterController.addConnection(startDevice, endDevice);
+        connectionBatch.add(new PendingConnection(startDevice, endDevice, masterController.setupInitialLabelsForConnection(startDevice, endDevice)));
+        if (connectionBatch.size() >= BATCH_SIZE) {
+            flush();
+        }
+    }
+
+    /**
+     * Hands the views built so far over to the JavaFX Application Thread. Devices always go before the connections
+     * that refer to them, as batches run in the order they were handed over.
+     */
+    private void flush() {
+        List<NetworkDeviceView> devices = deviceBatch;
+        List<PendingConnection> connections = connectionBatch;
+        if (devices.isEmpty() && connections.isEmpty()) {
+            return;
+        }
+        deviceBatch = new ArrayList<>();
+        connectionBatch = new ArrayList<>();
+        Platform.runLater(() -> {
+            for (NetworkDeviceView networkDeviceView : devices) {
+                simulationWorkspaceView.setupPlacedDeviceEvents(networkDeviceView);
+                simulationWorkspaceView.addDeviceView(networkDeviceView);
+            }
+            simulationWorkspaceView.addNodes(devices);
+            for (PendingConnection connection : connections) {
+                simulationWorkspaceView.addConnectionLine(connection.startDevice(), connection.endDevice(),
+                        connection.labels().get("Middle"), connection.labels().get("Start"), connection.labels().get("End"));
+            }
+        });
+    }
+
+    /**
+     * Waits until every batch has been placed, so the task only succeeds once the workspace is complete.
+     */
+    private void awaitFxThread() throws InterruptedException {
+        CountDownLatch placed = new CountDownLatch(1);
+        Platform.runLater(placed::countDown);
+        placed.await();
+    }
+}
@@ -0,0 +1,49 @@
+package view;
+
+import io.AtomicFiles;
+import io.JsonExporter;
+import io.NetworkData;
+import io.TopologySnapshotWriter;
+import javafx.concurrent.Task;
+
+import java.io.File;
+
+/**
+ * Saves a topology without blocking the JavaFX Application Thread.
+ * <p>
+ * The topology is taken from the views on the JavaFX Application Thread before the task starts, the task only writes
+ * it. A name ending with {@code .spts} is saved as a binary snapshot, anything else as JSON. The file is replaced only
+ * once it has been written completely, so a failed save leaves the previous file intact.
+ */
+public class TopologySaver extends Task<Void> {
+    private final NetworkData networkData;
+    private final File file;
+
+    /**
+     * @param networkData The topology to save.
+     * @param file        The file to replace.
+     */
+    public TopologySaver(NetworkData networkData, File file) {
+        this.networkData = networkData;
+        this.file = file;
+    }
+
+    public NetworkData getNetworkData() {
+        return networkData;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    @Override
+    protected Void call() throws Exception {
+        if (file.getName().endsWith(".spts")) {
+            AtomicFiles.replace(file.toPath(), temporary -> TopologySnapshotWriter.write(temporary, networkData));
+        } else {
+            new JsonExporter().exportNetworkData(networkData, file.toPath(), this::updateProgress);
+        }
+        updateProgress(1, 1);
+        return null;
+    }
+}
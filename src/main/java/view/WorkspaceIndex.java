@@ -0,0 +1,309 @@
+package view;
+
+import javafx.application.Platform;
+import javafx.event.Event;
+import javafx.event.EventType;
+import javafx.geometry.Bounds;
+import javafx.scene.Node;
+import javafx.scene.input.ContextMenuEvent;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.layout.Pane;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Indexes the devices and connection lines of a workspace in quadtrees over their bounds, so neither drawing nor
+ * picking has to walk every node of a large topology.
+ * <p>
+ * Nodes outside the visible part of the workspace are culled, they are hidden until they come into view again. Each
+ * culling pass only touches the nodes visible before and after it. Indexed nodes are mouse transparent: the mouse
+ * events of the workspace are picked through the index and redirected to the device or line under the mouse,
+ * entered and exited events are synthesized while the mouse moves. The handlers installed on the nodes therefore
+ * work unchanged. A drag goes to the device it started on.
+ */
+class WorkspaceIndex {
+    private static final double CULLING_MARGIN = 64;
+    private static final double LINE_PICK_TOLERANCE = 4;
+
+    private final Pane workspace;
+    private final QuadTree<NetworkDeviceView> devices = new QuadTree<>();
+    private final QuadTree<ConnectionLine> lines = new QuadTree<>();
+    private Set<Node> shown = new HashSet<>();
+    private boolean cullingScheduled = false;
+    private boolean nodesHidden = false;
+    private Runnable changeListener = () -> {
+    };
+    private NetworkDeviceView pressedDevice;
+    private NetworkDeviceView hoveredDevice;
+
+    /**
+     * Installs the index on a workspace.
+     *
+     * @param workspace The pane the devices and lines are placed in.
+     */
+    WorkspaceIndex(Pane workspace) {
+        this.workspace = workspace;
+        workspace.layoutBoundsProperty().addListener((observable, oldBounds, newBounds) -> scheduleCulling());
+        workspace.addEventFilter(MouseEvent.ANY, this::redirectMouseEvent);
+        workspace.addEventFilter(ContextMenuEvent.CONTEXT_MENU_REQUESTED, this::redirectContextMenuEvent);
+    }
+
+    /**
+     * Indexes a placed device, following its bounds from now on.
+     *
+     * @param device The device.
+     */
+    void addDevice(NetworkDeviceView device) {
+        device.setMouseTransparent(true);
+        index(devices, device, device.getBoundsInParent());
+        device.boundsInParentProperty().addListener((observable, oldBounds, newBounds) -> {
+            index(devices, device, newBounds);
+            scheduleCulling();
+        });
+        placed(device);
+    }
+
+    /**
+     * Indexes a connection line, following its bounds from now on. The labels of the line are only informative,
+     * the mouse passes through them.
+     *
+     * @param line The line.
+     */
+    void addConnectionLine(ConnectionLine line) {
+        line.setMouseTransparent(true);
+        line.getMiddleLabel().setMouseTransparent(true);
+        line.getStartLabel().setMouseTransparent(true);
+        line.getEndLabel().setMouseTransparent(true);
+        line.getTrafficLabel().setMouseTransparent(true);
+        index(lines, line, line.getBoundsInParent());
+        line.boundsInParentProperty().addListener((observable, oldBounds, newBounds) -> {
+            index(lines, line, newBounds);
+            scheduleCulling();
+        });
+        placed(line);
+    }
+
+    private void placed(Node node) {
+        if (nodesHidden) {
+            setCulled(node, true);
+        } else {
+            shown.add(node);
+        }
+        scheduleCulling();
+    }
+
+    /**
+     * Hides every indexed node while the topology is drawn by a {@link TopologyCanvas} instead, or shows the visible
+     * ones again.
+     *
+     * @param nodesHidden true to hide the nodes
+     */
+    void setNodesHidden(boolean nodesHidden) {
+        this.nodesHidden = nodesHidden;
+        if (nodesHidden) {
+            for (Node node : shown) {
+                setCulled(node, true);
+            }
+            shown = new HashSet<>();
+        } else {
+            scheduleCulling();
+        }
+    }
+
+    /**
+     * @param changeListener Called on the JavaFX Application Thread, at most once per pulse, after indexed nodes
+     *                       were added or moved.
+     */
+    void setChangeListener(Runnable changeListener) {
+        this.changeListener = changeListener;
+    }
+
+    /**
+     * Passes the devices whose bounds intersect a rectangle of the workspace to a consumer.
+     */
+    void queryDevices(double minX, double minY, double maxX, double maxY, Consumer<? super NetworkDeviceView> consumer) {
+        devices.query(minX, minY, maxX, maxY, consumer);
+    }
+
+    /**
+     * Passes the connection lines whose bounds intersect a rectangle of the workspace to a consumer.
+     */
+    void queryConnectionLines(double minX, double minY, double maxX, double maxY, Consumer<? super ConnectionLine> consumer) {
+        lines.query(minX, minY, maxX, maxY, consumer);
+    }
+
+    private static <T> void index(QuadTree<T> tree, T item, Bounds bounds) {
+        // A node that has not been laid out yet has empty bounds, it is indexed at its position until it is
+        tree.insert(item, bounds.getMinX(), bounds.getMinY(), Math.max(bounds.getMinX(), bounds.getMaxX()), Math.max(bounds.getMinY(), bounds.getMaxY()));
+    }
+
+    /**
+     * Culls once on the next pulse, however many nodes moved meanwhile.
+     */
+    private void scheduleCulling() {
+        if (!cullingScheduled) {
+            cullingScheduled = true;
+            Platform.runLater(this::cull);
+        }
+    }
+
+    private void cull() {
+        cullingScheduled = false;
+        changeListener.run();
+        if (nodesHidden) {
+            return;
+        }
+        Bounds viewport = workspace.getLayoutBounds();
+        double minX = viewport.getMinX() - CULLING_MARGIN;
+        double minY = viewport.getMinY() - CULLING_MARGIN;
+        double maxX = viewport.getMaxX() + CULLING_MARGIN;
+        double maxY = viewport.getMaxY() + CULLING_MARGIN;
+        Set<Node> visible = new HashSet<>();
+        devices.query(minX, minY, maxX, maxY, visible::add);
+        lines.query(minX, minY, maxX, maxY, visible::add);
+        for (Node node : shown) {
+            if (!visible.contains(node)) {
+                setCulled(node, true);
+            }
+        }
+        for (Node node : visible) {
+            if (!shown.contains(node)) {
+                setCulled(node, false);
+            }
+        }
+        shown = visible;
+    }
+
+    private static void setCulled(Node node, boolean culled) {
+        if (node instanceof ConnectionLine line) {
+            line.setCulled(culled);
+        } else if (node instanceof NetworkDeviceView device) {
+            device.setCulled(culled);
+        }
+    }
+
+    /**
+     * Finds the device under a point of the workspace, the one whose centre is closest if devices overlap.
+     *
+     * @return the device, null if there is none
+     */
+    NetworkDeviceView pickDevice(double x, double y) {
+        return pickDevice(x, y, false);
+    }
+
+    /**
+     * Finds the device under a point of the workspace like {@link #pickDevice(double, double)}.
+     *
+     * @param includeHidden Whether hidden devices may be picked, e.g. while a {@link TopologyCanvas} draws them.
+     */
+    NetworkDeviceView pickDevice(double x, double y, boolean includeHidden) {
+        NetworkDeviceView[] picked = new NetworkDeviceView[1];
+        double[] closest = {Double.POSITIVE_INFINITY};
+        devices.query(x, y, x, y, device -> {
+            Bounds bounds = device.getBoundsInParent();
+            double distance = Math.hypot(bounds.getCenterX() - x, bounds.getCenterY() - y);
+            if ((includeHidden || device.isVisible()) && distance < closest[0]) {
+                closest[0] = distance;
+                picked[0] = device;
+            }
+        });
+        return picked[0];
+    }
+
+    /**
+     * Finds the connection line passing closest to a point of the workspace within a few pixels.
+     *
+     * @return the line, null if there is none
+     */
+    ConnectionLine pickConnectionLine(double x, double y) {
+        return pickConnectionLine(x, y, LINE_PICK_TOLERANCE, false);
+    }
+
+    /**
+     * Finds the connection line passing closest to a point of the workspace like {@link #pickConnectionLine(double, double)}.
+     *
+     * @param tolerance     How far from the line the point may be, in units of the workspace.
+     * @param includeHidden Whether hidden lines may be picked, e.g. while a {@link TopologyCanvas} draws them.
+     */
+    ConnectionLine pickConnectionLine(double x, double y, double tolerance, boolean includeHidden) {
+        ConnectionLine[] picked = new ConnectionLine[1];
+        double[] closest = {Double.POSITIVE_INFINITY};
+        lines.query(x - tolerance, y - tolerance, x + tolerance, y + tolerance, line -> {
+            double distance = distanceToSegment(x, y, line.getStartX(), line.getStartY(), line.getEndX(), line.getEndY());
+            if ((includeHidden || line.isVisible()) && distance <= tolerance + line.getStrokeWidth() / 2 && distance < closest[0]) {
+                closest[0] = distance;
+                picked[0] = line;
+            }
+        });
+        return picked[0];
+    }
+
+    private static double distanceToSegment(double x, double y, double startX, double startY, double endX, double endY) {
+        double dx = endX - startX;
+        double dy = endY - startY;
+        double lengthSquared = dx * dx + dy * dy;
+        double t = lengthSquared == 0 ? 0 : Math.clamp(((x - startX) * dx + (y - startY) * dy) / lengthSquared, 0, 1);
+        return Math.hypot(x - (startX + t * dx), y - (startY + t * dy));
+    }
+
+    /**
+     * Redirects a mouse event that reached the workspace itself to the device it is meant for. Events that were
+     * picked by another node, e.g. the toolbar, or that are already redirected pass untouched.
+     */
+    private void redirectMouseEvent(MouseEvent event) {
+        if (event.getTarget() != workspace) {
+            return;
+        }
+        EventType<? extends MouseEvent> type = event.getEventType();
+        if (type == MouseEvent.MOUSE_MOVED) {
+            hover(pickDevice(event.getX(), event.getY()), event);
+            return;
+        }
+        if (type == MouseEvent.MOUSE_EXITED_TARGET || type == MouseEvent.MOUSE_EXITED) {
+            hover(null, event);
+            return;
+        }
+        NetworkDeviceView target;
+        if (type == MouseEvent.MOUSE_PRESSED) {
+            pressedDevice = pickDevice(event.getX(), event.getY());
+            target = pressedDevice;
+        } else if (type == MouseEvent.MOUSE_DRAGGED || type == MouseEvent.MOUSE_RELEASED || type == MouseEvent.MOUSE_CLICKED) {
+            target = pressedDevice;
+        } else {
+            return;
+        }
+        if (target != null) {
+            event.consume();
+            Event.fireEvent(target, event.copyFor(target, target));
+        }
+    }
+
+    private void hover(NetworkDeviceView device, MouseEvent event) {
+        if (device == hoveredDevice) {
+            return;
+        }
+        if (hoveredDevice != null) {
+            Event.fireEvent(hoveredDevice, event.copyFor(hoveredDevice, hoveredDevice, MouseEvent.MOUSE_EXITED));
+        }
+        hoveredDevice = device;
+        if (device != null) {
+            Event.fireEvent(device, event.copyFor(device, device, MouseEvent.MOUSE_ENTERED));
+        }
+    }
+
+    private void redirectContextMenuEvent(ContextMenuEvent event) {
+        if (event.getTarget() != workspace) {
+            return;
+        }
+        Node target = pickDevice(event.getX(), event.getY());
+        if (target == null) {
+            target = pickConnectionLine(event.getX(), event.getY());
+        }
+        if (target != null) {
+            event.consume();
+            Event.fireEvent(target, event.copyFor(target, target));
+        }
+    }
+}
@@ -1,6 +1,7 @@
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import common.AutoNameGenerator;
+import common.GlobalEventBus;
 import common.NetworkDeviceType;
 import controller.MasterController;
 import controller.NetworksController;
@@ -25,10 +26,10 @@ public class ProcessTests {
     @Test
     public void testCommunication_2switchesInRow_CorrectlyChannelMacThrough() {
         NetworksController networksController = new NetworksController();
-        NetworkDeviceStorage storage = new NetworkDeviceStorage();
+        NetworkDeviceStorage storage = new NetworkDeviceStorage(GlobalEventBus.session());
         SimulationWorkspaceView mockView = Mockito.mock(SimulationWorkspaceView.class);
-        SimulationController simulationController = new SimulationController(mockView, storage, networksController);
-        MasterController masterController = new MasterController(mockView, storage, networksController, simulationController);
+        SimulationController simulationController = new SimulationController(mockView, storage, networksController, GlobalEventBus.session());
+        MasterController masterController = new MasterController(mockView, storage, networksController, simulationController, GlobalEventBus.session());
 
         UUID pc0Uuid = UUID.fromString("f51331d1-e21e-4b13-9a8d-9d8ec5bc120d");
         PCModel pc0 = new PCModel(pc0Uuid, new MACAddress(pc0Uuid.toString()), AutoNameGenerator.getInstance().generatePcName());
@@ -102,10 +103,10 @@ public class ProcessTests {
     @Test
     public void testDORA_pcToSwitchToRouter_successfulCommunication() {
         NetworksController networksController = new NetworksController();
-        NetworkDeviceStorage storage = new NetworkDeviceStorage();
+        NetworkDeviceStorage storage = new NetworkDeviceStorage(GlobalEventBus.session());
         SimulationWorkspaceView mockView = Mockito.mock(SimulationWorkspaceView.class);
-        SimulationController simulationController = new SimulationController(mockView, storage, networksController);
-        MasterController masterController = new MasterController(mockView, storage, networksController, simulationController);
+        SimulationController simulationController = new SimulationController(mockView, storage, networksController, GlobalEventBus.session());
+        MasterController masterController = new MasterController(mockView, storage, networksController, simulationController, GlobalEventBus.session());
 
         UUID pcUuid = UUID.fromString("f51331d1-e21e-4b13-9a8d-9d8ec5bc120d");
         PCModel pc0 = new PCModel(pcUuid, new MACAddress(pcUuid.toString()), "PC0");
@@ -201,10 +202,10 @@ public class ProcessTests {
     @Test
     public void testIp_DifferentSubnetsPcs_successfulCommunication() {
         NetworksController networksController = new NetworksController();
-        NetworkDeviceStorage storage = new NetworkDeviceStorage();
+        NetworkDeviceStorage storage = new NetworkDeviceStorage(GlobalEventBus.session());
         SimulationWorkspaceView mockView = Mockito.mock(SimulationWorkspaceView.class);
-        SimulationController simulationController = new SimulationController(mockView, storage, networksController);
-        MasterController masterController = new MasterController(mockView, storage, networksController, simulationController);
+        SimulationController simulationController = new SimulationController(mockView, storage, networksController, GlobalEventBus.session());
+        MasterController masterController = new MasterController(mockView, storage, networksController, simulationController, GlobalEventBus.session());
 
         UUID pc0Uuid = UUID.randomUUID();
         PCModel pc0 = new PCModel(pc0Uuid, new MACAddress(pc0Uuid.toString()), AutoNameGenerator.getInstance().generatePcName());
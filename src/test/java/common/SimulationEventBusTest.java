@@ -0,0 +1,48 @@
+package common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SimulationEventBusTest {
+    @Test
+    public void post_deliversOnlyToHandlersOfExactEventClassUntilUnsubscribed() {
+        SimulationEventBus eventBus = new SimulationEventBus("test");
+        List<Event> received = new ArrayList<>();
+        SimulationEventBus.Subscription<DeviceStateChangedEvent> subscription = eventBus.subscribe(DeviceStateChangedEvent.class, received::add);
+        DeviceStateChangedEvent deviceDown = new DeviceStateChangedEvent(UUID.randomUUID(), false);
+
+        eventBus.post(deviceDown);
+        eventBus.post(new LinkStateChangedEvent(UUID.randomUUID(), UUID.randomUUID(), false));
+        subscription.unsubscribe();
+        eventBus.post(deviceDown);
+
+        assertEquals(List.of(deviceDown), received);
+    }
+
+    @Test
+    public void postAll_deliversBatchInOneExecutionAndCloseDropsSubscribers() {
+        SimulationEventBus eventBus = new SimulationEventBus("test");
+        List<Runnable> executions = new ArrayList<>();
+        Executor deferred = executions::add;
+        List<DeviceStateChangedEvent> received = new ArrayList<>();
+        eventBus.subscribe(DeviceStateChangedEvent.class, received::add, deferred);
+        List<DeviceStateChangedEvent> events = List.of(new DeviceStateChangedEvent(UUID.randomUUID(), false), new DeviceStateChangedEvent(UUID.randomUUID(), true));
+
+        eventBus.postAll(events);
+        assertEquals(1, executions.size());
+        executions.getFirst().run();
+        assertEquals(events, received);
+
+        eventBus.post(events.getFirst());
+        eventBus.close();
+        executions.get(1).run();
+        assertEquals(2, received.size());
+        assertThrows(IllegalStateException.class, () -> eventBus.subscribe(DeviceStateChangedEvent.class, received::add));
+    }
+}
@@ -0,0 +1,35 @@
+package common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UnorderedUuidPairTest {
+    @Test
+    public void of_isEqualWithTheSameHashCodeWhicheverUuidComesFirst() {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+
+        UnorderedUuidPair forward = UnorderedUuidPair.of(first, second);
+        UnorderedUuidPair backward = UnorderedUuidPair.of(second, first);
+
+        assertEquals(forward, backward);
+        assertEquals(forward.hashCode(), backward.hashCode());
+        assertTrue(forward.lower().compareTo(forward.higher()) <= 0);
+        Map<UnorderedUuidPair, String> links = new HashMap<>();
+        links.put(forward, "link");
+        assertEquals("link", links.get(backward));
+    }
+
+    @Test
+    public void of_tellsApartPairsSharingOneUuid() {
+        UUID shared = UUID.randomUUID();
+
+        assertNotEquals(UnorderedUuidPair.of(shared, UUID.randomUUID()), UnorderedUuidPair.of(UUID.randomUUID(), shared));
+        assertEquals(UnorderedUuidPair.of(shared, shared), UnorderedUuidPair.of(shared, shared));
+    }
+}
@@ -0,0 +1,80 @@
+package controller;
+
+import common.LinkTrafficEvent;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AnimationLevelOfDetailTest {
+    @Test
+    public void tryAnimate_degradesToCountingOverTheBudget() {
+        AnimationLevelOfDetail levelOfDetail = new AnimationLevelOfDetail();
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+
+        for (int frame = 0; frame < AnimationLevelOfDetail.DEFAULT_MAX_ANIMATED_FRAMES_PER_LINK_PER_SECOND; frame++) {
+            assertTrue(levelOfDetail.tryAnimate(first, second, 100));
+        }
+        assertFalse(levelOfDetail.tryAnimate(second, first, 200), "the link is over its budget in either direction");
+
+        // Every other link animates until the whole workspace has as many frames in flight as it may
+        for (int link = levelOfDetail.getFramesInFlight(); link < AnimationLevelOfDetail.DEFAULT_MAX_FRAMES_IN_FLIGHT; link++) {
+            assertTrue(levelOfDetail.tryAnimate(UUID.randomUUID(), UUID.randomUUID(), 200));
+        }
+        assertEquals(AnimationLevelOfDetail.DEFAULT_MAX_FRAMES_IN_FLIGHT, levelOfDetail.getFramesInFlight());
+        assertFalse(levelOfDetail.tryAnimate(UUID.randomUUID(), UUID.randomUUID(), 200));
+    }
+
+    @Test
+    public void tryAnimate_recoversOnceBelowTheBudgetAgain() {
+        AnimationLevelOfDetail levelOfDetail = new AnimationLevelOfDetail();
+        levelOfDetail.setMaxAnimatedFramesPerLinkPerSecond(1);
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+
+        assertTrue(levelOfDetail.tryAnimate(first, second, 0));
+        assertFalse(levelOfDetail.tryAnimate(first, second, 999));
+        // The link gets a new budget a second of simulated time later
+        assertTrue(levelOfDetail.tryAnimate(first, second, 1_000));
+
+        for (int link = levelOfDetail.getFramesInFlight(); link < AnimationLevelOfDetail.DEFAULT_MAX_FRAMES_IN_FLIGHT; link++) {
+            assertTrue(levelOfDetail.tryAnimate(UUID.randomUUID(), UUID.randomUUID(), 1_000));
+        }
+        UUID third = UUID.randomUUID();
+        assertFalse(levelOfDetail.tryAnimate(first, third, 1_000));
+        // A finished animation frees a place in flight
+        levelOfDetail.animationFinished();
+        assertTrue(levelOfDetail.tryAnimate(first, third, 1_000));
+        assertEquals(AnimationLevelOfDetail.DEFAULT_MAX_FRAMES_IN_FLIGHT, levelOfDetail.getFramesInFlight());
+    }
+
+    @Test
+    public void drainAggregatedTraffic_reportsFramesOnTheSameLinkTogether() {
+        AnimationLevelOfDetail levelOfDetail = new AnimationLevelOfDetail();
+        levelOfDetail.setMaxAnimatedFramesPerLinkPerSecond(0);
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        UUID third = UUID.randomUUID();
+
+        assertFalse(levelOfDetail.tryAnimate(first, second, 0));
+        assertFalse(levelOfDetail.tryAnimate(second, first, 100));
+        assertFalse(levelOfDetail.tryAnimate(first, second, 200));
+        assertFalse(levelOfDetail.tryAnimate(second, third, 300));
+
+        List<LinkTrafficEvent> events = levelOfDetail.drainAggregatedTraffic(500);
+        assertEquals(2, events.size());
+        LinkTrafficEvent firstLink = events.stream().filter(event -> !event.firstDeviceUuid().equals(third) && !event.secondDeviceUuid().equals(third)).findFirst().orElseThrow();
+        assertEquals(3, firstLink.aggregatedFrames());
+        assertEquals(6.0, firstLink.framesPerSecond());
+        assertEquals(0, levelOfDetail.getFramesInFlight());
+
+        // Quiet links are reported once more with no frames, so their indicators are cleared, and then no more
+        List<LinkTrafficEvent> cleared = levelOfDetail.drainAggregatedTraffic(500);
+        assertEquals(2, cleared.size());
+        assertTrue(cleared.stream().allMatch(event -> event.aggregatedFrames() == 0 && event.framesPerSecond() == 0));
+        assertEquals(List.of(), levelOfDetail.drainAggregatedTraffic(500));
+    }
+}
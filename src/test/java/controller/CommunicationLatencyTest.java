@@ -0,0 +1,55 @@
+package controller;
+
+import metrics.HistogramSnapshot;
+import metrics.MetricsRegistry;
+import model.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CommunicationLatencyTest {
+
+    private static PCModel configuredPc(IPAddress ipAddress, IPAddress defaultGateway) {
+        UUID uuid = UUID.randomUUID();
+        PCModel pc = new PCModel(uuid, new MACAddress(uuid.toString()));
+        pc.configure(ipAddress, defaultGateway, new SubnetMask(24));
+        return pc;
+    }
+
+    @Test
+    public void testLatencyIncludesTheTimeSpentBootstrapping() {
+        MetricsRegistry registry = new MetricsRegistry();
+        CommunicationLatency communicationLatency = new CommunicationLatency(registry);
+        PCModel initiator = configuredPc(new IPAddress(192, 168, 1, 2), new IPAddress(192, 168, 1, 1));
+        PCModel recipient = configuredPc(new IPAddress(192, 168, 2, 2), new IPAddress(192, 168, 2, 1));
+
+        // The first request only triggers ARP, the message is sent on the next request of the pair
+        communicationLatency.communicationRequested(initiator, recipient, 1_000);
+        communicationLatency.communicationRequested(initiator, recipient, 6_000);
+        PacketStamp stamp = communicationLatency.stamp(initiator, recipient, 6_000);
+        communicationLatency.delivered(stamp, recipient, 7_500);
+
+        Map<String, HistogramSnapshot> report = communicationLatency.getReport();
+        HistogramSnapshot latency = report.get("192.168.1.0/24->192.168.2.0/24");
+        assertEquals(1, latency.count());
+        assertEquals(6_500, latency.max());
+        assertTrue(registry.getHistograms().containsKey("latency.192.168.1.0/24->192.168.2.0/24"));
+    }
+
+    @Test
+    public void testAbandonedRequestsAreNotCounted() {
+        CommunicationLatency communicationLatency = new CommunicationLatency(new MetricsRegistry());
+        PCModel initiator = configuredPc(new IPAddress(10, 0, 0, 2), new IPAddress(10, 0, 0, 1));
+        PCModel recipient = configuredPc(new IPAddress(10, 0, 0, 3), new IPAddress(10, 0, 0, 1));
+
+        communicationLatency.communicationRequested(initiator, recipient, 0);
+        communicationLatency.communicationRequested(initiator, recipient, 100_000);
+        PacketStamp stamp = communicationLatency.stamp(initiator, recipient, 100_000);
+
+        assertEquals(100_000, stamp.createdAtMillis());
+        assertEquals("10.0.0.0/24", stamp.sourceSubnet());
+    }
+}
@@ -0,0 +1,42 @@
+package controller;
+
+import common.AutoNameGenerator;
+import common.SimulationEventBus;
+import model.*;
+import org.junit.jupiter.api.Test;
+import view.SimulationWorkspaceView;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+public class FailureControllerTest {
+    @Test
+    public void failLink_flushesCamPortAndDropsConnection() {
+        FailureController failureController = new FailureController(mock(NetworkDeviceStorage.class), mock(NetworksController.class), mock(SimulationWorkspaceView.class), new SimulationClock(), new TimerWheel(10, () -> 0), Runnable::run, new SimulationEventBus("test"));
+        UUID pcUuid = UUID.randomUUID();
+        PCModel pc = new PCModel(pcUuid, new MACAddress(pcUuid.toString()), AutoNameGenerator.getInstance().generatePcName());
+        UUID swUuid = UUID.randomUUID();
+        SwitchModel sw = new SwitchModel(swUuid, new MACAddress(swUuid.toString()), AutoNameGenerator.getInstance().generateSwitchName());
+        assertTrue(pc.addConnection(sw));
+        assertTrue(sw.addConnection(pc));
+        sw.learnMacAddress(pc.getMacAddress(), 0);
+
+        assertTrue(failureController.failLink(pc, sw).join());
+        assertFalse(failureController.isConnectionUp(new NetworkConnection(sw, pc)));
+        assertFalse(sw.getCamTable().containsEntry(pc.getMacAddress()));
+
+        assertTrue(failureController.restoreLink(sw, pc).join());
+        assertTrue(failureController.isConnectionUp(new NetworkConnection(pc, sw)));
+    }
+
+    @Test
+    public void loadScript_rejectsMalformedLine() {
+        FailureController failureController = new FailureController(mock(NetworkDeviceStorage.class), mock(NetworksController.class), mock(SimulationWorkspaceView.class), new SimulationClock(), new TimerWheel(10, () -> 0), Runnable::run, new SimulationEventBus("test"));
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> failureController.loadScript(List.of("# comment", "5s explode link A B")));
+        assertTrue(e.getMessage().startsWith("line 2"));
+    }
+}
@@ -1,13 +1,22 @@
 package controller;
 
+import common.GlobalEventBus;
+import common.NetworkDeviceType;
+import io.*;
 import javafx.scene.paint.Color;
 import model.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
 import view.SimulationWorkspaceView;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -19,9 +28,12 @@ public class MasterControllerTest {
 
     MasterController masterController;
 
+    @TempDir
+    Path directory;
+
     @BeforeEach
     public void setup() {
-        masterController = new MasterController(mock(SimulationWorkspaceView.class), mock(NetworkDeviceStorage.class), mock(NetworksController.class), mock(SimulationController.class));
+        masterController = new MasterController(mock(SimulationWorkspaceView.class), mock(NetworkDeviceStorage.class), mock(NetworksController.class), mock(SimulationController.class), GlobalEventBus.session());
     }
 
     @Test
@@ -132,4 +144,20 @@ public class MasterControllerTest {
         verify(pc0).addConnection(sw0);
         verify(sw0).addConnection(pc0);
     }
+
+    @Test
+    public void saveCheckpoint_writesTheCapturedStateInTheBackground() throws IOException {
+        UUID pc = UUID.randomUUID();
+        NetworkData networkData = new NetworkData(List.of(new NetworkDeviceViewDTO(pc, "PC0", 1, 2, NetworkDeviceType.PC)), List.of(), new AutoNameGeneratorDTO(0, 0, 1, 0));
+        ByteBuffer state = ByteBuffer.allocate(8).putLong(1234L).flip();
+        when(masterController.simulationController.captureCheckpoint()).thenReturn(Map.of(TopologySnapshotWriter.FIRST_STATE_TAG, state));
+        Path file = directory.resolve("checkpoint.spts");
+
+        masterController.saveCheckpoint(file.toFile(), networkData).join();
+
+        TopologySnapshot snapshot = TopologySnapshot.open(file);
+        assertEquals(networkData, snapshot.toNetworkData());
+        assertEquals(1234L, snapshot.getSection(TopologySnapshotWriter.FIRST_STATE_TAG).getLong());
+        verify(masterController.simulationWorkspaceView).printToLogWindow("Checkpoint saved to checkpoint.spts\n", Color.DARKCYAN);
+    }
 }
@@ -0,0 +1,153 @@
+package controller;
+
+import common.AutoNameGenerator;
+import common.GlobalEventBus;
+import javafx.util.Pair;
+import model.*;
+import org.junit.jupiter.api.Test;
+import view.SimulationWorkspaceView;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+public class SimulationCheckpointTest {
+    private static final UUID PC_UUID = UUID.randomUUID();
+    private static final UUID SWITCH_UUID = UUID.randomUUID();
+    private static final UUID ROUTER_UUID = UUID.randomUUID();
+    private static final UUID SECOND_PC_UUID = UUID.randomUUID();
+    private static final UUID SECOND_SWITCH_UUID = UUID.randomUUID();
+    private static final UUID SECOND_ROUTER_UUID = UUID.randomUUID();
+
+    private record Workspace(NetworkDeviceStorage storage, SimulationController simulationController) {
+        PCModel pc() {
+            return storage.getPcModel(PC_UUID);
+        }
+
+        SwitchModel switchModel() {
+            return storage.getSwitchModel(SWITCH_UUID);
+        }
+    }
+
+    private static Workspace buildWorkspace() {
+        GlobalEventBus.openSession();
+        NetworksController networksController = new NetworksController();
+        NetworkDeviceStorage storage = new NetworkDeviceStorage(GlobalEventBus.session());
+        SimulationWorkspaceView view = mock(SimulationWorkspaceView.class);
+        SimulationController simulationController = new SimulationController(view, storage, networksController, GlobalEventBus.session());
+        MasterController masterController = new MasterController(view, storage, networksController, simulationController, GlobalEventBus.session());
+        PCModel pc = new PCModel(PC_UUID, new MACAddress(PC_UUID.toString()), AutoNameGenerator.getInstance().generatePcName());
+        SwitchModel switchModel = new SwitchModel(SWITCH_UUID, new MACAddress(SWITCH_UUID.toString()), AutoNameGenerator.getInstance().generateSwitchName());
+        RouterModel router = new RouterModel(ROUTER_UUID, new MACAddress(ROUTER_UUID.toString()), AutoNameGenerator.getInstance().generateRouterName());
+        masterController.addDevice(pc);
+        masterController.addDevice(switchModel);
+        masterController.addDevice(router);
+        assertTrue(masterController.addConnection(switchModel, pc));
+        assertTrue(masterController.addConnection(router, switchModel));
+        return new Workspace(storage, simulationController);
+    }
+
+    /**
+     * Adds a second router with its own LAN, which gets the same addresses as the LAN of the first router.
+     */
+    private static Workspace buildWorkspaceWithOverlappingLans() {
+        Workspace workspace = buildWorkspace();
+        NetworkDeviceStorage storage = workspace.storage();
+        MasterController masterController = new MasterController(mock(SimulationWorkspaceView.class), storage, new NetworksController(), workspace.simulationController(), GlobalEventBus.session());
+        PCModel pc = new PCModel(SECOND_PC_UUID, new MACAddress(SECOND_PC_UUID.toString()), AutoNameGenerator.getInstance().generatePcName());
+        SwitchModel switchModel = new SwitchModel(SECOND_SWITCH_UUID, new MACAddress(SECOND_SWITCH_UUID.toString()), AutoNameGenerator.getInstance().generateSwitchName());
+        RouterModel router = new RouterModel(SECOND_ROUTER_UUID, new MACAddress(SECOND_ROUTER_UUID.toString()), AutoNameGenerator.getInstance().generateRouterName());
+        masterController.addDevice(pc);
+        masterController.addDevice(switchModel);
+        masterController.addDevice(router);
+        assertTrue(masterController.addConnection(switchModel, pc));
+        assertTrue(masterController.addConnection(router, switchModel));
+        return workspace;
+    }
+
+    private static void deliverUntil(SimulationController simulationController, Class<? extends Message> messageType, NetworkDeviceModel receiver) {
+        while (true) {
+            Pair<NetworkConnection, Frame> framePair = simulationController.receiveFrame();
+            simulationController.forwardToNextDevice(framePair.getKey(), framePair.getValue());
+            if (messageType.isInstance(framePair.getValue().getPacket().getMessage()) && framePair.getKey().getEndDevice() == receiver) {
+                return;
+            }
+        }
+    }
+
+    @Test
+    public void restoredCheckpointContinuesTheSimulation() throws IOException {
+        Workspace original = buildWorkspace();
+        PCModel pc = original.pc();
+        original.simulationController().sendDhcpDiscovery(new NetworkConnection(pc, pc.getConnection()), pc.getMacAddress());
+        deliverUntil(original.simulationController(), DhcpAckMessage.class, pc);
+        assertEquals(0, original.simulationController().queueSize());
+        original.simulationController().sendArpRequest(new NetworkConnection(pc, pc.getConnection()), pc.getMacAddress(), pc.getIpAddress(), pc.getDefaultGateway());
+        Map<Integer, ByteBuffer> checkpoint = original.simulationController().captureCheckpoint();
+
+        Workspace restored = buildWorkspace();
+        restored.simulationController().restoreCheckpoint(checkpoint);
+        PCModel restoredPc = restored.pc();
+
+        assertTrue(restoredPc.isConfigured());
+        assertEquals(pc.getIpAddress(), restoredPc.getIpAddress());
+        assertEquals(pc.getSubnetMask().getSize(), restoredPc.getSubnetMask().getSize());
+        RouterInterface gatewayInterface = SimulationController.findInterfaceByExactIpAddress(restored.storage().getRouterInterfaces(), restoredPc.getDefaultGateway());
+        assertNotNull(gatewayInterface);
+        assertTrue(restored.switchModel().knowsMacAddress(restoredPc.getMacAddress()));
+        RouterModel restoredRouter = restored.storage().getRouterModel(ROUTER_UUID);
+        assertSame(restoredPc.getMacAddress(), restoredRouter.getArpCache().getMAC(restoredPc.getIpAddress()));
+        assertEquals(original.storage().getRouterModel(ROUTER_UUID).getRoutingTable().getEntries().size(), restoredRouter.getRoutingTable().getEntries().size());
+
+        assertEquals(1, restored.simulationController().queueSize());
+        Pair<NetworkConnection, Frame> inFlight = restored.simulationController().receiveFrame();
+        assertSame(restoredPc, inFlight.getKey().getStartDevice());
+        assertSame(restored.switchModel(), inFlight.getKey().getEndDevice());
+        assertInstanceOf(ArpRequestMessage.class, inFlight.getValue().getPacket().getMessage());
+
+        restored.simulationController().forwardToNextDevice(inFlight.getKey(), inFlight.getValue());
+        Pair<NetworkConnection, Frame> flooded = restored.simulationController().receiveFrame();
+        assertSame(gatewayInterface, flooded.getKey().getEndDevice());
+    }
+
+    @Test
+    public void overlappingLansKeepTheirOwnAddresses() throws IOException {
+        Workspace original = buildWorkspaceWithOverlappingLans();
+        for (UUID pcUuid : List.of(PC_UUID, SECOND_PC_UUID)) {
+            PCModel pc = original.storage().getPcModel(pcUuid);
+            original.simulationController().sendDhcpDiscovery(new NetworkConnection(pc, pc.getConnection()), pc.getMacAddress());
+            deliverUntil(original.simulationController(), DhcpAckMessage.class, pc);
+        }
+        assertEquals(original.pc().getDefaultGateway(), original.storage().getPcModel(SECOND_PC_UUID).getDefaultGateway());
+        Map<Integer, ByteBuffer> checkpoint = original.simulationController().captureCheckpoint();
+
+        Workspace restored = buildWorkspaceWithOverlappingLans();
+        restored.simulationController().restoreCheckpoint(checkpoint);
+
+        for (Pair<UUID, UUID> pcAndRouter : List.of(new Pair<>(PC_UUID, ROUTER_UUID), new Pair<>(SECOND_PC_UUID, SECOND_ROUTER_UUID))) {
+            PCModel restoredPc = restored.storage().getPcModel(pcAndRouter.getKey());
+            RouterModel restoredRouter = restored.storage().getRouterModel(pcAndRouter.getValue());
+            RouterInterface gatewayInterface = SimulationController.findInterfaceByExactIpAddress(restored.storage().getRouterInterfaces(), restoredPc.getDefaultGateway());
+            assertNotNull(gatewayInterface);
+            assertSame(restoredRouter, gatewayInterface.getInterfacesRouter());
+            assertTrue(gatewayInterface.getNetwork().getUsedIpAddresses().stream().anyMatch(usedIpAddress -> usedIpAddress == restoredPc.getIpAddress()));
+        }
+    }
+
+    @Test
+    public void checkpointOfDifferentTopologyIsRejected() throws IOException {
+        Workspace original = buildWorkspace();
+        Map<Integer, ByteBuffer> checkpoint = original.simulationController().captureCheckpoint();
+
+        GlobalEventBus.openSession();
+        NetworkDeviceStorage storage = new NetworkDeviceStorage(GlobalEventBus.session());
+        SimulationController simulationController = new SimulationController(mock(SimulationWorkspaceView.class), storage, new NetworksController(), GlobalEventBus.session());
+
+        assertThrows(IOException.class, () -> simulationController.restoreCheckpoint(checkpoint));
+    }
+}
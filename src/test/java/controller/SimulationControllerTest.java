@@ -1,20 +1,27 @@
 package controller;
 
 import common.AutoNameGenerator;
+import common.ExitRequestEvent;
+import common.GlobalEventBus;
 import javafx.util.Pair;
 import model.*;
 import org.junit.jupiter.api.Test;
 import view.SimulationWorkspaceView;
 
+import java.time.Duration;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.Mockito.mock;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.Mockito.*;
 
 public class SimulationControllerTest {
     @Test
     public void forwardToNextDevice_2pcsToSwitch() {
-        SimulationController simulationController = new SimulationController(mock(SimulationWorkspaceView.class), mock(NetworkDeviceStorage.class), mock(NetworksController.class));
+        SimulationController simulationController = new SimulationController(mock(SimulationWorkspaceView.class), mock(NetworkDeviceStorage.class), mock(NetworksController.class), GlobalEventBus.session());
         UUID pc0Uuid = UUID.randomUUID();
         PCModel pc0 = new PCModel(pc0Uuid, new MACAddress(pc0Uuid.toString()), AutoNameGenerator.getInstance().generatePcName());
 
@@ -68,10 +75,10 @@ public class SimulationControllerTest {
     @Test
     public void testDhcpConfigurationForPcsOnDifferentSubnets() {
         NetworksController networksController = new NetworksController();
-        NetworkDeviceStorage storage = new NetworkDeviceStorage();
+        NetworkDeviceStorage storage = new NetworkDeviceStorage(GlobalEventBus.session());
         SimulationWorkspaceView mockView = mock(SimulationWorkspaceView.class);
-        SimulationController simulationController = new SimulationController(mockView, storage, networksController);
-        MasterController masterController = new MasterController(mockView, storage, networksController, simulationController);
+        SimulationController simulationController = new SimulationController(mockView, storage, networksController, GlobalEventBus.session());
+        MasterController masterController = new MasterController(mockView, storage, networksController, simulationController, GlobalEventBus.session());
 
         UUID pc0Uuid = UUID.randomUUID();
         PCModel pc0 = new PCModel(pc0Uuid, new MACAddress(pc0Uuid.toString()), AutoNameGenerator.getInstance().generatePcName());
@@ -131,5 +138,107 @@ public class SimulationControllerTest {
         assertTrue(pc1.isConfigured());
     }
 
+    @Test
+    public void camAging_agesEntriesOutWhileFramesAreDelivered() throws InterruptedException {
+        SimulationWorkspaceView mockView = mock(SimulationWorkspaceView.class);
+        SimulationController simulationController = new SimulationController(mockView, new NetworkDeviceStorage(GlobalEventBus.session()), new NetworksController(), GlobalEventBus.session());
+        UUID pc0Uuid = UUID.randomUUID();
+        PCModel pc0 = new PCModel(pc0Uuid, new MACAddress(pc0Uuid.toString()), AutoNameGenerator.getInstance().generatePcName());
+        UUID pc1Uuid = UUID.randomUUID();
+        PCModel pc1 = new PCModel(pc1Uuid, new MACAddress(pc1Uuid.toString()), AutoNameGenerator.getInstance().generatePcName());
+        UUID sw0Uuid = UUID.randomUUID();
+        Set<String> agingThreads = ConcurrentHashMap.newKeySet();
+        SwitchModel sw0 = new SwitchModel(sw0Uuid, new MACAddress(sw0Uuid.toString()), AutoNameGenerator.getInstance().generateSwitchName()) {
+            @Override
+            public void forgetMacAddress(MACAddress macAddress) {
+                agingThreads.add(Thread.currentThread().getName());
+                super.forgetMacAddress(macAddress);
+            }
+        };
+        assertTrue(pc0.addConnection(sw0));
+        assertTrue(pc1.addConnection(sw0));
+        assertTrue(sw0.addConnection(pc0));
+        assertTrue(sw0.addConnection(pc1));
+
+        simulationController.setHeadless(true);
+        simulationController.setRandomCommunication(false);
+        // A CAM entry ages out after about 10 ms, so the switch keeps forgetting the PCs between their frames
+        simulationController.getClock().setRate(30_000);
+        simulationController.startSimulation();
+        int rounds = 100;
+        try {
+            for (int round = 0; round < rounds; round++) {
+                simulationController.sendPacket(new NetworkConnection(pc0, sw0), pc0.getMacAddress(), pc1.getMacAddress(), new Packet(null, null, new StringMessage("ping " + round)));
+                simulationController.sendPacket(new NetworkConnection(pc1, sw0), pc1.getMacAddress(), pc0.getMacAddress(), new Packet(null, null, new StringMessage("pong " + round)));
+                Thread.sleep(3);
+            }
+            verify(mockView, timeout(10_000).times(2 * rounds)).printToLogWindow(contains("received string message"), any());
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (!sw0.getCamTable().getEntries().isEmpty() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertTrue(sw0.getCamTable().getEntries().isEmpty(), "entries of idle PCs did not age out");
+            assertEquals(Set.of("simulation-frame-worker"), agingThreads);
+        } finally {
+            simulationController.handleExitRequestEvent(new ExitRequestEvent());
+        }
+    }
 
+    @Test
+    public void pickRandomLanCommunication_returnsWithOneUnconnectedPc() {
+        NetworksController networksController = new NetworksController();
+        NetworkDeviceStorage storage = new NetworkDeviceStorage(GlobalEventBus.session());
+        SimulationWorkspaceView mockView = mock(SimulationWorkspaceView.class);
+        SimulationController simulationController = new SimulationController(mockView, storage, networksController, GlobalEventBus.session());
+        MasterController masterController = new MasterController(mockView, storage, networksController, simulationController, GlobalEventBus.session());
+        UUID pc0Uuid = UUID.randomUUID();
+        PCModel pc0 = new PCModel(pc0Uuid, new MACAddress(pc0Uuid.toString()), AutoNameGenerator.getInstance().generatePcName());
+        UUID pc1Uuid = UUID.randomUUID();
+        PCModel pc1 = new PCModel(pc1Uuid, new MACAddress(pc1Uuid.toString()), AutoNameGenerator.getInstance().generatePcName());
+        UUID sw0Uuid = UUID.randomUUID();
+        SwitchModel sw0 = new SwitchModel(sw0Uuid, new MACAddress(sw0Uuid.toString()), AutoNameGenerator.getInstance().generateSwitchName());
+        masterController.addDevice(pc0);
+        masterController.addDevice(pc1);
+        masterController.addDevice(sw0);
+        assertTrue(masterController.addConnection(sw0, pc0));
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5), simulationController::pickRandomLanCommunication);
+
+        verify(mockView, never()).printToLogWindow(contains("wants to communicate"), any());
+        assertEquals(0, simulationController.queueSize());
+    }
+
+    @Test
+    public void egressQueueDiscipline_ripOvertakesQueuedDataOnInterfacesAddedLater() {
+        NetworkDeviceStorage storage = new NetworkDeviceStorage(GlobalEventBus.session());
+        SimulationController simulationController = new SimulationController(mock(SimulationWorkspaceView.class), storage, new NetworksController(), GlobalEventBus.session());
+        simulationController.setEgressQueueDiscipline(EgressQueueDiscipline.STRICT_PRIORITY);
+        UUID routerUuid = UUID.randomUUID();
+        RouterModel router = new RouterModel(routerUuid, new MACAddress(routerUuid.toString()));
+        RouterInterface routerInterface = router.getNetworksRouterInterface(router.createLanNetwork());
+        storage.addRouterInterface(routerInterface);
+        UUID pcUuid = UUID.randomUUID();
+        PCModel pc = new PCModel(pcUuid, new MACAddress(pcUuid.toString()), AutoNameGenerator.getInstance().generatePcName());
+
+        simulationController.setHeadless(true);
+        simulationController.setRandomCommunication(false);
+        simulationController.startSimulation();
+        try {
+            // The link stays taken, so every frame sent from the interface waits in its egress queue
+            assertTrue(routerInterface.tryOccupyLink());
+            NetworkConnection toPc = new NetworkConnection(routerInterface, pc);
+            for (int i = 0; i < 3; i++) {
+                simulationController.sendPacket(toPc, routerInterface.getMacAddress(), pc.getMacAddress(), new Packet(null, null, new StringMessage("data " + i)));
+            }
+            simulationController.sendPacket(toPc, routerInterface.getMacAddress(), MACAddress.ipv4Broadcast(), new Packet(null, null, new RipMessage(new RoutingTable())));
+
+            QueueDiscipline egressQueue = routerInterface.getEgressQueue();
+            assertInstanceOf(StrictPriorityQueue.class, egressQueue);
+            assertEquals(4, egressQueue.size());
+            assertEquals(TrafficClass.ROUTING, egressQueue.dequeue(simulationController.getClock().currentTimeMillis()).trafficClass());
+            assertEquals(TrafficClass.DATA, egressQueue.dequeue(simulationController.getClock().currentTimeMillis()).trafficClass());
+        } finally {
+            simulationController.handleExitRequestEvent(new ExitRequestEvent());
+        }
+    }
 }
@@ -0,0 +1,50 @@
+package controller;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TimerWheelTest {
+    @Test
+    public void advanceTo_firesTimersAcrossLevelsInDeadlineOrderAndNeverEarly() {
+        AtomicLong now = new AtomicLong();
+        TimerWheel timerWheel = new TimerWheel(10, now::get);
+        List<Long> firedAt = new ArrayList<>();
+        long[] deadlines = {5, 640, 655, 41_000, 30_000, 2_000_000};
+        for (long deadline : deadlines) {
+            timerWheel.scheduleAt(() -> firedAt.add(now.get()), deadline);
+        }
+
+        for (long time = 0; time <= 2_000_100; time += 10) {
+            now.set(time);
+            timerWheel.advance();
+        }
+
+        assertEquals(List.of(10L, 640L, 660L, 30_000L, 41_000L, 2_000_000L), firedAt);
+        assertEquals(0, timerWheel.size());
+    }
+
+    @Test
+    public void cancel_removesTimerAndStopsPeriodicTimer() {
+        TimerWheel timerWheel = new TimerWheel(10, () -> 0);
+        AtomicInteger oneShotRuns = new AtomicInteger();
+        AtomicInteger periodicRuns = new AtomicInteger();
+        TimerWheel.Timeout oneShot = timerWheel.schedule(oneShotRuns::incrementAndGet, 100);
+        TimerWheel.Timeout periodic = timerWheel.scheduleAtFixedRate(periodicRuns::incrementAndGet, 0, 1_000);
+
+        assertTrue(oneShot.cancel());
+        assertFalse(oneShot.cancel());
+        timerWheel.advanceTo(3_500);
+        assertTrue(periodic.cancel());
+        timerWheel.advanceTo(10_000);
+
+        assertEquals(0, oneShotRuns.get());
+        assertEquals(4, periodicRuns.get());
+        assertEquals(0, timerWheel.size());
+    }
+}
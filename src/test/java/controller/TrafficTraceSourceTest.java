@@ -0,0 +1,131 @@
+package controller;
+
+import io.TrafficTraceReader;
+import model.MACAddress;
+import model.PCModel;
+import model.SwitchModel;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TrafficTraceSourceTest {
+
+    @TempDir
+    Path directory;
+
+    private record Injection(long timeMillis, PCModel initiator, PCModel recipient, int bodyLength) {
+    }
+
+    @Test
+    public void start_injectsPacketsAtRecordedInterArrivalTimesBetweenMappedPcs() throws IOException {
+        Path trace = directory.resolve("flows.csv");
+        Files.writeString(trace, """
+                100.000,10.0.0.1,10.0.0.2,1500
+                100.250,10.0.0.2,10.0.0.1,64
+                100.250,10.0.0.3,10.0.0.1,10
+                101.000,10.0.0.1,10.0.0.4,142
+                """);
+        SwitchModel switchModel = new SwitchModel(UUID.randomUUID(), new MACAddress("02:00:00:00:00:10"), "SW");
+        List<PCModel> pcs = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            PCModel pc = new PCModel(UUID.randomUUID(), new MACAddress("02:00:00:00:00:0" + i), "PC" + i);
+            pc.addConnection(switchModel);
+            pcs.add(pc);
+        }
+        AtomicLong now = new AtomicLong(5_000);
+        TimerWheel timerWheel = new TimerWheel(10, now::get);
+        List<Injection> injections = new ArrayList<>();
+        AtomicReference<IOException> finished = new AtomicReference<>(new IOException("not finished"));
+
+        TrafficTraceSource source = new TrafficTraceSource(TrafficTraceReader.open(trace), pcs, pc -> false,
+                (initiator, recipient, body) -> {
+                    injections.add(new Injection(now.get(), initiator, recipient, body.length()));
+                    return SimulationController.CommunicationOutcome.SENT;
+                },
+                timerWheel, now::get, (finishedSource, failure) -> finished.set(failure));
+        source.start();
+        for (long time = 5_000; time <= 7_000; time += 10) {
+            now.set(time);
+            timerWheel.advance();
+        }
+
+        // 10.0.0.1 -> PC0, 10.0.0.2 -> PC1, 10.0.0.3 -> PC2, 10.0.0.4 wraps around to PC0, so its packet is skipped
+        assertEquals(List.of(
+                new Injection(5_000, pcs.get(0), pcs.get(1), 1500 - TrafficTraceSource.HEADER_BYTES),
+                new Injection(5_250, pcs.get(1), pcs.get(0), 64 - TrafficTraceSource.HEADER_BYTES),
+                new Injection(5_250, pcs.get(2), pcs.get(0), 0)), injections);
+        assertEquals(3, source.getInjectedPackets());
+        assertEquals(1, source.getSkippedPackets());
+        assertEquals(4, source.getMappedAddresses());
+        assertTrue(source.isFinished());
+        assertNull(finished.get());
+        assertEquals(0, timerWheel.size());
+    }
+
+    @Test
+    public void close_cancelsThePendingPacket() throws IOException {
+        Path trace = directory.resolve("flows.csv");
+        Files.writeString(trace, "0,10.0.0.1,10.0.0.2\n60,10.0.0.2,10.0.0.1\n");
+        PCModel first = new PCModel(UUID.randomUUID(), new MACAddress("02:00:00:00:00:01"), "PC0");
+        PCModel second = new PCModel(UUID.randomUUID(), new MACAddress("02:00:00:00:00:02"), "PC1");
+        first.addConnection(second);
+        second.addConnection(first);
+        AtomicLong now = new AtomicLong();
+        TimerWheel timerWheel = new TimerWheel(10, now::get);
+        List<PCModel> initiators = new ArrayList<>();
+
+        TrafficTraceSource source = new TrafficTraceSource(TrafficTraceReader.open(trace), List.of(first, second), pc -> pc == second,
+                (initiator, recipient, body) -> {
+                    initiators.add(initiator);
+                    return SimulationController.CommunicationOutcome.SENT;
+                }, timerWheel, now::get, (finishedSource, failure) -> fail("closed replays do not finish"));
+        source.start();
+        now.set(10);
+        timerWheel.advance();
+        source.close();
+        now.set(61_000);
+        timerWheel.advance();
+
+        // The recipient of the first packet is failed
+        assertEquals(List.of(), initiators);
+        assertEquals(1, source.getSkippedPackets());
+        assertTrue(source.isFinished());
+        assertEquals(0, timerWheel.size());
+    }
+
+    @Test
+    public void start_countsOnlyPacketsThatWereSent() throws IOException {
+        Path trace = directory.resolve("flows.csv");
+        Files.writeString(trace, "0,10.0.0.1,10.0.0.2\n0,10.0.0.1,10.0.0.2\n0,10.0.0.1,10.0.0.2\n");
+        PCModel first = new PCModel(UUID.randomUUID(), new MACAddress("02:00:00:00:00:01"), "PC0");
+        PCModel second = new PCModel(UUID.randomUUID(), new MACAddress("02:00:00:00:00:02"), "PC1");
+        first.addConnection(second);
+        second.addConnection(first);
+        AtomicLong now = new AtomicLong();
+        TimerWheel timerWheel = new TimerWheel(10, now::get);
+        // The first packet only resolves the recipient's MAC address, the last one is between two LANs
+        Iterator<SimulationController.CommunicationOutcome> outcomes = List.of(SimulationController.CommunicationOutcome.NOT_SENT,
+                SimulationController.CommunicationOutcome.SENT, SimulationController.CommunicationOutcome.NOT_ROUTED).iterator();
+
+        TrafficTraceSource source = new TrafficTraceSource(TrafficTraceReader.open(trace), List.of(first, second), pc -> false,
+                (initiator, recipient, body) -> outcomes.next(), timerWheel, now::get, (finishedSource, failure) -> assertNull(failure));
+        source.start();
+
+        assertFalse(outcomes.hasNext());
+        assertEquals(1, source.getInjectedPackets());
+        assertEquals(2, source.getSkippedPackets());
+        assertEquals(1, source.getUnroutedPackets());
+        assertTrue(source.isFinished());
+    }
+}
@@ -0,0 +1,111 @@
+package io;
+
+import model.*;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FrameEncoderTest {
+    private static final int IP_START = FrameEncoder.ETHERNET_HEADER_SIZE;
+    private static final int UDP_START = IP_START + FrameEncoder.IPV4_HEADER_SIZE;
+
+    private static ByteBuffer encode(Frame frame) {
+        ByteBuffer buffer = ByteBuffer.allocate(FrameEncoder.encodedLength(frame));
+        new FrameEncoder().encode(frame, buffer);
+        assertFalse(buffer.hasRemaining());
+        return buffer;
+    }
+
+    @Test
+    public void testDhcpDiscoverIsABroadcastBootpRequest() {
+        MACAddress pcMac = new MACAddress(UUID.randomUUID().toString());
+        Frame discover = new Frame(pcMac, MACAddress.ipv4Broadcast(), new Packet(null, null, new DhcpDiscoverMessage(pcMac)));
+
+        ByteBuffer frame = encode(discover);
+
+        // 14 byte Ethernet header, 20 byte IPv4 header, 8 byte UDP header and the 300 byte BOOTP minimum
+        assertEquals(342, frame.capacity());
+        for (int i = 0; i < 6; i++) {
+            assertEquals((byte) 0xff, frame.get(i));
+        }
+        assertArrayEquals(FrameEncoder.macAddressBytes(pcMac), new byte[]{frame.get(6), frame.get(7), frame.get(8), frame.get(9), frame.get(10), frame.get(11)});
+        assertEquals(0x02, frame.get(6) & 0x03, "derived addresses are locally administered unicast addresses");
+        assertEquals(FrameEncoder.ETHERTYPE_IPV4, frame.getShort(12));
+        assertEquals(0xffff, FrameEncoder.checksum(frame, IP_START, FrameEncoder.IPV4_HEADER_SIZE, 0));
+        assertEquals(0, frame.getInt(IP_START + 12));
+        assertEquals(-1, frame.getInt(IP_START + 16));
+        assertEquals(FrameEncoder.DHCP_CLIENT_PORT, frame.getShort(UDP_START));
+        assertEquals(FrameEncoder.DHCP_SERVER_PORT, frame.getShort(UDP_START + 2));
+        int udpLength = frame.getShort(UDP_START + 4);
+        assertEquals(308, udpLength);
+        assertEquals(0xffff, FrameEncoder.checksum(frame, UDP_START, udpLength, 17 + udpLength + 0xffff + 0xffff));
+        int bootp = UDP_START + FrameEncoder.UDP_HEADER_SIZE;
+        assertEquals(1, frame.get(bootp));
+        assertEquals(0x63825363, frame.getInt(bootp + 236));
+        assertEquals(53, frame.get(bootp + 240));
+        assertEquals(1, frame.get(bootp + 242));
+    }
+
+    @Test
+    public void testArpRequestIsPaddedToTheMinimumFrameSize() {
+        MACAddress pcMac = new MACAddress("00:1a:2b:3c:4d:5e");
+        IPAddress pcIp = new IPAddress(192, 168, 1, 2);
+        IPAddress gateway = new IPAddress(192, 168, 1, 1);
+        Frame request = new Frame(pcMac, MACAddress.ipv4Broadcast(), new Packet(pcIp, gateway, new ArpRequestMessage(gateway, pcIp, pcMac)));
+
+        ByteBuffer frame = encode(request);
+
+        assertEquals(FrameEncoder.MIN_FRAME_SIZE, frame.capacity());
+        assertArrayEquals(new byte[]{0x00, 0x1a, 0x2b, 0x3c, 0x4d, 0x5e}, FrameEncoder.macAddressBytes(pcMac));
+        assertEquals(FrameEncoder.ETHERTYPE_ARP, frame.getShort(12));
+        int arp = FrameEncoder.ETHERNET_HEADER_SIZE;
+        assertEquals(1, frame.getShort(arp + 6));
+        assertEquals((int) pcIp.toLong(), frame.getInt(arp + 14));
+        assertEquals((int) gateway.toLong(), frame.getInt(arp + 24));
+        for (int i = arp + FrameEncoder.ARP_SIZE; i < frame.capacity(); i++) {
+            assertEquals(0, frame.get(i));
+        }
+    }
+
+    @Test
+    public void testRipUpdateIsSplitIntoResponsesOfAtMost25Routes() {
+        RoutingTable routingTable = new RoutingTable();
+        for (int i = 0; i < 60; i++) {
+            routingTable.addEntry(new RouteEntry(new LanNetwork(new IPAddress(10, i, 0, 0), new SubnetMask(16)), new IPAddress(10, 255, 0, 1), 2));
+        }
+        MACAddress routerMac = new MACAddress("00:1a:2b:3c:4d:5e");
+        Frame update = new Frame(routerMac, MACAddress.ipv4Broadcast(),
+                new Packet(new IPAddress(10, 255, 0, 1), new IPAddress(10, 255, 0, 2), new RipMessage(routingTable)));
+        FrameEncoder encoder = new FrameEncoder();
+
+        assertEquals(3, FrameEncoder.wireFrameCount(update));
+        int[] routes = {25, 25, 10};
+        int totalLength = 0;
+        for (int wireFrame = 0; wireFrame < routes.length; wireFrame++) {
+            ByteBuffer frame = ByteBuffer.allocate(FrameEncoder.encodedLength(update, wireFrame));
+            encoder.encode(update, wireFrame, frame);
+            assertFalse(frame.hasRemaining());
+            int udpLength = FrameEncoder.UDP_HEADER_SIZE + 4 + 20 * routes[wireFrame];
+            assertEquals(FrameEncoder.ETHERNET_HEADER_SIZE + FrameEncoder.IPV4_HEADER_SIZE + udpLength, frame.capacity());
+            assertEquals(FrameEncoder.IPV4_HEADER_SIZE + udpLength, frame.getShort(IP_START + 2));
+            assertEquals(FrameEncoder.RIP_PORT, frame.getShort(UDP_START + 2));
+            assertEquals(udpLength, frame.getShort(UDP_START + 4));
+            int firstRoute = UDP_START + FrameEncoder.UDP_HEADER_SIZE + 4;
+            assertEquals((int) new IPAddress(10, 25 * wireFrame, 0, 0).toLong(), frame.getInt(firstRoute + 4));
+            totalLength += frame.capacity();
+        }
+        assertEquals(totalLength, FrameEncoder.encodedLength(update));
+        assertThrows(IllegalArgumentException.class, () -> encoder.encode(update, ByteBuffer.allocate(FrameEncoder.encodedLength(update))));
+    }
+
+    @Test
+    public void testStringMessageOverTheUdpLimitIsRejected() {
+        MACAddress pcMac = new MACAddress("00:1a:2b:3c:4d:5e");
+        Frame frame = new Frame(pcMac, pcMac, new Packet(null, null, new StringMessage("x".repeat(FrameEncoder.MAX_UDP_PAYLOAD_SIZE + 1))));
+
+        assertThrows(IllegalArgumentException.class, () -> FrameEncoder.encodedLength(frame));
+    }
+}
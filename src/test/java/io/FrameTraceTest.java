@@ -0,0 +1,81 @@
+package io;
+
+import model.TrafficClass;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FrameTraceTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testRecordsAreReadBackInOrder() throws IOException {
+        Path path = tempDir.resolve("frames.sptr");
+        UUID pc = UUID.randomUUID();
+        UUID router = UUID.randomUUID();
+        try (FrameTraceWriter writer = new FrameTraceWriter(path)) {
+            writer.record(FrameTraceRecord.Kind.SENT, 10, pc, router, TrafficClass.DATA);
+            writer.record(FrameTraceRecord.Kind.DELIVERED, 510, pc, router, TrafficClass.DATA);
+            writer.record(FrameTraceRecord.Kind.DROPPED, 520, router, pc, TrafficClass.ROUTING);
+            assertEquals(3, writer.getRecordCount());
+        }
+
+        List<FrameTraceRecord> records = FrameTraceReader.read(path);
+
+        assertEquals(List.of(
+                new FrameTraceRecord(FrameTraceRecord.Kind.SENT, 10, pc, router, TrafficClass.DATA),
+                new FrameTraceRecord(FrameTraceRecord.Kind.DELIVERED, 510, pc, router, TrafficClass.DATA),
+                new FrameTraceRecord(FrameTraceRecord.Kind.DROPPED, 520, router, pc, TrafficClass.ROUTING)), records);
+    }
+
+    @Test
+    public void testTraceLargerThanBufferIsComplete() throws IOException {
+        Path path = tempDir.resolve("frames.sptr");
+        UUID[] devices = {UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID()};
+        int frameCount = 20_000;
+        try (FrameTraceWriter writer = new FrameTraceWriter(path)) {
+            for (int i = 0; i < frameCount; i++) {
+                writer.record(FrameTraceRecord.Kind.SENT, i, devices[i % 3], devices[(i + 1) % 3], TrafficClass.DATA);
+            }
+        }
+
+        List<FrameTraceRecord> records = FrameTraceReader.read(path);
+
+        assertEquals(frameCount, records.size());
+        assertEquals(frameCount - 1, records.get(frameCount - 1).simulatedTimeMillis());
+        assertEquals(devices[(frameCount - 1) % 3], records.get(frameCount - 1).fromDeviceUuid());
+    }
+
+    @Test
+    public void testAbortDropsBufferedRecords() throws IOException {
+        Path path = tempDir.resolve("frames.sptr");
+        UUID pc = UUID.randomUUID();
+        UUID router = UUID.randomUUID();
+        FrameTraceWriter writer = new FrameTraceWriter(path);
+        writer.record(FrameTraceRecord.Kind.SENT, 10, pc, router, TrafficClass.DATA);
+
+        writer.abort();
+        writer.record(FrameTraceRecord.Kind.DELIVERED, 510, pc, router, TrafficClass.DATA);
+        writer.close();
+
+        assertEquals(0, Files.size(path));
+        assertEquals(1, writer.getRecordCount());
+    }
+
+    @Test
+    public void testOtherFilesAreRejected() throws IOException {
+        Path path = tempDir.resolve("network.json");
+        Files.writeString(path, "{\"devices\": []}");
+
+        assertThrows(IOException.class, () -> FrameTraceReader.read(path));
+    }
+}
@@ -0,0 +1,54 @@
+package io;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JsonExporterTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testExportReportsProgressAndLeavesNoTemporaryFile() throws IOException {
+        NetworkData networkData = new TopologyGenerator(5).starOfStars(20, 60, 30);
+        Path file = directory.resolve("topology.json");
+        List<Long> progress = new ArrayList<>();
+        long totalItems = (long) networkData.devices().size() + networkData.connections().size();
+
+        new JsonExporter().exportNetworkData(networkData, file, (itemsWritten, total) -> {
+            assertEquals(totalItems, total);
+            progress.add(itemsWritten);
+        });
+
+        assertTrue(progress.size() > 1);
+        assertEquals(totalItems, progress.get(progress.size() - 1));
+        assertEquals(networkData, new JsonImporter().importNetworkData(file.toFile()));
+        try (var files = Files.list(directory)) {
+            assertEquals(List.of(file), files.toList());
+        }
+    }
+
+    @Test
+    public void testFailedExportKeepsThePreviousFile() throws IOException {
+        Path file = directory.resolve("topology.json");
+        Files.writeString(file, "previous");
+
+        assertThrows(IOException.class, () -> AtomicFiles.replace(file, temporary -> {
+            Files.writeString(temporary, "partial");
+            throw new IOException("disk full");
+        }));
+
+        assertEquals("previous", Files.readString(file));
+        try (var files = Files.list(directory)) {
+            assertEquals(List.of(file), files.toList());
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package io;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NetworkDataReaderTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testExportedTopologyIsImportedUnchanged() throws IOException {
+        NetworkData networkData = new TopologyGenerator(11).starOfStars(3, 4, 30);
+        File file = directory.resolve("topology.json").toFile();
+        new JsonExporter().exportNetworkData(networkData.devices(), networkData.connections(), networkData.autoNameGeneratorDTO(), file);
+
+        assertEquals(networkData, new JsonImporter().importNetworkData(file));
+    }
+
+    @Test
+    public void testPartsAreReportedInFileOrder() throws IOException {
+        Path file = directory.resolve("reordered.json");
+        Files.writeString(file, """
+                {"autoNameGeneratorDTO":{"routerNameCounter":1,"switchNameCounter":0,"routerInterfaceNameCounter":2,"pcNameCounter":1},
+                 "connections":[{"startDeviceId":"f41e343a-5970-4530-a6dc-d92b325b3c4b","endDeviceId":"26095f1c-6f18-42ad-ade9-9ffbeb28c811"}],
+                 "comment":{"ignored":[1,2,3]},
+                 "devices":[{"uuid":"f41e343a-5970-4530-a6dc-d92b325b3c4b","name":"Router0","x":279.0,"y":225.0,"type":"ROUTER"},
+                            {"uuid":"26095f1c-6f18-42ad-ade9-9ffbeb28c811","name":"PC0","x":115.0,"y":385.0,"type":"PC"}]}
+                """);
+        List<String> parts = new ArrayList<>();
+        new NetworkDataReader().read(file.toFile(), new NetworkDataReader.Listener() {
+            @Override
+            public void device(NetworkDeviceViewDTO device) {
+                parts.add(device.name());
+            }
+
+            @Override
+            public void connection(ConnectionLineDTO connection) {
+                parts.add("connection");
+            }
+
+            @Override
+            public void autoNameGenerator(AutoNameGeneratorDTO autoNameGenerator) {
+                parts.add("names " + autoNameGenerator.routerInterfaceNameCounter());
+            }
+        });
+
+        assertEquals(List.of("names 2", "connection", "Router0", "PC0"), parts);
+    }
+}
@@ -0,0 +1,50 @@
+package io;
+
+import model.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PcapWriterTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testCaptureHasThePcapLayout() throws IOException {
+        MACAddress first = new MACAddress("02:00:00:00:00:01");
+        MACAddress second = new MACAddress("02:00:00:00:00:02");
+        Frame stringFrame = new Frame(first, second, new Packet(new IPAddress(10, 0, 0, 1), new IPAddress(10, 0, 0, 2), new StringMessage("x".repeat(100))));
+        Frame ackFrame = new Frame(second, first, new Packet(new IPAddress(10, 0, 0, 2), new IPAddress(10, 0, 0, 1), new DhcpAckMessage()));
+        Path path = directory.resolve("capture.pcap");
+
+        try (PcapWriter writer = new PcapWriter(path)) {
+            writer.write(1_250, stringFrame);
+            writer.write(2_000, ackFrame);
+            assertEquals(2, writer.getFrameCount());
+        }
+
+        ByteBuffer file = ByteBuffer.wrap(Files.readAllBytes(path));
+        assertEquals(PcapWriter.MAGIC, file.getInt(0));
+        assertEquals(2, file.getShort(4));
+        assertEquals(4, file.getShort(6));
+        assertEquals(PcapWriter.SNAPLEN, file.getInt(16));
+        assertEquals(PcapWriter.LINKTYPE_ETHERNET, file.getInt(20));
+        int record = PcapWriter.GLOBAL_HEADER_SIZE;
+        int stringLength = 14 + 20 + 8 + 100;
+        assertEquals(1, file.getInt(record));
+        assertEquals(250_000, file.getInt(record + 4));
+        assertEquals(stringLength, file.getInt(record + 8));
+        assertEquals(stringLength, file.getInt(record + 12));
+        record += PcapWriter.RECORD_HEADER_SIZE + stringLength;
+        assertEquals(2, file.getInt(record));
+        assertEquals(FrameEncoder.encodedLength(ackFrame), file.getInt(record + 8));
+        assertEquals(record + PcapWriter.RECORD_HEADER_SIZE + FrameEncoder.encodedLength(ackFrame), file.capacity());
+    }
+}
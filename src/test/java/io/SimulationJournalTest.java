@@ -0,0 +1,88 @@
+package io;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SimulationJournalTest {
+    private static final int EVENT_COUNT = 5000;
+    private static final UUID PC = UUID.randomUUID();
+    private static final UUID SWITCH = UUID.randomUUID();
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Records frames three per millisecond, so index entries fall between events of the same time.
+     */
+    private Path recordJournal() throws IOException {
+        Path path = directory.resolve("simulation.spjr");
+        try (SimulationJournalWriter writer = new SimulationJournalWriter(path)) {
+            for (int i = 0; i < EVENT_COUNT; i++) {
+                writer.record(SimulationJournalRecord.Kind.FRAME_SENT, i / 3, PC, SWITCH, SimulationJournalRecord.MessageType.STRING, i);
+            }
+            writer.record(SimulationJournalRecord.Kind.DEVICE_DOWN, 0, SWITCH, null, SimulationJournalRecord.MessageType.NONE, 0);
+        }
+        return path;
+    }
+
+    private static void assertSeeksToFirstEventOfTime(SimulationJournal journal, long timeMillis) throws IOException {
+        SimulationJournal.Cursor cursor = journal.seek(timeMillis);
+        SimulationJournalRecord record = cursor.next();
+        assertEquals(timeMillis, record.simulatedTimeMillis());
+        assertEquals(3 * timeMillis, record.value());
+        assertEquals(PC, record.deviceUuid());
+        assertEquals(SWITCH, record.peerUuid());
+        assertEquals(SimulationJournalRecord.MessageType.STRING, record.messageType());
+    }
+
+    @Test
+    public void testSeekFindsTheFirstEventOfATime() throws IOException {
+        SimulationJournal journal = SimulationJournal.open(recordJournal());
+
+        assertTrue(journal.isComplete());
+        assertEquals(0, journal.getStartMillis());
+        assertEquals((EVENT_COUNT - 1) / 3, journal.getEndMillis());
+        assertSeeksToFirstEventOfTime(journal, 0);
+        assertSeeksToFirstEventOfTime(journal, 341);
+        assertSeeksToFirstEventOfTime(journal, 1200);
+
+        SimulationJournal.Cursor cursor = journal.seek(journal.getEndMillis());
+        int remaining = 0;
+        SimulationJournalRecord record;
+        SimulationJournalRecord last = null;
+        while ((record = cursor.next()) != null) {
+            remaining++;
+            last = record;
+        }
+        assertEquals(EVENT_COUNT - 3 * journal.getEndMillis() + 1, remaining);
+        // Events recorded late keep the journal in time order
+        assertEquals(SimulationJournalRecord.Kind.DEVICE_DOWN, last.kind());
+        assertEquals(journal.getEndMillis(), last.simulatedTimeMillis());
+        assertNull(last.peerUuid());
+        assertNull(journal.seek(journal.getEndMillis() + 1).next());
+    }
+
+    @Test
+    public void testJournalWithoutFooterIsRecoveredByScanning() throws IOException {
+        Path path = recordJournal();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            // A recording that was cut short has no footer offset in its header
+            channel.write(ByteBuffer.allocate(Long.BYTES), SimulationJournalWriter.FOOTER_OFFSET_POSITION);
+        }
+
+        SimulationJournal journal = SimulationJournal.open(path);
+
+        assertFalse(journal.isComplete());
+        assertEquals((EVENT_COUNT - 1) / 3, journal.getEndMillis());
+        assertSeeksToFirstEventOfTime(journal, 1000);
+    }
+}
@@ -0,0 +1,62 @@
+package io;
+
+import common.NetworkDeviceType;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TopologyGeneratorTest {
+
+    private static long count(NetworkData networkData, NetworkDeviceType type) {
+        return networkData.devices().stream().filter(device -> device.type() == type).count();
+    }
+
+    @Test
+    public void testSameSeedGivesSameTopology() {
+        NetworkData first = new TopologyGenerator(42).randomWanMesh(50, 0.1, 300);
+        NetworkData second = new TopologyGenerator(42).randomWanMesh(50, 0.1, 300);
+        NetworkData other = new TopologyGenerator(43).randomWanMesh(50, 0.1, 300);
+
+        assertEquals(first, second);
+        assertNotEquals(first.devices().get(0).uuid(), other.devices().get(0).uuid());
+    }
+
+    @Test
+    public void testFatTreeScalesTo100kPcs() {
+        NetworkData fatTree = new TopologyGenerator(1).fatTree(32, 196);
+
+        assertEquals(100_352, count(fatTree, NetworkDeviceType.PC));
+        assertEquals(256 + 512, count(fatTree, NetworkDeviceType.ROUTER));
+        assertEquals(512, count(fatTree, NetworkDeviceType.SWITCH));
+        // Every PC and switch hangs by one link, every aggregation router has 16 uplinks
+        assertEquals(100_352 + 512 + 512 * 16, fatTree.connections().size());
+        assertEquals(100_352, fatTree.autoNameGeneratorDTO().pcNameCounter());
+    }
+
+    @Test
+    public void testConnectionsReferenceGeneratedDevices() {
+        TopologyGenerator generator = new TopologyGenerator(7);
+        for (NetworkData networkData : new NetworkData[]{generator.starOfStars(4, 3, 20), generator.ringOfRouters(5, 600),
+                generator.switchChains(3, 10, 5)}) {
+            Set<UUID> uuids = new HashSet<>();
+            networkData.devices().forEach(device -> assertTrue(uuids.add(device.uuid())));
+            for (ConnectionLineDTO connection : networkData.connections()) {
+                assertTrue(uuids.contains(connection.startDeviceId()));
+                assertTrue(uuids.contains(connection.endDeviceId()));
+            }
+        }
+    }
+
+    @Test
+    public void testLanLimitsAreEnforced() {
+        TopologyGenerator generator = new TopologyGenerator(0);
+
+        assertThrows(IllegalArgumentException.class, () -> generator.starOfStars(1, 1, TopologyGenerator.MAX_PCS_PER_LAN + 1));
+        assertThrows(IllegalArgumentException.class, () -> generator.switchChains(TopologyGenerator.MAX_LANS_PER_ROUTER + 1, 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> generator.fatTree(3, 1));
+    }
+}
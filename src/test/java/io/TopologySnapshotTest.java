@@ -0,0 +1,66 @@
+package io;
+
+import common.NetworkDeviceType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TopologySnapshotTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testSnapshotRoundTrip() throws IOException {
+        NetworkData networkData = new TopologyGenerator(5).randomWanMesh(20, 0.2, 400);
+        Path file = directory.resolve("topology.spts");
+        TopologySnapshotWriter.write(file, networkData);
+
+        assertTrue(TopologySnapshot.isSnapshot(file));
+        TopologySnapshot snapshot = TopologySnapshot.open(file);
+        assertEquals(networkData.devices().size(), snapshot.getDeviceCount());
+        assertEquals(networkData.devices().get(42), snapshot.getDevice(42));
+        assertEquals(networkData, snapshot.toNetworkData());
+    }
+
+    @Test
+    public void testStateSectionsAndUnnamedDevices() throws IOException {
+        UUID router = UUID.randomUUID();
+        UUID pc = UUID.randomUUID();
+        NetworkData networkData = new NetworkData(
+                List.of(new NetworkDeviceViewDTO(router, "Router0", 1, 2, NetworkDeviceType.ROUTER),
+                        new NetworkDeviceViewDTO(pc, null, 3.5, -4, NetworkDeviceType.PC)),
+                List.of(new ConnectionLineDTO(pc, router)),
+                new AutoNameGeneratorDTO(1, 0, 2, 0));
+        ByteBuffer state = ByteBuffer.allocate(12).putInt(7).putLong(1234L).flip();
+        Path file = directory.resolve("state.spts");
+        TopologySnapshotWriter.write(file, networkData, Map.of(TopologySnapshotWriter.FIRST_STATE_TAG, state));
+
+        TopologySnapshot snapshot = TopologySnapshot.open(file);
+        assertEquals(networkData, snapshot.toNetworkData());
+        ByteBuffer section = snapshot.getSection(TopologySnapshotWriter.FIRST_STATE_TAG);
+        assertEquals(7, section.getInt());
+        assertEquals(1234L, section.getLong());
+        assertNull(snapshot.getSection(TopologySnapshotWriter.FIRST_STATE_TAG + 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> TopologySnapshotWriter.write(file, networkData, Map.of(TopologySnapshotWriter.DEVICES_SECTION, state)));
+    }
+
+    @Test
+    public void testJsonIsNotASnapshot() throws IOException {
+        Path file = directory.resolve("topology.json");
+        Files.writeString(file, "{\"devices\":[]}");
+
+        assertFalse(TopologySnapshot.isSnapshot(file));
+        assertThrows(IOException.class, () -> TopologySnapshot.open(file));
+    }
+}
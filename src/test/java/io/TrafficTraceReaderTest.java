@@ -0,0 +1,88 @@
+package io;
+
+import model.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TrafficTraceReaderTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testReadsIpv4PacketsOfPcapCaptures() throws IOException {
+        MACAddress first = new MACAddress("02:00:00:00:00:01");
+        MACAddress second = new MACAddress("02:00:00:00:00:02");
+        Frame stringFrame = new Frame(first, second, new Packet(new IPAddress(10, 0, 0, 1), new IPAddress(10, 0, 1, 2), new StringMessage("x".repeat(100))));
+        Frame arpFrame = new Frame(second, MACAddress.ipv4Broadcast(), new Packet(new IPAddress(10, 0, 1, 2), new IPAddress(10, 0, 0, 1),
+                new ArpRequestMessage(new IPAddress(10, 0, 0, 1), new IPAddress(10, 0, 1, 2), second)));
+        Frame ackFrame = new Frame(second, first, new Packet(new IPAddress(10, 0, 1, 2), new IPAddress(10, 0, 0, 1), new DhcpAckMessage()));
+        Path path = directory.resolve("capture.pcap");
+        try (PcapWriter writer = new PcapWriter(path)) {
+            writer.write(1_250, stringFrame);
+            writer.write(1_500, arpFrame);
+            writer.write(2_000, ackFrame);
+            writer.write(2_250, stringFrame);
+        }
+        // Cut the last packet off like an interrupted capture
+        byte[] capture = Files.readAllBytes(path);
+        Files.write(path, Arrays.copyOf(capture, capture.length - 10));
+
+        try (TrafficTraceReader reader = TrafficTraceReader.open(path)) {
+            assertEquals(TrafficTraceReader.Format.PCAP, reader.getFormat());
+            assertEquals(new TracePacket(1_250_000, new IPAddress(10, 0, 0, 1).toLong(), new IPAddress(10, 0, 1, 2).toLong(), 142), reader.next());
+            // The ARP request is not IPv4 and skipped
+            assertEquals(new TracePacket(2_000_000, new IPAddress(10, 0, 1, 2).toLong(), new IPAddress(10, 0, 0, 1).toLong(), FrameEncoder.encodedLength(ackFrame)),
+                    reader.next());
+            assertNull(reader.next());
+        }
+
+        ByteBuffer littleEndian = ByteBuffer.allocate(24 + 16 + 20).order(ByteOrder.LITTLE_ENDIAN);
+        littleEndian.putInt(0xa1b23c4d).putShort((short) 2).putShort((short) 4).putInt(0).putInt(0).putInt(65535).putInt(101);
+        littleEndian.putInt(3).putInt(500_000_000).putInt(20).putInt(1500);
+        littleEndian.order(ByteOrder.BIG_ENDIAN).put((byte) 0x45).put(new byte[11]).putInt(0xc0a80001).putInt(0xc0a80002);
+        Path rawCapture = directory.resolve("raw.pcap");
+        Files.write(rawCapture, littleEndian.array());
+        try (TrafficTraceReader reader = TrafficTraceReader.open(rawCapture)) {
+            assertEquals(new TracePacket(3_500_000, 0xc0a80001L, 0xc0a80002L, 1500), reader.next());
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    public void testReadsCsvFlowTraces() throws IOException {
+        Path path = directory.resolve("flows.csv");
+        Files.writeString(path, "time,source,destination,bytes\r\n"
+                + "0.5,10.0.0.1,10.0.0.2,1500\r\n"
+                + "\n"
+                + "# a comment\n"
+                + " 1.000250 , 192.168.1.10 , 10.0.0.2\n"
+                + "2,10.0.0.2,10.0.0.1,64", StandardCharsets.US_ASCII);
+
+        try (TrafficTraceReader reader = TrafficTraceReader.open(path)) {
+            assertEquals(TrafficTraceReader.Format.CSV, reader.getFormat());
+            assertEquals(new TracePacket(500_000, new IPAddress(10, 0, 0, 1).toLong(), new IPAddress(10, 0, 0, 2).toLong(), 1500), reader.next());
+            assertEquals(new TracePacket(1_000_250, new IPAddress(192, 168, 1, 10).toLong(), new IPAddress(10, 0, 0, 2).toLong(), 0), reader.next());
+            assertEquals(new TracePacket(2_000_000, new IPAddress(10, 0, 0, 2).toLong(), new IPAddress(10, 0, 0, 1).toLong(), 64), reader.next());
+            assertNull(reader.next());
+        }
+
+        Path broken = directory.resolve("broken.csv");
+        Files.writeString(broken, "1,10.0.0.1,10.0.0.2\n2,10.0.0.1,10.0.300.2\n", StandardCharsets.US_ASCII);
+        try (TrafficTraceReader reader = TrafficTraceReader.open(broken)) {
+            assertNotNull(reader.next());
+            IOException exception = assertThrows(IOException.class, reader::next);
+            assertTrue(exception.getMessage().contains(":2:"), exception.getMessage());
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HistogramTest {
+
+    @Test
+    public void testPercentilesAreWithinOnePercent() {
+        Histogram histogram = new Histogram();
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.record(value);
+        }
+
+        HistogramSnapshot snapshot = histogram.snapshot();
+
+        assertEquals(100_000, snapshot.count());
+        assertEquals(1, snapshot.min());
+        assertEquals(100_000, snapshot.max());
+        assertEquals(50_000.5, snapshot.mean(), 0.001);
+        assertEquals(50_000, snapshot.p50(), 500);
+        assertEquals(99_000, snapshot.p99(), 990);
+        assertEquals(99_900, snapshot.p999(), 999);
+    }
+
+    @Test
+    public void testSmallValuesAreExact() {
+        Histogram histogram = new Histogram();
+        histogram.record(3);
+        histogram.record(5);
+        histogram.record(-1);
+
+        HistogramSnapshot snapshot = histogram.snapshot();
+
+        assertEquals(0, snapshot.min());
+        assertEquals(3, snapshot.p50());
+        assertEquals(5, snapshot.max());
+    }
+
+    @Test
+    public void testBucketsCoverTheLongRange() {
+        for (long value : new long[]{127, 128, 129, 1L << 40, Long.MAX_VALUE}) {
+            int index = Histogram.bucketIndex(value);
+            assertTrue(Histogram.highestValueInBucket(index) >= value);
+            if (index > 0) {
+                assertTrue(Histogram.highestValueInBucket(index - 1) < value);
+            }
+        }
+    }
+
+    @Test
+    public void testEmptyHistogram() {
+        assertEquals(new HistogramSnapshot(0, 0, 0, 0, 0, 0, 0, 0), new Histogram().snapshot());
+    }
+}
@@ -0,0 +1,47 @@
+package metrics;
+
+import org.junit.jupiter.api.Test;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MetricsRegistryTest {
+
+    @Test
+    public void testSnapshotContainsEveryMetric() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("frames").add(3);
+        registry.counter("frames").increment();
+        registry.gauge("depth", () -> 7);
+        registry.histogram("latency").record(42);
+
+        MetricsSnapshot snapshot = registry.snapshot(1000);
+
+        assertEquals(1000, snapshot.simulatedTimeMillis());
+        assertEquals(4, snapshot.counters().get("frames"));
+        assertEquals(7, snapshot.gauges().get("depth"));
+        assertEquals(1, snapshot.histograms().get("latency").count());
+    }
+
+    @Test
+    public void testMetricsAreReadableThroughJmx() throws JMException {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("frames").add(5);
+        registry.histogram("latency").record(42);
+        ObjectName name = MetricsMBean.register(registry, "metrics.test:type=MetricsRegistryTest");
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            assertEquals(5L, server.getAttribute(name, "frames"));
+            assertEquals(42.0, server.getAttribute(name, "latency.p99"));
+
+            registry.counter("frames").increment();
+            assertEquals(6L, server.getAttribute(name, "frames"));
+        } finally {
+            server.unregisterMBean(name);
+        }
+    }
+}
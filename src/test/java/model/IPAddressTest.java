@@ -13,4 +13,13 @@ public class IPAddressTest {
 
         Assertions.assertEquals(expected,result);
     }
+
+    @Test
+    public void incrementOctetCarriesOverflow(){
+        IPAddress ipAddress = new IPAddress(50,0,0,252);
+
+        ipAddress.incrementOctet(4, 4);
+
+        Assertions.assertEquals("50.0.1.0", ipAddress.toString());
+    }
 }
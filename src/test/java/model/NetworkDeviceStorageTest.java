@@ -1,8 +1,11 @@
 package model;
 
+import common.GlobalEventBus;
+import common.SimulationEventBus;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
 import java.util.UUID;
 
 public class NetworkDeviceStorageTest {
@@ -10,7 +13,7 @@ public class NetworkDeviceStorageTest {
     @Test
     public void getNetworkDeviceByMac_deviceExists_returnDevice() {
 
-        NetworkDeviceStorage storage = new NetworkDeviceStorage();
+        NetworkDeviceStorage storage = new NetworkDeviceStorage(GlobalEventBus.session());
         UUID uuid = UUID.randomUUID();
         RouterModel routerModel = new RouterModel(uuid, new MACAddress(uuid.toString()));
 
@@ -20,4 +23,22 @@ public class NetworkDeviceStorageTest {
 
         Assertions.assertEquals(routerModel, resultModel);
     }
+
+    @Test
+    public void routerConnectedToSwitch_interfaceStoredOnlyInItsSession() {
+        SimulationEventBus sessionBus = new SimulationEventBus("session");
+        SimulationEventBus otherSessionBus = new SimulationEventBus("other session");
+        NetworkDeviceStorage storage = new NetworkDeviceStorage(sessionBus);
+        NetworkDeviceStorage otherStorage = new NetworkDeviceStorage(otherSessionBus);
+        UUID routerUuid = UUID.randomUUID();
+        RouterModel routerModel = new RouterModel(routerUuid, new MACAddress(routerUuid.toString()), "ROUTER0", sessionBus);
+        routerModel.createLanNetwork();
+        UUID switchUuid = UUID.randomUUID();
+        SwitchModel switchModel = new SwitchModel(switchUuid, new MACAddress(switchUuid.toString()), "SWITCH0");
+
+        Assertions.assertTrue(routerModel.addConnection(switchModel));
+
+        Assertions.assertEquals(List.of(routerModel.getLastRouterInterface()), storage.getRouterInterfaces());
+        Assertions.assertTrue(otherStorage.getRouterInterfaces().isEmpty());
+    }
 }
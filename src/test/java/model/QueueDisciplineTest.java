@@ -0,0 +1,123 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class QueueDisciplineTest {
+
+    private static QueuedFrame queuedFrame(Message message) {
+        return queuedFrame(message, 0);
+    }
+
+    private static QueuedFrame queuedFrame(Message message, long enqueuedAtMillis) {
+        MACAddress macAddress = new MACAddress(UUID.randomUUID().toString());
+        Packet packet = new Packet(new IPAddress(50, 0, 0, 1), new IPAddress(50, 0, 0, 2), message);
+        return new QueuedFrame(null, new Frame(macAddress, macAddress, packet), enqueuedAtMillis);
+    }
+
+    @Test
+    public void tailDropQueue_full_dropsArrivingFrame() {
+        TailDropQueue queue = new TailDropQueue(2);
+
+        assertTrue(queue.enqueue(queuedFrame(new StringMessage("a"))));
+        assertTrue(queue.enqueue(queuedFrame(new StringMessage("b"))));
+        assertFalse(queue.enqueue(queuedFrame(new StringMessage("c"))));
+
+        assertEquals(2, queue.size());
+        assertEquals(1, queue.getMetrics().getDropped(TrafficClass.DATA));
+        assertEquals("a", ((StringMessage) queue.dequeue(0).frame().getPacket().getMessage()).getBody());
+        assertEquals(1, queue.getMetrics().getDepth(TrafficClass.DATA));
+    }
+
+    @Test
+    public void strictPriorityQueue_ripOvertakesQueuedData() {
+        StrictPriorityQueue queue = new StrictPriorityQueue(8);
+
+        queue.enqueue(queuedFrame(new StringMessage("data")));
+        queue.enqueue(queuedFrame(new StringMessage("data")));
+        queue.enqueue(queuedFrame(new RipMessage(new RoutingTable())));
+        queue.enqueue(queuedFrame(new ArpRequestMessage(null, null, null)));
+
+        assertEquals(TrafficClass.ROUTING, queue.dequeue(0).trafficClass());
+        assertEquals(TrafficClass.ADDRESS_RESOLUTION, queue.dequeue(0).trafficClass());
+        assertEquals(TrafficClass.DATA, queue.dequeue(0).trafficClass());
+        assertEquals(TrafficClass.DATA, queue.dequeue(0).trafficClass());
+        assertNull(queue.dequeue(0));
+    }
+
+    @Test
+    public void weightedFairQueue_servesClassesProportionallyToWeights() {
+        WeightedFairQueue queue = new WeightedFairQueue(100, Map.of(TrafficClass.ROUTING, 3, TrafficClass.DATA, 1));
+        for (int i = 0; i < 40; i++) {
+            queue.enqueue(queuedFrame(new RipMessage(new RoutingTable())));
+            queue.enqueue(queuedFrame(new StringMessage("data")));
+        }
+
+        int routing = 0;
+        for (int i = 0; i < 40; i++) {
+            if (queue.dequeue(0).trafficClass() == TrafficClass.ROUTING) {
+                routing++;
+            }
+        }
+        assertEquals(30, routing);
+    }
+
+    @Test
+    public void redQueue_dropsOnlyAboveThresholds() {
+        RedQueue queue = new RedQueue(100, 5, 10, 0.5, 1.0, new Random(42));
+        for (int i = 0; i < 5; i++) {
+            assertTrue(queue.enqueue(queuedFrame(new StringMessage("data"))));
+        }
+        for (int i = 0; i < 100; i++) {
+            queue.enqueue(queuedFrame(new StringMessage("data")));
+        }
+
+        assertTrue(queue.size() >= 5 && queue.size() <= 10);
+        assertTrue(queue.getMetrics().getDropped(TrafficClass.DATA) > 0);
+    }
+
+    @Test
+    public void getQueuedFrames_leavesQueueUnchanged() {
+        StrictPriorityQueue queue = new StrictPriorityQueue(8);
+        queue.enqueue(queuedFrame(new StringMessage("data")));
+        queue.enqueue(queuedFrame(new RipMessage(new RoutingTable())));
+
+        assertEquals(2, queue.getQueuedFrames().size());
+        assertEquals(2, queue.size());
+        assertEquals(TrafficClass.ROUTING, queue.dequeue(0).trafficClass());
+    }
+
+    @Test
+    public void dequeue_measuresDelayInSimulatedTime() {
+        TailDropQueue queue = new TailDropQueue(8);
+        queue.enqueue(queuedFrame(new StringMessage("a"), 1_000));
+        queue.enqueue(queuedFrame(new StringMessage("b"), 1_100));
+
+        queue.dequeue(1_500);
+        queue.dequeue(1_700);
+
+        assertEquals(550, queue.getMetrics().getAverageDelayMillis(TrafficClass.DATA));
+        assertEquals(600, queue.getMetrics().getMaxDelayMillis(TrafficClass.DATA));
+    }
+
+    @Test
+    public void drain_removesFramesWithoutCountingThemAsTransmitted() {
+        StrictPriorityQueue queue = new StrictPriorityQueue(8);
+        queue.enqueue(queuedFrame(new StringMessage("data")));
+        queue.enqueue(queuedFrame(new RipMessage(new RoutingTable())));
+
+        List<QueuedFrame> drained = queue.drain();
+
+        assertEquals(TrafficClass.ROUTING, drained.get(0).trafficClass());
+        assertEquals(2, drained.size());
+        assertEquals(0, queue.size());
+        assertEquals(0, queue.getMetrics().getTotalDepth());
+        assertEquals(0, queue.getMetrics().getDequeued(TrafficClass.DATA));
+    }
+}
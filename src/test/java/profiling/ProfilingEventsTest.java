@@ -0,0 +1,54 @@
+package profiling;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import model.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProfilingEventsTest {
+
+    @TempDir
+    Path directory;
+
+    private static RouterModel router(String name) {
+        UUID uuid = UUID.randomUUID();
+        return new RouterModel(uuid, new MACAddress(uuid.toString()), name);
+    }
+
+    private static void exerciseRouter(RouterModel routerModel) {
+        RoutingTable advertisement = new RoutingTable();
+        advertisement.addEntry(new RouteEntry(new LanNetwork(new IPAddress(192, 168, 7, 0), new SubnetMask(24)), new IPAddress(50, 0, 0, 2), 1));
+        routerModel.updateRoutingTable(advertisement, new IPAddress(50, 0, 0, 2));
+        routerModel.queryArp(new IPAddress(50, 0, 0, 2));
+    }
+
+    @Test
+    public void testEventsAreRecordedOnlyWhenEnabled() throws Exception {
+        Path recordingFile = directory.resolve("events.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("spudrnet.RipUpdate");
+            recording.start();
+            exerciseRouter(router("Router0"));
+            recording.stop();
+            recording.dump(recordingFile);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(recordingFile).stream()
+                .filter(event -> event.getEventType().getName().startsWith("spudrnet."))
+                .toList();
+        assertEquals(1, events.size());
+        RecordedEvent ripUpdate = events.get(0);
+        assertEquals("spudrnet.RipUpdate", ripUpdate.getEventType().getName());
+        assertEquals("Router0", ripUpdate.getString("router"));
+        assertEquals(1, ripUpdate.getInt("advertisedRoutes"));
+        assertEquals("50.0.0.2", ripUpdate.getString("sourceIp"));
+    }
+}
@@ -0,0 +1,117 @@
+package view;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ForceDirectedLayoutTest {
+    @Test
+    public void step_spreadsATreeFromOnePointTheSameOnAnyNumberOfThreads() throws InterruptedException {
+        int nodes = 2_000;
+        int[] edgeStarts = new int[nodes - 1];
+        int[] edgeEnds = new int[nodes - 1];
+        for (int node = 1; node < nodes; node++) {
+            edgeStarts[node - 1] = (node - 1) / 3;
+            edgeEnds[node - 1] = node;
+        }
+        ExecutorService oneThread = Executors.newSingleThreadExecutor();
+        ExecutorService fourThreads = Executors.newFixedThreadPool(4);
+        try {
+            ForceDirectedLayout sequential = run(new ForceDirectedLayout(new double[nodes], new double[nodes], edgeStarts, edgeEnds, null, 200), oneThread);
+            ForceDirectedLayout parallel = run(new ForceDirectedLayout(new double[nodes], new double[nodes], edgeStarts, edgeEnds, null, 200), fourThreads);
+            assertArrayEquals(sequential.getX(), parallel.getX());
+            assertArrayEquals(sequential.getY(), parallel.getY());
+
+            double[] x = parallel.getX();
+            double[] y = parallel.getY();
+            double closest = Double.POSITIVE_INFINITY;
+            for (int first = 0; first < nodes; first++) {
+                for (int second = first + 1; second < nodes; second++) {
+                    closest = Math.min(closest, Math.hypot(x[first] - x[second], y[first] - y[second]));
+                }
+            }
+            assertTrue(closest > 10, "nodes left on top of each other: " + closest);
+
+            double edgeLength = 0;
+            for (int edge = 0; edge < edgeStarts.length; edge++) {
+                edgeLength += Math.hypot(x[edgeStarts[edge]] - x[edgeEnds[edge]], y[edgeStarts[edge]] - y[edgeEnds[edge]]);
+            }
+            double distance = 0;
+            Random random = new Random(50);
+            for (int pair = 0; pair < edgeStarts.length; pair++) {
+                int first = random.nextInt(nodes);
+                int second = random.nextInt(nodes);
+                distance += Math.hypot(x[first] - x[second], y[first] - y[second]);
+            }
+            assertTrue(edgeLength * 4 < distance, "linked nodes are not kept close: " + edgeLength / edgeStarts.length + " against " + distance / edgeStarts.length);
+        } finally {
+            oneThread.shutdown();
+            fourThreads.shutdown();
+        }
+    }
+
+    @Test
+    public void step_keepsHierarchicalLayersOnTheirRowsAndChildrenUnderTheirParents() throws InterruptedException {
+        int routers = 8;
+        int switches = 32;
+        int pcs = 320;
+        int nodes = routers + switches + pcs;
+        int[] layers = new int[nodes];
+        int[] edgeStarts = new int[nodes - 1];
+        int[] edgeEnds = new int[nodes - 1];
+        int edge = 0;
+        for (int router = 1; router < routers; router++) {
+            edgeStarts[edge] = router - 1;
+            edgeEnds[edge++] = router;
+        }
+        for (int node = routers; node < nodes; node++) {
+            boolean isSwitch = node < routers + switches;
+            layers[node] = isSwitch ? 1 : 2;
+            edgeStarts[edge] = isSwitch ? (node - routers) % routers : routers + (node - routers - switches) % switches;
+            edgeEnds[edge++] = node;
+        }
+        Random random = new Random(50);
+        double[] initialX = new double[nodes];
+        double[] initialY = new double[nodes];
+        for (int node = 0; node < nodes; node++) {
+            initialX[node] = random.nextDouble() * 1_000;
+            initialY[node] = random.nextDouble() * 1_000;
+        }
+        ExecutorService workers = Executors.newFixedThreadPool(2);
+        try {
+            ForceDirectedLayout layout = run(new ForceDirectedLayout(initialX, initialY, edgeStarts, edgeEnds, layers, 300), workers);
+            double[] x = layout.getX();
+            double[] y = layout.getY();
+            for (int node = 0; node < nodes; node++) {
+                assertEquals(layers[node] * ForceDirectedLayout.LAYER_SPACING, y[node]);
+            }
+            double[] pcX = Arrays.copyOfRange(x, routers + switches, nodes);
+            Arrays.sort(pcX);
+            for (int pc = 1; pc < pcX.length; pc++) {
+                assertTrue(pcX[pc] - pcX[pc - 1] > 1, "PCs left on top of each other " + pcX[pc - 1] + " " + pcX[pc] + " span " + pcX[0] + ".." + pcX[pcX.length - 1]);
+            }
+            double toParent = 0;
+            double toOther = 0;
+            for (int pc = edgeStarts.length - pcs; pc < edgeStarts.length; pc++) {
+                toParent += Math.abs(x[edgeEnds[pc]] - x[edgeStarts[pc]]);
+                toOther += Math.abs(x[edgeEnds[pc]] - x[routers + random.nextInt(switches)]);
+            }
+            assertTrue(toParent * 2 < toOther, "PCs are not placed under their switches");
+        } finally {
+            workers.shutdown();
+        }
+    }
+
+    private static ForceDirectedLayout run(ForceDirectedLayout layout, ExecutorService workers) throws InterruptedException {
+        while (layout.step(workers)) {
+            assertTrue(layout.getIteration() <= layout.getIterations());
+        }
+        assertTrue(layout.isDone());
+        return layout;
+    }
+}
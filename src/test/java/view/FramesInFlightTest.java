@@ -0,0 +1,74 @@
+package view;
+
+import javafx.scene.paint.Color;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FramesInFlightTest {
+    @Test
+    public void remove_movesTheLastFrameIntoThePlaceOfTheRemovedOne() {
+        FramesInFlight frames = new FramesInFlight();
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        UUID third = UUID.randomUUID();
+        frames.add(first, null, false, 10, 100, Color.RED);
+        frames.add(second, null, false, 20, 200, Color.GREEN);
+        frames.add(third, null, true, 30, 300, Color.BLUE);
+
+        frames.remove(0);
+
+        assertEquals(2, frames.size());
+        assertEquals(third, frames.communicationId(0));
+        assertTrue(frames.isReversed(0));
+        assertEquals(30, frames.startNanos(0));
+        assertEquals(300, frames.durationNanos(0));
+        assertEquals(Color.BLUE, frames.color(0));
+        assertEquals(second, frames.communicationId(1));
+
+        frames.remove(1);
+        frames.remove(0);
+
+        assertEquals(0, frames.size());
+    }
+
+    @Test
+    public void add_growsPastTheInitialCapacityKeepingEveryFrame() {
+        FramesInFlight frames = new FramesInFlight();
+        List<UUID> added = new ArrayList<>();
+        int count = 3 * FramesInFlight.INITIAL_CAPACITY + 1;
+        for (int i = 0; i < count; i++) {
+            UUID communicationId = UUID.randomUUID();
+            added.add(communicationId);
+            frames.add(communicationId, null, i % 2 == 0, i, i + 1, Color.BLACK);
+        }
+
+        assertEquals(count, frames.size());
+        assertTrue(frames.capacity() >= count);
+        for (int i = 0; i < count; i++) {
+            assertEquals(added.get(i), frames.communicationId(i));
+            assertEquals(i, frames.startNanos(i));
+            assertEquals(i % 2 == 0, frames.isReversed(i));
+        }
+
+        // Removing every other frame keeps the rest, in whatever order
+        Set<UUID> kept = new HashSet<>();
+        for (int i = count - 1; i >= 0; i -= 2) {
+            frames.remove(i);
+        }
+        for (int i = 0; i < frames.size(); i++) {
+            kept.add(frames.communicationId(i));
+        }
+        Set<UUID> expected = new HashSet<>();
+        for (int i = 1; i < count; i += 2) {
+            expected.add(added.get(i));
+        }
+        assertEquals(expected, kept);
+    }
+}
@@ -0,0 +1,73 @@
+package view;
+
+import javafx.collections.ListChangeListener;
+import javafx.scene.paint.Color;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LogRingBufferTest {
+    private static List<LogLine> lines(int from, int to) {
+        return IntStream.range(from, to).mapToObj(i -> new LogLine("line " + i, Color.BLACK, LogLine.Category.OTHER)).toList();
+    }
+
+    private static List<String> texts(LogRingBuffer buffer) {
+        return buffer.stream().map(LogLine::text).toList();
+    }
+
+    @Test
+    public void appendAll_keepsOrderAndEvictsTheOldestRowsAfterWrappingAround() {
+        LogRingBuffer buffer = new LogRingBuffer(5);
+
+        buffer.appendAll(lines(0, 3));
+        assertEquals(List.of("line 0", "line 1", "line 2"), texts(buffer));
+
+        // Wraps around the end of the array twice
+        for (int i = 3; i < 12; i++) {
+            buffer.appendAll(lines(i, i + 1));
+        }
+
+        assertEquals(5, buffer.size());
+        assertEquals(List.of("line 7", "line 8", "line 9", "line 10", "line 11"), texts(buffer));
+        assertThrows(IndexOutOfBoundsException.class, () -> buffer.get(5));
+    }
+
+    @Test
+    public void appendAll_keepsOnlyTheNewestRowsOfABatchLargerThanTheCapacity() {
+        LogRingBuffer buffer = new LogRingBuffer(4);
+        buffer.appendAll(lines(0, 2));
+
+        buffer.appendAll(lines(2, 12));
+
+        assertEquals(List.of("line 8", "line 9", "line 10", "line 11"), texts(buffer));
+    }
+
+    @Test
+    public void appendAll_reportsABatchAsOneChange() {
+        LogRingBuffer buffer = new LogRingBuffer(4);
+        buffer.appendAll(lines(0, 3));
+        List<String> changes = new ArrayList<>();
+        buffer.addListener((ListChangeListener<LogLine>) change -> {
+            StringBuilder description = new StringBuilder();
+            while (change.next()) {
+                if (change.wasRemoved()) {
+                    description.append("removed ").append(change.getRemovedSize()).append(' ');
+                }
+                if (change.wasAdded()) {
+                    description.append("added ").append(change.getAddedSize());
+                }
+            }
+            changes.add(description.toString());
+        });
+
+        buffer.appendAll(lines(3, 6));
+        buffer.appendAll(List.of());
+
+        assertEquals(List.of("removed 2 added 3"), changes);
+        assertEquals(List.of("line 2", "line 3", "line 4", "line 5"), texts(buffer));
+    }
+}
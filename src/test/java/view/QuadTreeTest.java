@@ -0,0 +1,83 @@
+package view;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class QuadTreeTest {
+    @Test
+    public void query_findsExactlyTheIntersectingItemsAfterInsertsMovesAndRemovals() {
+        QuadTree<Integer> tree = new QuadTree<>();
+        Map<Integer, double[]> boxes = new HashMap<>();
+        Random random = new Random(47);
+        for (int item = 0; item < 2_000; item++) {
+            double[] box = randomBox(random);
+            boxes.put(item, box);
+            tree.insert(item, box[0], box[1], box[2], box[3]);
+        }
+        for (int move = 0; move < 1_000; move++) {
+            int item = random.nextInt(2_000);
+            double[] box = random.nextBoolean() ? randomBox(random) : nudge(boxes.get(item), random);
+            boxes.put(item, box);
+            assertTrue(tree.update(item, box[0], box[1], box[2], box[3]));
+        }
+        for (int item = 0; item < 2_000; item += 3) {
+            assertTrue(tree.remove(item));
+            boxes.remove(item);
+        }
+        assertFalse(tree.remove(0));
+        assertFalse(tree.update(0, 0, 0, 1, 1));
+        assertEquals(boxes.size(), tree.size());
+
+        for (int query = 0; query < 200; query++) {
+            double[] area = randomBox(random);
+            Set<Integer> expected = new HashSet<>();
+            boxes.forEach((item, box) -> {
+                if (box[0] <= area[2] && box[2] >= area[0] && box[1] <= area[3] && box[3] >= area[1]) {
+                    expected.add(item);
+                }
+            });
+            Set<Integer> found = new HashSet<>();
+            tree.query(area[0], area[1], area[2], area[3], item -> assertTrue(found.add(item), "reported twice: " + item));
+            assertEquals(expected, found);
+        }
+    }
+
+    @Test
+    public void insert_growsTowardsItemsFarOutsideAndRejectsInfiniteBoxes() {
+        QuadTree<String> tree = new QuadTree<>();
+        tree.insert("origin", 10, 10, 80, 80);
+        tree.insert("far", 1_000_000, -2_000_000, 1_000_070, -1_999_930);
+        tree.insert("negative", -50_000, 30_000, -49_930, 30_070);
+
+        Set<String> found = new HashSet<>();
+        tree.query(999_990, -2_000_010, 1_000_000, -2_000_000, found::add);
+        assertEquals(Set.of("far"), found);
+        found.clear();
+        tree.query(-1_000_000, -1_000_000, 100, 100_000, found::add);
+        assertEquals(Set.of("origin", "negative"), found);
+        assertThrows(IllegalArgumentException.class, () -> tree.insert("infinite", 0, 0, Double.POSITIVE_INFINITY, 1));
+        assertFalse(tree.contains("infinite"));
+    }
+
+    private static double[] randomBox(Random random) {
+        double x = random.nextDouble() * 8_000 - 2_000;
+        double y = random.nextDouble() * 8_000 - 2_000;
+        // Mostly device-sized boxes, some long like the lines between distant devices
+        double width = random.nextInt(10) == 0 ? random.nextDouble() * 3_000 : 70;
+        double height = random.nextInt(10) == 0 ? random.nextDouble() * 3_000 : 90;
+        return new double[]{x, y, x + width, y + height};
+    }
+
+    private static double[] nudge(double[] box, Random random) {
+        double dx = random.nextDouble() * 40 - 20;
+        double dy = random.nextDouble() * 40 - 20;
+        return new double[]{box[0] + dx, box[1] + dy, box[2] + dx, box[3] + dy};
+    }
+}